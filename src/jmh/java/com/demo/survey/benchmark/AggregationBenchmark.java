@@ -0,0 +1,75 @@
+package com.demo.survey.benchmark;
+
+import com.demo.survey.config.SurveyProperties;
+import com.demo.survey.metrics.SurveyMetrics;
+import com.demo.survey.service.DatasetLoader;
+import com.demo.survey.store.ParticipationStore;
+import com.demo.survey.store.PartitionedAggregation;
+import com.demo.survey.store.SurveyStatistics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the full recompute of the {@link SurveyStatistics} of a generated dataset.
+ * With {@code minPartitionRows} at or above the number of participations the rows are aggregated by the calling
+ * thread alone, which is the baseline of the {@link PartitionedAggregation}. The parallelism of the common pool
+ * can be set with {@code -Djava.util.concurrent.ForkJoinPool.common.parallelism}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AggregationBenchmark {
+
+    @Param({"1000000", "10000000"})
+    private int participations;
+
+    @Param({"65536", "2147483647"})
+    private int minPartitionRows;
+
+    private ParticipationStore store;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        final Path directory = Files.createTempDirectory("survey-benchmark");
+        try {
+            new SyntheticDataGenerator(participations, 1.0, 42).write(directory);
+            final SurveyProperties properties = new SurveyProperties();
+            properties.getData().setDirectory(directory.toString());
+            properties.getSnapshot().setEnabled(false);
+            store = new DatasetLoader(properties, new SurveyMetrics(new SimpleMeterRegistry())).load()
+                    .getParticipations();
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (final Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public SurveyStatistics recompute() {
+        return SurveyStatistics.of(store, minPartitionRows);
+    }
+}
@@ -0,0 +1,71 @@
+package com.demo.survey.benchmark;
+
+import com.demo.survey.model.StatusEnum;
+import com.demo.survey.store.EventLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures appending one batch of events to an {@link EventLog}, with and without syncing every batch.
+ * The events per second are the batch size times the operations per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventLogBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int batch;
+
+    @Param({"false", "true"})
+    private boolean sync;
+
+    private Path directory;
+    private EventLog log;
+    private long next;
+
+    @Setup(Level.Iteration)
+    public void open() throws IOException {
+        directory = Files.createTempDirectory("survey-benchmark");
+        log = EventLog.open(directory.resolve("events.log"));
+    }
+
+    @TearDown(Level.Iteration)
+    public void delete() throws IOException {
+        log.close();
+        Files.delete(directory.resolve("events.log"));
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public long append() throws IOException {
+        for (int i = 0; i < batch; i++) {
+            next++;
+            log.add(next, next & 1023, StatusEnum.COMPLETED, next & 63, true);
+        }
+        log.write();
+        if (sync) {
+            log.sync();
+        }
+        return log.sequence();
+    }
+}
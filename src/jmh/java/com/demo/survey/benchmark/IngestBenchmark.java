@@ -0,0 +1,118 @@
+package com.demo.survey.benchmark;
+
+import com.demo.survey.config.SurveyProperties;
+import com.demo.survey.metrics.SurveyMetrics;
+import com.demo.survey.model.StatusEnum;
+import com.demo.survey.service.DatasetHolder;
+import com.demo.survey.service.DatasetLoader;
+import com.demo.survey.service.DatasetReloader;
+import com.demo.survey.service.MemorySurveyBackend;
+import com.demo.survey.service.ParticipationWriter;
+import com.demo.survey.store.EventLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the startup ingest, {@link DatasetReloader#constructMaps()}, over a generated data directory.
+ * With {@code loggedEvents} above 0 an event log of that many events is replayed as well, which measures the
+ * recovery after a restart; with {@code snapshot=true} the first iteration writes a checkpoint that includes them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class IngestBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int participations;
+
+    @Param({"1.0"})
+    private double zipfExponent;
+
+    @Param({"FAST", "JACKSON"})
+    private SurveyProperties.Parser parser;
+
+    @Param({"true"})
+    private boolean parallel;
+
+    @Param({"false"})
+    private boolean snapshot;
+
+    @Param({"0"})
+    private int loggedEvents;
+
+    private Path directory;
+    private ParticipationWriter writer;
+    private DatasetReloader reloader;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        directory = Files.createTempDirectory("survey-benchmark");
+        final SyntheticDataGenerator generator = new SyntheticDataGenerator(participations, zipfExponent, 42);
+        generator.write(directory);
+        writeEventLog(directory.resolve("events.log"), generator);
+        final SurveyProperties properties = new SurveyProperties();
+        properties.getData().setDirectory(directory.toString());
+        properties.getData().setWatch(false);
+        properties.getIngest().setParser(parser);
+        properties.getIngest().setParallel(parallel);
+        properties.getSnapshot().setEnabled(snapshot);
+        final SurveyMetrics metrics = new SurveyMetrics(new SimpleMeterRegistry());
+        final DatasetLoader loader = new DatasetLoader(properties, metrics);
+        final DatasetHolder datasets = new DatasetHolder();
+        writer = new ParticipationWriter(datasets, loader, new MemorySurveyBackend(), metrics, properties);
+        reloader = new DatasetReloader(loader, datasets, writer, properties);
+    }
+
+    private void writeEventLog(final Path path, final SyntheticDataGenerator generator) throws IOException {
+        final SplittableRandom random = new SplittableRandom(7);
+        try (EventLog log = EventLog.open(path)) {
+            for (int i = 0; i < loggedEvents; i++) {
+                log.add(1 + random.nextInt(generator.members()), 1 + random.nextInt(generator.surveys()),
+                        StatusEnum.COMPLETED, 1 + random.nextInt(60), true);
+                if (i % ParticipationWriter.MAX_EVENTS == ParticipationWriter.MAX_EVENTS - 1) {
+                    log.write();
+                }
+            }
+            log.write();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException, InterruptedException {
+        reloader.shutdown();
+        writer.shutdown();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (final Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void constructMaps() {
+        reloader.constructMaps();
+    }
+}
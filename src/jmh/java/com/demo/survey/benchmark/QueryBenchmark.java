@@ -0,0 +1,176 @@
+package com.demo.survey.benchmark;
+
+import com.demo.survey.config.SurveyProperties;
+import com.demo.survey.dto.CollectedPointsDTO;
+import com.demo.survey.dto.MemberDTO;
+import com.demo.survey.dto.SurveyDTO;
+import com.demo.survey.dto.SurveyStatisticsDTO;
+import com.demo.survey.metrics.SurveyMetrics;
+import com.demo.survey.service.DatasetHolder;
+import com.demo.survey.service.DatasetLoader;
+import com.demo.survey.service.JdbcSurveyBackend;
+import com.demo.survey.service.MemorySurveyBackend;
+import com.demo.survey.service.QueryCache;
+import com.demo.survey.service.SurveyBackend;
+import com.demo.survey.service.SurveyService;
+import com.demo.survey.store.Dataset;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures every {@link SurveyService} query over a generated dataset.
+ * <p>
+ * The queried ids are drawn in advance, members uniformly and surveys with the same Zipf skew as the data,
+ * so popular surveys are queried more often, like they would be in production.
+ * With {@code metrics=false} every meter is denied, which measures the cost of the instrumentation.
+ * With {@code cache=true} the results come from the {@link QueryCache} after the first query of an id.
+ * With {@code backend=JDBC} the queries are answered by an in-memory H2 database instead of the indexes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class QueryBenchmark {
+
+    private static final int IDS = 1 << 12;
+
+    @Param({"10000", "1000000"})
+    private int participations;
+
+    @Param({"1.0"})
+    private double zipfExponent;
+
+    @Param({"true"})
+    private boolean metrics;
+
+    @Param({"false", "true"})
+    private boolean cache;
+
+    @Param({"MEMORY"})
+    private SurveyProperties.Backend backend;
+
+    private SurveyService service;
+    private HikariDataSource dataSource;
+    private long[] memberIds;
+    private long[] surveyIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException, InterruptedException {
+        final Path directory = Files.createTempDirectory("survey-benchmark");
+        try {
+            final SyntheticDataGenerator generator = new SyntheticDataGenerator(participations, zipfExponent, 42);
+            generator.write(directory);
+            final SurveyProperties properties = new SurveyProperties();
+            properties.getData().setDirectory(directory.toString());
+            properties.getSnapshot().setEnabled(false);
+            properties.getCache().setEnabled(cache);
+            final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            if (!metrics) {
+                registry.config().meterFilter(MeterFilter.deny());
+            }
+            final SurveyMetrics surveyMetrics = new SurveyMetrics(registry);
+            final DatasetHolder datasets = new DatasetHolder();
+            final Dataset dataset = new DatasetLoader(properties, surveyMetrics).load();
+            final SurveyBackend surveyBackend;
+            if (backend == SurveyProperties.Backend.JDBC) {
+                dataSource = new HikariDataSource();
+                dataSource.setJdbcUrl("jdbc:h2:mem:survey-benchmark");
+                final JdbcSurveyBackend jdbcBackend =
+                        new JdbcSurveyBackend(dataSource, properties.getStorage().getBatchSize());
+                jdbcBackend.update(dataset);
+                // The dataset is loaded in the background, the queries would be answered from memory until then.
+                final long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(10);
+                while (!jdbcBackend.isLoaded(dataset)) {
+                    if (System.nanoTime() > deadline) {
+                        throw new IllegalStateException("The dataset was not loaded into the database");
+                    }
+                    Thread.sleep(100);
+                }
+                surveyBackend = jdbcBackend;
+            } else {
+                surveyBackend = new MemorySurveyBackend();
+                surveyBackend.update(dataset);
+            }
+            datasets.publish(dataset);
+            service = new SurveyService(datasets, surveyMetrics, new QueryCache(properties, registry), surveyBackend);
+
+            final SplittableRandom random = new SplittableRandom(7);
+            final double[] cumulative = SyntheticDataGenerator.zipfCumulative(generator.surveys(), zipfExponent);
+            memberIds = new long[IDS];
+            surveyIds = new long[IDS];
+            for (int i = 0; i < IDS; i++) {
+                memberIds[i] = 1 + random.nextInt(generator.members());
+                surveyIds[i] = 1 + SyntheticDataGenerator.sample(cumulative, random);
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (final Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void reset() {
+        next = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @Benchmark
+    public List<MemberDTO> getSurveyMembers() {
+        return service.getSurveyMembers(surveyIds[next++ & (IDS - 1)]);
+    }
+
+    @Benchmark
+    public List<SurveyDTO> getCompletedSurveysForMember() {
+        return service.getCompletedSurveysForMember(memberIds[next++ & (IDS - 1)]);
+    }
+
+    @Benchmark
+    public List<CollectedPointsDTO> getPointsForMember() {
+        return service.getPointsForMember(memberIds[next++ & (IDS - 1)]);
+    }
+
+    @Benchmark
+    public List<MemberDTO> getInvitableMemberForSurvey() {
+        return service.getInvitableMemberForSurvey(surveyIds[next++ & (IDS - 1)]);
+    }
+
+    @Benchmark
+    public List<SurveyStatisticsDTO> getSurveyStatistics() {
+        return service.getSurveyStatistics();
+    }
+}
@@ -0,0 +1,112 @@
+package com.demo.survey.benchmark;
+
+import com.demo.survey.dto.MemberDTO;
+import com.demo.survey.dto.SurveyStatisticsDTO;
+import com.demo.survey.util.ColumnarEncoding;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the encoding of the list responses in every negotiable format, into a reused buffer.
+ * The sizes of the encoded lists are appended to {@code target/response-encoding-sizes.csv} once per trial, so
+ * a run records both the time and the payload size of every format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseEncodingBenchmark {
+
+    public enum Format {
+        JSON, CBOR, SMILE, COLUMNAR
+    }
+
+    private static final Path SIZES = Path.of("target", "response-encoding-sizes.csv");
+
+    @Param({"100", "10000"})
+    private int rows;
+
+    @Param({"JSON", "CBOR", "SMILE", "COLUMNAR"})
+    private Format format;
+
+    private List<MemberDTO> members;
+    private List<SurveyStatisticsDTO> statistics;
+    private ObjectWriter writer;
+    private ByteArrayOutputStream buffer;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        final SplittableRandom random = new SplittableRandom(42);
+        members = new ArrayList<>(rows);
+        statistics = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            members.add(MemberDTO.builder().id(1_000_000L + i).fullName("Member " + i)
+                    .email("member" + i + "@example.com").active(random.nextBoolean()).build());
+            statistics.add(SurveyStatisticsDTO.builder().surveyId((long) i).surveyName("Survey " + i)
+                    .numberOfCompletes(random.nextLong(10_000)).numberOfFiltered(random.nextLong(1_000))
+                    .numberOfRejected(random.nextLong(1_000)).averageLengthSpent(random.nextDouble(5, 60)).build());
+        }
+        writer = switch (format) {
+            case JSON -> new ObjectMapper().writer();
+            case CBOR -> new CBORMapper().writer();
+            case SMILE -> new SmileMapper().writer();
+            case COLUMNAR -> null;
+        };
+        buffer = new ByteArrayOutputStream(1 << 20);
+        final StringBuilder sizes = new StringBuilder();
+        if (!Files.exists(SIZES)) {
+            Files.createDirectories(SIZES.getParent());
+            sizes.append("format,rows,list,bytes\n");
+        }
+        sizes.append(String.format("%s,%d,members,%d%n", format, rows, encode(members).size()));
+        sizes.append(String.format("%s,%d,statistics,%d%n", format, rows, encode(statistics).size()));
+        Files.writeString(SIZES, sizes, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream members() throws IOException {
+        return encode(members);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream statistics() throws IOException {
+        return encode(statistics);
+    }
+
+    private ByteArrayOutputStream encode(final List<?> values) throws IOException {
+        buffer.reset();
+        if (writer == null) {
+            ColumnarEncoding.write(values, buffer);
+        } else {
+            writer.writeValue(buffer, values);
+        }
+        return buffer;
+    }
+}
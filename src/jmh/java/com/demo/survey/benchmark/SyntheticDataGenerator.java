@@ -0,0 +1,138 @@
+package com.demo.survey.benchmark;
+
+import com.demo.survey.model.StatusEnum;
+import com.demo.survey.service.DatasetLoader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generates the four csv files of a synthetic dataset.
+ * <p>
+ * The number of members and surveys scales with the number of participations. Participations are
+ * spread evenly over the members, while the popularity of the surveys follows a Zipf distribution,
+ * so a few surveys collect most of the participations. The output only depends on the parameters
+ * and the seed.
+ * <p>
+ * Can also be run on its own to produce a data directory for the application:
+ * {@code SyntheticDataGenerator <directory> <participations> [zipf exponent]}.
+ */
+public final class SyntheticDataGenerator {
+
+    private static final int PARTICIPATIONS_PER_MEMBER = 50;
+    private static final int PARTICIPATIONS_PER_SURVEY = 5_000;
+
+    private final int participations;
+    private final int members;
+    private final int surveys;
+    private final double zipfExponent;
+    private final long seed;
+
+    public SyntheticDataGenerator(final int participations, final double zipfExponent, final long seed) {
+        this.participations = participations;
+        this.members = Math.max(100, participations / PARTICIPATIONS_PER_MEMBER);
+        this.surveys = Math.max(10, participations / PARTICIPATIONS_PER_SURVEY);
+        this.zipfExponent = zipfExponent;
+        this.seed = seed;
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final Path directory = Path.of(args[0]);
+        Files.createDirectories(directory);
+        new SyntheticDataGenerator(Integer.parseInt(args[1]), args.length > 2 ? Double.parseDouble(args[2]) : 1.0, 42)
+                .write(directory);
+    }
+
+    public int members() {
+        return members;
+    }
+
+    public int surveys() {
+        return surveys;
+    }
+
+    /**
+     * Writes the csv files into the given directory, with the names expected by {@link DatasetLoader}.
+     *
+     * @param directory The target directory.
+     * @throws IOException if a file cannot be written.
+     */
+    public void write(final Path directory) throws IOException {
+        final SplittableRandom random = new SplittableRandom(seed);
+        try (BufferedWriter writer = writer(directory, DatasetLoader.STATUSES_FILE)) {
+            writer.write("Status Id,Name\n1,Not asked\n2,Rejected\n3,Filtered\n4,Completed\n");
+        }
+        try (BufferedWriter writer = writer(directory, DatasetLoader.MEMBERS_FILE)) {
+            writer.write("Member Id,Full name,E-mail address,Is Active\n");
+            for (int id = 1; id <= members; id++) {
+                writer.write(id + ",Member " + id + ",member" + id + "@example.com," + (random.nextInt(5) == 0 ? 0 : 1)
+                        + "\n");
+            }
+        }
+        try (BufferedWriter writer = writer(directory, DatasetLoader.SURVEYS_FILE)) {
+            writer.write("Survey Id,Name,Expected completes,Completion points,Filtered points\n");
+            for (int id = 1; id <= surveys; id++) {
+                writer.write(id + ",Survey " + id + "," + (10 + random.nextInt(1_000)) + "," + (5 + random.nextInt(50))
+                        + "," + (1 + random.nextInt(5)) + "\n");
+            }
+        }
+        final double[] cumulative = zipfCumulative(surveys, zipfExponent);
+        try (BufferedWriter writer = writer(directory, DatasetLoader.PARTICIPATION_FILE)) {
+            writer.write("Member Id,Survey Id,Status,Length\n");
+            final StringBuilder row = new StringBuilder(32);
+            for (int i = 0; i < participations; i++) {
+                final StatusEnum status = status(random);
+                row.setLength(0);
+                row.append(1 + random.nextInt(members)).append(',')
+                        .append(1 + sample(cumulative, random)).append(',')
+                        .append(status.getId()).append(',');
+                if (status == StatusEnum.COMPLETED || status == StatusEnum.FILTERED) {
+                    row.append(1 + random.nextInt(60));
+                }
+                writer.append(row).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Draws a survey index from a Zipf distribution, where the index is the rank of the survey.
+     */
+    static int sample(final double[] cumulative, final SplittableRandom random) {
+        final int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+
+    static double[] zipfCumulative(final int size, final double exponent) {
+        final double[] cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 1; rank <= size; rank++) {
+            sum += 1 / Math.pow(rank, exponent);
+            cumulative[rank - 1] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static StatusEnum status(final SplittableRandom random) {
+        final int value = random.nextInt(1_000);
+        if (value < 5) {
+            return StatusEnum.NOT_ASKED;
+        } else if (value < 300) {
+            return StatusEnum.REJECTED;
+        } else if (value < 550) {
+            return StatusEnum.FILTERED;
+        }
+        return StatusEnum.COMPLETED;
+    }
+
+    private static BufferedWriter writer(final Path directory, final String fileName) throws IOException {
+        return Files.newBufferedWriter(directory.resolve(fileName), StandardCharsets.UTF_8);
+    }
+}
@@ -1,13 +1,30 @@
 package com.demo.survey.config;
 
-import org.modelmapper.ModelMapper;
+import com.demo.survey.service.JdbcSurveyBackend;
+import com.demo.survey.service.MemorySurveyBackend;
+import com.demo.survey.service.SurveyBackend;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import javax.sql.DataSource;
+
 @Configuration
+@EnableConfigurationProperties(SurveyProperties.class)
 public class BeanConfig {
+
+    /**
+     * @param properties The application properties.
+     * @param dataSource The configured database, only used by the JDBC backend.
+     * @return The {@link SurveyBackend} selected by {@code survey.storage.backend}.
+     */
     @Bean
-    public ModelMapper modelMapper() {
-        return new ModelMapper();
+    public SurveyBackend surveyBackend(final SurveyProperties properties,
+                                       final ObjectProvider<DataSource> dataSource) {
+        if (properties.getStorage().getBackend() == SurveyProperties.Backend.JDBC) {
+            return new JdbcSurveyBackend(dataSource.getObject(), properties.getStorage().getBatchSize());
+        }
+        return new MemorySurveyBackend();
     }
 }
@@ -0,0 +1,203 @@
+package com.demo.survey.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "survey")
+public class SurveyProperties {
+
+    private final Data data = new Data();
+
+    private final Ingest ingest = new Ingest();
+
+    private final Snapshot snapshot = new Snapshot();
+
+    private final Compute compute = new Compute();
+
+    private final Cache cache = new Cache();
+
+    private final Events events = new Events();
+
+    private final Storage storage = new Storage();
+
+    @Getter
+    @Setter
+    public static class Data {
+
+        /**
+         * Directory that holds the csv files. When not set, the files are read from the classpath.
+         */
+        private String directory;
+
+        /**
+         * Whether the directory should be watched, and the data reloaded when a file changes.
+         */
+        private boolean watch = true;
+
+        /**
+         * How long the directory has to stay unchanged before a reload is started.
+         */
+        private Duration watchDebounce = Duration.ofSeconds(2);
+    }
+
+    @Getter
+    @Setter
+    public static class Ingest {
+
+        /**
+         * Whether the participation file is split into chunks that are parsed in parallel.
+         * Only applies to files in the data directory, classpath resources are always read sequentially.
+         */
+        private boolean parallel = true;
+
+        /**
+         * The nominal size of a chunk of the participation file.
+         */
+        private DataSize chunkSize = DataSize.ofMegabytes(64);
+
+        /**
+         * The number of threads used for parsing, 0 means the number of available processors.
+         */
+        private int parallelism;
+
+        /**
+         * The parser used for files with a known header. Files with an unknown header are always read by Jackson.
+         */
+        private Parser parser = Parser.FAST;
+    }
+
+    @Getter
+    @Setter
+    public static class Snapshot {
+
+        /**
+         * Whether a binary snapshot of the loaded data is kept, and restored instead of parsing the csv files
+         * when they have not changed. Only applies when a data directory is configured.
+         */
+        private boolean enabled = true;
+
+        /**
+         * The snapshot file. When not set, the snapshot is kept in the data directory.
+         */
+        private String path;
+    }
+
+    @Getter
+    @Setter
+    public static class Compute {
+
+        /**
+         * The number of threads that run the asynchronous queries, 0 means the number of available processors.
+         */
+        private int threads;
+
+        /**
+         * How many asynchronous queries may wait for a thread, further queries are rejected.
+         */
+        private int queueCapacity = 1_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+
+        /**
+         * Whether the results of the queries are cached until participations of their survey or member are
+         * recorded, or the csv files are reloaded.
+         */
+        private boolean enabled = true;
+
+        /**
+         * The estimated size of the cached results, the least valuable ones are evicted beyond it.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+
+        /**
+         * Whether the statistics and the completed surveys of the members are written from JSON serialized once
+         * per change, and gzip compressed for the clients that accept it.
+         */
+        private boolean serializedResponses;
+
+        /**
+         * The size of the serialized completed surveys kept per dataset generation, the least valuable ones are
+         * evicted beyond it. The statistics are always kept.
+         */
+        private DataSize serializedMaxSize = DataSize.ofMegabytes(64);
+    }
+
+    @Getter
+    @Setter
+    public static class Events {
+
+        /**
+         * How many requests with participation events may wait for the writer, further requests are rejected.
+         */
+        private int queueCapacity = 1_000;
+
+        /**
+         * The number of recorded participations after which every row is indexed again. When the event log is
+         * enabled, a snapshot that includes the recorded participations is written as well, and the log is
+         * rewritten without them.
+         */
+        private int compactionThreshold = 1_000_000;
+
+        /**
+         * Whether the recorded participations are written to an event log, and replayed on every load.
+         * Only applies when a data directory is configured.
+         */
+        private boolean logEnabled = true;
+
+        /**
+         * The event log file. When not set, the log is kept in the data directory.
+         */
+        private String logPath;
+
+        /**
+         * How long recorded participations may stay unsynced to the storage device. With 0 every batch is synced
+         * before it is acknowledged; otherwise batches are acknowledged once written, and synced together
+         * at most this much later, so a power failure can lose the acknowledged events of this window.
+         */
+        private Duration syncInterval = Duration.ZERO;
+
+        /**
+         * Whether new csv files are taken to include every logged event, which are then dropped from the log
+         * instead of replayed on top of the files. Only enable it when the files are exported from the system
+         * the events are recorded to.
+         */
+        private boolean dropLogOnCsvChange;
+    }
+
+    @Getter
+    @Setter
+    public static class Storage {
+
+        /**
+         * Where the queries are answered from. JDBC is experimental: it mirrors every published dataset into the
+         * configured {@code spring.datasource}, and answers the list queries with indexed SQL once the dataset is
+         * written. The in-memory indexes are kept, so an in-memory database doubles the heap taken by the data,
+         * the {@code jdbc} profile uses a file database.
+         */
+        private Backend backend = Backend.MEMORY;
+
+        /**
+         * The number of rows sent to the database in one JDBC batch.
+         */
+        private int batchSize = 10_000;
+    }
+
+    public enum Parser {
+        FAST,
+        JACKSON
+    }
+
+    public enum Backend {
+        MEMORY,
+        JDBC
+    }
+}
@@ -0,0 +1,36 @@
+package com.demo.survey.config;
+
+import com.demo.survey.controller.DatasetETagInterceptor;
+import com.demo.survey.util.ColumnarHttpMessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final DatasetETagInterceptor eTagInterceptor;
+
+    @Autowired
+    public WebConfig(final DatasetETagInterceptor eTagInterceptor) {
+        this.eTagInterceptor = eTagInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(final InterceptorRegistry registry) {
+        registry.addInterceptor(eTagInterceptor).addPathPatterns("/demo/**");
+    }
+
+    /**
+     * Adds the columnar encoding after the JSON, CBOR and Smile converters, so JSON stays the default when the
+     * client accepts any type.
+     */
+    @Override
+    public void extendMessageConverters(final List<HttpMessageConverter<?>> converters) {
+        converters.add(new ColumnarHttpMessageConverter());
+    }
+}
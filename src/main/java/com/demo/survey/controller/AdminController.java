@@ -0,0 +1,32 @@
+package com.demo.survey.controller;
+
+import com.demo.survey.service.DatasetReloader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    private final DatasetReloader reloader;
+
+    @Autowired
+    public AdminController(final DatasetReloader reloader) {
+        this.reloader = reloader;
+    }
+
+    /**
+     * A POST endpoint which starts reloading the csv files in the background.
+     * The current data keeps being served until the new data has been loaded completely.
+     *
+     * @return An empty response with HTTP 202 Accepted.
+     */
+    @PostMapping("/reload")
+    public ResponseEntity<Void> reload() {
+        reloader.reload();
+        return ResponseEntity.accepted().build();
+    }
+}
@@ -0,0 +1,122 @@
+package com.demo.survey.controller;
+
+import com.demo.survey.metrics.SurveyMetrics.Query;
+import com.demo.survey.service.DatasetHolder;
+import com.demo.survey.service.ResultStamps;
+import com.demo.survey.store.Dataset;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Answers conditional GET requests of the survey endpoints from the generation of the published dataset and the
+ * {@link ResultStamps stamp} of the requested result.
+ * <p>
+ * The responses only change when a new dataset is published, and recording participations only changes the stamps
+ * of the surveys and members they belong to. The strong ETag of a response is the generation of the dataset and the
+ * stamp of the result, followed by a hash of the request path, query and {@code Accept} header, so the JSON, CBOR,
+ * Smile and columnar bodies of a path have different tags. The gzip compressed JSON that some endpoints send gets
+ * the tag of the JSON followed by {@code -gzip}, see {@link #gzipETag(String)}. The endpoints of a single survey
+ * or member are stamped by its rows, the others by the number of rows. A matching {@code If-None-Match} is
+ * answered with 304 Not Modified before the controller is called. The {@link SuccessfulETagFilter} only sends the
+ * tag with successful responses, so the 404 of an unknown survey or member is never revalidated.
+ * <p>
+ * The stamp is read before the controller, which may already see a newer dataset. The tag then names an older
+ * result than the body, which only costs a refetch: generations never repeat and stamps only grow within one, so a
+ * tag is matched again only while the result it names is still the current one, and no newer body can exist
+ * during that time.
+ */
+@Component
+public class DatasetETagInterceptor implements HandlerInterceptor {
+
+    /**
+     * The queries of the endpoints whose result depends on the survey or member in their path.
+     */
+    private static final Map<String, Query> QUERIES = Map.of(
+            "/demo/members/{surveyId}", Query.SURVEY_MEMBERS,
+            "/demo/members/{surveyId}/stream", Query.SURVEY_MEMBERS,
+            "/demo/completed-surveys/{memberId}", Query.COMPLETED_SURVEYS,
+            "/demo/points/{memberId}", Query.POINTS,
+            "/demo/invitable-members/{surveyId}", Query.INVITABLE_MEMBERS,
+            "/demo/invitable-members/{surveyId}/stream", Query.INVITABLE_MEMBERS,
+            "/demo/statistics/{surveyId}/lengths", Query.LENGTH_DISTRIBUTION);
+
+    private final DatasetHolder datasets;
+
+    @Autowired
+    public DatasetETagInterceptor(final DatasetHolder datasets) {
+        this.datasets = datasets;
+    }
+
+    @Override
+    public boolean preHandle(final HttpServletRequest request, final HttpServletResponse response,
+                             final Object handler) {
+        // The async dispatch of a deferred result must keep the tag of the dataset the body was computed from.
+        if (request.getDispatcherType() == DispatcherType.ASYNC
+                || !(HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod()))) {
+            return true;
+        }
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        final Dataset dataset = datasets.current();
+        final String etag = eTag(dataset.getGeneration(), stamp(dataset, request), request.getRequestURI(),
+                request.getQueryString(), request.getHeader(HttpHeaders.ACCEPT));
+        // A client that was sent the gzip compressed body revalidates it with the tag of that body.
+        final String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        final String gzipETag = gzipETag(etag);
+        return !new ServletWebRequest(request, response).checkNotModified(
+                ifNoneMatch != null && ifNoneMatch.contains(gzipETag) ? gzipETag : etag);
+    }
+
+    /**
+     * The gzip compressed and the identity body of a response are different representations, which must not share
+     * a strong ETag (RFC 9110, section 8.8.3).
+     *
+     * @param etag The quoted strong ETag of a response.
+     * @return The quoted strong ETag of the response sent gzip compressed.
+     */
+    static String gzipETag(final String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    /**
+     * @param generation The generation of the dataset.
+     * @param stamp      The stamp of the result in the dataset.
+     * @param path       The path of the request.
+     * @param query      The query string of the request, or null.
+     * @param accept     The Accept header of the request, or null.
+     * @return The quoted strong ETag of the response.
+     */
+    static String eTag(final long generation, final long stamp, final String path, final String query,
+                       final String accept) {
+        final int hash = 31 * (31 * path.hashCode() + (query == null ? 0 : query.hashCode()))
+                + (accept == null ? 0 : accept.hashCode());
+        return '"' + Long.toHexString(generation) + '-' + Long.toHexString(stamp) + '-' + Integer.toHexString(hash)
+                + '"';
+    }
+
+    private static long stamp(final Dataset dataset, final HttpServletRequest request) {
+        final Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        final Query query = pattern == null ? null : QUERIES.get(pattern.toString());
+        if (query == null) {
+            return dataset.getParticipations().size();
+        }
+        @SuppressWarnings("unchecked")
+        final Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        try {
+            return ResultStamps.of(dataset, query, Long.parseLong(variables.values().iterator().next()));
+        } catch (NumberFormatException exception) {
+            // Rejected by the controller, every such request gets the same tag.
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.demo.survey.controller;
+
+import com.demo.survey.dto.IngestResultDTO;
+import com.demo.survey.dto.ParticipationEventDTO;
+import com.demo.survey.service.ParticipationWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+@RestController
+@RequestMapping("/demo")
+public class ParticipationController {
+
+    private final ParticipationWriter participationWriter;
+
+    @Autowired
+    public ParticipationController(final ParticipationWriter participationWriter) {
+        this.participationWriter = participationWriter;
+    }
+
+    /**
+     * A POST endpoint which records a participation event. The response is sent once the event is visible
+     * to the queries.
+     * @param event Request body, the {@link ParticipationEventDTO}.
+     * @return The {@link IngestResultDTO}, or HTTP 400 Bad Request if the event was rejected.
+     */
+    @PostMapping("/participations")
+    public CompletableFuture<IngestResultDTO> recordParticipation(@RequestBody final ParticipationEventDTO event) {
+        return participationWriter.record(List.of(event)).thenApply(result -> {
+            if (!result.getRejected().isEmpty()) {
+                throw new ResponseStatusException(BAD_REQUEST, result.getRejected().get(0).getReason());
+            }
+            return result;
+        });
+    }
+
+    /**
+     * A POST endpoint which records participation events. The valid events are recorded even if others
+     * are rejected. The response is sent once the accepted events are visible to the queries.
+     * @param events Request body, a JSON array of {@link ParticipationEventDTO}.
+     * @return The {@link IngestResultDTO} with the index and reason of every rejected event.
+     */
+    @PostMapping("/participations/batch")
+    public CompletableFuture<IngestResultDTO> recordParticipations(
+            @RequestBody final List<ParticipationEventDTO> events) {
+        return participationWriter.record(events);
+    }
+}
@@ -0,0 +1,145 @@
+package com.demo.survey.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Only sends the ETag of a response with a successful or a 304 Not Modified status.
+ * <p>
+ * The {@link DatasetETagInterceptor} tags a response before the controller runs, when it is not known yet whether
+ * the requested survey or member exists or the parameters are valid. The tag is held back until the body is written
+ * or the request completes, and dropped when the status is an error, so a client never revalidates a 404 into a 304.
+ * The tag is kept in a request attribute while the body of a deferred result is computed.
+ */
+@Component
+public class SuccessfulETagFilter extends OncePerRequestFilter {
+
+    private static final String ETAG_ATTRIBUTE = SuccessfulETagFilter.class.getName() + ".ETAG";
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        final ETagResponse existing = WebUtils.getNativeResponse(response, ETagResponse.class);
+        final ETagResponse wrapper = existing != null ? existing : new ETagResponse(request, response);
+        filterChain.doFilter(request, wrapper);
+        if (!request.isAsyncStarted()) {
+            wrapper.sendETag();
+        }
+    }
+
+    /**
+     * Holds the ETag back until the status of the response is known.
+     */
+    private static final class ETagResponse extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+
+        private boolean sent;
+
+        private ETagResponse(final HttpServletRequest request, final HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        public void setHeader(final String name, final String value) {
+            if (isHeldBack(name)) {
+                request.setAttribute(ETAG_ATTRIBUTE, value);
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(final String name, final String value) {
+            setHeader(name, value);
+        }
+
+        @Override
+        public boolean containsHeader(final String name) {
+            return isHeldBack(name) ? request.getAttribute(ETAG_ATTRIBUTE) != null : super.containsHeader(name);
+        }
+
+        @Override
+        public String getHeader(final String name) {
+            return isHeldBack(name) ? (String) request.getAttribute(ETAG_ATTRIBUTE) : super.getHeader(name);
+        }
+
+        @Override
+        public Collection<String> getHeaders(final String name) {
+            return isHeldBack(name) ? (getHeader(name) == null ? List.of() : List.of(getHeader(name)))
+                    : super.getHeaders(name);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            sendETag();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            sendETag();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            sendETag();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(final int sc) throws IOException {
+            dropETag();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(final int sc, final String msg) throws IOException {
+            dropETag();
+            super.sendError(sc, msg);
+        }
+
+        private boolean isHeldBack(final String name) {
+            return !sent && HttpHeaders.ETAG.equalsIgnoreCase(name);
+        }
+
+        private void dropETag() {
+            sent = true;
+            request.removeAttribute(ETAG_ATTRIBUTE);
+        }
+
+        private void sendETag() {
+            if (sent) {
+                return;
+            }
+            final String eTag = (String) request.getAttribute(ETAG_ATTRIBUTE);
+            dropETag();
+            final HttpStatus status = HttpStatus.resolve(getStatus());
+            if (eTag != null && status != null
+                    && (status.is2xxSuccessful() || status == HttpStatus.NOT_MODIFIED)) {
+                super.setHeader(HttpHeaders.ETAG, eTag);
+            }
+        }
+    }
+}
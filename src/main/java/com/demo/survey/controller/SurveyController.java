@@ -1,17 +1,43 @@
 package com.demo.survey.controller;
 
+import com.demo.survey.dto.BatchDTO;
 import com.demo.survey.dto.CollectedPointsDTO;
+import com.demo.survey.dto.LeaderboardEntryDTO;
+import com.demo.survey.dto.LengthDistributionDTO;
 import com.demo.survey.dto.MemberDTO;
+import com.demo.survey.dto.MemberPageDTO;
 import com.demo.survey.dto.SurveyDTO;
 import com.demo.survey.dto.SurveyStatisticsDTO;
+import com.demo.survey.service.AsyncSurveyService;
+import com.demo.survey.service.SerializedResponseCache;
 import com.demo.survey.service.SurveyService;
+import com.demo.survey.util.SerializedResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/demo")
@@ -19,9 +45,19 @@ public class SurveyController {
 
     private final SurveyService surveyService;
 
+    private final AsyncSurveyService asyncSurveyService;
+
+    private final SerializedResponseCache serializedResponses;
+
+    private final ObjectMapper objectMapper;
+
     @Autowired
-    public SurveyController(final SurveyService surveyService) {
+    public SurveyController(final SurveyService surveyService, final AsyncSurveyService asyncSurveyService,
+                            final SerializedResponseCache serializedResponses, final ObjectMapper objectMapper) {
         this.surveyService = surveyService;
+        this.asyncSurveyService = asyncSurveyService;
+        this.serializedResponses = serializedResponses;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -34,14 +70,70 @@ public class SurveyController {
         return surveyService.getSurveyMembers(surveyId);
     }
 
+    /**
+     * A POST endpoint which retrieves the members who completed each of the surveys with the given ids.
+     * @param surveyIds Request body, a JSON array of the ids of the surveys.
+     * @return A {@link BatchDTO} of {@link MemberDTO} keyed by survey id, with the unknown survey ids.
+     */
+    @PostMapping("/members/batch")
+    public BatchDTO<MemberDTO> getSurveyMembers(@RequestBody final List<Long> surveyIds) {
+        return surveyService.getSurveyMembers(surveyIds);
+    }
+
+    /**
+     * A GET endpoint which retrieves a page of the members who completed the survey with the given id.
+     * @param surveyId Path variable, the id of the survey.
+     * @param limit Request parameter, the maximum number of members on the page.
+     * @param cursor Optional request parameter, the cursor of the page returned by the previous call.
+     * @return A {@link MemberPageDTO}.
+     */
+    @GetMapping(value = "/members/{surveyId}", params = "limit")
+    public MemberPageDTO getSurveyMembersPage(@PathVariable final Long surveyId, @RequestParam final int limit,
+                                              @RequestParam(required = false) final String cursor) {
+        return surveyService.getSurveyMembers(surveyId, cursor, limit);
+    }
+
+    /**
+     * A GET endpoint which streams the members who completed the survey with the given id
+     * as newline delimited JSON, without collecting them in memory first.
+     * @param surveyId Path variable, the id of the survey.
+     * @return A {@link StreamingResponseBody} that writes one {@link MemberDTO} per line.
+     */
+    @GetMapping(value = "/members/{surveyId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamSurveyMembers(@PathVariable final Long surveyId) {
+        return ndjson(surveyService.streamSurveyMembers(surveyId));
+    }
+
     /**
      * A GET endpoint which retrieves a list of surveys that were completed by the member with the given id.
+     * When the serialized responses are enabled and the client prefers JSON, the JSON is written once per
+     * dataset generation, member and completed survey, and sent gzip compressed to the clients that accept it.
      * @param memberId Path variable, the id of the member.
+     * @param accept Optional request header, the media types accepted by the client.
+     * @param acceptEncoding Optional request header, the content codings accepted by the client.
+     * @param servletResponse The response, its ETag names the gzip compressed body when that is sent.
      * @return A {@link List} of {@link SurveyDTO}.
      */
     @GetMapping("/completed-surveys/{memberId}")
-    public List<SurveyDTO> getCompletedSurveysForMember(@PathVariable final Long memberId) {
-        return surveyService.getCompletedSurveysForMember(memberId);
+    public ResponseEntity<?> getCompletedSurveysForMember(
+            @PathVariable final Long memberId,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) final String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) final String acceptEncoding,
+            final HttpServletResponse servletResponse) {
+        if (serializedResponses.isEnabled() && prefersJson(accept)) {
+            return serialized(serializedResponses.completedSurveys(memberId), acceptEncoding, servletResponse);
+        }
+        return ResponseEntity.ok(surveyService.getCompletedSurveysForMember(memberId));
+    }
+
+    /**
+     * A POST endpoint which retrieves the surveys that were completed by each of the members with the given ids.
+     * @param memberIds Request body, a JSON array of the ids of the members.
+     * @return A {@link BatchDTO} of {@link SurveyDTO} keyed by member id, with the unknown member ids.
+     */
+    @PostMapping("/completed-surveys/batch")
+    public BatchDTO<SurveyDTO> getCompletedSurveysForMembers(@RequestBody final List<Long> memberIds) {
+        return surveyService.getCompletedSurveysForMembers(memberIds);
     }
 
     /**
@@ -55,6 +147,16 @@ public class SurveyController {
         return surveyService.getPointsForMember(memberId);
     }
 
+    /**
+     * A POST endpoint which retrieves the surveyId-points pairs collected by each of the members with the given ids.
+     * @param memberIds Request body, a JSON array of the ids of the members.
+     * @return A {@link BatchDTO} of {@link CollectedPointsDTO} keyed by member id, with the unknown member ids.
+     */
+    @PostMapping("/points/batch")
+    public BatchDTO<CollectedPointsDTO> getPointsForMembers(@RequestBody final List<Long> memberIds) {
+        return surveyService.getPointsForMembers(memberIds);
+    }
+
     /**
      * A GET endpoint which retrieves a list of currently active members who can be
      * invited to participate in the survey with the given id.
@@ -66,14 +168,170 @@ public class SurveyController {
         return surveyService.getInvitableMemberForSurvey(surveyId);
     }
 
+    /**
+     * A GET endpoint which retrieves a page of the currently active members who can be
+     * invited to participate in the survey with the given id.
+     * @param surveyId Path variable, the id of the survey.
+     * @param limit Request parameter, the maximum number of members on the page.
+     * @param cursor Optional request parameter, the cursor of the page returned by the previous call.
+     * @return A {@link MemberPageDTO}.
+     */
+    @GetMapping(value = "/invitable-members/{surveyId}", params = "limit")
+    public MemberPageDTO getInvitableMemberForSurveyPage(@PathVariable final Long surveyId,
+                                                         @RequestParam final int limit,
+                                                         @RequestParam(required = false) final String cursor) {
+        return surveyService.getInvitableMemberForSurvey(surveyId, cursor, limit);
+    }
+
+    /**
+     * A GET endpoint which streams the currently active members who can be invited to participate
+     * in the survey with the given id as newline delimited JSON, without collecting them in memory first.
+     * @param surveyId Path variable, the id of the survey.
+     * @return A {@link StreamingResponseBody} that writes one {@link MemberDTO} per line.
+     */
+    @GetMapping(value = "/invitable-members/{surveyId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamInvitableMemberForSurvey(@PathVariable final Long surveyId) {
+        return ndjson(surveyService.streamInvitableMemberForSurvey(surveyId));
+    }
+
     /**
      * A GET endpoint which retrieves a list of statistics
-     * that contains information about each survey.
+     * that contains information about each survey. The statistics are computed on the compute pool,
+     * the request thread is released in the meantime. When the serialized responses are enabled and the client
+     * prefers JSON, the JSON is written when the dataset is published, and sent gzip compressed to the clients
+     * that accept it.
      *
-     * @return A {@link List} of {@link SurveyStatisticsDTO}.
+     * @param accept Optional request header, the media types accepted by the client.
+     * @param acceptEncoding Optional request header, the content codings accepted by the client.
+     * @param servletResponse The response, its ETag names the gzip compressed body when that is sent.
+     * @return A {@link CompletableFuture} of a {@link List} of {@link SurveyStatisticsDTO}.
      */
     @GetMapping("/statistics")
-    public List<SurveyStatisticsDTO> getSurveyStatistics() {
-        return surveyService.getSurveyStatistics();
+    public CompletableFuture<ResponseEntity<?>> getSurveyStatistics(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) final String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) final String acceptEncoding,
+            final HttpServletResponse servletResponse) {
+        if (serializedResponses.isEnabled() && prefersJson(accept)) {
+            return CompletableFuture.completedFuture(
+                    serialized(serializedResponses.statistics(), acceptEncoding, servletResponse));
+        }
+        return asyncSurveyService.getSurveyStatistics().thenApply(statistics -> ResponseEntity.ok(statistics));
+    }
+
+    /**
+     * A GET endpoint which retrieves the distribution of the participation lengths of a survey.
+     * @param surveyId Path variable, the id of the survey.
+     * @return A {@link LengthDistributionDTO} with the median, the 90th and the 99th percentile and a histogram.
+     */
+    @GetMapping("/statistics/{surveyId}/lengths")
+    public LengthDistributionDTO getLengthDistribution(@PathVariable final Long surveyId) {
+        return surveyService.getLengthDistribution(surveyId);
+    }
+
+    /**
+     * A GET endpoint which retrieves the members with the most collected points.
+     * @param limit Optional request parameter, the maximum number of members, 10 by default.
+     * @return A {@link List} of {@link LeaderboardEntryDTO}, from the most points to the least.
+     */
+    @GetMapping("/leaderboard")
+    public List<LeaderboardEntryDTO> getLeaderboard(@RequestParam(defaultValue = "10") final int limit) {
+        return surveyService.getLeaderboard(limit);
+    }
+
+    /**
+     * A GET endpoint which retrieves the total points and the rank of the member with the given id.
+     * @param memberId Path variable, the id of the member.
+     * @return A {@link LeaderboardEntryDTO}.
+     */
+    @GetMapping("/leaderboard/{memberId}")
+    public LeaderboardEntryDTO getLeaderboardEntry(@PathVariable final Long memberId) {
+        return surveyService.getLeaderboardEntry(memberId);
+    }
+
+    private ResponseEntity<StreamingResponseBody> ndjson(final Stream<?> values) {
+        // Flushing after every value would send every line as a separate chunk.
+        final ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        final StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                final Iterator<?> iterator = values.iterator();
+                while (iterator.hasNext()) {
+                    writer.writeValue(generator, iterator.next());
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * @param servletResponse The response, whose ETag is set to the tag of the gzip compressed body when that is
+     *                        sent. The tag of a {@link ResponseEntity} would not replace the one that
+     *                        {@link DatasetETagInterceptor} already set.
+     */
+    private static ResponseEntity<byte[]> serialized(final SerializedResponse response, final String acceptEncoding,
+                                                     final HttpServletResponse servletResponse) {
+        final ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (response.gzip() != null && acceptsGzip(acceptEncoding)) {
+            final String etag = servletResponse.getHeader(HttpHeaders.ETAG);
+            if (etag != null && !etag.endsWith("-gzip\"")) {
+                servletResponse.setHeader(HttpHeaders.ETAG, DatasetETagInterceptor.gzipETag(etag));
+            }
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.gzip());
+        }
+        return builder.body(response.json());
+    }
+
+    /**
+     * @param accept The Accept header, may be {@code null}.
+     * @return Whether JSON is the type the content negotiation would choose, the serialized responses are only
+     * kept in JSON.
+     */
+    static boolean prefersJson(final String accept) {
+        if (accept == null) {
+            return true;
+        }
+        try {
+            final List<MediaType> mediaTypes = new ArrayList<>(MediaType.parseMediaTypes(accept));
+            MimeTypeUtils.sortBySpecificity(mediaTypes);
+            return mediaTypes.isEmpty() || mediaTypes.get(0).includes(MediaType.APPLICATION_JSON);
+        } catch (InvalidMediaTypeException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * @param acceptEncoding The Accept-Encoding header, may be {@code null}.
+     * @return Whether the header accepts gzip, either by name or by a wildcard, with a non-zero quality.
+     */
+    static boolean acceptsGzip(final String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (final String coding : acceptEncoding.split(",")) {
+            final String[] parts = coding.split(";");
+            final String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equalsIgnoreCase("x-gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean accepted = true;
+            for (int i = 1; i < parts.length; i++) {
+                final String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                    try {
+                        accepted = Double.parseDouble(parameter.substring(2).trim()) > 0;
+                    } catch (NumberFormatException exception) {
+                        accepted = false;
+                    }
+                }
+            }
+            if (accepted) {
+                return true;
+            }
+        }
+        return false;
     }
 }
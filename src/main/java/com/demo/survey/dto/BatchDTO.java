@@ -0,0 +1,24 @@
+package com.demo.survey.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchDTO<T> {
+
+    /**
+     * The results of the known ids, in the order of the request.
+     */
+    private Map<Long, List<T>> results;
+
+    /**
+     * The requested ids that do not exist, in the order of the request.
+     */
+    private List<Long> unknownIds;
+}
@@ -0,0 +1,22 @@
+package com.demo.survey.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestResultDTO {
+
+    /**
+     * The version of the first dataset that contains the accepted events.
+     */
+    private Long version;
+
+    private Integer accepted;
+
+    private List<RejectedEventDTO> rejected;
+}
@@ -0,0 +1,19 @@
+package com.demo.survey.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntryDTO {
+
+    private Integer rank;
+
+    private Long memberId;
+
+    private String fullName;
+
+    private Long totalPoints;
+}
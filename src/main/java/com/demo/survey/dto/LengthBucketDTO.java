@@ -0,0 +1,17 @@
+package com.demo.survey.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LengthBucketDTO {
+
+    private Long lowerBound;
+
+    private Long upperBound;
+
+    private Long count;
+}
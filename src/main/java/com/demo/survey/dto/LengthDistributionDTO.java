@@ -0,0 +1,27 @@
+package com.demo.survey.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LengthDistributionDTO {
+
+    private Long surveyId;
+
+    private String surveyName;
+
+    private Long numberOfLengths;
+
+    private Double medianLength;
+
+    private Double p90Length;
+
+    private Double p99Length;
+
+    private List<LengthBucketDTO> histogram;
+}
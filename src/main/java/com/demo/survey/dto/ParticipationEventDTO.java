@@ -0,0 +1,25 @@
+package com.demo.survey.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParticipationEventDTO {
+
+    private Long memberId;
+
+    private Long surveyId;
+
+    /**
+     * The id of the status, as in the Status column of the participation file.
+     */
+    private Long statusId;
+
+    /**
+     * The length of the participation, {@code null} if it is unknown.
+     */
+    private Long length;
+}
@@ -0,0 +1,18 @@
+package com.demo.survey.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RejectedEventDTO {
+
+    /**
+     * The position of the event in the request.
+     */
+    private Integer index;
+
+    private String reason;
+}
@@ -0,0 +1,46 @@
+package com.demo.survey.ingest;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The column layouts of the known csv files. The columns of a layout may appear in any order,
+ * but all of them have to be present and no other columns are allowed.
+ */
+public enum CsvLayout {
+    STATUSES("Status Id", "Name"),
+    MEMBERS("Member Id", "Full name", "E-mail address", "Is Active"),
+    SURVEYS("Survey Id", "Name", "Expected completes", "Completion points", "Filtered points"),
+    PARTICIPATION("Member Id", "Survey Id", "Status", "Length");
+
+    private final List<String> columns;
+
+    CsvLayout(final String... columns) {
+        this.columns = List.of(columns);
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Matches the given header against the layout.
+     *
+     * @param header The column names of a file, in file order.
+     * @return For every column of the file, the index of the same column in this layout;
+     * or {@code null} if the header does not match the layout.
+     */
+    public int[] match(final String[] header) {
+        if (header.length != columns.size()) {
+            return null;
+        }
+        final int[] mapping = new int[header.length];
+        for (int i = 0; i < header.length; i++) {
+            mapping[i] = columns.indexOf(header[i]);
+            if (mapping[i] < 0) {
+                return null;
+            }
+        }
+        return Arrays.stream(mapping).distinct().count() == mapping.length ? mapping : null;
+    }
+}
@@ -0,0 +1,186 @@
+package com.demo.survey.ingest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A forward-only cursor over the rows and fields of comma separated UTF-8 bytes.
+ * <p>
+ * The scanner only records where the current field starts and ends, numeric fields are parsed straight
+ * from the bytes, and a {@link String} is only created when {@link #stringValue()} is called.
+ * Quoted fields (with {@code ""} as an escaped quote) and both {@code \n} and {@code \r\n} line endings
+ * are supported. Not thread-safe, every thread needs its own scanner.
+ */
+public final class CsvScanner {
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int position;
+
+    private int fieldStart;
+    private int fieldEnd;
+    private boolean escaped;
+    private boolean endOfRow = true;
+
+    private byte[] scratch = new byte[64];
+
+    public CsvScanner(final ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.position = buffer.position();
+        this.limit = buffer.limit();
+    }
+
+    /**
+     * Reads the current row as a header.
+     *
+     * @return The trimmed names of the columns, or an empty array if there are no rows.
+     */
+    public String[] readHeader() {
+        if (!nextRow()) {
+            return new String[0];
+        }
+        final List<String> columns = new ArrayList<>();
+        while (nextField()) {
+            columns.add(stringValue().trim());
+        }
+        return columns.toArray(String[]::new);
+    }
+
+    /**
+     * Moves to the next non-empty row, skipping whatever is left of the current one.
+     *
+     * @return {@code true} if there is a row, {@code false} at the end of the input.
+     */
+    public boolean nextRow() {
+        while (!endOfRow) {
+            nextField();
+        }
+        while (position < limit && (buffer.get(position) == '\n' || buffer.get(position) == '\r')) {
+            position++;
+        }
+        if (position >= limit) {
+            return false;
+        }
+        endOfRow = false;
+        return true;
+    }
+
+    /**
+     * Moves to the next field of the current row.
+     *
+     * @return {@code true} if there is a field, {@code false} at the end of the row.
+     */
+    public boolean nextField() {
+        if (endOfRow) {
+            fieldStart = position;
+            fieldEnd = position;
+            return false;
+        }
+        escaped = false;
+        if (position < limit && buffer.get(position) == '"') {
+            fieldStart = ++position;
+            while (position < limit) {
+                if (buffer.get(position) == '"') {
+                    if (position + 1 < limit && buffer.get(position + 1) == '"') {
+                        escaped = true;
+                        position += 2;
+                        continue;
+                    }
+                    break;
+                }
+                position++;
+            }
+            fieldEnd = position;
+            while (position < limit && buffer.get(position) != ',' && buffer.get(position) != '\n') {
+                position++;
+            }
+        } else {
+            fieldStart = position;
+            while (position < limit && buffer.get(position) != ',' && buffer.get(position) != '\n') {
+                position++;
+            }
+            fieldEnd = position > fieldStart && buffer.get(position - 1) == '\r' ? position - 1 : position;
+        }
+        if (position >= limit || buffer.get(position) == '\n') {
+            endOfRow = true;
+        }
+        if (position < limit) {
+            position++;
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the current field has no content.
+     */
+    public boolean isEmpty() {
+        return fieldEnd == fieldStart;
+    }
+
+    /**
+     * Parses the current field as a decimal number, surrounding spaces are ignored.
+     *
+     * @return The parsed value.
+     * @throws NumberFormatException if the field is not a valid {@code long}.
+     */
+    public long longValue() {
+        int i = fieldStart;
+        int end = fieldEnd;
+        while (i < end && buffer.get(i) == ' ') {
+            i++;
+        }
+        while (end > i && buffer.get(end - 1) == ' ') {
+            end--;
+        }
+        final boolean negative = i < end && buffer.get(i) == '-';
+        if (negative || i < end && buffer.get(i) == '+') {
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("Empty number at offset " + fieldStart);
+        }
+        // Accumulates negatively, like Long.parseLong, so that Long.MIN_VALUE can be represented.
+        final long bound = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long value = 0;
+        for (; i < end; i++) {
+            final int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid number at offset " + fieldStart);
+            }
+            if (value < bound / 10 || value * 10 < bound + digit) {
+                throw new NumberFormatException("Number out of range at offset " + fieldStart);
+            }
+            value = value * 10 - digit;
+        }
+        return negative ? value : -value;
+    }
+
+    /**
+     * @param value The expected single character.
+     * @return {@code true} if the current field consists of exactly the given character.
+     */
+    public boolean is(final char value) {
+        return fieldEnd - fieldStart == 1 && buffer.get(fieldStart) == value;
+    }
+
+    /**
+     * @return The current field decoded as UTF-8, with escaped quotes resolved.
+     */
+    public String stringValue() {
+        final int length = fieldEnd - fieldStart;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length << 1)];
+        }
+        int size = 0;
+        for (int i = fieldStart; i < fieldEnd; i++) {
+            final byte value = buffer.get(i);
+            scratch[size++] = value;
+            if (escaped && value == '"') {
+                i++;
+            }
+        }
+        return new String(scratch, 0, size, StandardCharsets.UTF_8);
+    }
+}
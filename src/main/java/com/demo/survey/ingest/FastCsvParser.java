@@ -0,0 +1,157 @@
+package com.demo.survey.ingest;
+
+import com.demo.survey.model.Member;
+import com.demo.survey.model.Status;
+import com.demo.survey.model.StatusEnum;
+import com.demo.survey.model.Survey;
+import com.demo.survey.store.LongIntHashMap;
+import com.demo.survey.store.ParticipationStore;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses the known {@link CsvLayout csv layouts} directly from bytes.
+ * <p>
+ * Ids and numbers are parsed into primitives without intermediate strings, and participation rows
+ * are resolved by primitive id and written straight into a {@link ParticipationStore.Builder},
+ * so a participation row does not allocate at all.
+ * The column mapping of every method is the result of {@link CsvLayout#match(String[])}.
+ */
+public final class FastCsvParser {
+
+    private static final StatusEnum[] STATUSES = StatusEnum.values();
+
+    private FastCsvParser() {
+    }
+
+    public static List<Status> parseStatuses(final CsvScanner scanner, final int[] columns) throws IOException {
+        final List<Status> statuses = new ArrayList<>();
+        while (scanner.nextRow()) {
+            final Status status = new Status();
+            for (int column = 0; scanner.nextField(); column++) {
+                switch (role(columns, column)) {
+                    case 0 -> status.setId(longOrNull(scanner, statuses.size()));
+                    case 1 -> status.setName(scanner.stringValue());
+                    default -> {
+                    }
+                }
+            }
+            statuses.add(status);
+        }
+        return statuses;
+    }
+
+    public static List<Member> parseMembers(final CsvScanner scanner, final int[] columns) throws IOException {
+        final List<Member> members = new ArrayList<>();
+        while (scanner.nextRow()) {
+            final Member member = new Member();
+            for (int column = 0; scanner.nextField(); column++) {
+                switch (role(columns, column)) {
+                    case 0 -> member.setId(longOrNull(scanner, members.size()));
+                    case 1 -> member.setFullName(scanner.stringValue());
+                    case 2 -> member.setEmail(scanner.stringValue());
+                    case 3 -> member.setActive(scanner.is('1') ? Boolean.TRUE : scanner.is('0') ? Boolean.FALSE : null);
+                    default -> {
+                    }
+                }
+            }
+            members.add(member);
+        }
+        return members;
+    }
+
+    public static List<Survey> parseSurveys(final CsvScanner scanner, final int[] columns) throws IOException {
+        final List<Survey> surveys = new ArrayList<>();
+        while (scanner.nextRow()) {
+            final Survey survey = new Survey();
+            for (int column = 0; scanner.nextField(); column++) {
+                switch (role(columns, column)) {
+                    case 0 -> survey.setId(longOrNull(scanner, surveys.size()));
+                    case 1 -> survey.setName(scanner.stringValue());
+                    case 2 -> survey.setExpectedCompletes(longOrNull(scanner, surveys.size()));
+                    case 3 -> survey.setCompletionPoints(intOrNull(scanner, surveys.size()));
+                    case 4 -> survey.setFilteredPoints(intOrNull(scanner, surveys.size()));
+                    default -> {
+                    }
+                }
+            }
+            surveys.add(survey);
+        }
+        return surveys;
+    }
+
+    /**
+     * Parses participation rows into the given builder. Rows with an empty or unknown member, survey or
+     * status are counted as {@link ParticipationStore.Builder#skipped() skipped}.
+     *
+     * @param scanner     The scanner, positioned before the first data row.
+     * @param columns     The column mapping of the file.
+     * @param statusCodes The {@link StatusEnum} ordinal of every known status id.
+     * @param builder     The builder that receives the rows.
+     * @return The number of rows read.
+     * @throws IOException if a number cannot be parsed.
+     */
+    public static long parseParticipations(final CsvScanner scanner, final int[] columns,
+                                           final LongIntHashMap statusCodes,
+                                           final ParticipationStore.Builder builder) throws IOException {
+        long rows = 0;
+        while (scanner.nextRow()) {
+            long memberId = 0;
+            long surveyId = 0;
+            long length = 0;
+            int statusCode = LongIntHashMap.MISSING;
+            boolean resolvable = true;
+            boolean hasLength = false;
+            try {
+                for (int column = 0; scanner.nextField(); column++) {
+                    switch (role(columns, column)) {
+                        case 0 -> {
+                            resolvable &= !scanner.isEmpty();
+                            memberId = resolvable ? scanner.longValue() : 0;
+                        }
+                        case 1 -> {
+                            resolvable &= !scanner.isEmpty();
+                            surveyId = resolvable ? scanner.longValue() : 0;
+                        }
+                        case 2 -> statusCode = scanner.isEmpty() ? LongIntHashMap.MISSING
+                                : statusCodes.get(scanner.longValue());
+                        case 3 -> {
+                            hasLength = !scanner.isEmpty();
+                            length = hasLength ? scanner.longValue() : 0;
+                        }
+                        default -> {
+                        }
+                    }
+                }
+            } catch (NumberFormatException exception) {
+                throw new IOException(String.format("Invalid participation row %d", rows + 1), exception);
+            }
+            builder.add(memberId, surveyId, resolvable && statusCode != LongIntHashMap.MISSING
+                    ? STATUSES[statusCode] : null, length, hasLength);
+            rows++;
+        }
+        return rows;
+    }
+
+    private static int role(final int[] columns, final int column) {
+        return column < columns.length ? columns[column] : -1;
+    }
+
+    private static Long longOrNull(final CsvScanner scanner, final int row) throws IOException {
+        try {
+            return scanner.isEmpty() ? null : scanner.longValue();
+        } catch (NumberFormatException exception) {
+            throw new IOException(String.format("Invalid number in row %d", row + 1), exception);
+        }
+    }
+
+    private static Integer intOrNull(final CsvScanner scanner, final int row) throws IOException {
+        final Long value = longOrNull(scanner, row);
+        if (value != null && (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)) {
+            throw new IOException(String.format("Number out of range in row %d", row + 1));
+        }
+        return value == null ? null : value.intValue();
+    }
+}
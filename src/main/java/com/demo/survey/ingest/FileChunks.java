@@ -0,0 +1,93 @@
+package com.demo.survey.ingest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a line based file into byte ranges that start and end on line boundaries,
+ * so the ranges can be mapped into memory and parsed independently of each other.
+ * Quoted values spanning several lines are not supported.
+ */
+public final class FileChunks {
+
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    private FileChunks() {
+    }
+
+    /**
+     * A half-open byte range of a file.
+     *
+     * @param start The offset of the first byte.
+     * @param end   The offset after the last byte.
+     */
+    public record Range(long start, long end) {
+
+        public long length() {
+            return end - start;
+        }
+    }
+
+    /**
+     * @param channel The file.
+     * @return The offset of the second line, or the file size if there is only one line.
+     * @throws IOException if the file cannot be read.
+     */
+    public static long headerEnd(final FileChannel channel) throws IOException {
+        return nextLineStart(channel, 0);
+    }
+
+    /**
+     * Splits the bytes from the given offset until the end of the file into ranges of roughly
+     * the given size. Every range is extended until the end of the line it stops in.
+     *
+     * @param channel   The file.
+     * @param start     The offset to start from, normally the end of the header line.
+     * @param chunkSize The nominal size of a range in bytes.
+     * @return The ranges in file order, empty if there are no bytes after {@code start}.
+     * @throws IOException if the file cannot be read.
+     */
+    public static List<Range> split(final FileChannel channel, final long start, final long chunkSize)
+            throws IOException {
+        final long size = channel.size();
+        final List<Range> ranges = new ArrayList<>();
+        long position = start;
+        while (position < size) {
+            final long end = position + chunkSize >= size ? size : nextLineStart(channel, position + chunkSize);
+            ranges.add(new Range(position, end));
+            position = end;
+        }
+        return ranges;
+    }
+
+    /**
+     * Maps the given range read-only into memory.
+     *
+     * @param channel The file.
+     * @param range   The range, must not be larger than {@link Integer#MAX_VALUE} bytes.
+     * @return The mapped buffer.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static MappedByteBuffer map(final FileChannel channel, final Range range) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, range.start(), range.length());
+    }
+
+    private static long nextLineStart(final FileChannel channel, final long from) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = from;
+        int read;
+        while ((read = channel.read(buffer.clear(), position)) > 0) {
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return channel.size();
+    }
+}
@@ -0,0 +1,69 @@
+package com.demo.survey.mapper;
+
+import com.demo.survey.dto.CollectedPointsDTO;
+import com.demo.survey.dto.MemberDTO;
+import com.demo.survey.dto.SurveyDTO;
+import com.demo.survey.model.StatusEnum;
+import com.demo.survey.store.ParticipationStore;
+
+/**
+ * The DTOs of every member and survey of a {@link ParticipationStore}, addressed by ordinal.
+ * <p>
+ * The entities do not change during the lifetime of a dataset, so the survey DTOs are created once and the
+ * same instances are returned in every response. The cached DTOs are shared and must not be modified.
+ * The member DTOs are created on every call as views of the columns of the store, as there can be millions of
+ * members, and their strings would take more heap than the rest of the dataset. They copy nothing, and are
+ * serialized from the UTF-8 bytes of the store, see {@link StoredMemberDTO}.
+ */
+public final class DtoCache {
+
+    private final ParticipationStore store;
+    private final SurveyDTO[] surveys;
+    private final CollectedPointsDTO[] completedPoints;
+    private final CollectedPointsDTO[] filteredPoints;
+
+    private DtoCache(final ParticipationStore store) {
+        this.store = store;
+        this.surveys = new SurveyDTO[store.surveyCount()];
+        this.completedPoints = new CollectedPointsDTO[store.surveyCount()];
+        this.filteredPoints = new CollectedPointsDTO[store.surveyCount()];
+        for (int i = 0; i < surveys.length; i++) {
+            surveys[i] = DtoMapper.toSurveyDTO(store.survey(i));
+            completedPoints[i] = DtoMapper.toCollectedPointsDTO(store.survey(i), StatusEnum.COMPLETED);
+            filteredPoints[i] = DtoMapper.toCollectedPointsDTO(store.survey(i), StatusEnum.FILTERED);
+        }
+    }
+
+    /**
+     * Creates the DTOs of every member and survey of the store.
+     *
+     * @param store The participation store.
+     * @return The built {@link DtoCache}.
+     */
+    public static DtoCache of(final ParticipationStore store) {
+        return new DtoCache(store);
+    }
+
+    public MemberDTO member(final int memberOrdinal) {
+        return new StoredMemberDTO(store, memberOrdinal);
+    }
+
+    public SurveyDTO survey(final int surveyOrdinal) {
+        return surveys[surveyOrdinal];
+    }
+
+    /**
+     * @param surveyOrdinal The ordinal of the survey.
+     * @param statusCode    The status code of the participation, the ordinal of its {@link StatusEnum}.
+     * @return The points collected for a participation in the survey with the given status.
+     */
+    public CollectedPointsDTO collectedPoints(final int surveyOrdinal, final int statusCode) {
+        if (statusCode == StatusEnum.COMPLETED.ordinal()) {
+            return completedPoints[surveyOrdinal];
+        }
+        if (statusCode == StatusEnum.FILTERED.ordinal()) {
+            return filteredPoints[surveyOrdinal];
+        }
+        return new CollectedPointsDTO(surveys[surveyOrdinal].getId(), 0);
+    }
+}
@@ -0,0 +1,89 @@
+package com.demo.survey.mapper;
+
+import com.demo.survey.dto.CollectedPointsDTO;
+import com.demo.survey.dto.LengthBucketDTO;
+import com.demo.survey.dto.LengthDistributionDTO;
+import com.demo.survey.dto.MemberDTO;
+import com.demo.survey.dto.SurveyDTO;
+import com.demo.survey.dto.SurveyStatisticsDTO;
+import com.demo.survey.model.Member;
+import com.demo.survey.model.StatusEnum;
+import com.demo.survey.model.Survey;
+import com.demo.survey.store.LengthHistogram;
+import com.demo.survey.store.SurveyStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps the entities to their DTOs with plain constructor calls, without reflection.
+ */
+public final class DtoMapper {
+
+    private DtoMapper() {
+    }
+
+    public static MemberDTO toMemberDTO(final Member member) {
+        return new MemberDTO(member.getId(), member.getFullName(), member.getEmail(), member.getActive());
+    }
+
+    public static SurveyDTO toSurveyDTO(final Survey survey) {
+        return new SurveyDTO(survey.getId(), survey.getName(), survey.getExpectedCompletes(),
+                survey.getCompletionPoints(), survey.getFilteredPoints());
+    }
+
+    /**
+     * @param survey The survey of the participation.
+     * @param status The status of the participation.
+     * @return The points collected for the participation: the completion points for {@link StatusEnum#COMPLETED},
+     * the filtered points for {@link StatusEnum#FILTERED}, and 0 otherwise.
+     */
+    public static CollectedPointsDTO toCollectedPointsDTO(final Survey survey, final StatusEnum status) {
+        Integer points = 0;
+        if (status == StatusEnum.FILTERED) {
+            points = survey.getFilteredPoints();
+        } else if (status == StatusEnum.COMPLETED) {
+            points = survey.getCompletionPoints();
+        }
+        return new CollectedPointsDTO(survey.getId(), points);
+    }
+
+    /**
+     * @param survey        The survey.
+     * @param statistics    The aggregates of the dataset.
+     * @param surveyOrdinal The ordinal of the survey in the aggregates.
+     * @return The current statistics of the survey.
+     */
+    public static SurveyStatisticsDTO toSurveyStatisticsDTO(final Survey survey, final SurveyStatistics statistics,
+                                                            final int surveyOrdinal) {
+        return new SurveyStatisticsDTO(survey.getId(), survey.getName(),
+                statistics.count(surveyOrdinal, StatusEnum.COMPLETED),
+                statistics.count(surveyOrdinal, StatusEnum.FILTERED),
+                statistics.count(surveyOrdinal, StatusEnum.REJECTED),
+                statistics.averageLength(surveyOrdinal));
+    }
+
+    /**
+     * @param survey        The survey.
+     * @param statistics    The aggregates of the dataset.
+     * @param surveyOrdinal The ordinal of the survey in the aggregates.
+     * @return The estimated quantiles of the known lengths of the survey, {@code null} if there is none, and the
+     * non-empty buckets of their histogram.
+     */
+    public static LengthDistributionDTO toLengthDistributionDTO(final Survey survey, final SurveyStatistics statistics,
+                                                                final int surveyOrdinal) {
+        final List<LengthBucketDTO> histogram = new ArrayList<>();
+        for (int bucket = 0; bucket < LengthHistogram.BUCKET_COUNT; bucket++) {
+            final long count = statistics.lengthBucketCount(surveyOrdinal, bucket);
+            if (count > 0) {
+                histogram.add(new LengthBucketDTO(LengthHistogram.lowerBound(bucket),
+                        LengthHistogram.upperBound(bucket), count));
+            }
+        }
+        final boolean known = statistics.lengthCount(surveyOrdinal) > 0;
+        return new LengthDistributionDTO(survey.getId(), survey.getName(), statistics.lengthCount(surveyOrdinal),
+                known ? statistics.lengthQuantile(surveyOrdinal, 0.5) : null,
+                known ? statistics.lengthQuantile(surveyOrdinal, 0.9) : null,
+                known ? statistics.lengthQuantile(surveyOrdinal, 0.99) : null, histogram);
+    }
+}
@@ -0,0 +1,115 @@
+package com.demo.survey.mapper;
+
+import com.demo.survey.dto.MemberDTO;
+import com.demo.survey.store.ParticipationStore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A {@link MemberDTO} that reads the member from the columns of a {@link ParticipationStore} on every call.
+ * <p>
+ * Creating it copies nothing, and the getters decode the strings when they are called. JSON, CBOR and Smile
+ * responses do not call them: the {@link Serializer} writes the UTF-8 bytes of the names and e-mail addresses
+ * straight from the store to the response stream. It is read-only, its setters throw
+ * {@link UnsupportedOperationException}.
+ */
+@JsonSerialize(using = StoredMemberDTO.Serializer.class)
+final class StoredMemberDTO extends MemberDTO {
+
+    private final ParticipationStore store;
+    private final int memberOrdinal;
+
+    StoredMemberDTO(final ParticipationStore store, final int memberOrdinal) {
+        this.store = store;
+        this.memberOrdinal = memberOrdinal;
+    }
+
+    @Override
+    public Long getId() {
+        return store.memberId(memberOrdinal);
+    }
+
+    @Override
+    public String getFullName() {
+        return store.memberFullName(memberOrdinal);
+    }
+
+    @Override
+    public String getEmail() {
+        return store.memberEmail(memberOrdinal);
+    }
+
+    @Override
+    public Boolean getActive() {
+        return store.memberActive(memberOrdinal);
+    }
+
+    @Override
+    public void setId(final Long id) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setFullName(final String fullName) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setEmail(final String email) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setActive(final Boolean active) {
+        throw readOnly();
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("The members of a dataset are read-only");
+    }
+
+    /**
+     * Writes the same fields as the bean serializer of {@link MemberDTO}, nulls included. Only the generators that
+     * encode to a stream accept UTF-8 bytes, the strings are decoded for the others, like a {@link String} result.
+     */
+    @SuppressWarnings("serial")
+    static final class Serializer extends StdSerializer<StoredMemberDTO> {
+
+        Serializer() {
+            super(StoredMemberDTO.class);
+        }
+
+        @Override
+        public void serialize(final StoredMemberDTO value, final JsonGenerator generator,
+                              final SerializerProvider provider) throws IOException {
+            final ParticipationStore store = value.store;
+            generator.writeStartObject(value);
+            generator.writeNumberField("id", store.memberId(value.memberOrdinal));
+            if (generator.getOutputTarget() instanceof OutputStream) {
+                generator.writeFieldName("fullName");
+                if (!store.writeMemberFullName(value.memberOrdinal, generator::writeUTF8String)) {
+                    generator.writeNull();
+                }
+                generator.writeFieldName("email");
+                if (!store.writeMemberEmail(value.memberOrdinal, generator::writeUTF8String)) {
+                    generator.writeNull();
+                }
+            } else {
+                generator.writeStringField("fullName", value.getFullName());
+                generator.writeStringField("email", value.getEmail());
+            }
+            final Boolean active = store.memberActive(value.memberOrdinal);
+            if (active == null) {
+                generator.writeNullField("active");
+            } else {
+                generator.writeBooleanField("active", active);
+            }
+            generator.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.demo.survey.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The meters of the queries and of the ingest, registered once at startup.
+ * <p>
+ * Every meter is created up front and addressed by enum ordinal, and durations are passed in as
+ * {@link System#nanoTime()} differences, so recording on the query path does not allocate:
+ * no tag lookups, no {@link Timer.Sample} and no capturing lambdas.
+ * <p>
+ * The query timers publish a percentile histogram, from which the monitoring system computes the percentiles.
+ * Client side percentiles keep a rolling window of histograms per meter and cost several times more per
+ * recording, so they are left to the {@code management.metrics.distribution.percentiles} property.
+ */
+@Component
+public class SurveyMetrics {
+
+    public enum Query {
+        SURVEY_MEMBERS("getSurveyMembers"),
+        SURVEY_MEMBERS_PAGE("getSurveyMembersPage"),
+        SURVEY_MEMBERS_BATCH("getSurveyMembersBatch"),
+        COMPLETED_SURVEYS("getCompletedSurveysForMember"),
+        COMPLETED_SURVEYS_BATCH("getCompletedSurveysForMembers"),
+        POINTS("getPointsForMember"),
+        POINTS_BATCH("getPointsForMembers"),
+        INVITABLE_MEMBERS("getInvitableMemberForSurvey"),
+        INVITABLE_MEMBERS_PAGE("getInvitableMemberForSurveyPage"),
+        STATISTICS("getSurveyStatistics"),
+        LENGTH_DISTRIBUTION("getLengthDistribution"),
+        LEADERBOARD("getLeaderboard"),
+        LEADERBOARD_ENTRY("getLeaderboardEntry");
+
+        private final String tag;
+
+        Query(final String tag) {
+            this.tag = tag;
+        }
+    }
+
+    public enum Phase {
+        TOTAL,
+        DIMENSIONS,
+        PARTICIPATIONS,
+        BUILD,
+        SNAPSHOT_RESTORE,
+        SNAPSHOT_WRITE,
+        COMPACTION,
+        EVENT_REPLAY;
+
+        private String tag() {
+            return name().toLowerCase().replace('_', '-');
+        }
+    }
+
+    private static final Query[] QUERIES = Query.values();
+    private static final Phase[] PHASES = Phase.values();
+
+    private final Timer[] queryTimers = new Timer[QUERIES.length];
+    private final DistributionSummary[] resultSizes = new DistributionSummary[QUERIES.length];
+    private final Counter[] notFound = new Counter[QUERIES.length];
+    private final Timer[] phaseTimers = new Timer[PHASES.length];
+    private final Map<String, Counter> rowsParsed = new HashMap<>();
+    private final Counter unresolvedReferences;
+    private final Timer eventPublish;
+    private final Timer eventSync;
+    private final Counter acceptedEvents;
+    private final Counter rejectedEvents;
+    private final MeterRegistry registry;
+
+    @Autowired
+    public SurveyMetrics(final MeterRegistry registry) {
+        this.registry = registry;
+        for (final Query query : QUERIES) {
+            queryTimers[query.ordinal()] = Timer.builder("survey.query")
+                    .description("Latency of the survey queries")
+                    .tag("query", query.tag)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            resultSizes[query.ordinal()] = DistributionSummary.builder("survey.query.results")
+                    .description("Number of items returned by the survey queries")
+                    .tag("query", query.tag)
+                    .register(registry);
+            notFound[query.ordinal()] = Counter.builder("survey.query.not-found")
+                    .description("Survey queries for unknown ids")
+                    .tag("query", query.tag)
+                    .register(registry);
+        }
+        for (final Phase phase : PHASES) {
+            phaseTimers[phase.ordinal()] = Timer.builder("survey.ingest.phase")
+                    .description("Duration of the phases of building a dataset")
+                    .tag("phase", phase.tag())
+                    .register(registry);
+        }
+        this.unresolvedReferences = Counter.builder("survey.ingest.unresolved")
+                .description("Participation rows skipped because of an unknown member, survey or status")
+                .register(registry);
+        this.eventPublish = Timer.builder("survey.events.publish")
+                .description("Time from taking a batch of participation events to publishing them")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.eventSync = Timer.builder("survey.events.sync")
+                .description("Time to sync the event log to the storage device")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.acceptedEvents = Counter.builder("survey.events")
+                .description("Recorded participation events")
+                .tag("result", "accepted")
+                .register(registry);
+        this.rejectedEvents = Counter.builder("survey.events")
+                .description("Recorded participation events")
+                .tag("result", "rejected")
+                .register(registry);
+    }
+
+    /**
+     * Records a successful query.
+     *
+     * @param query      The query.
+     * @param startNanos The {@link System#nanoTime()} at the start of the query.
+     * @param results    The number of returned items.
+     */
+    public void recordQuery(final Query query, final long startNanos, final int results) {
+        queryTimers[query.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        resultSizes[query.ordinal()].record(results);
+    }
+
+    /**
+     * Records a query for an unknown id.
+     *
+     * @param query      The query.
+     * @param startNanos The {@link System#nanoTime()} at the start of the query.
+     */
+    public void recordNotFound(final Query query, final long startNanos) {
+        queryTimers[query.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        notFound[query.ordinal()].increment();
+    }
+
+    /**
+     * @param phase      The phase of the ingest.
+     * @param startNanos The {@link System#nanoTime()} at the start of the phase.
+     */
+    public void recordPhase(final Phase phase, final long startNanos) {
+        phaseTimers[phase.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param file The name of the parsed file.
+     * @param rows The number of rows read from the file, including the skipped ones.
+     */
+    public void recordRowsParsed(final String file, final long rows) {
+        final Counter counter;
+        synchronized (rowsParsed) {
+            counter = rowsParsed.computeIfAbsent(file, name -> Counter.builder("survey.ingest.rows")
+                    .description("Rows read from the csv files")
+                    .tag("file", name)
+                    .register(registry));
+        }
+        counter.increment(rows);
+    }
+
+    public void recordUnresolved(final long rows) {
+        unresolvedReferences.increment(rows);
+    }
+
+    /**
+     * Records a published batch of participation events.
+     *
+     * @param startNanos The {@link System#nanoTime()} when the batch was taken from the queue.
+     * @param accepted   The number of recorded events.
+     * @param rejected   The number of invalid events.
+     */
+    public void recordEvents(final long startNanos, final int accepted, final int rejected) {
+        eventPublish.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        acceptedEvents.increment(accepted);
+        rejectedEvents.increment(rejected);
+    }
+
+    public void recordSync(final long startNanos) {
+        eventSync.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
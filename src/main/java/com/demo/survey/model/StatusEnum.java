@@ -14,4 +14,19 @@ public enum StatusEnum {
     }
 
     private Long id;
+
+    /**
+     * Resolves the enum constant that belongs to the given status id.
+     *
+     * @param id The id of the status.
+     * @return The matching {@link StatusEnum}, or {@code null} if the id is unknown.
+     */
+    public static StatusEnum fromId(final Long id) {
+        for (final StatusEnum status : values()) {
+            if (status.id.equals(id)) {
+                return status;
+            }
+        }
+        return null;
+    }
 }
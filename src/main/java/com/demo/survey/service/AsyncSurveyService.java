@@ -0,0 +1,98 @@
+package com.demo.survey.service;
+
+import com.demo.survey.config.SurveyProperties;
+import com.demo.survey.dto.CollectedPointsDTO;
+import com.demo.survey.dto.MemberDTO;
+import com.demo.survey.dto.SurveyDTO;
+import com.demo.survey.dto.SurveyStatisticsDTO;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Runs the {@link SurveyService} queries on a bounded compute pool, so that expensive queries do not occupy
+ * the request threads. When every thread is busy and the queue is full, the returned future fails with
+ * a {@link ResponseStatusException} (HTTP 503 Service Unavailable) instead of queueing without limit.
+ */
+@Service
+public class AsyncSurveyService {
+
+    private final SurveyService surveyService;
+
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public AsyncSurveyService(final SurveyService surveyService, final SurveyProperties properties) {
+        this.surveyService = surveyService;
+        final int threads = properties.getCompute().getThreads() > 0
+                ? properties.getCompute().getThreads() : Runtime.getRuntime().availableProcessors();
+        final AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getCompute().getQueueCapacity())), r -> {
+            final Thread thread = new Thread(r, "survey-compute-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @see SurveyService#getSurveyMembers(Long)
+     */
+    public CompletableFuture<List<MemberDTO>> getSurveyMembers(final Long surveyId) {
+        return submit(() -> surveyService.getSurveyMembers(surveyId));
+    }
+
+    /**
+     * @see SurveyService#getCompletedSurveysForMember(Long)
+     */
+    public CompletableFuture<List<SurveyDTO>> getCompletedSurveysForMember(final Long memberId) {
+        return submit(() -> surveyService.getCompletedSurveysForMember(memberId));
+    }
+
+    /**
+     * @see SurveyService#getPointsForMember(Long)
+     */
+    public CompletableFuture<List<CollectedPointsDTO>> getPointsForMember(final Long memberId) {
+        return submit(() -> surveyService.getPointsForMember(memberId));
+    }
+
+    /**
+     * @see SurveyService#getInvitableMemberForSurvey(Long)
+     */
+    public CompletableFuture<List<MemberDTO>> getInvitableMemberForSurvey(final Long surveyId) {
+        return submit(() -> surveyService.getInvitableMemberForSurvey(surveyId));
+    }
+
+    /**
+     * @see SurveyService#getSurveyStatistics()
+     */
+    public CompletableFuture<List<SurveyStatisticsDTO>> getSurveyStatistics() {
+        return submit(surveyService::getSurveyStatistics);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> submit(final Supplier<T> query) {
+        try {
+            return CompletableFuture.supplyAsync(query, executor);
+        } catch (RejectedExecutionException exception) {
+            return CompletableFuture.failedFuture(
+                    new ResponseStatusException(SERVICE_UNAVAILABLE, "Too many queries in progress"));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.demo.survey.service;
+
+import com.demo.survey.store.Dataset;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Holds the currently published {@link Dataset}.
+ * A new snapshot replaces the old one with a single reference swap, so readers never block
+ * and never observe a partially loaded state.
+ */
+@Component
+@Log4j2
+public class DatasetHolder {
+
+    private final AtomicReference<Dataset> current = new AtomicReference<>(Dataset.empty());
+
+    private final List<Consumer<Dataset>> preparers = new CopyOnWriteArrayList<>();
+
+    /**
+     * @return The currently published {@link Dataset}.
+     */
+    public Dataset current() {
+        return current.get();
+    }
+
+    /**
+     * Registers an action that prepares every snapshot before it is published, on the thread that publishes it.
+     * An exception thrown by the action fails the publication.
+     *
+     * @param preparer Receives the snapshots that are about to be published.
+     */
+    public void beforePublish(final Consumer<Dataset> preparer) {
+        preparers.add(preparer);
+    }
+
+    /**
+     * Publishes the given snapshot, in-flight readers keep using the one they already fetched.
+     * The DTOs of the snapshot are created, and the {@link #beforePublish(Consumer) preparers} are run, before it
+     * becomes visible, so no request has to wait for them.
+     *
+     * @param dataset The new {@link Dataset}.
+     */
+    public void publish(final Dataset dataset) {
+        prepare(dataset);
+        final Dataset previous = current.getAndSet(dataset);
+        log.info(String.format("Published dataset version %d (previous: %d) with %d members, %d surveys"
+                        + " and %d participations", dataset.getVersion(), previous.getVersion(),
+                dataset.getMemberMap().size(), dataset.getSurveyMap().size(), dataset.getParticipations().size()));
+    }
+
+    /**
+     * Publishes the given snapshot if the current one is still the expected one. Unlike
+     * {@link #publish(Dataset)} it does not log, as it is called for every batch of recorded participations.
+     *
+     * @param expected The snapshot the new one was derived from.
+     * @param dataset  The new {@link Dataset}.
+     * @return {@code true} if the snapshot was published, {@code false} if another one was published meanwhile.
+     */
+    public boolean publish(final Dataset expected, final Dataset dataset) {
+        prepare(dataset);
+        return current.compareAndSet(expected, dataset);
+    }
+
+    private void prepare(final Dataset dataset) {
+        dataset.getDtos();
+        for (final Consumer<Dataset> preparer : preparers) {
+            preparer.accept(dataset);
+        }
+    }
+}
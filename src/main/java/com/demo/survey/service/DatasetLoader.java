@@ -0,0 +1,479 @@
+package com.demo.survey.service;
+
+import com.demo.survey.config.SurveyProperties;
+import com.demo.survey.ingest.CsvLayout;
+import com.demo.survey.ingest.CsvScanner;
+import com.demo.survey.ingest.FastCsvParser;
+import com.demo.survey.ingest.FileChunks;
+import com.demo.survey.metrics.SurveyMetrics;
+import com.demo.survey.metrics.SurveyMetrics.Phase;
+import com.demo.survey.model.Member;
+import com.demo.survey.model.Participation;
+import com.demo.survey.model.Status;
+import com.demo.survey.model.StatusEnum;
+import com.demo.survey.model.Survey;
+import com.demo.survey.store.Dataset;
+import com.demo.survey.store.DatasetSnapshot;
+import com.demo.survey.store.EventLog;
+import com.demo.survey.store.LongIntHashMap;
+import com.demo.survey.store.ParticipationStore;
+import com.demo.survey.util.MemberFieldDeserializer;
+import com.demo.survey.util.StatusFieldDeserializer;
+import com.demo.survey.util.SurveyFieldDeserializer;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the csv files and builds a complete {@link Dataset} from them.
+ */
+@Component
+@Log4j2
+public class DatasetLoader {
+
+    public static final String STATUSES_FILE = "OO - 2 - Statuses.csv";
+    public static final String MEMBERS_FILE = "OO - 2 - Members.csv";
+    public static final String SURVEYS_FILE = "OO - 2 - Surveys.csv";
+    public static final String PARTICIPATION_FILE = "OO - 2 - Participation.csv";
+
+    public static final List<String> FILES = List.of(STATUSES_FILE, MEMBERS_FILE, SURVEYS_FILE, PARTICIPATION_FILE);
+
+    private static final String CLASSPATH_DIRECTORY = "files/";
+
+    private static final String SNAPSHOT_FILE = "dataset.snapshot";
+
+    private static final String EVENT_LOG_FILE = "events.log";
+
+    // A mapped buffer cannot be larger than 2 GiB, leave room for extending a chunk to the end of its line.
+    private static final long MAX_CHUNK_SIZE = 1L << 30;
+
+    private static final int ESTIMATED_BYTES_PER_ROW = 32;
+
+    private final SurveyProperties properties;
+
+    private final SurveyMetrics metrics;
+
+    private final CsvMapper csvMapper = new CsvMapper();
+
+    @Autowired
+    public DatasetLoader(final SurveyProperties properties, final SurveyMetrics metrics) {
+        this.properties = properties;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Loads a new snapshot of the data, without any recorded events.
+     *
+     * @return The loaded {@link Dataset}.
+     * @throws IOException if any of the files cannot be read or parsed.
+     * @see #load(EventLog.Position)
+     */
+    public Dataset load() throws IOException {
+        return load(null);
+    }
+
+    /**
+     * Loads a new snapshot of the data. When {@code survey.snapshot.enabled} is set, the binary snapshot is
+     * restored if it was built from the current csv files; otherwise the csv files are parsed, and the
+     * binary snapshot is rewritten from the result. The restored snapshot may already include some of the
+     * logged events, see {@link Dataset#getLoggedEvents()}; the rest of the log is not replayed here.
+     * Nothing is published, the caller decides what to do with the result.
+     *
+     * @param log The current position of the {@link EventLog}, or {@code null} if there is none.
+     * @return The loaded {@link Dataset}.
+     * @throws IOException if any of the files cannot be read or parsed.
+     */
+    public Dataset load(final EventLog.Position log) throws IOException {
+        final long start = System.nanoTime();
+        final Dataset dataset = loadDataset(log);
+        metrics.recordPhase(Phase.TOTAL, start);
+        return dataset;
+    }
+
+    /**
+     * Writes a snapshot of a dataset that includes logged events, so a restart only replays the events logged
+     * after it. Nothing is written if snapshots are disabled, or the csv files changed since the dataset was
+     * loaded.
+     *
+     * @param dataset The dataset, derived from a loaded one by recording events.
+     * @param logId   The id of the {@link EventLog} the events were recorded to.
+     * @return Whether the snapshot was written and forced to the storage device, so the logged events it
+     * includes can be dropped from the log.
+     */
+    public boolean checkpoint(final Dataset dataset, final long logId) {
+        final Path snapshot = snapshotPath();
+        if (snapshot == null || dataset.getSources().isEmpty()) {
+            return false;
+        }
+        try {
+            if (!dataset.getSources().equals(sourceFiles())) {
+                log.info("The csv files changed since they were loaded, not writing a checkpoint");
+                return false;
+            }
+            writeSnapshot(dataset, logId, snapshot);
+            log.info(String.format("Wrote snapshot %s with %d logged events", snapshot, dataset.getLoggedEvents()));
+            return true;
+        } catch (IOException exception) {
+            log.warn(String.format("Cannot write snapshot %s. Exception: %s", snapshot, exception));
+            return false;
+        }
+    }
+
+    private Dataset loadDataset(final EventLog.Position eventLog) throws IOException {
+        final Path snapshot = snapshotPath();
+        if (snapshot == null) {
+            // The event log tells a new set of csv files from the one its events were recorded on by the sources.
+            return loadCsv(eventLogPath() == null ? List.of() : sourceFiles());
+        }
+        final List<DatasetSnapshot.SourceFile> sources = sourceFiles();
+        final long start = System.nanoTime();
+        try {
+            final Dataset dataset = DatasetSnapshot.read(snapshot, sources, eventLog);
+            if (dataset != null) {
+                metrics.recordPhase(Phase.SNAPSHOT_RESTORE, start);
+                log.info(String.format("Restored %d participations from snapshot %s in %d ms",
+                        dataset.getParticipations().size(), snapshot,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+                return dataset;
+            }
+            log.info(String.format("Snapshot %s is missing or out of date, reading the csv files", snapshot));
+        } catch (IOException | RuntimeException exception) {
+            log.warn(String.format("Cannot restore snapshot %s, reading the csv files. Exception: %s",
+                    snapshot, exception));
+        }
+        final Dataset dataset = loadCsv(sources);
+        if (!sources.equals(sourceFiles())) {
+            log.info("The csv files changed while they were read, not writing a snapshot");
+            return dataset;
+        }
+        try {
+            writeSnapshot(dataset, 0, snapshot);
+            log.info(String.format("Wrote snapshot %s", snapshot));
+        } catch (IOException exception) {
+            log.warn(String.format("Cannot write snapshot %s. Exception: %s", snapshot, exception));
+        }
+        return dataset;
+    }
+
+    /**
+     * Writes a snapshot, one at a time, as reloads and checkpoints share the file.
+     */
+    private synchronized void writeSnapshot(final Dataset dataset, final long logId, final Path snapshot)
+            throws IOException {
+        final long start = System.nanoTime();
+        DatasetSnapshot.write(dataset, logId, snapshot);
+        metrics.recordPhase(Phase.SNAPSHOT_WRITE, start);
+    }
+
+    /**
+     * Reads every csv file and builds a new snapshot from them.
+     * The status, member and survey files are read concurrently, and the participation file is
+     * parsed in parallel chunks when {@code survey.ingest.parallel} is enabled.
+     *
+     * @param sources The source files, recorded in the dataset for later snapshots.
+     * @return The loaded {@link Dataset}.
+     * @throws IOException if any of the files cannot be read or parsed.
+     */
+    private Dataset loadCsv(final List<DatasetSnapshot.SourceFile> sources) throws IOException {
+        final long start = System.nanoTime();
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism())) {
+            final Future<Map<Long, Status>> statuses = pool.submit(() -> readDimension(resource(STATUSES_FILE),
+                    CsvLayout.STATUSES, Status.class, FastCsvParser::parseStatuses)
+                    .stream().collect(Collectors.toMap(Status::getId, Function.identity())));
+            final Future<Map<Long, Member>> members = pool.submit(() -> readDimension(resource(MEMBERS_FILE),
+                    CsvLayout.MEMBERS, Member.class, FastCsvParser::parseMembers)
+                    .stream().collect(Collectors.toMap(Member::getId, Function.identity())));
+            final Future<Map<Long, Survey>> surveys = pool.submit(() -> readDimension(resource(SURVEYS_FILE),
+                    CsvLayout.SURVEYS, Survey.class, FastCsvParser::parseSurveys)
+                    .stream().collect(Collectors.toMap(Survey::getId, Function.identity())));
+            final Map<Long, Status> statusMap = await(statuses);
+            final Map<Long, Member> memberMap = await(members);
+            final Map<Long, Survey> surveyMap = await(surveys);
+            metrics.recordPhase(Phase.DIMENSIONS, start);
+            metrics.recordRowsParsed(STATUSES_FILE, statusMap.size());
+            metrics.recordRowsParsed(MEMBERS_FILE, memberMap.size());
+            metrics.recordRowsParsed(SURVEYS_FILE, surveyMap.size());
+
+            final ParticipationStore.Builder builder =
+                    ParticipationStore.builder(memberMap.values(), surveyMap.values(), 0);
+            readParticipations(resource(PARTICIPATION_FILE), statusMap, memberMap, surveyMap, builder, pool);
+            metrics.recordRowsParsed(PARTICIPATION_FILE, builder.size() + builder.skipped());
+            metrics.recordUnresolved(builder.skipped());
+            final long buildStart = System.nanoTime();
+            final ParticipationStore store = builder.build();
+            metrics.recordPhase(Phase.BUILD, buildStart);
+            if (builder.skipped() > 0) {
+                log.warn(String.format("Skipped %d participations with unresolved references", builder.skipped()));
+            }
+            log.info(String.format("Loaded %d participations into the columnar store (~%d KiB)",
+                    store.size(), store.estimatedHeapBytes() / 1024));
+            return Dataset.of(statusMap, surveyMap, store, sources, 0);
+        }
+    }
+
+    /**
+     * @return The configured data directory, or {@code null} if the files are read from the classpath.
+     */
+    public Path dataDirectory() {
+        final String directory = properties.getData().getDirectory();
+        return StringUtils.hasText(directory) ? Path.of(directory) : null;
+    }
+
+    /**
+     * @return The binary snapshot file, or {@code null} if snapshots are disabled or there is no data directory.
+     */
+    public Path snapshotPath() {
+        final Path directory = dataDirectory();
+        if (directory == null || !properties.getSnapshot().isEnabled()) {
+            return null;
+        }
+        final String path = properties.getSnapshot().getPath();
+        return StringUtils.hasText(path) ? Path.of(path) : directory.resolve(SNAPSHOT_FILE);
+    }
+
+    /**
+     * @return The event log file, or {@code null} if the log is disabled or there is no data directory.
+     */
+    public Path eventLogPath() {
+        final Path directory = dataDirectory();
+        if (directory == null || !properties.getEvents().isLogEnabled()) {
+            return null;
+        }
+        final String path = properties.getEvents().getLogPath();
+        return StringUtils.hasText(path) ? Path.of(path) : directory.resolve(EVENT_LOG_FILE);
+    }
+
+    private List<DatasetSnapshot.SourceFile> sourceFiles() throws IOException {
+        final List<DatasetSnapshot.SourceFile> sources = new ArrayList<>(FILES.size());
+        for (final String fileName : FILES) {
+            sources.add(DatasetSnapshot.SourceFile.of(dataDirectory().resolve(fileName)));
+        }
+        return sources;
+    }
+
+    private Resource resource(final String fileName) {
+        final Path directory = dataDirectory();
+        return directory == null ? new ClassPathResource(CLASSPATH_DIRECTORY + fileName)
+                : new FileSystemResource(directory.resolve(fileName));
+    }
+
+    private <T> List<T> readDimension(final Resource resource, final CsvLayout layout, final Class<T> clazz,
+                                      final DimensionParser<T> parser) throws IOException {
+        if (properties.getIngest().getParser() == SurveyProperties.Parser.FAST) {
+            final CsvScanner scanner = new CsvScanner(readBytes(resource));
+            final int[] columns = layout.match(scanner.readHeader());
+            if (columns != null) {
+                try {
+                    return parser.parse(scanner, columns);
+                } catch (IOException exception) {
+                    throw new IOException(String.format("Cannot parse file %s", resource.getFilename()), exception);
+                }
+            }
+            log.info(String.format("Unknown header in %s, falling back to the Jackson parser", resource.getFilename()));
+        }
+        return readCsvEntities(resource, clazz, Map.of());
+    }
+
+    private void readParticipations(final Resource resource, final Map<Long, Status> statusMap,
+                                    final Map<Long, Member> memberMap, final Map<Long, Survey> surveyMap,
+                                    final ParticipationStore.Builder builder, final ForkJoinPool pool)
+            throws IOException {
+        final ParticipationParser parser = new ParticipationParser(statusMap, memberMap, surveyMap);
+        final long start = System.nanoTime();
+        try {
+            if (!resource.isFile()) {
+                final ByteBuffer bytes = readBytes(resource);
+                final CsvScanner scanner = new CsvScanner(bytes.duplicate());
+                parser.useHeader(scanner.readHeader());
+                if (parser.columns != null) {
+                    FastCsvParser.parseParticipations(scanner, parser.columns, parser.statusCodes, builder);
+                } else {
+                    parser.parseWithJackson(bytes, CsvSchema.emptySchema().withHeader(), builder);
+                }
+            } else {
+                readParticipationChunks(resource, parser, builder, pool);
+            }
+        } catch (IOException exception) {
+            throw new IOException(String.format("Cannot parse file %s", resource.getFilename()), exception);
+        }
+        metrics.recordPhase(Phase.PARTICIPATIONS, start);
+        final long rows = builder.size() + builder.skipped();
+        final long nanos = Math.max(1, System.nanoTime() - start);
+        log.info(String.format("Parsed %d participation rows in %d ms (%d rows/s) with the %s parser", rows,
+                TimeUnit.NANOSECONDS.toMillis(nanos), rows * TimeUnit.SECONDS.toNanos(1) / nanos,
+                parser.columns != null ? "fast" : "Jackson"));
+    }
+
+    private void readParticipationChunks(final Resource resource, final ParticipationParser parser,
+                                         final ParticipationStore.Builder builder, final ForkJoinPool pool)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ)) {
+            final long headerEnd = FileChunks.headerEnd(channel);
+            parser.useHeader(new CsvScanner(FileChunks.map(channel, new FileChunks.Range(0, headerEnd))).readHeader());
+            final List<FileChunks.Range> ranges = FileChunks.split(channel, headerEnd,
+                    Math.min(properties.getIngest().getChunkSize().toBytes(), MAX_CHUNK_SIZE));
+            if (!properties.getIngest().isParallel()) {
+                for (final FileChunks.Range range : ranges) {
+                    parser.parse(FileChunks.map(channel, range), builder);
+                }
+                return;
+            }
+            final List<Future<ParticipationStore.Builder>> chunks = new ArrayList<>(ranges.size());
+            for (final FileChunks.Range range : ranges) {
+                chunks.add(pool.submit(() -> parser.parse(FileChunks.map(channel, range),
+                        builder.fork((int) (range.length() / ESTIMATED_BYTES_PER_ROW)))));
+            }
+            for (final Future<ParticipationStore.Builder> chunk : chunks) {
+                builder.append(await(chunk));
+            }
+            log.debug(String.format("Parsed %s in %d chunks on %d threads", resource.getFilename(), ranges.size(),
+                    pool.getParallelism()));
+        }
+    }
+
+    private static ByteBuffer readBytes(final Resource resource) throws IOException {
+        if (resource.isFile() && resource.contentLength() <= MAX_CHUNK_SIZE) {
+            try (FileChannel channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ)) {
+                return FileChunks.map(channel, new FileChunks.Range(0, channel.size()));
+            }
+        }
+        try (InputStream stream = resource.getInputStream()) {
+            return ByteBuffer.wrap(stream.readAllBytes());
+        }
+    }
+
+    /**
+     * Parses headerless parts of the participation file, with the fast parser when the header of the file
+     * matches {@link CsvLayout#PARTICIPATION}, and with Jackson otherwise.
+     */
+    private final class ParticipationParser {
+
+        private final Map<String, ?> attributes;
+        private final LongIntHashMap statusCodes;
+        private int[] columns;
+        private CsvSchema schema;
+
+        private ParticipationParser(final Map<Long, Status> statusMap, final Map<Long, Member> memberMap,
+                                    final Map<Long, Survey> surveyMap) {
+            this.attributes = Map.of(StatusFieldDeserializer.ATTRIBUTE, statusMap,
+                    MemberFieldDeserializer.ATTRIBUTE, memberMap, SurveyFieldDeserializer.ATTRIBUTE, surveyMap);
+            this.statusCodes = new LongIntHashMap(statusMap.size());
+            for (final Long statusId : statusMap.keySet()) {
+                final StatusEnum status = StatusEnum.fromId(statusId);
+                if (status != null) {
+                    statusCodes.put(statusId, status.ordinal());
+                }
+            }
+        }
+
+        private void useHeader(final String[] header) {
+            if (properties.getIngest().getParser() == SurveyProperties.Parser.FAST) {
+                columns = CsvLayout.PARTICIPATION.match(header);
+                if (columns == null) {
+                    log.info("Unknown participation header, falling back to the Jackson parser");
+                }
+            }
+            final CsvSchema.Builder builder = CsvSchema.builder();
+            for (final String column : header) {
+                builder.addColumn(column);
+            }
+            schema = builder.build();
+        }
+
+        private ParticipationStore.Builder parse(final ByteBuffer bytes, final ParticipationStore.Builder builder)
+                throws IOException {
+            if (columns != null) {
+                FastCsvParser.parseParticipations(new CsvScanner(bytes), columns, statusCodes, builder);
+            } else {
+                parseWithJackson(bytes, schema, builder);
+            }
+            return builder;
+        }
+
+        private void parseWithJackson(final ByteBuffer bytes, final CsvSchema csvSchema,
+                                      final ParticipationStore.Builder builder) throws IOException {
+            try (MappingIterator<Participation> iterator = reader(Participation.class, attributes).with(csvSchema)
+                    .readValues(new ByteBufferBackedInputStream(bytes))) {
+                while (iterator.hasNextValue()) {
+                    builder.add(iterator.nextValue());
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface DimensionParser<T> {
+        List<T> parse(CsvScanner scanner, int[] columns) throws IOException;
+    }
+
+    private ObjectReader reader(final Class<?> clazz, final Map<String, ?> attributes) {
+        ObjectReader reader = csvMapper.readerFor(clazz);
+        for (final Map.Entry<String, ?> attribute : attributes.entrySet()) {
+            reader = reader.withAttribute(attribute.getKey(), attribute.getValue());
+        }
+        return reader;
+    }
+
+    private int parallelism() {
+        final int parallelism = properties.getIngest().getParallelism();
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    private static <T> T await(final Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading the dataset");
+        } catch (ExecutionException exception) {
+            // Fork-join tasks wrap checked exceptions of a Callable into RuntimeExceptions.
+            Throwable cause = exception.getCause();
+            while (cause.getClass() == RuntimeException.class && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private <T> List<T> readCsvEntities(final Resource resource, final Class<T> clazz,
+                                        final Map<String, ?> attributes) throws IOException {
+        try (MappingIterator<T> iterator = reader(clazz, attributes).with(CsvSchema.emptySchema().withHeader())
+                .readValues(resource.getInputStream())) {
+            return iterator.readAll();
+        } catch (IOException exception) {
+            throw new IOException(String.format("Cannot parse file %s", resource.getFilename()), exception);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.demo.survey.service;
+
+import com.demo.survey.config.SurveyProperties;
+import com.demo.survey.store.Dataset;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the data at startup, and reloads it in the background when requested or when a file in the
+ * data directory changes. A reload builds a complete new {@link Dataset}, and only publishes it once
+ * every file has been read successfully; on failure the current snapshot stays in place. The loaded
+ * dataset is published by the {@link ParticipationWriter}, after the recorded events are replayed on top of it.
+ */
+@Component
+@Log4j2
+public class DatasetReloader {
+
+    private final DatasetLoader loader;
+    private final DatasetHolder datasets;
+    private final ParticipationWriter writer;
+    private final SurveyProperties properties;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        final Thread thread = new Thread(r, "dataset-reloader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private CompletableFuture<Dataset> queued;
+    private WatchService watchService;
+
+    @Autowired
+    public DatasetReloader(final DatasetLoader loader, final DatasetHolder datasets, final ParticipationWriter writer,
+                           final SurveyProperties properties) {
+        this.loader = loader;
+        this.datasets = datasets;
+        this.writer = writer;
+        this.properties = properties;
+    }
+
+    /**
+     * This is the entry point of the data handling.
+     * The method loads the csv files synchronously, and starts watching the data directory if configured.
+     */
+    @PostConstruct
+    public void constructMaps() {
+        try {
+            writer.publish(loader.load(writer.logPosition())).get();
+        } catch (IOException | ExecutionException exception) {
+            log.error(String.format("Cannot load the initial dataset. Exception: %s", exception));
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        final Path directory = loader.dataDirectory();
+        if (directory != null && properties.getData().isWatch()) {
+            startWatching(directory);
+        }
+    }
+
+    /**
+     * Schedules a reload on the background thread. Requests that arrive while a reload is still
+     * waiting to start are merged into that reload.
+     *
+     * @return A {@link CompletableFuture} that completes with the published {@link Dataset}.
+     */
+    public synchronized CompletableFuture<Dataset> reload() {
+        if (queued != null) {
+            return queued;
+        }
+        final CompletableFuture<Dataset> future = new CompletableFuture<>();
+        queued = future;
+        executor.execute(() -> {
+            synchronized (this) {
+                queued = null;
+            }
+            Throwable failure;
+            try {
+                future.complete(writer.publish(loader.load(writer.logPosition())).get());
+                return;
+            } catch (ExecutionException exception) {
+                failure = exception.getCause();
+            } catch (IOException | InterruptedException | RuntimeException exception) {
+                failure = exception;
+            }
+            log.error(String.format("Reload failed, keeping dataset version %d. Exception: %s",
+                    datasets.current().getVersion(), failure));
+            future.completeExceptionally(failure);
+        });
+        return future;
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+        executor.shutdownNow();
+    }
+
+    private void startWatching(final Path directory) {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException exception) {
+            log.error(String.format("Cannot watch directory %s. Exception: %s", directory, exception));
+            return;
+        }
+        final Thread watcher = new Thread(this::watch, "dataset-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info(String.format("Watching %s for changes", directory));
+    }
+
+    private void watch() {
+        final long debounceMillis = properties.getData().getWatchDebounce().toMillis();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                // Wait until the directory stays quiet, so a file that is still being copied is not read.
+                while (key != null) {
+                    for (final WatchEvent<?> event : key.pollEvents()) {
+                        // Other files, like the snapshot written by the loader itself, do not trigger a reload.
+                        changed |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                                || event.context() instanceof Path path
+                                && DatasetLoader.FILES.contains(path.getFileName().toString());
+                    }
+                    key.reset();
+                    key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                }
+                if (!changed) {
+                    continue;
+                }
+                log.info("Change detected in the data directory, reloading");
+                reload();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException exception) {
+            log.debug("Stopped watching the data directory");
+        }
+    }
+}
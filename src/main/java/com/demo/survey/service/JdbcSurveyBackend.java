@@ -0,0 +1,406 @@
+package com.demo.survey.service;
+
+import com.demo.survey.dto.CollectedPointsDTO;
+import com.demo.survey.dto.MemberDTO;
+import com.demo.survey.dto.SurveyDTO;
+import com.demo.survey.dto.SurveyStatisticsDTO;
+import com.demo.survey.model.Member;
+import com.demo.survey.model.Status;
+import com.demo.survey.model.StatusEnum;
+import com.demo.survey.model.Survey;
+import com.demo.survey.store.Dataset;
+import com.demo.survey.store.ParticipationStore;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the published datasets in a relational database, and answers the list queries with SQL over indexes on
+ * the survey id, the member id and the status of the participations. Experimental.
+ * <p>
+ * The tables are the image of the last dataset written to them, and the queries of a dataset are answered with
+ * SQL once its generation and every one of its rows are in the tables. The datasets derived from the written
+ * one by recording participations only insert the new rows, on the writer thread. A loaded dataset replaces the
+ * content of every table in one transaction on the {@code jdbc-loader} thread instead, which takes seconds for
+ * millions of rows: the writer publishes it at once, and its queries are answered from the in-memory indexes of
+ * the dataset until the transaction commits. The rows are written with JDBC batch inserts, and the queries only
+ * read the columns of the DTOs.
+ * <p>
+ * The tables are a mirror, not a replacement of the in-memory {@link Dataset}: the data is still loaded into the
+ * {@link ParticipationStore}, which the pages, the streams, the recorded participations and the caches are served
+ * from, so the backend does not serve datasets larger than the heap. An in-memory database holds a second copy of
+ * every row on the heap, the {@code jdbc} profile keeps the tables in a file instead, and a warning is logged when
+ * the backend is created on an in-memory H2 database.
+ */
+@Log4j2
+public class JdbcSurveyBackend implements SurveyBackend {
+
+    private static final String MEMBER_COLUMNS = "m.id, m.full_name, m.email, m.active";
+
+    // The queries with an id start from the survey or member, so that an unknown id returns no row at all, and a
+    // known id without a result one row of nulls.
+    private static final String SURVEY_MEMBERS = "SELECT " + MEMBER_COLUMNS + " FROM survey s"
+            + " LEFT JOIN participation p ON p.survey_id = s.id AND p.status_id = ?"
+            + " LEFT JOIN member m ON m.id = p.member_id WHERE s.id = ? ORDER BY p.row_id";
+
+    private static final String COMPLETED_SURVEYS = "SELECT s.id, s.name, s.expected_completes,"
+            + " s.completion_points, s.filtered_points FROM member m"
+            + " LEFT JOIN participation p ON p.member_id = m.id AND p.status_id = ?"
+            + " LEFT JOIN survey s ON s.id = p.survey_id WHERE m.id = ? ORDER BY p.row_id";
+
+    // One statement, so both statuses are read from the same state of the tables. With both statuses in one
+    // condition the member index is not used, so each has its own branch, and the first one also tells whether
+    // the member exists.
+    private static final String POINTS = "SELECT s.id, s.completion_points, 0, p.row_id FROM member m"
+            + " LEFT JOIN participation p ON p.member_id = m.id AND p.status_id = ?"
+            + " LEFT JOIN survey s ON s.id = p.survey_id WHERE m.id = ?"
+            + " UNION ALL SELECT s.id, s.filtered_points, 1, p.row_id"
+            + " FROM participation p JOIN survey s ON s.id = p.survey_id WHERE p.member_id = ? AND p.status_id = ?"
+            + " ORDER BY 3, 4";
+
+    // The anti-joins probe the indexes on the member id once per active member, NOT IN built both id sets first.
+    private static final String INVITABLE_MEMBERS = "SELECT " + MEMBER_COLUMNS + " FROM survey s"
+            + " LEFT JOIN member m ON m.active"
+            + " AND NOT EXISTS (SELECT 1 FROM participation p WHERE p.member_id = m.id AND p.survey_id = s.id)"
+            + " AND NOT EXISTS (SELECT 1 FROM participation p WHERE p.member_id = m.id AND p.status_id = ?)"
+            + " WHERE s.id = ? ORDER BY m.id";
+
+    private static final String STATISTICS = "SELECT s.id, s.name,"
+            + " COUNT(CASE WHEN p.status_id = ? THEN 1 END), COUNT(CASE WHEN p.status_id = ? THEN 1 END),"
+            + " COUNT(CASE WHEN p.status_id = ? THEN 1 END), SUM(p.length), COUNT(p.length)"
+            + " FROM participation p JOIN survey s ON s.id = p.survey_id GROUP BY s.id, s.name ORDER BY s.id";
+
+    private static final RowMapper<MemberDTO> MEMBER_MAPPER = (resultSet, row) -> new MemberDTO(
+            resultSet.getObject(1, Long.class), resultSet.getString(2), resultSet.getString(3),
+            resultSet.getObject(4, Boolean.class));
+
+    private static final RowMapper<SurveyDTO> SURVEY_MAPPER = (resultSet, row) -> new SurveyDTO(
+            resultSet.getObject(1, Long.class), resultSet.getString(2), resultSet.getObject(3, Long.class),
+            resultSet.getObject(4, Integer.class), resultSet.getObject(5, Integer.class));
+
+    private static final RowMapper<CollectedPointsDTO> POINTS_MAPPER = (resultSet, row) -> new CollectedPointsDTO(
+            resultSet.getObject(1, Long.class), resultSet.getObject(2, Integer.class));
+
+    private static final RowMapper<SurveyStatisticsDTO> STATISTICS_MAPPER = (resultSet, row) -> {
+        final long lengthCount = resultSet.getLong(7);
+        return new SurveyStatisticsDTO(resultSet.getObject(1, Long.class), resultSet.getString(2),
+                resultSet.getLong(3), resultSet.getLong(4), resultSet.getLong(5),
+                lengthCount == 0 ? Double.NaN : (double) resultSet.getLong(6) / lengthCount);
+    };
+
+    private static final StatusEnum[] STATUSES = StatusEnum.values();
+
+    /**
+     * The content of the tables.
+     *
+     * @param generation The {@link Dataset#getGeneration() generation} of the dataset written to the tables.
+     * @param rows       The number of its participation rows.
+     */
+    private record Loaded(long generation, int rows) {
+    }
+
+    /**
+     * Writes to the tables within a transaction.
+     */
+    @FunctionalInterface
+    private interface Writes {
+        void write(Connection connection) throws SQLException;
+    }
+
+    private final JdbcTemplate jdbc;
+
+    private final int batchSize;
+
+    private final MemorySurveyBackend memory = new MemorySurveyBackend();
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        final Thread thread = new Thread(r, "jdbc-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Null until a dataset is written, and while the tables are written. Only changed by the thread that writes.
+    private volatile Loaded loaded;
+
+    // The last dataset passed to update, and whether the loader is writing it, guarded by this.
+    private Dataset latest;
+
+    private boolean replacing;
+
+    /**
+     * Creates the tables and the indexes that do not exist yet.
+     *
+     * @param dataSource The database.
+     * @param batchSize  The number of rows sent in one JDBC batch.
+     */
+    public JdbcSurveyBackend(final DataSource dataSource, final int batchSize) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.batchSize = Math.max(1, batchSize);
+        DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("db/survey-schema.sql")),
+                dataSource);
+        final String url = jdbc.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getURL());
+        if (url != null && url.startsWith("jdbc:h2:mem:")) {
+            log.warn(String.format("The JDBC backend keeps a second copy of the data on the heap in %s, use a "
+                    + "jdbc:h2:file: URL or a database server", url));
+        }
+    }
+
+    /**
+     * Inserts the recorded rows of a dataset of the loaded generation, and hands any other dataset to the loader
+     * thread. While the loader runs, the datasets are only remembered, it writes the last one when it is done.
+     */
+    @Override
+    public synchronized void update(final Dataset dataset) {
+        latest = dataset;
+        if (replacing) {
+            return;
+        }
+        final Loaded current = loaded;
+        if (current != null && current.generation() == dataset.getGeneration()
+                && dataset.getParticipations().size() >= current.rows()) {
+            write(current, dataset, connection -> insertParticipations(connection, dataset.getParticipations(),
+                    current.rows()));
+            return;
+        }
+        replacing = true;
+        loader.execute(this::load);
+    }
+
+    /**
+     * Stops the loader thread, a dataset it is writing is rolled back.
+     */
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    /**
+     * @param dataset A published dataset.
+     * @return Whether the tables hold the rows of the dataset and no other, so that its queries are answered from
+     * them.
+     */
+    public boolean isLoaded(final Dataset dataset) {
+        final Loaded current = loaded;
+        return current != null && current.generation() == dataset.getGeneration()
+                && current.rows() == dataset.getParticipations().size();
+    }
+
+    @Override
+    public List<MemberDTO> surveyMembers(final Dataset dataset, final long surveyId) {
+        return query(dataset, () -> queryKnown(SURVEY_MEMBERS, MEMBER_MAPPER, StatusEnum.COMPLETED.getId(), surveyId),
+                () -> memory.surveyMembers(dataset, surveyId));
+    }
+
+    @Override
+    public List<SurveyDTO> completedSurveys(final Dataset dataset, final long memberId) {
+        return query(dataset, () -> queryKnown(COMPLETED_SURVEYS, SURVEY_MAPPER, StatusEnum.COMPLETED.getId(),
+                memberId), () -> memory.completedSurveys(dataset, memberId));
+    }
+
+    @Override
+    public List<CollectedPointsDTO> points(final Dataset dataset, final long memberId) {
+        return query(dataset, () -> queryKnown(POINTS, POINTS_MAPPER, StatusEnum.COMPLETED.getId(), memberId,
+                memberId, StatusEnum.FILTERED.getId()), () -> memory.points(dataset, memberId));
+    }
+
+    @Override
+    public List<MemberDTO> invitableMembers(final Dataset dataset, final long surveyId) {
+        return query(dataset, () -> queryKnown(INVITABLE_MEMBERS, MEMBER_MAPPER, StatusEnum.NOT_ASKED.getId(),
+                surveyId), () -> memory.invitableMembers(dataset, surveyId));
+    }
+
+    @Override
+    public List<SurveyStatisticsDTO> statistics(final Dataset dataset) {
+        return query(dataset, () -> Collections.unmodifiableList(jdbc.query(STATISTICS, STATISTICS_MAPPER,
+                        StatusEnum.COMPLETED.getId(), StatusEnum.FILTERED.getId(), StatusEnum.REJECTED.getId())),
+                () -> memory.statistics(dataset));
+    }
+
+    /**
+     * Answers a query with SQL if the tables hold the rows of the dataset both before and after the statement
+     * runs, and from the in-memory indexes otherwise. A write clears {@link #loaded} before it starts, so a
+     * statement that read its rows sees the tables changed afterwards.
+     */
+    private <T> T query(final Dataset dataset, final Supplier<T> sql, final Supplier<T> memory) {
+        if (isLoaded(dataset)) {
+            final T result = sql.get();
+            if (isLoaded(dataset)) {
+                return result;
+            }
+        }
+        return memory.get();
+    }
+
+    /**
+     * Runs a query that starts from the member or survey of the id.
+     *
+     * @return The mapped rows, without the row of nulls of an id without results, or {@code null} if there is no
+     * row at all.
+     */
+    private <T> List<T> queryKnown(final String sql, final RowMapper<T> mapper, final Object... args) {
+        return jdbc.query(sql, resultSet -> {
+            if (!resultSet.next()) {
+                return null;
+            }
+            final List<T> result = new ArrayList<>();
+            do {
+                if (resultSet.getObject(1) != null) {
+                    result.add(mapper.mapRow(resultSet, result.size()));
+                }
+            } while (resultSet.next());
+            return Collections.unmodifiableList(result);
+        }, args);
+    }
+
+    /**
+     * Writes the last dataset passed to {@link #update(Dataset)} until the tables hold it, on the loader thread.
+     */
+    private void load() {
+        try {
+            while (true) {
+                final Dataset dataset;
+                synchronized (this) {
+                    dataset = latest;
+                    if (isLoaded(dataset)) {
+                        replacing = false;
+                        return;
+                    }
+                }
+                final Loaded current = loaded;
+                if (current != null && current.generation() == dataset.getGeneration()
+                        && dataset.getParticipations().size() >= current.rows()) {
+                    write(current, dataset, connection -> insertParticipations(connection,
+                            dataset.getParticipations(), current.rows()));
+                } else {
+                    final long start = System.nanoTime();
+                    write(current, dataset, connection -> replace(connection, dataset));
+                    log.info(String.format("Loaded dataset version %d into the database in %d ms",
+                            dataset.getVersion(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+                }
+            }
+        } catch (RuntimeException exception) {
+            // The next update tries again, the queries are answered from memory until then.
+            log.error(String.format("Cannot load the dataset into the database. Exception: %s", exception));
+            synchronized (this) {
+                replacing = false;
+            }
+        }
+    }
+
+    /**
+     * Writes a dataset to the tables in one transaction, the tables hold the current content again if it fails.
+     */
+    private void write(final Loaded current, final Dataset dataset, final Writes writes) {
+        loaded = null;
+        try {
+            jdbc.execute((ConnectionCallback<Void>) connection -> {
+                connection.setAutoCommit(false);
+                try {
+                    writes.write(connection);
+                    connection.commit();
+                } catch (SQLException | RuntimeException exception) {
+                    connection.rollback();
+                    throw exception;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+                return null;
+            });
+        } catch (RuntimeException exception) {
+            loaded = current;
+            throw exception;
+        }
+        loaded = new Loaded(dataset.getGeneration(), dataset.getParticipations().size());
+    }
+
+    private void replace(final Connection connection, final Dataset dataset) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (final String table : List.of("participation", "member", "survey", "status")) {
+                statement.executeUpdate("DELETE FROM " + table);
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO status VALUES (?, ?)")) {
+            int pending = 0;
+            for (final Status status : dataset.getStatusMap().values()) {
+                insert.setLong(1, status.getId());
+                insert.setString(2, status.getName());
+                pending = addBatch(insert, pending);
+            }
+            insert.executeBatch();
+        }
+        final ParticipationStore store = dataset.getParticipations();
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO member VALUES (?, ?, ?, ?)")) {
+            int pending = 0;
+            for (int memberOrdinal = 0; memberOrdinal < store.memberCount(); memberOrdinal++) {
+                final Member member = store.member(memberOrdinal);
+                insert.setLong(1, member.getId());
+                insert.setString(2, member.getFullName());
+                insert.setString(3, member.getEmail());
+                insert.setObject(4, member.getActive(), Types.BOOLEAN);
+                pending = addBatch(insert, pending);
+            }
+            insert.executeBatch();
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO survey VALUES (?, ?, ?, ?, ?)")) {
+            int pending = 0;
+            for (int surveyOrdinal = 0; surveyOrdinal < store.surveyCount(); surveyOrdinal++) {
+                final Survey survey = store.survey(surveyOrdinal);
+                insert.setLong(1, survey.getId());
+                insert.setString(2, survey.getName());
+                insert.setObject(3, survey.getExpectedCompletes(), Types.BIGINT);
+                insert.setObject(4, survey.getCompletionPoints(), Types.INTEGER);
+                insert.setObject(5, survey.getFilteredPoints(), Types.INTEGER);
+                pending = addBatch(insert, pending);
+            }
+            insert.executeBatch();
+        }
+        insertParticipations(connection, store, 0);
+    }
+
+    private void insertParticipations(final Connection connection, final ParticipationStore store,
+                                      final int fromRow) throws SQLException {
+        try (PreparedStatement insert =
+                     connection.prepareStatement("INSERT INTO participation VALUES (?, ?, ?, ?, ?)")) {
+            int pending = 0;
+            for (int row = fromRow; row < store.size(); row++) {
+                insert.setInt(1, row);
+                insert.setLong(2, store.memberId(store.memberOrdinalAt(row)));
+                insert.setLong(3, store.survey(store.surveyOrdinalAt(row)).getId());
+                insert.setLong(4, STATUSES[store.statusCodeAt(row)].getId());
+                if (store.hasLengthAt(row)) {
+                    insert.setLong(5, store.lengthAt(row));
+                } else {
+                    insert.setNull(5, Types.BIGINT);
+                }
+                pending = addBatch(insert, pending);
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private int addBatch(final PreparedStatement insert, final int pending) throws SQLException {
+        insert.addBatch();
+        if (pending + 1 < batchSize) {
+            return pending + 1;
+        }
+        insert.executeBatch();
+        return 0;
+    }
+}
@@ -0,0 +1,105 @@
+package com.demo.survey.service;
+
+import com.demo.survey.dto.CollectedPointsDTO;
+import com.demo.survey.dto.MemberDTO;
+import com.demo.survey.dto.SurveyDTO;
+import com.demo.survey.dto.SurveyStatisticsDTO;
+import com.demo.survey.mapper.DtoCache;
+import com.demo.survey.mapper.DtoMapper;
+import com.demo.survey.model.StatusEnum;
+import com.demo.survey.store.Dataset;
+import com.demo.survey.store.LongIntHashMap;
+import com.demo.survey.store.ParticipationStore;
+import com.demo.survey.store.SurveyStatistics;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Answers the queries from the indexes of the given {@link Dataset}, nothing has to be updated.
+ */
+public class MemorySurveyBackend implements SurveyBackend {
+
+    @Override
+    public void update(final Dataset dataset) {
+    }
+
+    @Override
+    public List<MemberDTO> surveyMembers(final Dataset dataset, final long surveyId) {
+        final ParticipationStore store = dataset.getParticipations();
+        final DtoCache dtos = dataset.getDtos();
+        final int surveyOrdinal = store.surveyOrdinal(surveyId);
+        if (surveyOrdinal == LongIntHashMap.MISSING) {
+            return null;
+        }
+        final List<MemberDTO> result = new ArrayList<>(store.countBySurvey(surveyOrdinal, StatusEnum.COMPLETED));
+        store.forEachRowOfSurvey(surveyOrdinal, StatusEnum.COMPLETED,
+                row -> result.add(dtos.member(store.memberOrdinalAt(row))));
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public List<SurveyDTO> completedSurveys(final Dataset dataset, final long memberId) {
+        final ParticipationStore store = dataset.getParticipations();
+        final DtoCache dtos = dataset.getDtos();
+        final int memberOrdinal = store.memberOrdinal(memberId);
+        if (memberOrdinal == LongIntHashMap.MISSING) {
+            return null;
+        }
+        final List<SurveyDTO> result = new ArrayList<>(store.countByMember(memberOrdinal, StatusEnum.COMPLETED));
+        store.forEachRowOfMember(memberOrdinal, StatusEnum.COMPLETED,
+                row -> result.add(dtos.survey(store.surveyOrdinalAt(row))));
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public List<CollectedPointsDTO> points(final Dataset dataset, final long memberId) {
+        final ParticipationStore store = dataset.getParticipations();
+        final DtoCache dtos = dataset.getDtos();
+        final int memberOrdinal = store.memberOrdinal(memberId);
+        if (memberOrdinal == LongIntHashMap.MISSING) {
+            return null;
+        }
+        final List<CollectedPointsDTO> result = new ArrayList<>(
+                store.countByMember(memberOrdinal, StatusEnum.COMPLETED)
+                        + store.countByMember(memberOrdinal, StatusEnum.FILTERED));
+        final IntConsumer collector =
+                row -> result.add(dtos.collectedPoints(store.surveyOrdinalAt(row), store.statusCodeAt(row)));
+        store.forEachRowOfMember(memberOrdinal, StatusEnum.COMPLETED, collector);
+        store.forEachRowOfMember(memberOrdinal, StatusEnum.FILTERED, collector);
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public List<MemberDTO> invitableMembers(final Dataset dataset, final long surveyId) {
+        final ParticipationStore store = dataset.getParticipations();
+        final DtoCache dtos = dataset.getDtos();
+        final int surveyOrdinal = store.surveyOrdinal(surveyId);
+        if (surveyOrdinal == LongIntHashMap.MISSING) {
+            return null;
+        }
+        final BitSet invitable = store.invitableMembers(surveyOrdinal);
+        final List<MemberDTO> result = new ArrayList<>(invitable.cardinality());
+        for (int memberOrdinal = invitable.nextSetBit(0); memberOrdinal >= 0;
+             memberOrdinal = invitable.nextSetBit(memberOrdinal + 1)) {
+            result.add(dtos.member(memberOrdinal));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public List<SurveyStatisticsDTO> statistics(final Dataset dataset) {
+        final ParticipationStore store = dataset.getParticipations();
+        final SurveyStatistics statistics = dataset.getStatistics();
+        final List<SurveyStatisticsDTO> result = new ArrayList<>(statistics.surveyCount());
+        for (int surveyOrdinal = 0; surveyOrdinal < statistics.surveyCount(); surveyOrdinal++) {
+            if (statistics.participations(surveyOrdinal) > 0) {
+                result.add(DtoMapper.toSurveyStatisticsDTO(store.survey(surveyOrdinal), statistics, surveyOrdinal));
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
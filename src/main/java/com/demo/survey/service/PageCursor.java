@@ -0,0 +1,51 @@
+package com.demo.survey.service;
+
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+/**
+ * The position of a page within a result, bound to the generation of the {@link com.demo.survey.store.Dataset}
+ * it was computed from. Participations recorded since then only append rows, so the position stays valid until
+ * the csv files are reloaded. Clients only see it as an opaque URL-safe string.
+ *
+ * @param generation The generation of the dataset.
+ * @param position   Where the next page starts, its meaning depends on the query.
+ */
+record PageCursor(long generation, int position) {
+
+    private static final int SIZE = Long.BYTES + Integer.BYTES;
+
+    String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(ByteBuffer.allocate(SIZE).putLong(generation).putInt(position).array());
+    }
+
+    /**
+     * @param cursor     An encoded cursor, or {@code null} for the first page.
+     * @param generation The generation of the current dataset, used for the first page.
+     * @return The decoded {@link PageCursor}.
+     * @throws ResponseStatusException if the cursor is malformed (HTTP 400 Bad Request).
+     */
+    static PageCursor decode(final String cursor, final long generation) {
+        if (cursor == null) {
+            return new PageCursor(generation, 0);
+        }
+        try {
+            final byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length == SIZE) {
+                final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                final PageCursor result = new PageCursor(buffer.getLong(), buffer.getInt());
+                if (result.position >= 0) {
+                    return result;
+                }
+            }
+        } catch (IllegalArgumentException exception) {
+            // Reported below, like any other malformed cursor.
+        }
+        throw new ResponseStatusException(BAD_REQUEST, "Invalid cursor");
+    }
+}
@@ -0,0 +1,561 @@
+package com.demo.survey.service;
+
+import com.demo.survey.config.SurveyProperties;
+import com.demo.survey.dto.IngestResultDTO;
+import com.demo.survey.dto.ParticipationEventDTO;
+import com.demo.survey.dto.RejectedEventDTO;
+import com.demo.survey.metrics.SurveyMetrics;
+import com.demo.survey.metrics.SurveyMetrics.Phase;
+import com.demo.survey.model.StatusEnum;
+import com.demo.survey.store.Dataset;
+import com.demo.survey.store.DatasetSnapshot;
+import com.demo.survey.store.EventLog;
+import com.demo.survey.store.LongIntHashMap;
+import com.demo.survey.store.ParticipationStore;
+import com.demo.survey.store.PointsLeaderboard;
+import com.demo.survey.store.SurveyStatistics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Records participation events into the published dataset, and publishes the loaded datasets.
+ * <p>
+ * Requests are queued and applied by a single writer thread. The writer takes every waiting request, up to
+ * {@link #MAX_EVENTS} events, appends the valid events to the current {@link ParticipationStore}, updates a copy
+ * of the statistics and the points leaderboard, and publishes the result as a new {@link Dataset} version.
+ * Readers are never blocked, they keep using the dataset they fetched, and see the events once the returned
+ * future completes.
+ * <p>
+ * When the data directory is configured, the accepted events of a batch are written to the {@link EventLog}
+ * as one record right before they are published, and synced according to {@code survey.events.sync-interval}.
+ * The record is written after every other step of the batch succeeded, and removed if the publishing fails.
+ * Loaded datasets are published through {@link #publish(Dataset)}, which replays the logged events they do not
+ * include yet, so the recorded events survive reloads and restarts. Whenever the appended rows are compacted,
+ * a snapshot that includes them is written in the background, and the log is then rewritten without the events
+ * the snapshot includes, which bounds both the log and the events replayed by a restart. The events the log
+ * still holds are replayed on top of new csv files as well, and from then on taken to be recorded on them. Only
+ * with {@code survey.events.drop-log-on-csv-change} are new files taken to include every logged event instead,
+ * and the log emptied.
+ * Every dataset is passed to the {@link SurveyBackend} before it is published.
+ */
+@Service
+@Log4j2
+public class ParticipationWriter {
+
+    public static final int MAX_EVENTS = 100_000;
+
+    private sealed interface Task permits PendingWrite, PendingLoad, CompactLog, Stop {
+    }
+
+    private record PendingWrite(List<ParticipationEventDTO> events, CompletableFuture<IngestResultDTO> result)
+            implements Task {
+    }
+
+    private record PendingLoad(Dataset dataset, CompletableFuture<Dataset> result) implements Task {
+    }
+
+    /**
+     * Drops the events before {@code fromSequence} from the log, once a snapshot that includes them is written.
+     */
+    private record CompactLog(long fromSequence, long baseline) implements Task {
+    }
+
+    private record Stop() implements Task {
+    }
+
+    private final DatasetHolder datasets;
+
+    private final DatasetLoader loader;
+
+    private final SurveyBackend backend;
+
+    private final SurveyMetrics metrics;
+
+    private final int compactionThreshold;
+
+    private final long syncIntervalNanos;
+
+    private final boolean dropLogOnCsvChange;
+
+    private final BlockingQueue<Task> queue;
+
+    private final EventLog eventLog;
+
+    private final ExecutorService checkpoints = Executors.newSingleThreadExecutor(r -> {
+        final Thread thread = new Thread(r, "event-log-checkpoint");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean checkpointRunning = new AtomicBoolean();
+
+    private final Thread writer;
+
+    // The nanoTime by which the written records have to be synced, only used by the writer thread.
+    private long syncDeadline;
+
+    private boolean unsynced;
+
+    @Autowired
+    public ParticipationWriter(final DatasetHolder datasets, final DatasetLoader loader, final SurveyBackend backend,
+                               final SurveyMetrics metrics, final SurveyProperties properties) {
+        this.datasets = datasets;
+        this.loader = loader;
+        this.backend = backend;
+        this.metrics = metrics;
+        this.compactionThreshold = properties.getEvents().getCompactionThreshold();
+        this.syncIntervalNanos = properties.getEvents().getSyncInterval().toNanos();
+        this.dropLogOnCsvChange = properties.getEvents().isDropLogOnCsvChange();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getEvents().getQueueCapacity()));
+        this.eventLog = openEventLog(loader.eventLogPath());
+        this.writer = new Thread(this::run, "participation-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues participation events for recording.
+     *
+     * @param events The events, at most {@link #MAX_EVENTS}.
+     * @return A {@link CompletableFuture} that completes with the {@link IngestResultDTO} once the accepted events
+     * are published, or fails with a {@link ResponseStatusException} (HTTP 503 Service Unavailable) when too many
+     * requests are waiting or the events cannot be logged.
+     * @throws ResponseStatusException if no events or too many events are given (HTTP 400 Bad Request).
+     */
+    public CompletableFuture<IngestResultDTO> record(final List<ParticipationEventDTO> events) {
+        if (events == null || events.isEmpty() || events.size() > MAX_EVENTS) {
+            throw new ResponseStatusException(BAD_REQUEST,
+                    String.format("Between 1 and %d events must be given", MAX_EVENTS));
+        }
+        final PendingWrite write = new PendingWrite(events, new CompletableFuture<>());
+        if (!queue.offer(write)) {
+            return CompletableFuture.failedFuture(
+                    new ResponseStatusException(SERVICE_UNAVAILABLE, "Too many writes in progress"));
+        }
+        return write.result();
+    }
+
+    /**
+     * Queues a loaded dataset for publishing, after the events that are logged but not included in it yet.
+     * Waits while the queue is full.
+     *
+     * @param dataset The loaded {@link Dataset}.
+     * @return A {@link CompletableFuture} that completes with the published {@link Dataset}.
+     */
+    public CompletableFuture<Dataset> publish(final Dataset dataset) {
+        final PendingLoad load = new PendingLoad(dataset, new CompletableFuture<>());
+        try {
+            queue.put(load);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(exception);
+        }
+        return load.result();
+    }
+
+    /**
+     * @return The current position of the event log, or {@code null} if the log is disabled.
+     */
+    public EventLog.Position logPosition() {
+        return eventLog == null ? null : eventLog.position();
+    }
+
+    /**
+     * Stops the writer once the queued requests are done, waits for a running checkpoint, and closes the event log.
+     */
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        // Interrupting the writer could close the log file in the middle of a write, so it is asked to stop.
+        if (queue.offer(new Stop(), 10, TimeUnit.SECONDS)) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        checkpoints.shutdown();
+        checkpoints.awaitTermination(1, TimeUnit.MINUTES);
+        if (eventLog != null && !writer.isAlive()) {
+            eventLog.close();
+        }
+    }
+
+    private static EventLog openEventLog(final Path path) {
+        if (path == null) {
+            return null;
+        }
+        try {
+            final EventLog eventLog = EventLog.open(path);
+            if (eventLog.truncatedBytes() > 0) {
+                log.warn(String.format("Dropped %d bytes of an incomplete record from the end of event log %s",
+                        eventLog.truncatedBytes(), path));
+            }
+            log.info(String.format("Opened event log %s with %d events", path, eventLog.sequence()));
+            return eventLog;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(String.format("Cannot open event log %s", path), exception);
+        }
+    }
+
+    private void run() {
+        final List<PendingWrite> batch = new ArrayList<>();
+        Task task = null;
+        while (true) {
+            if (task == null) {
+                task = take();
+            }
+            if (task instanceof Stop) {
+                sync();
+                return;
+            }
+            if (task instanceof PendingLoad load) {
+                publishLoaded(load);
+                task = null;
+                continue;
+            }
+            if (task instanceof CompactLog compaction) {
+                compactLog(compaction);
+                task = null;
+                continue;
+            }
+            int events = 0;
+            while (task instanceof PendingWrite write && events < MAX_EVENTS) {
+                batch.add(write);
+                events += write.events().size();
+                task = queue.poll();
+            }
+            try {
+                apply(batch);
+            } catch (IOException | RuntimeException exception) {
+                log.error(String.format("Cannot record %d participation events. Exception: %s", events, exception));
+                final Throwable failure = exception instanceof IOException
+                        ? new ResponseStatusException(SERVICE_UNAVAILABLE, "Cannot write the event log", exception)
+                        : exception;
+                batch.forEach(write -> write.result().completeExceptionally(failure));
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Takes the next task, and syncs the event log when its deadline passes while waiting.
+     */
+    private Task take() {
+        while (true) {
+            try {
+                if (!unsynced) {
+                    return queue.take();
+                }
+                final Task task = queue.poll(syncDeadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (task != null && syncDeadline - System.nanoTime() > 0) {
+                    return task;
+                }
+                sync();
+                if (task != null) {
+                    return task;
+                }
+            } catch (InterruptedException exception) {
+                log.warn("The participation writer was interrupted, it keeps running until shutdown");
+            }
+        }
+    }
+
+    private void sync() {
+        if (!unsynced) {
+            return;
+        }
+        try {
+            final long start = System.nanoTime();
+            eventLog.sync();
+            metrics.recordSync(start);
+            unsynced = false;
+        } catch (IOException exception) {
+            log.error(String.format("Cannot sync the event log. Exception: %s", exception));
+            syncDeadline = System.nanoTime() + Math.max(syncIntervalNanos, TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    private void apply(final List<PendingWrite> batch) throws IOException {
+        final long start = System.nanoTime();
+        if (eventLog != null) {
+            eventLog.discard();
+        }
+        final Dataset current = datasets.current();
+        final ParticipationStore store = current.getParticipations();
+        final ParticipationStore.Appender appender = store.appender();
+        final SurveyStatistics statistics = current.getStatistics().copy();
+        final PointsLeaderboard.Updater leaderboard = current.getLeaderboard().updater();
+        final List<List<RejectedEventDTO>> rejected = new ArrayList<>(batch.size());
+        int accepted = 0;
+        int rejectedCount = 0;
+        for (final PendingWrite write : batch) {
+            final List<RejectedEventDTO> rejectedOfWrite = new ArrayList<>();
+            for (int index = 0; index < write.events().size(); index++) {
+                final String reason = append(store, appender, statistics, leaderboard, write.events().get(index));
+                if (reason != null) {
+                    rejectedOfWrite.add(new RejectedEventDTO(index, reason));
+                }
+            }
+            rejected.add(rejectedOfWrite);
+            accepted += write.events().size() - rejectedOfWrite.size();
+            rejectedCount += rejectedOfWrite.size();
+        }
+        Dataset dataset = current;
+        if (accepted > 0) {
+            final ParticipationStore next = appender.build();
+            final ParticipationStore compacted = compact(next);
+            dataset = current.withParticipations(compacted, statistics, leaderboard.build(),
+                    eventLog == null ? 0 : eventLog.sequence() + eventLog.pendingEvents());
+            backend.update(dataset);
+            publish(current, dataset);
+            if (compacted != next) {
+                checkpoint(dataset);
+            }
+        }
+        metrics.recordEvents(start, accepted, rejectedCount);
+        for (int i = 0; i < batch.size(); i++) {
+            final PendingWrite write = batch.get(i);
+            write.result().complete(new IngestResultDTO(dataset.getVersion(),
+                    write.events().size() - rejected.get(i).size(), rejected.get(i)));
+        }
+    }
+
+    /**
+     * Validates and appends a single event.
+     *
+     * @return {@code null} if the event was appended, otherwise the reason of the rejection.
+     */
+    private String append(final ParticipationStore store, final ParticipationStore.Appender appender,
+                          final SurveyStatistics statistics, final PointsLeaderboard.Updater leaderboard,
+                          final ParticipationEventDTO event) {
+        if (event == null || event.getMemberId() == null || event.getSurveyId() == null
+                || event.getStatusId() == null) {
+            return "The memberId, surveyId and statusId are required";
+        }
+        final StatusEnum status = StatusEnum.fromId(event.getStatusId());
+        if (status == null) {
+            return String.format("Unknown status: %d", event.getStatusId());
+        }
+        if (event.getLength() != null && event.getLength() < 0) {
+            return "The length must not be negative";
+        }
+        final int memberOrdinal = store.memberOrdinal(event.getMemberId());
+        if (memberOrdinal == LongIntHashMap.MISSING) {
+            return String.format("Unknown member: %d", event.getMemberId());
+        }
+        final int surveyOrdinal = store.surveyOrdinal(event.getSurveyId());
+        if (surveyOrdinal == LongIntHashMap.MISSING) {
+            return String.format("Unknown survey: %d", event.getSurveyId());
+        }
+        final boolean hasLength = event.getLength() != null;
+        final long length = hasLength ? event.getLength() : 0L;
+        appender.add(event.getMemberId(), event.getSurveyId(), status, length, hasLength);
+        statistics.record(surveyOrdinal, status.ordinal(), length, hasLength);
+        leaderboard.record(memberOrdinal, surveyOrdinal, status.ordinal());
+        if (eventLog != null) {
+            eventLog.add(event.getMemberId(), event.getSurveyId(), status, length, hasLength);
+        }
+        return null;
+    }
+
+    /**
+     * Logs the events of a dataset built by {@link #apply(List)} and publishes it. The backend is already updated,
+     * so the events are only logged once nothing but the publishing can fail, and the record is removed again if
+     * the publishing does, so no event is logged without being published. The backend is brought back to the
+     * current dataset on failure.
+     * <p>
+     * Only the writer thread publishes datasets, the loaded ones included, so the current dataset is still the one
+     * the batch was applied to. The compare-and-set only guards that invariant: if another dataset was published,
+     * the whole batch fails, it is not applied again on top of it.
+     */
+    private void publish(final Dataset current, final Dataset dataset) throws IOException {
+        boolean logged = false;
+        try {
+            if (eventLog != null) {
+                eventLog.write();
+                logged = true;
+                syncLog();
+            }
+            if (!datasets.publish(current, dataset)) {
+                throw new IllegalStateException("The dataset was published by another thread than the writer");
+            }
+        } catch (IOException | RuntimeException exception) {
+            if (logged) {
+                rewindLog();
+            }
+            try {
+                backend.update(current);
+            } catch (RuntimeException restoreException) {
+                exception.addSuppressed(restoreException);
+            }
+            throw exception;
+        }
+    }
+
+    private void rewindLog() {
+        try {
+            eventLog.rewind();
+        } catch (IOException | RuntimeException exception) {
+            log.error(String.format("Cannot remove the record of unpublished events from the event log. "
+                    + "Exception: %s", exception));
+        }
+    }
+
+    /**
+     * Syncs the written record now or schedules the sync.
+     */
+    private void syncLog() throws IOException {
+        if (syncIntervalNanos == 0) {
+            final long start = System.nanoTime();
+            eventLog.sync();
+            metrics.recordSync(start);
+        } else if (!unsynced) {
+            unsynced = true;
+            syncDeadline = System.nanoTime() + syncIntervalNanos;
+        }
+    }
+
+    private void publishLoaded(final PendingLoad load) {
+        try {
+            Dataset dataset = load.dataset();
+            if (eventLog != null) {
+                dataset = replay(dataset);
+            }
+            backend.update(dataset);
+            datasets.publish(dataset);
+            load.result().complete(dataset);
+        } catch (IOException | RuntimeException exception) {
+            log.error(String.format("Cannot publish dataset version %d. Exception: %s",
+                    load.dataset().getVersion(), exception));
+            load.result().completeExceptionally(exception);
+        }
+    }
+
+    /**
+     * Appends the logged events that are not included in the loaded dataset. Events of members or surveys
+     * that are not in the dataset anymore are skipped. When the dataset was loaded from new csv files, the log
+     * is recorded on top of them from then on, or emptied if they are configured to include every logged event.
+     */
+    private Dataset replay(final Dataset loaded) throws IOException {
+        final long baseline = DatasetSnapshot.baseline(loaded.getSources());
+        if (baseline != 0 && baseline != eventLog.baseline()) {
+            final boolean newFiles = eventLog.baseline() != 0;
+            final long base = eventLog.base();
+            final long sequence = eventLog.sequence();
+            if (newFiles && dropLogOnCsvChange) {
+                eventLog.rebase(sequence, baseline);
+                unsynced = false;
+                log.warn(String.format("The csv files changed, dropped the events %d to %d from the event log, the "
+                        + "files are taken to include them", base, sequence));
+                return loaded.withParticipations(loaded.getParticipations(), loaded.getStatistics(),
+                        loaded.getLeaderboard(), eventLog.sequence());
+            }
+            // The kept events are replayed on the loaded files below, and recorded on top of them from now on.
+            eventLog.rebase(base, baseline);
+            unsynced = false;
+            if (newFiles) {
+                log.info(String.format("The csv files changed, replaying the events %d to %d of the event log on "
+                        + "top of them", base, sequence));
+            }
+        }
+        if (loaded.getLoggedEvents() < eventLog.base()) {
+            log.warn(String.format("The loaded dataset is missing the events %d to %d, they were dropped from the "
+                    + "event log after a checkpoint", loaded.getLoggedEvents(), eventLog.base()));
+        }
+        if (loaded.getLoggedEvents() >= eventLog.sequence()) {
+            return loaded;
+        }
+        final long start = System.nanoTime();
+        final ParticipationStore store = loaded.getParticipations();
+        final ParticipationStore.Appender appender = store.appender();
+        final SurveyStatistics statistics = loaded.getStatistics().copy();
+        final PointsLeaderboard.Updater leaderboard = loaded.getLeaderboard().updater();
+        final long[] skipped = new long[1];
+        final long replayed = eventLog.replay(Math.max(loaded.getLoggedEvents(), eventLog.base()),
+                (memberId, surveyId, status, length, hasLength) -> {
+                    if (appender.add(memberId, surveyId, status, length, hasLength)) {
+                        final int surveyOrdinal = store.surveyOrdinal(surveyId);
+                        statistics.record(surveyOrdinal, status.ordinal(), length, hasLength);
+                        leaderboard.record(store.memberOrdinal(memberId), surveyOrdinal, status.ordinal());
+                    } else {
+                        skipped[0]++;
+                    }
+                });
+        final ParticipationStore next = appender.build();
+        final ParticipationStore compacted = compact(next);
+        final Dataset dataset = loaded.withParticipations(compacted, statistics, leaderboard.build(),
+                eventLog.sequence());
+        metrics.recordPhase(Phase.EVENT_REPLAY, start);
+        log.info(String.format("Replayed %d logged events in %d ms, skipped %d of unknown members or surveys",
+                replayed, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), skipped[0]));
+        if (compacted != next) {
+            checkpoint(dataset);
+        }
+        return dataset;
+    }
+
+    private ParticipationStore compact(final ParticipationStore store) {
+        if (store.appendedSize() < compactionThreshold) {
+            return store;
+        }
+        final long start = System.nanoTime();
+        final ParticipationStore compacted = store.compact();
+        metrics.recordPhase(Phase.COMPACTION, start);
+        return compacted;
+    }
+
+    /**
+     * Writes a snapshot of the dataset in the background, unless one is being written already, and then asks
+     * the writer to drop the events it includes from the log. The log is left as it is when the queue is full,
+     * the next checkpoint compacts it.
+     */
+    private void checkpoint(final Dataset dataset) {
+        if (eventLog == null || !checkpointRunning.compareAndSet(false, true)) {
+            return;
+        }
+        checkpoints.execute(() -> {
+            try {
+                if (loader.checkpoint(dataset, eventLog.id())) {
+                    queue.offer(new CompactLog(dataset.getLoggedEvents(),
+                            DatasetSnapshot.baseline(dataset.getSources())));
+                }
+            } finally {
+                checkpointRunning.set(false);
+            }
+        });
+    }
+
+    /**
+     * Drops the events a written snapshot includes from the log, unless the csv files changed since.
+     */
+    private void compactLog(final CompactLog compaction) {
+        final long base = eventLog.base();
+        if (compaction.baseline() != eventLog.baseline() || compaction.fromSequence() <= base) {
+            return;
+        }
+        final long start = System.nanoTime();
+        try {
+            eventLog.rebase(compaction.fromSequence(), compaction.baseline());
+            unsynced = false;
+            log.info(String.format("Dropped %d events included in the snapshot from the event log in %d ms",
+                    compaction.fromSequence() - base, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        } catch (IOException | RuntimeException exception) {
+            log.warn(String.format("Cannot compact the event log. Exception: %s", exception));
+        }
+    }
+}
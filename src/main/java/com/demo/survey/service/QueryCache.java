@@ -0,0 +1,138 @@
+package com.demo.survey.service;
+
+import com.demo.survey.config.SurveyProperties;
+import com.demo.survey.metrics.SurveyMetrics.Query;
+import com.demo.survey.store.Dataset;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of the query results, keyed by dataset generation, query and id.
+ * <p>
+ * Eviction is Caffeine's W-TinyLFU, weighted by the estimated size of the result lists, so a single huge
+ * survey cannot push out thousands of small members. Unknown ids are cached as well, a loader signals them by
+ * returning {@code null}. Every result is stored with its {@link ResultStamps stamp}, and is only served to
+ * lookups of the same stamp, so recording participations only reloads the results of the surveys and members
+ * they belong to. The first lookup with a newer generation drops every entry, lookups that still run on an
+ * older generation keep it in the key, so they can never serve a stale result for the new one.
+ * <p>
+ * A miss is computed outside the cache and then stored, so concurrent readers never wait on each other's
+ * loads; in the worst case a result is computed twice. The hit, miss and eviction statistics are published
+ * as the {@code cache.*} meters with the tag {@code cache=survey.query}. A lookup is only counted as a hit when
+ * the stamp of its entry matches, an entry of an older stamp is recomputed and counted as a miss.
+ */
+@Component
+public class QueryCache {
+
+    /**
+     * Computes the result of a query from a dataset.
+     *
+     * @param <T> The type of the elements of the result.
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+
+        /**
+         * @param dataset The dataset to query.
+         * @param id      The id of the member or survey, ignored by queries without an id.
+         * @return A {@link List} of the results, or {@code null} if the id is unknown.
+         */
+        List<T> load(Dataset dataset, long id);
+    }
+
+    /**
+     * The size of a cache entry without the elements of the result: the key, the node and the list itself.
+     */
+    private static final int ENTRY_BYTES = 128;
+
+    /**
+     * The size of an element of a result. The elements are the DTOs shared through the dataset, so only
+     * the reference is counted.
+     */
+    private static final int ELEMENT_BYTES = 8;
+
+    private static final Object NOT_FOUND = new Object();
+
+    private record Key(long generation, Query query, long id) {
+    }
+
+    private record Stamped(long stamp, Object result) {
+    }
+
+    private final Cache<Key, Stamped> cache;
+
+    private final ConcurrentStatsCounter statsCounter = new ConcurrentStatsCounter();
+
+    private final AtomicLong generation = new AtomicLong(Long.MIN_VALUE);
+
+    @Autowired
+    public QueryCache(final SurveyProperties properties, final MeterRegistry registry) {
+        if (!properties.getCache().isEnabled()) {
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getCache().getMaxSize().toBytes())
+                .weigher((Key key, Stamped value) -> value.result() == NOT_FOUND
+                        ? ENTRY_BYTES : ENTRY_BYTES + ELEMENT_BYTES * ((List<?>) value.result()).size())
+                .recordStats(() -> statsCounter)
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "survey.query");
+    }
+
+    /**
+     * Returns the cached result of the query, and loads and caches it when it is not cached yet.
+     *
+     * @param dataset The dataset to query.
+     * @param query   The query, different queries of the same id are cached separately.
+     * @param id      The id of the member or survey.
+     * @param loader  Computes the result when it is not cached.
+     * @param <T>     The type of the elements of the result.
+     * @return The {@link List} returned by the loader, or {@code null} if the id is unknown.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> get(final Dataset dataset, final Query query, final long id, final Loader<T> loader) {
+        if (cache == null) {
+            return loader.load(dataset, id);
+        }
+        invalidateBefore(dataset.getGeneration());
+        final Key key = new Key(dataset.getGeneration(), query, id);
+        final long stamp = ResultStamps.of(dataset, query, id);
+        // The map view does not record statistics, the lookup is counted once the stamp is compared.
+        Stamped entry = cache.asMap().get(key);
+        if (entry != null && entry.stamp() == stamp) {
+            statsCounter.recordHits(1);
+        } else {
+            statsCounter.recordMisses(1);
+            final List<T> loaded = loader.load(dataset, id);
+            entry = new Stamped(stamp, loaded == null ? NOT_FOUND : loaded);
+            // A lookup on an older dataset must not replace the result of a newer one.
+            cache.asMap().merge(key, entry, (cached, loadedEntry) ->
+                    cached.stamp() > loadedEntry.stamp() ? cached : loadedEntry);
+        }
+        return entry.result() == NOT_FOUND ? null : (List<T>) entry.result();
+    }
+
+    /**
+     * @return The {@link CacheStats} since startup, or {@link CacheStats#empty()} if the cache is disabled.
+     */
+    public CacheStats stats() {
+        return cache == null ? CacheStats.empty() : cache.stats();
+    }
+
+    private void invalidateBefore(final long datasetGeneration) {
+        final long seen = generation.get();
+        if (datasetGeneration > seen && generation.compareAndSet(seen, datasetGeneration)) {
+            cache.invalidateAll();
+        }
+    }
+}
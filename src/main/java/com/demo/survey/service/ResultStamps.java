@@ -0,0 +1,68 @@
+package com.demo.survey.service;
+
+import com.demo.survey.metrics.SurveyMetrics.Query;
+import com.demo.survey.model.StatusEnum;
+import com.demo.survey.store.Dataset;
+import com.demo.survey.store.LongIntHashMap;
+import com.demo.survey.store.ParticipationStore;
+
+/**
+ * Tells which results of a query changed between the datasets of one generation.
+ * <p>
+ * Within a {@link Dataset#getGeneration() generation} the participations are only appended, and a row keeps its
+ * number, so the end of the last row a result is computed from grows exactly when a row is added to it. That end
+ * is the stamp of the result: a result of the same generation and stamp is the same result, and recording a
+ * participation only changes the stamps of its own survey and member. The queries over every participation are
+ * stamped with the number of rows.
+ */
+public final class ResultStamps {
+
+    private ResultStamps() {
+    }
+
+    /**
+     * @param dataset The dataset the result is computed from.
+     * @param query   The query.
+     * @param id      The id of the member or survey, ignored by queries without an id.
+     * @return The stamp of the result, {@code 0} if the id is unknown.
+     */
+    public static long of(final Dataset dataset, final Query query, final long id) {
+        final ParticipationStore store = dataset.getParticipations();
+        return switch (query) {
+            case SURVEY_MEMBERS, SURVEY_MEMBERS_PAGE -> {
+                final int surveyOrdinal = store.surveyOrdinal(id);
+                yield surveyOrdinal == LongIntHashMap.MISSING
+                        ? 0 : store.rowsOfSurveyEnd(surveyOrdinal, StatusEnum.COMPLETED);
+            }
+            case COMPLETED_SURVEYS -> {
+                final int memberOrdinal = store.memberOrdinal(id);
+                yield memberOrdinal == LongIntHashMap.MISSING
+                        ? 0 : store.rowsOfMemberEnd(memberOrdinal, StatusEnum.COMPLETED);
+            }
+            case POINTS -> {
+                final int memberOrdinal = store.memberOrdinal(id);
+                yield memberOrdinal == LongIntHashMap.MISSING ? 0 : Math.max(
+                        store.rowsOfMemberEnd(memberOrdinal, StatusEnum.COMPLETED),
+                        store.rowsOfMemberEnd(memberOrdinal, StatusEnum.FILTERED));
+            }
+            case INVITABLE_MEMBERS, INVITABLE_MEMBERS_PAGE -> {
+                final int surveyOrdinal = store.surveyOrdinal(id);
+                yield surveyOrdinal == LongIntHashMap.MISSING
+                        ? 0 : Math.max(rowsOfSurveyEnd(store, surveyOrdinal), store.notAskedRowsEnd());
+            }
+            case LENGTH_DISTRIBUTION -> {
+                final int surveyOrdinal = store.surveyOrdinal(id);
+                yield surveyOrdinal == LongIntHashMap.MISSING ? 0 : rowsOfSurveyEnd(store, surveyOrdinal);
+            }
+            default -> store.size();
+        };
+    }
+
+    private static int rowsOfSurveyEnd(final ParticipationStore store, final int surveyOrdinal) {
+        int result = 0;
+        for (final StatusEnum status : StatusEnum.values()) {
+            result = Math.max(result, store.rowsOfSurveyEnd(surveyOrdinal, status));
+        }
+        return result;
+    }
+}
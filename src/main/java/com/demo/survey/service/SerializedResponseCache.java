@@ -0,0 +1,168 @@
+package com.demo.survey.service;
+
+import com.demo.survey.config.SurveyProperties;
+import com.demo.survey.metrics.SurveyMetrics.Query;
+import com.demo.survey.store.Dataset;
+import com.demo.survey.util.SerializedResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The JSON of the survey statistics and of the completed surveys of the members, serialized once per dataset
+ * when {@code survey.cache.serialized-responses} is enabled.
+ * <p>
+ * The results only change when a new dataset is published, so the bytes written for one request are written
+ * again for every later request of the same dataset, without creating DTOs or running the serializer. The bytes
+ * are also kept gzip compressed, when that makes them smaller, for the clients that accept it.
+ * <p>
+ * The statistics are serialized from every dataset before it is published, on the thread that publishes it, and
+ * kept with the dataset, so a request always gets the statistics of the dataset it reads. The completed surveys
+ * are serialized on the first request of a member, and kept in a cache weighted by their size. Like
+ * {@link QueryCache}, the entries are kept with their {@link ResultStamps stamp}, so only the members who completed
+ * a survey since are serialized again, and every entry is dropped when a newer generation is seen. Its statistics
+ * are published as the {@code cache.*} meters with the tag {@code cache=survey.response}.
+ */
+@Component
+public class SerializedResponseCache {
+
+    /**
+     * The size of a cache entry without the bytes: the key, the node and the record.
+     */
+    private static final int ENTRY_BYTES = 128;
+
+    /**
+     * Shorter JSON is not compressed, the gzip header and trailer alone take 18 bytes.
+     */
+    private static final int MIN_COMPRESSED_BYTES = 256;
+
+    private record Key(long generation, long memberId) {
+    }
+
+    private record Stamped(long stamp, SerializedResponse response) {
+    }
+
+    private final DatasetHolder datasets;
+
+    private final SurveyService surveyService;
+
+    private final ObjectWriter writer;
+
+    private final Cache<Key, Stamped> completedSurveys;
+
+    private final AtomicLong generation = new AtomicLong(Long.MIN_VALUE);
+
+    @Autowired
+    public SerializedResponseCache(final SurveyProperties properties, final DatasetHolder datasets,
+                                   final SurveyService surveyService, final ObjectMapper objectMapper,
+                                   final MeterRegistry registry) {
+        this.datasets = datasets;
+        this.surveyService = surveyService;
+        this.writer = objectMapper.writer();
+        if (!properties.getCache().isSerializedResponses()) {
+            this.completedSurveys = null;
+            return;
+        }
+        this.completedSurveys = Caffeine.newBuilder()
+                .maximumWeight(properties.getCache().getSerializedMaxSize().toBytes())
+                .weigher((Key key, Stamped value) -> ENTRY_BYTES + value.response().json().length
+                        + (value.response().gzip() == null ? 0 : value.response().gzip().length))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, completedSurveys, "survey.response");
+    }
+
+    /**
+     * Serializes the statistics of every dataset published from now on, once the cache is fully constructed.
+     */
+    @PostConstruct
+    public void prepareOnPublish() {
+        if (isEnabled()) {
+            datasets.beforePublish(this::prepare);
+        }
+    }
+
+    /**
+     * @return Whether the responses are served from this cache.
+     */
+    public boolean isEnabled() {
+        return completedSurveys != null;
+    }
+
+    /**
+     * @return The serialized {@link SurveyService#getSurveyStatistics()} of the current dataset.
+     */
+    public SerializedResponse statistics() {
+        final Dataset dataset = datasets.current();
+        final SerializedResponse result = dataset.getSerializedStatistics();
+        // Only the datasets published before this cache was created are not prepared.
+        return result == null ? prepare(dataset) : result;
+    }
+
+    /**
+     * Serializes the statistics of a dataset and keeps them with it.
+     *
+     * @param dataset The dataset, usually one that is about to be published.
+     * @return The serialized {@link SurveyService#getSurveyStatistics()} of the dataset.
+     */
+    SerializedResponse prepare(final Dataset dataset) {
+        final SerializedResponse result = serialize(surveyService.getSurveyStatistics(dataset));
+        dataset.setSerializedStatistics(result);
+        return result;
+    }
+
+    /**
+     * @param memberId The id of the member.
+     * @return The serialized {@link SurveyService#getCompletedSurveysForMember(Long)} of the current dataset.
+     * @throws ResponseStatusException if no member can be found with the given id (HTTP 404 Not Found).
+     */
+    public SerializedResponse completedSurveys(final Long memberId) {
+        final Dataset dataset = datasets.current();
+        final long seen = generation.get();
+        if (dataset.getGeneration() > seen && generation.compareAndSet(seen, dataset.getGeneration())) {
+            completedSurveys.invalidateAll();
+        }
+        final Key key = new Key(dataset.getGeneration(), memberId);
+        final long stamp = ResultStamps.of(dataset, Query.COMPLETED_SURVEYS, memberId);
+        Stamped entry = completedSurveys.getIfPresent(key);
+        if (entry == null || entry.stamp() != stamp) {
+            entry = new Stamped(stamp, serialize(surveyService.getCompletedSurveysForMember(dataset, memberId)));
+            completedSurveys.asMap().merge(key, entry, (cached, serialized) ->
+                    cached.stamp() > serialized.stamp() ? cached : serialized);
+        }
+        return entry.response();
+    }
+
+    private SerializedResponse serialize(final Object value) {
+        try {
+            final byte[] json = writer.writeValueAsBytes(value);
+            return new SerializedResponse(json, json.length < MIN_COMPRESSED_BYTES ? null : gzip(json));
+        } catch (JsonProcessingException exception) {
+            throw new IllegalStateException("Cannot serialize the response", exception);
+        }
+    }
+
+    private static byte[] gzip(final byte[] json) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(json);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return bytes.size() < json.length ? bytes.toByteArray() : null;
+    }
+}
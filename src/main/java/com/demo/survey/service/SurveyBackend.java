@@ -0,0 +1,35 @@
+package com.demo.survey.service;
+
+import com.demo.survey.dto.CollectedPointsDTO;
+import com.demo.survey.dto.MemberDTO;
+import com.demo.survey.dto.SurveyDTO;
+import com.demo.survey.dto.SurveyStatisticsDTO;
+import com.demo.survey.store.Dataset;
+
+import java.util.List;
+
+/**
+ * Answers the list queries of {@link SurveyService}. The service caches the results until their
+ * {@link ResultStamps stamp} changes, so the backend is asked once per query, id and stamp at most.
+ * <p>
+ * The queries with an id return {@code null} when the member or survey is unknown.
+ */
+public interface SurveyBackend {
+
+    /**
+     * Brings the backend up to date with a dataset before it is published. Only called by the writer thread.
+     *
+     * @param dataset The {@link Dataset} that is about to be published.
+     */
+    void update(Dataset dataset);
+
+    List<MemberDTO> surveyMembers(Dataset dataset, long surveyId);
+
+    List<SurveyDTO> completedSurveys(Dataset dataset, long memberId);
+
+    List<CollectedPointsDTO> points(Dataset dataset, long memberId);
+
+    List<MemberDTO> invitableMembers(Dataset dataset, long surveyId);
+
+    List<SurveyStatisticsDTO> statistics(Dataset dataset);
+}
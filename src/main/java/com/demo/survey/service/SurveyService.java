@@ -1,84 +1,145 @@
 package com.demo.survey.service;
 
+import com.demo.survey.dto.BatchDTO;
 import com.demo.survey.dto.CollectedPointsDTO;
+import com.demo.survey.dto.LeaderboardEntryDTO;
+import com.demo.survey.dto.LengthDistributionDTO;
 import com.demo.survey.dto.MemberDTO;
+import com.demo.survey.dto.MemberPageDTO;
 import com.demo.survey.dto.SurveyDTO;
 import com.demo.survey.dto.SurveyStatisticsDTO;
-import com.demo.survey.model.Member;
-import com.demo.survey.model.Participation;
-import com.demo.survey.model.Status;
+import com.demo.survey.mapper.DtoCache;
+import com.demo.survey.mapper.DtoMapper;
+import com.demo.survey.metrics.SurveyMetrics;
+import com.demo.survey.metrics.SurveyMetrics.Query;
 import com.demo.survey.model.StatusEnum;
-import com.demo.survey.model.Survey;
-import com.fasterxml.jackson.databind.MappingIterator;
-import com.fasterxml.jackson.dataformat.csv.CsvMapper;
-import com.fasterxml.jackson.dataformat.csv.CsvSchema;
-import jakarta.annotation.PostConstruct;
-import lombok.extern.log4j.Log4j2;
-import org.modelmapper.ModelMapper;
+import com.demo.survey.store.Dataset;
+import com.demo.survey.store.LongIntHashMap;
+import com.demo.survey.store.ParticipationStore;
+import com.demo.survey.store.PointsLeaderboard;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.stream.Stream;
 
-import static java.util.stream.Collectors.collectingAndThen;
-import static java.util.stream.Collectors.groupingBy;
-import static java.util.stream.Collectors.toList;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.GONE;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 @Service
-@Log4j2
 public class SurveyService {
-    public static Map<Long, Status> statusMap;
-    public static Map<Long, Member> memberMap;
-    public static Map<Long, Survey> surveyMap;
 
-    public static List<Participation> participationList;
+    public static final int MAX_PAGE_SIZE = 10_000;
 
-    private final ModelMapper mapper;
+    public static final int MAX_BATCH_SIZE = 10_000;
+
+    private final DatasetHolder datasets;
+
+    private final SurveyMetrics metrics;
+
+    private final QueryCache cache;
+
+    private final SurveyBackend backend;
 
     @Autowired
-    public SurveyService(final ModelMapper mapper) {
-        this.mapper = mapper;
+    public SurveyService(final DatasetHolder datasets, final SurveyMetrics metrics, final QueryCache cache,
+                         final SurveyBackend backend) {
+        this.datasets = datasets;
+        this.metrics = metrics;
+        this.cache = cache;
+        this.backend = backend;
     }
 
     /**
-     * This is the entry point of the SurveyService.
-     * The method fills the needed maps and list with the data read from the given csv files.
+     * Retrieves a list of members who completed the survey with the given id.
+     *
+     * @param surveyId The id of the survey.
+     * @return A {@link List} of {@link MemberDTO}.
+     * @throws ResponseStatusException if no survey can be found with the given id (HTTP 404 Not Found).
      */
-    @PostConstruct
-    public void constructMaps() {
-        statusMap = readCsvEntities(new ClassPathResource("files/OO - 2 - Statuses.csv"), Status.class)
-                .stream().collect(Collectors.toMap(Status::getId, Function.identity()));
-        memberMap = readCsvEntities(new ClassPathResource("files/OO - 2 - Members.csv"), Member.class)
-                .stream().collect(Collectors.toMap(Member::getId, Function.identity()));
-        surveyMap = readCsvEntities(new ClassPathResource("files/OO - 2 - Surveys.csv"), Survey.class)
-                .stream().collect(Collectors.toMap(Survey::getId, Function.identity()));
-        participationList = readCsvEntities(new ClassPathResource("files/OO - 2 - Participation.csv"), Participation.class);
+    public List<MemberDTO> getSurveyMembers(final Long surveyId) {
+        final long start = System.nanoTime();
+        final List<MemberDTO> result =
+                cache.get(datasets.current(), Query.SURVEY_MEMBERS, surveyId, backend::surveyMembers);
+        if (result == null) {
+            metrics.recordNotFound(Query.SURVEY_MEMBERS, start);
+            throw new ResponseStatusException(NOT_FOUND);
+        }
+        metrics.recordQuery(Query.SURVEY_MEMBERS, start, result.size());
+        return result;
     }
 
     /**
-     * Retrieves a list of members who completed the survey with the given id.
+     * Retrieves the members who completed each of the surveys with the given ids, from the same dataset.
+     *
+     * @param surveyIds The ids of the surveys, at most {@link #MAX_BATCH_SIZE}. Duplicates are answered once.
+     * @return A {@link BatchDTO} of {@link MemberDTO} keyed by survey id, with the unknown survey ids.
+     * @throws ResponseStatusException if the ids are missing, too many or contain null (HTTP 400 Bad Request).
+     */
+    public BatchDTO<MemberDTO> getSurveyMembers(final List<Long> surveyIds) {
+        return batch(Query.SURVEY_MEMBERS_BATCH, Query.SURVEY_MEMBERS, surveyIds, backend::surveyMembers);
+    }
+
+    /**
+     * Retrieves a page of the members who completed the survey with the given id, in the order of
+     * {@link #getSurveyMembers(Long)}.
      *
      * @param surveyId The id of the survey.
-     * @return A {@link List} of {@link MemberDTO}.
+     * @param cursor   The cursor returned with the previous page, or {@code null} for the first page.
+     * @param limit    The maximum number of members on the page, at most {@link #MAX_PAGE_SIZE}.
+     * @return A {@link MemberPageDTO}.
+     * @throws ResponseStatusException if no survey can be found with the given id (HTTP 404 Not Found),
+     *                                 if the cursor or the limit is invalid (HTTP 400 Bad Request),
+     *                                 or if the data was reloaded since the cursor was created (HTTP 410 Gone).
+     */
+    public MemberPageDTO getSurveyMembers(final Long surveyId, final String cursor, final int limit) {
+        final long start = System.nanoTime();
+        final Dataset dataset = datasets.current();
+        final ParticipationStore store = dataset.getParticipations();
+        final DtoCache dtos = dataset.getDtos();
+        final int surveyOrdinal = store.surveyOrdinal(surveyId);
+        if (surveyOrdinal == LongIntHashMap.MISSING) {
+            metrics.recordNotFound(Query.SURVEY_MEMBERS_PAGE, start);
+            throw new ResponseStatusException(NOT_FOUND);
+        }
+        final int from = pageStart(dataset, cursor, limit);
+        final List<MemberDTO> members = new ArrayList<>(Math.min(limit, MAX_PAGE_SIZE));
+        final int to = from + store.forEachRowOfSurvey(surveyOrdinal, StatusEnum.COMPLETED, from, limit,
+                row -> members.add(dtos.member(store.memberOrdinalAt(row))));
+        final boolean last = to >= store.countBySurvey(surveyOrdinal, StatusEnum.COMPLETED);
+        final MemberPageDTO page =
+                new MemberPageDTO(members, last ? null : new PageCursor(dataset.getGeneration(), to).encode());
+        metrics.recordQuery(Query.SURVEY_MEMBERS_PAGE, start, members.size());
+        return page;
+    }
+
+    /**
+     * Streams the members who completed the survey with the given id, in the order of
+     * {@link #getSurveyMembers(Long)}. The survey is resolved immediately, the members are produced lazily
+     * from the current dataset.
+     *
+     * @param surveyId The id of the survey.
+     * @return A sequential {@link Stream} of {@link MemberDTO}.
      * @throws ResponseStatusException if no survey can be found with the given id (HTTP 404 Not Found).
      */
-    public List<MemberDTO> getSurveyMembers(final Long surveyId) {
-        if (!surveyMap.containsKey(surveyId)) {
+    public Stream<MemberDTO> streamSurveyMembers(final Long surveyId) {
+        final Dataset dataset = datasets.current();
+        final ParticipationStore store = dataset.getParticipations();
+        final DtoCache dtos = dataset.getDtos();
+        final int surveyOrdinal = store.surveyOrdinal(surveyId);
+        if (surveyOrdinal == LongIntHashMap.MISSING) {
             throw new ResponseStatusException(NOT_FOUND);
         }
-        return participationList.stream().filter(p -> surveyId.equals(p.getSurvey().getId())
-                        && StatusEnum.COMPLETED.getId().equals(p.getStatus().getId()))
-                .map(p -> mapToMemberDTO(p.getMember())).collect(Collectors.toList());
+        return store.rowsOfSurvey(surveyOrdinal, StatusEnum.COMPLETED)
+                .mapToObj(row -> dtos.member(store.memberOrdinalAt(row)));
     }
 
     /**
@@ -89,12 +150,39 @@ public class SurveyService {
      * @throws ResponseStatusException if no member can be found with the given id (HTTP 404 Not Found).
      */
     public List<SurveyDTO> getCompletedSurveysForMember(final Long memberId) {
-        if (!memberMap.containsKey(memberId)) {
+        return getCompletedSurveysForMember(datasets.current(), memberId);
+    }
+
+    /**
+     * Retrieves a list of surveys that were completed by the member with the given id in the given dataset.
+     *
+     * @param dataset  The dataset to query.
+     * @param memberId The id of the member.
+     * @return A {@link List} of {@link SurveyDTO}.
+     * @throws ResponseStatusException if no member can be found with the given id (HTTP 404 Not Found).
+     */
+    List<SurveyDTO> getCompletedSurveysForMember(final Dataset dataset, final Long memberId) {
+        final long start = System.nanoTime();
+        final List<SurveyDTO> result =
+                cache.get(dataset, Query.COMPLETED_SURVEYS, memberId, backend::completedSurveys);
+        if (result == null) {
+            metrics.recordNotFound(Query.COMPLETED_SURVEYS, start);
             throw new ResponseStatusException(NOT_FOUND);
         }
-        return participationList.stream().filter(p -> memberId.equals(p.getMember().getId())
-                        && StatusEnum.COMPLETED.getId().equals(p.getStatus().getId()))
-                .map(p -> mapToSurveyDTO(p.getSurvey())).collect(Collectors.toList());
+        metrics.recordQuery(Query.COMPLETED_SURVEYS, start, result.size());
+        return result;
+    }
+
+    /**
+     * Retrieves the surveys that were completed by each of the members with the given ids, from the same dataset.
+     *
+     * @param memberIds The ids of the members, at most {@link #MAX_BATCH_SIZE}. Duplicates are answered once.
+     * @return A {@link BatchDTO} of {@link SurveyDTO} keyed by member id, with the unknown member ids.
+     * @throws ResponseStatusException if the ids are missing, too many or contain null (HTTP 400 Bad Request).
+     */
+    public BatchDTO<SurveyDTO> getCompletedSurveysForMembers(final List<Long> memberIds) {
+        return batch(Query.COMPLETED_SURVEYS_BATCH, Query.COMPLETED_SURVEYS, memberIds,
+                backend::completedSurveys);
     }
 
     /**
@@ -106,14 +194,27 @@ public class SurveyService {
      * @throws ResponseStatusException if no member can be found with the given id (HTTP 404 Not Found).
      */
     public List<CollectedPointsDTO> getPointsForMember(final Long memberId) {
-        if (!memberMap.containsKey(memberId)) {
+        final long start = System.nanoTime();
+        final List<CollectedPointsDTO> result =
+                cache.get(datasets.current(), Query.POINTS, memberId, backend::points);
+        if (result == null) {
+            metrics.recordNotFound(Query.POINTS, start);
             throw new ResponseStatusException(NOT_FOUND);
         }
-        return participationList.stream()
-                .filter(p -> memberId.equals(p.getMember().getId())
-                        && (StatusEnum.COMPLETED.getId().equals(p.getStatus().getId())
-                        || StatusEnum.FILTERED.getId().equals(p.getStatus().getId())))
-                .map(this::constructCollectedPointsDTO).collect(Collectors.toList());
+        metrics.recordQuery(Query.POINTS, start, result.size());
+        return result;
+    }
+
+    /**
+     * Retrieves the surveyId-points pairs collected by each of the members with the given ids,
+     * from the same dataset.
+     *
+     * @param memberIds The ids of the members, at most {@link #MAX_BATCH_SIZE}. Duplicates are answered once.
+     * @return A {@link BatchDTO} of {@link CollectedPointsDTO} keyed by member id, with the unknown member ids.
+     * @throws ResponseStatusException if the ids are missing, too many or contain null (HTTP 400 Bad Request).
+     */
+    public BatchDTO<CollectedPointsDTO> getPointsForMembers(final List<Long> memberIds) {
+        return batch(Query.POINTS_BATCH, Query.POINTS, memberIds, backend::points);
     }
 
     /**
@@ -125,16 +226,68 @@ public class SurveyService {
      * @throws ResponseStatusException if no survey can be found with the given id (HTTP 404 Not Found).
      */
     public List<MemberDTO> getInvitableMemberForSurvey(final Long surveyId) {
-        if (!surveyMap.containsKey(surveyId)) {
+        final long start = System.nanoTime();
+        final List<MemberDTO> result =
+                cache.get(datasets.current(), Query.INVITABLE_MEMBERS, surveyId, backend::invitableMembers);
+        if (result == null) {
+            metrics.recordNotFound(Query.INVITABLE_MEMBERS, start);
             throw new ResponseStatusException(NOT_FOUND);
         }
-        List<Member> alreadyParticipated = participationList.stream().filter(
-                        p -> surveyId.equals(p.getSurvey().getId())
-                                || StatusEnum.NOT_ASKED.getId().equals(p.getStatus().getId()))
-                .map(Participation::getMember).toList();
-        List<Member> activeMembers = new ArrayList<>(memberMap.values().stream().filter(Member::getActive).toList());
-        activeMembers.removeAll(alreadyParticipated);
-        return activeMembers.stream().map(this::mapToMemberDTO).collect(Collectors.toList());
+        metrics.recordQuery(Query.INVITABLE_MEMBERS, start, result.size());
+        return result;
+    }
+
+    /**
+     * Retrieves a page of the members who can be invited to the survey with the given id, in ascending id order.
+     *
+     * @param surveyId The id of the survey.
+     * @param cursor   The cursor returned with the previous page, or {@code null} for the first page.
+     * @param limit    The maximum number of members on the page, at most {@link #MAX_PAGE_SIZE}.
+     * @return A {@link MemberPageDTO}.
+     * @throws ResponseStatusException if no survey can be found with the given id (HTTP 404 Not Found),
+     *                                 if the cursor or the limit is invalid (HTTP 400 Bad Request),
+     *                                 or if the data was reloaded since the cursor was created (HTTP 410 Gone).
+     */
+    public MemberPageDTO getInvitableMemberForSurvey(final Long surveyId, final String cursor, final int limit) {
+        final long start = System.nanoTime();
+        final Dataset dataset = datasets.current();
+        final ParticipationStore store = dataset.getParticipations();
+        final DtoCache dtos = dataset.getDtos();
+        final int surveyOrdinal = store.surveyOrdinal(surveyId);
+        if (surveyOrdinal == LongIntHashMap.MISSING) {
+            metrics.recordNotFound(Query.INVITABLE_MEMBERS_PAGE, start);
+            throw new ResponseStatusException(NOT_FOUND);
+        }
+        final int from = pageStart(dataset, cursor, limit);
+        final BitSet invitable = store.invitableMembers(surveyOrdinal);
+        final List<MemberDTO> members = new ArrayList<>(Math.min(limit, MAX_PAGE_SIZE));
+        int memberOrdinal = invitable.nextSetBit(from);
+        for (; memberOrdinal >= 0 && members.size() < limit; memberOrdinal = invitable.nextSetBit(memberOrdinal + 1)) {
+            members.add(dtos.member(memberOrdinal));
+        }
+        final MemberPageDTO page = new MemberPageDTO(members,
+                memberOrdinal < 0 ? null : new PageCursor(dataset.getGeneration(), memberOrdinal).encode());
+        metrics.recordQuery(Query.INVITABLE_MEMBERS_PAGE, start, members.size());
+        return page;
+    }
+
+    /**
+     * Streams the members who can be invited to the survey with the given id, in ascending id order.
+     * The survey is resolved immediately, the members are produced lazily from the current dataset.
+     *
+     * @param surveyId The id of the survey.
+     * @return A sequential {@link Stream} of {@link MemberDTO}.
+     * @throws ResponseStatusException if no survey can be found with the given id (HTTP 404 Not Found).
+     */
+    public Stream<MemberDTO> streamInvitableMemberForSurvey(final Long surveyId) {
+        final Dataset dataset = datasets.current();
+        final ParticipationStore store = dataset.getParticipations();
+        final DtoCache dtos = dataset.getDtos();
+        final int surveyOrdinal = store.surveyOrdinal(surveyId);
+        if (surveyOrdinal == LongIntHashMap.MISSING) {
+            throw new ResponseStatusException(NOT_FOUND);
+        }
+        return store.invitableMembers(surveyOrdinal).stream().mapToObj(dtos::member);
     }
 
     /**
@@ -143,55 +296,142 @@ public class SurveyService {
      * @return A {@link List} of {@link SurveyStatisticsDTO}.
      */
     public List<SurveyStatisticsDTO> getSurveyStatistics() {
-        return participationList.stream().collect(groupingBy(p -> p.getSurvey().getId(),
-                collectingAndThen(toList(), this::constructSurveyStatisticsDTO))).values().stream().toList();
+        return getSurveyStatistics(datasets.current());
+    }
+
+    /**
+     * Retrieves a list of statistics that contains information about each survey of the given dataset.
+     *
+     * @param dataset The dataset to query, which does not have to be published yet.
+     * @return A {@link List} of {@link SurveyStatisticsDTO}.
+     */
+    List<SurveyStatisticsDTO> getSurveyStatistics(final Dataset dataset) {
+        final long start = System.nanoTime();
+        final List<SurveyStatisticsDTO> result =
+                cache.get(dataset, Query.STATISTICS, 0, (queried, ignored) -> backend.statistics(queried));
+        metrics.recordQuery(Query.STATISTICS, start, result.size());
+        return result;
     }
 
-    private CollectedPointsDTO constructCollectedPointsDTO(final Participation participation) {
-        Integer points = 0;
-        if (StatusEnum.FILTERED.getId().equals(participation.getStatus().getId())) {
-            points = participation.getSurvey().getFilteredPoints();
-        } else if (StatusEnum.COMPLETED.getId().equals(participation.getStatus().getId())) {
-            points = participation.getSurvey().getCompletionPoints();
+    /**
+     * Retrieves the distribution of the lengths of the participations of the survey with the given id.
+     * The quantiles are estimated from a fixed-size histogram kept up to date with the data, so they are
+     * not skewed by a few very long participations like the average is.
+     *
+     * @param surveyId The id of the survey.
+     * @return A {@link LengthDistributionDTO} with the median, the 90th and the 99th percentile and the histogram.
+     * @throws ResponseStatusException if no survey can be found with the given id (HTTP 404 Not Found).
+     */
+    public LengthDistributionDTO getLengthDistribution(final Long surveyId) {
+        final long start = System.nanoTime();
+        final Dataset dataset = datasets.current();
+        final ParticipationStore store = dataset.getParticipations();
+        final int surveyOrdinal = store.surveyOrdinal(surveyId);
+        if (surveyOrdinal == LongIntHashMap.MISSING) {
+            metrics.recordNotFound(Query.LENGTH_DISTRIBUTION, start);
+            throw new ResponseStatusException(NOT_FOUND);
         }
-        return CollectedPointsDTO.builder()
-                .surveyId(participation.getSurvey().getId())
-                .collectedPoints(points)
-                .build();
+        final LengthDistributionDTO result = DtoMapper.toLengthDistributionDTO(store.survey(surveyOrdinal),
+                dataset.getStatistics(), surveyOrdinal);
+        metrics.recordQuery(Query.LENGTH_DISTRIBUTION, start, result.getHistogram().size());
+        return result;
     }
 
-    private SurveyStatisticsDTO constructSurveyStatisticsDTO(final List<Participation> list) {
-        final Survey currentSurvey = list.get(0).getSurvey();
-        return SurveyStatisticsDTO.builder()
-                .surveyId(currentSurvey.getId())
-                .surveyName(currentSurvey.getName())
-                .numberOfCompletes(
-                        list.stream().filter(p -> StatusEnum.COMPLETED.getId().equals(p.getStatus().getId())).count())
-                .numberOfFiltered(
-                        list.stream().filter(p -> StatusEnum.FILTERED.getId().equals(p.getStatus().getId())).count())
-                .numberOfRejected(
-                        list.stream().filter(p -> StatusEnum.REJECTED.getId().equals(p.getStatus().getId())).count())
-                .averageLengthSpent(
-                        list.stream().filter(p -> p.getLength() != null)
-                                .mapToLong(Participation::getLength).average().orElse(Double.NaN))
-                .build();
+    /**
+     * Retrieves the members with the most points, collected by the rules of {@link #getPointsForMember(Long)}.
+     *
+     * @param limit The maximum number of members, at most {@link #MAX_PAGE_SIZE}.
+     * @return A {@link List} of {@link LeaderboardEntryDTO}, from the most points to the least, ties in ascending
+     * member id order.
+     * @throws ResponseStatusException if the limit is invalid (HTTP 400 Bad Request).
+     */
+    public List<LeaderboardEntryDTO> getLeaderboard(final int limit) {
+        final long start = System.nanoTime();
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(BAD_REQUEST,
+                    String.format("The limit must be between 1 and %d", MAX_PAGE_SIZE));
+        }
+        final Dataset dataset = datasets.current();
+        final ParticipationStore store = dataset.getParticipations();
+        final PointsLeaderboard leaderboard = dataset.getLeaderboard();
+        final List<LeaderboardEntryDTO> result = new ArrayList<>(Math.min(limit, leaderboard.memberCount()));
+        leaderboard.forEachTop(limit, memberOrdinal -> {
+            final long total = leaderboard.total(memberOrdinal);
+            final LeaderboardEntryDTO previous = result.isEmpty() ? null : result.get(result.size() - 1);
+            final int rank = previous != null && previous.getTotalPoints() == total
+                    ? previous.getRank() : result.size() + 1;
+            result.add(toLeaderboardEntryDTO(store, memberOrdinal, rank, total));
+        });
+        metrics.recordQuery(Query.LEADERBOARD, start, result.size());
+        return result;
     }
 
-    private <T> List<T> readCsvEntities(final Resource resource, final Class<T> clazz) {
-        try (MappingIterator<T> iterator = new CsvMapper().readerFor(clazz)
-                .with(CsvSchema.emptySchema().withHeader()).readValues(resource.getInputStream())) {
-            return iterator.readAll();
-        } catch (IOException exception) {
-            log.error(String.format("Cannot parse file %s. Exception: %s", resource.getFilename(), exception));
-            return Collections.emptyList();
+    /**
+     * Retrieves the total points and the rank of the member with the given id.
+     *
+     * @param memberId The id of the member.
+     * @return A {@link LeaderboardEntryDTO}, members with the same total share a rank.
+     * @throws ResponseStatusException if no member can be found with the given id (HTTP 404 Not Found).
+     */
+    public LeaderboardEntryDTO getLeaderboardEntry(final Long memberId) {
+        final long start = System.nanoTime();
+        final Dataset dataset = datasets.current();
+        final ParticipationStore store = dataset.getParticipations();
+        final int memberOrdinal = store.memberOrdinal(memberId);
+        if (memberOrdinal == LongIntHashMap.MISSING) {
+            metrics.recordNotFound(Query.LEADERBOARD_ENTRY, start);
+            throw new ResponseStatusException(NOT_FOUND);
         }
+        final PointsLeaderboard leaderboard = dataset.getLeaderboard();
+        final LeaderboardEntryDTO entry = toLeaderboardEntryDTO(store, memberOrdinal,
+                leaderboard.rank(memberOrdinal), leaderboard.total(memberOrdinal));
+        metrics.recordQuery(Query.LEADERBOARD_ENTRY, start, 1);
+        return entry;
     }
 
-    private MemberDTO mapToMemberDTO(final Member member) {
-        return mapper.map(member, MemberDTO.class);
+    private <T> BatchDTO<T> batch(final Query batchQuery, final Query query, final List<Long> ids,
+                                  final QueryCache.Loader<T> loader) {
+        final long start = System.nanoTime();
+        if (ids == null || ids.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(BAD_REQUEST,
+                    String.format("Between 0 and %d ids must be given", MAX_BATCH_SIZE));
+        }
+        // Every id is resolved against the same dataset, even if a new one is published in the meantime.
+        final Dataset dataset = datasets.current();
+        final Map<Long, List<T>> results = new LinkedHashMap<>();
+        final Set<Long> unknownIds = new LinkedHashSet<>();
+        for (final Long id : ids) {
+            if (id == null) {
+                throw new ResponseStatusException(BAD_REQUEST, "The ids must not be null");
+            }
+            if (!results.containsKey(id) && !unknownIds.contains(id)) {
+                final List<T> result = cache.get(dataset, query, id, loader);
+                if (result == null) {
+                    unknownIds.add(id);
+                } else {
+                    results.put(id, result);
+                }
+            }
+        }
+        metrics.recordQuery(batchQuery, start, ids.size());
+        return new BatchDTO<>(results, List.copyOf(unknownIds));
+    }
+
+    private static LeaderboardEntryDTO toLeaderboardEntryDTO(final ParticipationStore store, final int memberOrdinal,
+                                                             final int rank, final long total) {
+        return new LeaderboardEntryDTO(rank, store.memberId(memberOrdinal), store.memberFullName(memberOrdinal),
+                total);
     }
 
-    private SurveyDTO mapToSurveyDTO(final Survey survey) {
-        return mapper.map(survey, SurveyDTO.class);
+    private static int pageStart(final Dataset dataset, final String cursor, final int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(BAD_REQUEST,
+                    String.format("The limit must be between 1 and %d", MAX_PAGE_SIZE));
+        }
+        final PageCursor pageCursor = PageCursor.decode(cursor, dataset.getGeneration());
+        if (pageCursor.generation() != dataset.getGeneration()) {
+            throw new ResponseStatusException(GONE, "The data was reloaded since the cursor was created");
+        }
+        return pageCursor.position();
     }
 }
@@ -0,0 +1,232 @@
+package com.demo.survey.store;
+
+import com.demo.survey.mapper.DtoCache;
+import com.demo.survey.model.Member;
+import com.demo.survey.model.Status;
+import com.demo.survey.model.Survey;
+import com.demo.survey.util.SerializedResponse;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An immutable snapshot of everything that was loaded from one set of csv files:
+ * the dimension maps, the participation store, and the aggregates and the leaderboard derived from it.
+ * The members are only kept by the store, the member map is a view of it.
+ * Readers should fetch the current snapshot once per operation to get a consistent view.
+ */
+@Getter
+public final class Dataset {
+
+    private static final AtomicLong LAST_VERSION = new AtomicLong();
+
+    /**
+     * Identifies the snapshot. Versions are strictly increasing, and are based on the wall clock,
+     * so they also differ between restarts of the application.
+     */
+    private final long version;
+
+    /**
+     * Identifies the load the snapshot descends from: the version of the snapshot that was built from the csv
+     * files, kept by the snapshots that only add participations to it. Within a generation the rows of the
+     * participation store are only ever appended, so positions in its results stay valid.
+     */
+    private final long generation;
+
+    private final Map<Long, Status> statusMap;
+    private final Map<Long, Member> memberMap;
+    private final Map<Long, Survey> surveyMap;
+
+    private final ParticipationStore participations;
+    private final SurveyStatistics statistics;
+    private final PointsLeaderboard leaderboard;
+
+    /**
+     * The csv files the snapshot was built from, empty if they were read from the classpath.
+     */
+    private final List<DatasetSnapshot.SourceFile> sources;
+
+    /**
+     * The number of events of the {@link EventLog} that are included in the participations.
+     */
+    private final long loggedEvents;
+
+    @Getter(AccessLevel.NONE)
+    private volatile DtoCache dtos;
+
+    /**
+     * The JSON of the survey statistics of the snapshot, set before it is published when the serialized responses
+     * are enabled, or {@code null}.
+     */
+    private volatile SerializedResponse serializedStatistics;
+
+    private Dataset(final Map<Long, Status> statusMap, final Map<Long, Survey> surveyMap,
+                    final ParticipationStore participations,
+                    final List<DatasetSnapshot.SourceFile> sources, final long loggedEvents) {
+        this.version = LAST_VERSION.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis()));
+        this.generation = version;
+        this.statusMap = Collections.unmodifiableMap(statusMap);
+        this.memberMap = new MemberMap(participations);
+        this.surveyMap = Collections.unmodifiableMap(surveyMap);
+        this.participations = participations;
+        this.statistics = SurveyStatistics.of(participations);
+        this.leaderboard = PointsLeaderboard.of(participations);
+        this.sources = List.copyOf(sources);
+        this.loggedEvents = loggedEvents;
+    }
+
+    private Dataset(final Dataset previous, final ParticipationStore participations,
+                    final SurveyStatistics statistics, final PointsLeaderboard leaderboard, final long loggedEvents) {
+        this.version = LAST_VERSION.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis()));
+        this.generation = previous.generation;
+        this.statusMap = previous.statusMap;
+        this.memberMap = previous.memberMap;
+        this.surveyMap = previous.surveyMap;
+        this.participations = participations;
+        this.statistics = statistics;
+        this.leaderboard = leaderboard;
+        this.sources = previous.sources;
+        this.loggedEvents = loggedEvents;
+        this.dtos = previous.getDtos();
+    }
+
+    /**
+     * Creates a snapshot, and computes the aggregates of the given participations.
+     *
+     * @param statusMap      The statuses by id.
+     * @param surveyMap      The surveys by id.
+     * @param participations The participation store built over the members and the given surveys.
+     * @return The new {@link Dataset}.
+     */
+    public static Dataset of(final Map<Long, Status> statusMap, final Map<Long, Survey> surveyMap,
+                             final ParticipationStore participations) {
+        return of(statusMap, surveyMap, participations, List.of(), 0);
+    }
+
+    /**
+     * Creates a snapshot of loaded files, and computes the aggregates of the given participations.
+     *
+     * @param statusMap      The statuses by id.
+     * @param surveyMap      The surveys by id.
+     * @param participations The participation store built over the members and the given surveys.
+     * @param sources        The csv files the snapshot was built from.
+     * @param loggedEvents   The number of events of the {@link EventLog} included in the participations.
+     * @return The new {@link Dataset}.
+     */
+    public static Dataset of(final Map<Long, Status> statusMap, final Map<Long, Survey> surveyMap,
+                             final ParticipationStore participations, final List<DatasetSnapshot.SourceFile> sources,
+                             final long loggedEvents) {
+        return new Dataset(statusMap, surveyMap, participations, sources, loggedEvents);
+    }
+
+    /**
+     * Creates the next snapshot of the same members and surveys with more participations.
+     * The dimension maps, the sources and the DTOs are shared with this snapshot.
+     *
+     * @param participations The participation store, derived from the store of this snapshot.
+     * @param statistics     The aggregates of the given participations.
+     * @param leaderboard    The points leaderboard of the given participations.
+     * @param loggedEvents   The number of events of the {@link EventLog} included in the participations.
+     * @return The new {@link Dataset}, with a higher version of the same generation.
+     */
+    public Dataset withParticipations(final ParticipationStore participations, final SurveyStatistics statistics,
+                                      final PointsLeaderboard leaderboard, final long loggedEvents) {
+        return new Dataset(this, participations, statistics, leaderboard, loggedEvents);
+    }
+
+    /**
+     * @return The DTOs of the members and surveys of this snapshot, created on the first call.
+     */
+    public DtoCache getDtos() {
+        DtoCache result = dtos;
+        if (result == null) {
+            synchronized (this) {
+                result = dtos;
+                if (result == null) {
+                    result = DtoCache.of(participations);
+                    dtos = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param serializedStatistics The JSON of the survey statistics of this snapshot.
+     */
+    public void setSerializedStatistics(final SerializedResponse serializedStatistics) {
+        this.serializedStatistics = serializedStatistics;
+    }
+
+    public static Dataset empty() {
+        return of(Map.of(), Map.of(), ParticipationStore.of(List.of(), List.of(), List.of()));
+    }
+
+    /**
+     * The members of a store by id. Every lookup creates a new {@link Member}.
+     */
+    private static final class MemberMap extends AbstractMap<Long, Member> {
+
+        private final ParticipationStore store;
+
+        private MemberMap(final ParticipationStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public int size() {
+            return store.memberCount();
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return key instanceof Long id && store.memberOrdinal(id) != LongIntHashMap.MISSING;
+        }
+
+        @Override
+        public Member get(final Object key) {
+            return containsKey(key) ? store.member(store.memberOrdinal((Long) key)) : null;
+        }
+
+        @Override
+        public Set<Entry<Long, Member>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return store.memberCount();
+                }
+
+                @Override
+                public Iterator<Entry<Long, Member>> iterator() {
+                    return new Iterator<>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < store.memberCount();
+                        }
+
+                        @Override
+                        public Entry<Long, Member> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            final int memberOrdinal = next++;
+                            return new SimpleImmutableEntry<>(store.memberId(memberOrdinal),
+                                    store.member(memberOrdinal));
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
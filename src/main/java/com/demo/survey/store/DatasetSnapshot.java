@@ -0,0 +1,242 @@
+package com.demo.survey.store;
+
+import com.demo.survey.model.Member;
+import com.demo.survey.model.Status;
+import com.demo.survey.model.Survey;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores a {@link Dataset} in a binary file, so it can be restored without parsing the csv files again.
+ * <p>
+ * The file starts with a header that identifies the format and the source files it was built from,
+ * by their size and CRC32C checksum, and the position of the {@link EventLog} whose events it includes.
+ * It is followed by the dimension tables, the participation columns and the precomputed indexes of the
+ * {@link ParticipationStore}, all little-endian, and ends with the CRC32C of the whole content. A snapshot is
+ * only restored when its header matches the current source files and event log, and its content matches its
+ * checksum.
+ */
+public final class DatasetSnapshot {
+
+    private static final long MAGIC = 0x50414E5359565253L;
+    private static final int FORMAT_VERSION = 2;
+
+    private static final byte NULL = -1;
+
+    private DatasetSnapshot() {
+    }
+
+    /**
+     * Identifies a source file of a snapshot.
+     *
+     * @param name     The name of the file.
+     * @param size     The size of the file in bytes.
+     * @param checksum The CRC32C of the content of the file.
+     */
+    public record SourceFile(String name, long size, int checksum) {
+
+        /**
+         * @param path The file.
+         * @return The {@link SourceFile} describing the current content of the file.
+         * @throws IOException if the file cannot be read.
+         */
+        public static SourceFile of(final Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                final long size = channel.size();
+                return new SourceFile(path.getFileName().toString(), size, SnapshotInput.checksum(channel, 0, size));
+            }
+        }
+    }
+
+    /**
+     * Identifies a set of source files, so an {@link EventLog} can tell whether its events were recorded on top
+     * of the csv files of a dataset.
+     *
+     * @param sources The source files of a dataset.
+     * @return A fingerprint of the names, sizes and checksums of the files that is never 0, or 0 if there are no
+     * source files.
+     */
+    public static long baseline(final List<SourceFile> sources) {
+        if (sources.isEmpty()) {
+            return 0;
+        }
+        long baseline = 1125899906842597L;
+        for (final SourceFile source : sources) {
+            for (int i = 0; i < source.name().length(); i++) {
+                baseline = 31 * baseline + source.name().charAt(i);
+            }
+            baseline = 31 * baseline + source.size();
+            baseline = 31 * baseline + source.checksum();
+        }
+        return baseline == 0 ? 1 : baseline;
+    }
+
+    /**
+     * Writes the dataset to a temporary file next to the target, and moves it in place once complete,
+     * so readers never see a partially written snapshot.
+     *
+     * @param dataset The dataset, with the source files it was built from.
+     * @param logId   The id of the {@link EventLog} whose events the dataset includes, ignored if it includes none.
+     * @param path    The snapshot file.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public static void write(final Dataset dataset, final long logId, final Path path) throws IOException {
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (SnapshotOutput output = new SnapshotOutput(temporary)) {
+                writeHeader(output, dataset.getSources());
+                output.writeLong(dataset.getLoggedEvents() == 0 ? 0 : logId);
+                output.writeLong(dataset.getLoggedEvents());
+                output.writeInt(dataset.getStatusMap().size());
+                for (final Status status : dataset.getStatusMap().values()) {
+                    output.writeLong(status.getId());
+                    output.writeString(status.getName());
+                }
+                final ParticipationStore store = dataset.getParticipations();
+                output.writeInt(store.memberCount());
+                for (int i = 0; i < store.memberCount(); i++) {
+                    writeMember(output, store.member(i));
+                }
+                output.writeInt(store.surveyCount());
+                for (int i = 0; i < store.surveyCount(); i++) {
+                    writeSurvey(output, store.survey(i));
+                }
+                store.writeTo(output);
+                output.finish();
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Restores a dataset, if the snapshot exists and was built from the given source files. A snapshot that
+     * includes logged events is only restored if the given log still holds those events, and has not dropped
+     * any event the snapshot does not include.
+     *
+     * @param path    The snapshot file.
+     * @param sources The current source files.
+     * @param log     The current position of the {@link EventLog}, or {@code null} if there is none.
+     * @return The restored {@link Dataset}, or {@code null} if there is no snapshot or it is out of date.
+     * @throws IOException if the snapshot cannot be read or is corrupt.
+     */
+    public static Dataset read(final Path path, final List<SourceFile> sources, final EventLog.Position log)
+            throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (SnapshotInput input = new SnapshotInput(path)) {
+            if (!readHeader(input, sources)) {
+                return null;
+            }
+            final long logId = input.readLong();
+            final long loggedEvents = input.readLong();
+            if (loggedEvents > 0 && (log == null || log.logId() != logId || log.sequence() < loggedEvents
+                    || log.base() > loggedEvents)) {
+                return null;
+            }
+            if (!input.verify()) {
+                throw new IOException(String.format("The checksum of snapshot %s does not match", path));
+            }
+            final int statusCount = input.readInt();
+            final Map<Long, Status> statusMap = new HashMap<>(capacity(statusCount));
+            for (int i = 0; i < statusCount; i++) {
+                final Status status = new Status(input.readLong(), input.readString());
+                statusMap.put(status.getId(), status);
+            }
+            final Member[] members = new Member[input.readInt()];
+            for (int i = 0; i < members.length; i++) {
+                members[i] = readMember(input);
+            }
+            final Survey[] surveys = new Survey[input.readInt()];
+            final Map<Long, Survey> surveyMap = new HashMap<>(capacity(surveys.length));
+            for (int i = 0; i < surveys.length; i++) {
+                surveys[i] = readSurvey(input);
+                surveyMap.put(surveys[i].getId(), surveys[i]);
+            }
+            return Dataset.of(statusMap, surveyMap, ParticipationStore.readFrom(input, members, surveys), sources,
+                    loggedEvents);
+        }
+    }
+
+    private static void writeHeader(final SnapshotOutput output, final List<SourceFile> sources) throws IOException {
+        output.writeLong(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(ParticipationStore.STATUS_COUNT);
+        output.writeInt(sources.size());
+        for (final SourceFile source : sources) {
+            output.writeString(source.name());
+            output.writeLong(source.size());
+            output.writeInt(source.checksum());
+        }
+    }
+
+    private static boolean readHeader(final SnapshotInput input, final List<SourceFile> sources) throws IOException {
+        if (input.readLong() != MAGIC || input.readInt() != FORMAT_VERSION
+                || input.readInt() != ParticipationStore.STATUS_COUNT) {
+            return false;
+        }
+        final int sourceCount = input.readInt();
+        if (sourceCount != sources.size()) {
+            return false;
+        }
+        final List<SourceFile> written = new ArrayList<>(sourceCount);
+        for (int i = 0; i < sourceCount; i++) {
+            written.add(new SourceFile(input.readString(), input.readLong(), input.readInt()));
+        }
+        return written.equals(sources);
+    }
+
+    private static void writeMember(final SnapshotOutput output, final Member member) throws IOException {
+        output.writeLong(member.getId());
+        output.writeString(member.getFullName());
+        output.writeString(member.getEmail());
+        output.writeByte(member.getActive() == null ? NULL : (byte) (member.getActive() ? 1 : 0));
+    }
+
+    private static Member readMember(final SnapshotInput input) throws IOException {
+        final long id = input.readLong();
+        final String fullName = input.readString();
+        final String email = input.readString();
+        final byte active = input.readByte();
+        return new Member(id, fullName, email, active == NULL ? null : active == 1);
+    }
+
+    private static void writeSurvey(final SnapshotOutput output, final Survey survey) throws IOException {
+        output.writeLong(survey.getId());
+        output.writeString(survey.getName());
+        output.writeByte(survey.getExpectedCompletes() == null ? NULL : 0);
+        output.writeLong(survey.getExpectedCompletes() == null ? 0 : survey.getExpectedCompletes());
+        output.writeByte(survey.getCompletionPoints() == null ? NULL : 0);
+        output.writeInt(survey.getCompletionPoints() == null ? 0 : survey.getCompletionPoints());
+        output.writeByte(survey.getFilteredPoints() == null ? NULL : 0);
+        output.writeInt(survey.getFilteredPoints() == null ? 0 : survey.getFilteredPoints());
+    }
+
+    private static Survey readSurvey(final SnapshotInput input) throws IOException {
+        final long id = input.readLong();
+        final String name = input.readString();
+        final boolean hasExpectedCompletes = input.readByte() != NULL;
+        final long expectedCompletes = input.readLong();
+        final boolean hasCompletionPoints = input.readByte() != NULL;
+        final int completionPoints = input.readInt();
+        final boolean hasFilteredPoints = input.readByte() != NULL;
+        final int filteredPoints = input.readInt();
+        return new Survey(id, name, hasExpectedCompletes ? expectedCompletes : null,
+                hasCompletionPoints ? completionPoints : null, hasFilteredPoints ? filteredPoints : null);
+    }
+
+    private static int capacity(final int size) {
+        return (int) Math.min(Integer.MAX_VALUE, size * 4L / 3 + 1);
+    }
+}
@@ -0,0 +1,506 @@
+package com.demo.survey.store;
+
+import com.demo.survey.model.StatusEnum;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only file of recorded participation events, so they survive a restart and a reload of the csv files.
+ * <p>
+ * The file starts with a header that identifies the format and the log itself by a random id, followed by the
+ * base sequence, the number of events dropped from the front of the log, and the baseline, which identifies the
+ * csv files the logged events were recorded on top of. The header is followed by records, each holding one batch
+ * of events: the number of events, the CRC32C of the rest of the record, the sequence number of the first event,
+ * and the events as fixed size little-endian entries. A batch is written with a single positional write, and
+ * becomes durable on the next {@link #sync()}, so the caller decides how many batches share one {@code fsync}.
+ * <p>
+ * The log does not grow without bounds: {@link #rebase(long, long)} rewrites it as a new file without the events
+ * that a snapshot or a new set of csv files already includes. Sequence numbers keep counting across rebases.
+ * The offsets of the records are indexed every {@link #INDEX_INTERVAL} bytes, so a replay seeks close to its
+ * first event instead of reading every record header of the file.
+ * <p>
+ * On {@link #open(Path)} every record is verified. A crash can only leave a partially written record at the end,
+ * so the log is truncated at the first record that is incomplete or does not match its checksum. Logs of the
+ * previous format, without a base sequence and a baseline, are opened with both as 0, and are written in the
+ * current format on the first rebase. Not thread-safe, except for {@link #position()}.
+ */
+public final class EventLog implements Closeable {
+
+    private static final long MAGIC = 0x474F4C5456455653L;
+    private static final int FORMAT_VERSION = 2;
+
+    private static final int V1_HEADER_SIZE = Long.BYTES + Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int HEADER_SIZE = V1_HEADER_SIZE + Long.BYTES + Long.BYTES;
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int EVENT_SIZE = Long.BYTES + Long.BYTES + Byte.BYTES + Long.BYTES;
+
+    private static final int HAS_LENGTH = 0x80;
+
+    // The minimum distance of two indexed record offsets.
+    static final long INDEX_INTERVAL = 1 << 20;
+
+    // The number of events per record when a log is rewritten.
+    private static final int REBASE_RECORD_EVENTS = 64 * 1024;
+
+    private static final StatusEnum[] STATUSES = StatusEnum.values();
+
+    /**
+     * Identifies a point of a log.
+     *
+     * @param logId    The id of the log.
+     * @param base     The sequence number of the first event the log still holds.
+     * @param sequence The number of events written before the point.
+     */
+    public record Position(long logId, long base, long sequence) {
+    }
+
+    /**
+     * Receives the events read from a log.
+     */
+    @FunctionalInterface
+    public interface EventConsumer {
+        void accept(long memberId, long surveyId, StatusEnum status, long length, boolean hasLength);
+    }
+
+    private final Path path;
+    private final long id;
+    private FileChannel channel;
+    private long truncatedBytes;
+    private long start;
+    private volatile long base;
+    private long baseline;
+    // The sequence numbers and offsets of the indexed records, in ascending order.
+    private long[] indexSequences = new long[16];
+    private long[] indexOffsets = new long[16];
+    private int indexSize;
+    private final CRC32C checksum = new CRC32C();
+    private ByteBuffer pending = ByteBuffer.allocate(RECORD_HEADER_SIZE + 1024 * EVENT_SIZE)
+            .order(ByteOrder.LITTLE_ENDIAN).position(RECORD_HEADER_SIZE);
+    private int pendingCount;
+    private long end;
+    private volatile long sequence;
+    // Where the last record was written, or -1 if it cannot be rewound.
+    private long lastEnd = -1;
+    private long lastSequence;
+
+    private EventLog(final Path path, final FileChannel channel, final long id, final int start, final long base,
+                     final long baseline) {
+        this.path = path;
+        this.channel = channel;
+        this.id = id;
+        this.start = start;
+        this.base = base;
+        this.baseline = baseline;
+        this.end = start;
+        this.sequence = base;
+    }
+
+    /**
+     * Opens a log, or creates it with a new id if the file does not exist or is empty.
+     *
+     * @param path The log file.
+     * @return The opened {@link EventLog}, positioned after its last complete record.
+     * @throws IOException if the file cannot be read or written, or it is not an event log.
+     */
+    public static EventLog open(final Path path) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                final long id = ThreadLocalRandom.current().nextLong();
+                writeHeader(channel, id, 0, 0);
+                channel.force(true);
+                return new EventLog(path, channel, id, HEADER_SIZE, 0, 0);
+            }
+            final ByteBuffer header = read(channel, V1_HEADER_SIZE, 0);
+            final int version = header == null || header.getLong() != MAGIC ? -1 : header.getInt();
+            if ((version != 1 && version != FORMAT_VERSION) || header.getInt() != ParticipationStore.STATUS_COUNT) {
+                throw new IOException(String.format("%s is not an event log of this version", path));
+            }
+            final long id = header.getLong();
+            final EventLog log;
+            if (version == 1) {
+                log = scan(path, channel, id, V1_HEADER_SIZE, 0, 0);
+            } else {
+                final ByteBuffer bases = read(channel, HEADER_SIZE - V1_HEADER_SIZE, V1_HEADER_SIZE);
+                if (bases == null) {
+                    throw new IOException(String.format("%s ended within the header", path));
+                }
+                log = scan(path, channel, id, HEADER_SIZE, bases.getLong(), bases.getLong());
+            }
+            if (log.truncatedBytes > 0) {
+                channel.truncate(log.end);
+                channel.force(true);
+            }
+            return log;
+        } catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    public long id() {
+        return id;
+    }
+
+    /**
+     * @return The number of events written to the log.
+     */
+    public long sequence() {
+        return sequence;
+    }
+
+    /**
+     * @return The sequence number of the first event the log holds, the events before it were dropped
+     * by {@link #rebase(long, long)}.
+     */
+    public long base() {
+        return base;
+    }
+
+    /**
+     * @return The baseline given to the last {@link #rebase(long, long)}, 0 if there was none.
+     */
+    public long baseline() {
+        return baseline;
+    }
+
+    /**
+     * @return The current {@link Position} of the log, safe to call from any thread.
+     */
+    public Position position() {
+        return new Position(id, base, sequence);
+    }
+
+    /**
+     * @return The number of bytes dropped from the end of the file by {@link #open(Path)}.
+     */
+    public long truncatedBytes() {
+        return truncatedBytes;
+    }
+
+    /**
+     * Adds an event to the batch that is written by the next {@link #write()}.
+     *
+     * @param memberId  The id of the member.
+     * @param surveyId  The id of the survey.
+     * @param status    The status of the participation.
+     * @param length    The length of the participation, ignored when {@code hasLength} is {@code false}.
+     * @param hasLength Whether the participation has a length.
+     */
+    public void add(final long memberId, final long surveyId, final StatusEnum status, final long length,
+                    final boolean hasLength) {
+        if (pending.remaining() < EVENT_SIZE) {
+            final ByteBuffer larger = ByteBuffer.allocate(pending.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+            pending = larger.put(pending.flip());
+        }
+        pending.putLong(memberId).putLong(surveyId)
+                .put((byte) (status.ordinal() | (hasLength ? HAS_LENGTH : 0))).putLong(hasLength ? length : 0);
+        pendingCount++;
+    }
+
+    /**
+     * @return The number of events added since the last {@link #write()}.
+     */
+    public int pendingEvents() {
+        return pendingCount;
+    }
+
+    /**
+     * Drops the events added since the last {@link #write()}.
+     */
+    public void discard() {
+        pending.clear().position(RECORD_HEADER_SIZE);
+        pendingCount = 0;
+    }
+
+    /**
+     * Appends the added events as one record. The record is not durable before the next {@link #sync()}.
+     * When the write fails, the added events are dropped, and the next record overwrites whatever was written.
+     *
+     * @throws IOException if the record cannot be written.
+     */
+    public void write() throws IOException {
+        if (pendingCount == 0) {
+            return;
+        }
+        try {
+            pending.putLong(Integer.BYTES + Integer.BYTES, sequence);
+            checksum.reset();
+            checksum.update(pending.array(), Integer.BYTES + Integer.BYTES,
+                    pending.position() - Integer.BYTES - Integer.BYTES);
+            pending.putInt(0, pendingCount).putInt(Integer.BYTES, (int) checksum.getValue()).flip();
+            final int size = pending.limit();
+            write(channel, pending, end);
+            index(sequence, end);
+            lastEnd = end;
+            lastSequence = sequence;
+            end += size;
+            sequence += pendingCount;
+        } finally {
+            discard();
+        }
+    }
+
+    /**
+     * Removes the record written by the last {@link #write()}, for a batch whose events could not be published.
+     * The position is moved back before the file is truncated, so even if the truncation fails the next record
+     * overwrites the removed one, and {@link #open(Path)} drops whatever remains of it behind the last record.
+     *
+     * @throws IllegalStateException if no record was written since the log was opened or last rewound.
+     * @throws IOException           if the file cannot be truncated.
+     */
+    public void rewind() throws IOException {
+        if (lastEnd < 0) {
+            throw new IllegalStateException("There is no record to rewind");
+        }
+        end = lastEnd;
+        sequence = lastSequence;
+        lastEnd = -1;
+        while (indexSize > 0 && indexOffsets[indexSize - 1] >= end) {
+            indexSize--;
+        }
+        channel.truncate(end);
+    }
+
+    /**
+     * Rewrites the log without the events before the given sequence number, and records a new baseline.
+     * The remaining events are written to a new file next to the log, which replaces the log once it is
+     * complete and forced to the storage device, so a crash leaves either the old or the new log behind.
+     * The id and the sequence numbers of the log do not change.
+     *
+     * @param fromSequence The sequence number of the first event to keep, between {@link #base()} and
+     *                     {@link #sequence()}.
+     * @param baseline     Identifies the csv files the kept events were recorded on top of.
+     * @throws IllegalArgumentException if the sequence number is out of range.
+     * @throws IOException              if the new file cannot be written, the log is unchanged then.
+     */
+    public void rebase(final long fromSequence, final long baseline) throws IOException {
+        if (fromSequence < base || fromSequence > sequence) {
+            throw new IllegalArgumentException(String.format("Cannot rebase the log with events %d to %d at %d",
+                    base, sequence, fromSequence));
+        }
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        final FileChannel target = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            writeHeader(target, id, fromSequence, baseline);
+            final EventLog rebased = new EventLog(temporary, target, id, HEADER_SIZE, fromSequence, baseline);
+            final IOException[] failure = new IOException[1];
+            replay(fromSequence, (memberId, surveyId, status, length, hasLength) -> {
+                rebased.add(memberId, surveyId, status, length, hasLength);
+                if (rebased.pendingCount == REBASE_RECORD_EVENTS && failure[0] == null) {
+                    try {
+                        rebased.write();
+                    } catch (IOException exception) {
+                        failure[0] = exception;
+                    }
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            rebased.write();
+            if (rebased.sequence != sequence) {
+                throw new IOException(String.format("Rewrote %d of the events %d to %d of the log",
+                        rebased.sequence - fromSequence, fromSequence, sequence));
+            }
+            target.force(true);
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel.close();
+            channel = target;
+            start = HEADER_SIZE;
+            end = rebased.end;
+            this.base = fromSequence;
+            this.baseline = baseline;
+            indexSequences = rebased.indexSequences;
+            indexOffsets = rebased.indexOffsets;
+            indexSize = rebased.indexSize;
+            lastEnd = -1;
+        } catch (IOException | RuntimeException exception) {
+            target.close();
+            Files.deleteIfExists(temporary);
+            throw exception;
+        }
+    }
+
+    /**
+     * Forces the written records to the storage device.
+     *
+     * @throws IOException if the records cannot be forced.
+     */
+    public void sync() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Reads the events of the log in order, starting at the given sequence number, or at the {@link #base()}
+     * of the log if the events before it were dropped.
+     *
+     * @param fromSequence The sequence number of the first event to read, the events before it are skipped.
+     * @param consumer     Receives the events.
+     * @return The number of events passed to the consumer.
+     * @throws IOException if the file cannot be read.
+     */
+    public long replay(final long fromSequence, final EventConsumer consumer) throws IOException {
+        long replayed = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(0);
+        for (long position = seek(fromSequence); position < end; ) {
+            final ByteBuffer header = read(channel, RECORD_HEADER_SIZE, position);
+            if (header == null) {
+                throw new EOFException("The event log ended within a record");
+            }
+            final int count = header.getInt();
+            header.getInt();
+            final long first = header.getLong();
+            final int size = count * EVENT_SIZE;
+            if (first + count > fromSequence) {
+                if (buffer.capacity() < size) {
+                    buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+                }
+                buffer.clear().limit(size);
+                readFully(channel, buffer, position + RECORD_HEADER_SIZE);
+                buffer.flip();
+                for (long event = first; event < first + count; event++) {
+                    final long memberId = buffer.getLong();
+                    final long surveyId = buffer.getLong();
+                    final int flags = buffer.get() & 0xFF;
+                    final long length = buffer.getLong();
+                    if (event >= fromSequence) {
+                        consumer.accept(memberId, surveyId, STATUSES[flags & ~HAS_LENGTH],
+                                length, (flags & HAS_LENGTH) != 0);
+                        replayed++;
+                    }
+                }
+            }
+            position += RECORD_HEADER_SIZE + size;
+        }
+        return replayed;
+    }
+
+    /**
+     * Forces the written records to the storage device and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (channel.isOpen()) {
+                channel.force(false);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * @return The offset of the last indexed record that starts at or before the given sequence number.
+     */
+    private long seek(final long fromSequence) {
+        int low = 0;
+        int high = indexSize - 1;
+        long offset = start;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (indexSequences[middle] <= fromSequence) {
+                offset = indexOffsets[middle];
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return offset;
+    }
+
+    private void index(final long first, final long offset) {
+        if (offset - (indexSize == 0 ? start : indexOffsets[indexSize - 1]) < INDEX_INTERVAL) {
+            return;
+        }
+        if (indexSize == indexOffsets.length) {
+            indexSequences = Arrays.copyOf(indexSequences, indexSize * 2);
+            indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+        }
+        indexSequences[indexSize] = first;
+        indexOffsets[indexSize++] = offset;
+    }
+
+    private static void writeHeader(final FileChannel channel, final long id, final long base, final long baseline)
+            throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                .putLong(MAGIC).putInt(FORMAT_VERSION).putInt(ParticipationStore.STATUS_COUNT).putLong(id)
+                .putLong(base).putLong(baseline).flip();
+        write(channel, header, 0);
+    }
+
+    private static EventLog scan(final Path path, final FileChannel channel, final long id, final int start,
+                                 final long base, final long baseline) throws IOException {
+        final long size = channel.size();
+        final EventLog log = new EventLog(path, channel, id, start, base, baseline);
+        final CRC32C checksum = new CRC32C();
+        long position = start;
+        long sequence = base;
+        while (position + RECORD_HEADER_SIZE <= size) {
+            final ByteBuffer header = read(channel, RECORD_HEADER_SIZE, position);
+            final int count = header.getInt();
+            final int expected = header.getInt();
+            final long first = header.getLong();
+            if (count <= 0 || first != sequence || position + RECORD_HEADER_SIZE + (long) count * EVENT_SIZE > size) {
+                break;
+            }
+            final ByteBuffer events = read(channel, count * EVENT_SIZE, position + RECORD_HEADER_SIZE);
+            checksum.reset();
+            checksum.update(header.flip().position(Integer.BYTES + Integer.BYTES));
+            checksum.update(events);
+            if ((int) checksum.getValue() != expected) {
+                break;
+            }
+            log.index(first, position);
+            position += RECORD_HEADER_SIZE + (long) count * EVENT_SIZE;
+            sequence += count;
+        }
+        log.end = position;
+        log.sequence = sequence;
+        log.truncatedBytes = size - position;
+        return log;
+    }
+
+    private static ByteBuffer read(final FileChannel channel, final int size, final long position)
+            throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            readFully(channel, buffer, position);
+        } catch (EOFException exception) {
+            return null;
+        }
+        return buffer.flip();
+    }
+
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer, final long position)
+            throws IOException {
+        for (long offset = position; buffer.hasRemaining(); ) {
+            final int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            offset += read;
+        }
+    }
+
+    private static void write(final FileChannel channel, final ByteBuffer buffer, final long position)
+            throws IOException {
+        for (long offset = position; buffer.hasRemaining(); ) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+}
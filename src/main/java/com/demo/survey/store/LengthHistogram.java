@@ -0,0 +1,79 @@
+package com.demo.survey.store;
+
+/**
+ * The buckets of the length histograms of {@link SurveyStatistics}, in the log-linear layout of HDR histograms.
+ * <p>
+ * Lengths below {@value #EXACT_LENGTHS} have a bucket each. Above that, every power of two is split into
+ * {@value #SUB_BUCKETS} buckets of equal width, so a bucket is never wider than 1/{@value #SUB_BUCKETS} of its
+ * lower bound, and the middle of a bucket is within about 3% of every length in it. Every non-negative
+ * {@code long} has a bucket, so a histogram is {@value #BUCKET_COUNT} counts, no matter how many lengths it holds.
+ * Negative lengths are counted as 0.
+ */
+public final class LengthHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    public static final int EXACT_LENGTHS = 2 * SUB_BUCKETS;
+
+    public static final int BUCKET_COUNT = EXACT_LENGTHS + (Long.SIZE - 1 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private LengthHistogram() {
+    }
+
+    /**
+     * @param length The length.
+     * @return The index of the bucket of the given length.
+     */
+    public static int bucket(final long length) {
+        if (length < EXACT_LENGTHS) {
+            return (int) Math.max(0, length);
+        }
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(length);
+        final int shift = exponent - SUB_BUCKET_BITS;
+        return EXACT_LENGTHS + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS
+                + (int) (length >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * @param bucket The index of the bucket.
+     * @return The smallest length of the bucket.
+     */
+    public static long lowerBound(final int bucket) {
+        if (bucket < EXACT_LENGTHS) {
+            return bucket;
+        }
+        final int offset = bucket - EXACT_LENGTHS;
+        return (long) (SUB_BUCKETS + offset % SUB_BUCKETS) << (offset / SUB_BUCKETS + 1);
+    }
+
+    /**
+     * @param bucket The index of the bucket.
+     * @return The largest length of the bucket.
+     */
+    public static long upperBound(final int bucket) {
+        if (bucket < EXACT_LENGTHS) {
+            return bucket;
+        }
+        return lowerBound(bucket) + (1L << ((bucket - EXACT_LENGTHS) / SUB_BUCKETS + 1)) - 1;
+    }
+
+    /**
+     * Estimates a quantile of the lengths counted in a histogram.
+     *
+     * @param counts   The counts per bucket.
+     * @param total    The sum of the counts, at least 1.
+     * @param quantile The quantile, between 0 and 1.
+     * @return The middle of the bucket that holds the length at the given quantile.
+     */
+    public static double quantile(final long[] counts, final long total, final double quantile) {
+        final long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        int bucket = 0;
+        while (bucket < counts.length - 1 && (seen += counts[bucket]) < rank) {
+            bucket++;
+        }
+        return lowerBound(bucket) + (upperBound(bucket) - lowerBound(bucket)) / 2.0;
+    }
+}
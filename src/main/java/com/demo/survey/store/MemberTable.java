@@ -0,0 +1,88 @@
+package com.demo.survey.store;
+
+import com.demo.survey.model.Member;
+
+import java.io.IOException;
+
+/**
+ * The members of a {@link ParticipationStore} in columns, addressed by ordinal: the ids, the flags and the ids of
+ * the names and e-mail addresses in a {@link StringArena}. {@link Member} entities are only created on request.
+ */
+final class MemberTable {
+
+    private static final byte INACTIVE = 0;
+    private static final byte ACTIVE = 1;
+    private static final byte UNKNOWN = 2;
+
+    private final long[] ids;
+    private final int[] fullNames;
+    private final int[] emails;
+    private final byte[] active;
+    private final StringArena strings;
+
+    private MemberTable(final long[] ids, final int[] fullNames, final int[] emails, final byte[] active,
+                        final StringArena strings) {
+        this.ids = ids;
+        this.fullNames = fullNames;
+        this.emails = emails;
+        this.active = active;
+        this.strings = strings;
+    }
+
+    /**
+     * @param members The members, in ordinal order.
+     * @return The columns of the given members.
+     */
+    static MemberTable of(final Member[] members) {
+        final long[] ids = new long[members.length];
+        final int[] fullNames = new int[members.length];
+        final int[] emails = new int[members.length];
+        final byte[] active = new byte[members.length];
+        final StringArena.Builder strings = StringArena.builder();
+        for (int i = 0; i < members.length; i++) {
+            final Member member = members[i];
+            ids[i] = member.getId();
+            fullNames[i] = strings.add(member.getFullName());
+            emails[i] = strings.add(member.getEmail());
+            active[i] = member.getActive() == null ? UNKNOWN : member.getActive() ? ACTIVE : INACTIVE;
+        }
+        return new MemberTable(ids, fullNames, emails, active, strings.build());
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    long id(final int memberOrdinal) {
+        return ids[memberOrdinal];
+    }
+
+    String fullName(final int memberOrdinal) {
+        return strings.get(fullNames[memberOrdinal]);
+    }
+
+    String email(final int memberOrdinal) {
+        return strings.get(emails[memberOrdinal]);
+    }
+
+    boolean writeFullName(final int memberOrdinal, final StringArena.Utf8Writer writer) throws IOException {
+        return strings.write(fullNames[memberOrdinal], writer);
+    }
+
+    boolean writeEmail(final int memberOrdinal, final StringArena.Utf8Writer writer) throws IOException {
+        return strings.write(emails[memberOrdinal], writer);
+    }
+
+    Boolean active(final int memberOrdinal) {
+        return active[memberOrdinal] == UNKNOWN ? null : active[memberOrdinal] == ACTIVE;
+    }
+
+    Member member(final int memberOrdinal) {
+        return new Member(id(memberOrdinal), fullName(memberOrdinal), email(memberOrdinal), active(memberOrdinal));
+    }
+
+    long estimatedHeapBytes() {
+        return 8L * ids.length + 4L * fullNames.length + 4L * emails.length + active.length
+                + strings.estimatedHeapBytes();
+    }
+}
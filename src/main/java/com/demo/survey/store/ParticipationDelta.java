@@ -0,0 +1,273 @@
+package com.demo.survey.store;
+
+import com.demo.survey.model.StatusEnum;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * The rows appended to a built {@link ParticipationStore}, shared by every store derived from it.
+ * <p>
+ * A single writer appends rows, and every derived store reads a fixed prefix of them through a {@link View}.
+ * The rows of a survey or member are linked in row order, a link being the appended row number plus one,
+ * and {@code 0} marking the end of a list. Appending only ever sets links that were {@code 0}, and never moves
+ * a visible row, so a reader needs no locking: it stops at the first link that is {@code 0} or points past
+ * its prefix. The views are published together with their {@link Dataset}, which makes the prefix visible.
+ */
+final class ParticipationDelta {
+
+    private static final int STATUS_COUNT = ParticipationStore.STATUS_COUNT;
+
+    private final int[] firstOfSurvey;
+    private final int[] lastOfSurvey;
+    private final int[] firstOfMember;
+    private final int[] lastOfMember;
+
+    private int size;
+    private int[] memberColumn;
+    private int[] surveyColumn;
+    private byte[] statusColumn;
+    private long[] lengthColumn;
+    private long[] lengthPresence;
+    private int[] nextOfSurvey;
+    private int[] nextOfMember;
+    private int[] notAskedRows;
+    private int notAskedCount;
+
+    ParticipationDelta(final int memberCount, final int surveyCount) {
+        this.firstOfSurvey = new int[surveyCount * STATUS_COUNT];
+        this.lastOfSurvey = new int[surveyCount * STATUS_COUNT];
+        this.firstOfMember = new int[memberCount * STATUS_COUNT];
+        this.lastOfMember = new int[memberCount * STATUS_COUNT];
+        allocate(1024);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Appends a row. Only one thread may call this method.
+     *
+     * @param memberOrdinal The ordinal of the member.
+     * @param surveyOrdinal The ordinal of the survey.
+     * @param statusCode    The status code of the participation, the ordinal of its {@link StatusEnum}.
+     * @param length        The length of the participation, ignored when {@code hasLength} is {@code false}.
+     * @param hasLength     Whether the participation has a length.
+     */
+    void add(final int memberOrdinal, final int surveyOrdinal, final int statusCode, final long length,
+             final boolean hasLength) {
+        if (size == memberColumn.length) {
+            grow();
+        }
+        memberColumn[size] = memberOrdinal;
+        surveyColumn[size] = surveyOrdinal;
+        statusColumn[size] = (byte) statusCode;
+        if (hasLength) {
+            lengthColumn[size] = length;
+            lengthPresence[size >>> 6] |= 1L << size;
+        }
+        link(firstOfSurvey, lastOfSurvey, nextOfSurvey, surveyOrdinal * STATUS_COUNT + statusCode);
+        link(firstOfMember, lastOfMember, nextOfMember, memberOrdinal * STATUS_COUNT + statusCode);
+        if (statusCode == StatusEnum.NOT_ASKED.ordinal()) {
+            if (notAskedCount == notAskedRows.length) {
+                notAskedRows = Arrays.copyOf(notAskedRows, notAskedCount * 2);
+            }
+            notAskedRows[notAskedCount++] = size;
+        }
+        size++;
+    }
+
+    /**
+     * @return A {@link View} of the rows appended so far.
+     */
+    View view() {
+        return new View(this);
+    }
+
+    private void link(final int[] first, final int[] last, final int[] next, final int key) {
+        final int link = size + 1;
+        if (last[key] == 0) {
+            first[key] = link;
+        } else {
+            next[last[key] - 1] = link;
+        }
+        last[key] = link;
+    }
+
+    private void allocate(final int capacity) {
+        this.memberColumn = new int[capacity];
+        this.surveyColumn = new int[capacity];
+        this.statusColumn = new byte[capacity];
+        this.lengthColumn = new long[capacity];
+        this.lengthPresence = new long[(capacity + 63) >>> 6];
+        this.nextOfSurvey = new int[capacity];
+        this.nextOfMember = new int[capacity];
+        this.notAskedRows = new int[16];
+    }
+
+    /**
+     * Moves the rows to larger arrays. Views taken earlier keep the old arrays, which hold every row they can see.
+     */
+    private void grow() {
+        final int capacity = memberColumn.length * 2;
+        memberColumn = Arrays.copyOf(memberColumn, capacity);
+        surveyColumn = Arrays.copyOf(surveyColumn, capacity);
+        statusColumn = Arrays.copyOf(statusColumn, capacity);
+        lengthColumn = Arrays.copyOf(lengthColumn, capacity);
+        lengthPresence = Arrays.copyOf(lengthPresence, (capacity + 63) >>> 6);
+        nextOfSurvey = Arrays.copyOf(nextOfSurvey, capacity);
+        nextOfMember = Arrays.copyOf(nextOfMember, capacity);
+    }
+
+    /**
+     * The first {@link #size} appended rows, as seen by one {@link ParticipationStore}.
+     */
+    static final class View {
+
+        final ParticipationDelta delta;
+        final int size;
+        final int[] memberColumn;
+        final int[] surveyColumn;
+        final byte[] statusColumn;
+        final long[] lengthColumn;
+        final long[] lengthPresence;
+        private final int[] nextOfSurvey;
+        private final int[] nextOfMember;
+        private final int[] notAskedRows;
+        private final int notAskedCount;
+
+        private View(final ParticipationDelta delta) {
+            this.delta = delta;
+            this.size = delta.size;
+            this.memberColumn = delta.memberColumn;
+            this.surveyColumn = delta.surveyColumn;
+            this.statusColumn = delta.statusColumn;
+            this.lengthColumn = delta.lengthColumn;
+            this.lengthPresence = delta.lengthPresence;
+            this.nextOfSurvey = delta.nextOfSurvey;
+            this.nextOfMember = delta.nextOfMember;
+            this.notAskedRows = delta.notAskedRows;
+            this.notAskedCount = delta.notAskedCount;
+        }
+
+        boolean hasLengthAt(final int row) {
+            return (lengthPresence[row >>> 6] & (1L << row)) != 0;
+        }
+
+        int countBySurvey(final int key) {
+            return count(delta.firstOfSurvey[key], nextOfSurvey);
+        }
+
+        int countByMember(final int key) {
+            return count(delta.firstOfMember[key], nextOfMember);
+        }
+
+        /**
+         * Passes the appended rows of the survey key to the action, in row order.
+         *
+         * @param key    The survey ordinal times {@link ParticipationStore#STATUS_COUNT} plus the status code.
+         * @param offset Added to the appended row numbers, the number of rows of the base store.
+         * @param skip   The number of rows to skip.
+         * @param limit  The maximum number of rows to pass.
+         * @param action The action that receives the row numbers.
+         * @return The number of rows passed to the action.
+         */
+        int forEachRowOfSurvey(final int key, final int offset, final int skip, final int limit,
+                               final IntConsumer action) {
+            return forEach(delta.firstOfSurvey[key], nextOfSurvey, offset, skip, limit, action);
+        }
+
+        int forEachRowOfMember(final int key, final int offset, final IntConsumer action) {
+            return forEach(delta.firstOfMember[key], nextOfMember, offset, 0, Integer.MAX_VALUE, action);
+        }
+
+        /**
+         * @param key The survey ordinal times {@link ParticipationStore#STATUS_COUNT} plus the status code.
+         * @return The link of the last visible appended row of the survey key, {@code 0} if there is none.
+         */
+        int lastOfSurvey(final int key) {
+            return last(delta.firstOfSurvey[key], delta.lastOfSurvey[key], nextOfSurvey);
+        }
+
+        int lastOfMember(final int key) {
+            return last(delta.firstOfMember[key], delta.lastOfMember[key], nextOfMember);
+        }
+
+        /**
+         * @return The link of the last visible appended {@link StatusEnum#NOT_ASKED} row, {@code 0} if there is none.
+         */
+        int lastNotAsked() {
+            return notAskedCount == 0 ? 0 : notAskedRows[notAskedCount - 1] + 1;
+        }
+
+        int firstOfSurvey(final int key) {
+            return visible(delta.firstOfSurvey[key]);
+        }
+
+        int nextOfSurvey(final int link) {
+            return visible(nextOfSurvey[link - 1]);
+        }
+
+        /**
+         * Clears the members that have an appended {@link StatusEnum#NOT_ASKED} row.
+         *
+         * @param members A {@link BitSet} of member ordinals.
+         */
+        void clearNotAskedMembers(final BitSet members) {
+            for (int i = 0; i < notAskedCount && notAskedRows[i] < size; i++) {
+                members.clear(memberColumn[notAskedRows[i]]);
+            }
+        }
+
+        long estimatedHeapBytes() {
+            return 4L * memberColumn.length + 4L * surveyColumn.length + statusColumn.length
+                    + 8L * lengthColumn.length + 8L * lengthPresence.length + 4L * nextOfSurvey.length
+                    + 4L * nextOfMember.length + 4L * notAskedRows.length
+                    + 8L * delta.firstOfSurvey.length + 8L * delta.firstOfMember.length;
+        }
+
+        private int visible(final int link) {
+            return link != 0 && link <= size ? link : 0;
+        }
+
+        /**
+         * The last link of a list is only ever raised past the visible rows, so it is the last visible link
+         * whenever it is visible itself. Views of older stores walk the list instead.
+         */
+        private int last(final int first, final int last, final int[] next) {
+            if (last <= size) {
+                return last;
+            }
+            int result = 0;
+            for (int link = visible(first); link != 0; link = visible(next[link - 1])) {
+                result = link;
+            }
+            return result;
+        }
+
+        private int count(final int first, final int[] next) {
+            int count = 0;
+            for (int link = visible(first); link != 0; link = visible(next[link - 1])) {
+                count++;
+            }
+            return count;
+        }
+
+        private int forEach(final int first, final int[] next, final int offset, final int skip, final int limit,
+                            final IntConsumer action) {
+            int skipped = 0;
+            int passed = 0;
+            for (int link = visible(first); link != 0 && passed < limit; link = visible(next[link - 1])) {
+                if (skipped < skip) {
+                    skipped++;
+                } else {
+                    action.accept(offset + link - 1);
+                    passed++;
+                }
+            }
+            return passed;
+        }
+    }
+}
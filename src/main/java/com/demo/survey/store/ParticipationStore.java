@@ -0,0 +1,785 @@
+package com.demo.survey.store;
+
+import com.demo.survey.model.Member;
+import com.demo.survey.model.Participation;
+import com.demo.survey.model.StatusEnum;
+import com.demo.survey.model.Survey;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * A columnar, primitive-typed representation of the participation data.
+ * <p>
+ * Members and surveys are addressed by dense ordinals (assigned in ascending id order). The members are kept in
+ * columns, with their names and e-mail addresses in a {@link StringArena}, and every
+ * participation row is stored across parallel arrays: member ordinal, survey ordinal, status code
+ * and length, where the presence of the length is tracked in a separate bitmap.
+ * The rows are additionally indexed by survey and by member, each split by {@link StatusEnum},
+ * in a compressed sparse row layout, so a lookup only touches the matching rows.
+ * Member sets used by the invitation logic are kept as bitsets over the member ordinals.
+ * <p>
+ * Rows recorded after the store was built are {@link #appender() appended} behind the indexed rows, and are
+ * linked per survey and member instead of indexed. Every append creates a new store that shares the columns
+ * of the previous one, until {@link #compact()} indexes all the rows again.
+ * <p>
+ * Instances are immutable once built and can be shared between threads.
+ */
+public final class ParticipationStore {
+
+    private static final StatusEnum[] STATUSES = StatusEnum.values();
+
+    public static final int STATUS_COUNT = STATUSES.length;
+
+    private final MemberTable members;
+    private final Survey[] surveys;
+    private final LongIntHashMap memberOrdinals;
+    private final LongIntHashMap surveyOrdinals;
+
+    private final int size;
+    private final int[] memberColumn;
+    private final int[] surveyColumn;
+    private final byte[] statusColumn;
+    private final long[] lengthColumn;
+    private final long[] lengthPresence;
+
+    private final int[] surveyOffsets;
+    private final int[] surveyRows;
+    private final int[] memberOffsets;
+    private final int[] memberRows;
+
+    private final BitSet invitableMembers;
+
+    /**
+     * The number of the last indexed {@link StatusEnum#NOT_ASKED} row plus one, {@code 0} if there is none.
+     */
+    private final int notAskedEnd;
+
+    /**
+     * The rows appended after the indexed ones, {@code null} if there are none.
+     */
+    private final ParticipationDelta.View appended;
+
+    private ParticipationStore(final Builder builder) {
+        this.members = builder.members;
+        this.surveys = builder.surveys;
+        this.memberOrdinals = builder.memberOrdinals;
+        this.surveyOrdinals = builder.surveyOrdinals;
+        this.size = builder.size;
+        this.memberColumn = Arrays.copyOf(builder.memberColumn, size);
+        this.surveyColumn = Arrays.copyOf(builder.surveyColumn, size);
+        this.statusColumn = Arrays.copyOf(builder.statusColumn, size);
+        this.lengthColumn = Arrays.copyOf(builder.lengthColumn, size);
+        this.lengthPresence = Arrays.copyOf(builder.lengthPresence, (size + 63) >>> 6);
+        this.surveyOffsets = new int[surveys.length * STATUS_COUNT + 1];
+        this.surveyRows = new int[size];
+        buildIndex(surveyColumn, surveyOffsets, surveyRows);
+        this.memberOffsets = new int[members.size() * STATUS_COUNT + 1];
+        this.memberRows = new int[size];
+        buildIndex(memberColumn, memberOffsets, memberRows);
+        this.invitableMembers = buildInvitableMembers();
+        this.notAskedEnd = findNotAskedEnd();
+        this.appended = null;
+    }
+
+    private ParticipationStore(final MemberTable members, final Survey[] surveys, final int size,
+                               final int[] memberColumn, final int[] surveyColumn, final byte[] statusColumn,
+                               final long[] lengthColumn, final long[] lengthPresence, final int[] surveyOffsets,
+                               final int[] surveyRows, final int[] memberOffsets, final int[] memberRows) {
+        this.members = members;
+        this.surveys = surveys;
+        this.memberOrdinals = memberOrdinals(members);
+        this.surveyOrdinals = surveyOrdinals(surveys);
+        this.size = size;
+        this.memberColumn = memberColumn;
+        this.surveyColumn = surveyColumn;
+        this.statusColumn = statusColumn;
+        this.lengthColumn = lengthColumn;
+        this.lengthPresence = lengthPresence;
+        this.surveyOffsets = surveyOffsets;
+        this.surveyRows = surveyRows;
+        this.memberOffsets = memberOffsets;
+        this.memberRows = memberRows;
+        this.invitableMembers = buildInvitableMembers();
+        this.notAskedEnd = findNotAskedEnd();
+        this.appended = null;
+    }
+
+    private ParticipationStore(final ParticipationStore base, final ParticipationDelta.View appended) {
+        this.members = base.members;
+        this.surveys = base.surveys;
+        this.memberOrdinals = base.memberOrdinals;
+        this.surveyOrdinals = base.surveyOrdinals;
+        this.size = base.size;
+        this.memberColumn = base.memberColumn;
+        this.surveyColumn = base.surveyColumn;
+        this.statusColumn = base.statusColumn;
+        this.lengthColumn = base.lengthColumn;
+        this.lengthPresence = base.lengthPresence;
+        this.surveyOffsets = base.surveyOffsets;
+        this.surveyRows = base.surveyRows;
+        this.memberOffsets = base.memberOffsets;
+        this.memberRows = base.memberRows;
+        this.invitableMembers = base.invitableMembers;
+        this.notAskedEnd = base.notAskedEnd;
+        this.appended = appended;
+    }
+
+    /**
+     * Creates a store from already resolved participation entities.
+     *
+     * @param members        All the known members.
+     * @param surveys        All the known surveys.
+     * @param participations The participations, rows that cannot be resolved are skipped.
+     * @return The built {@link ParticipationStore}.
+     */
+    public static ParticipationStore of(final Collection<Member> members, final Collection<Survey> surveys,
+                                        final Collection<Participation> participations) {
+        final Builder builder = builder(members, surveys, participations.size());
+        participations.forEach(builder::add);
+        return builder.build();
+    }
+
+    public static Builder builder(final Collection<Member> members, final Collection<Survey> surveys,
+                                  final int expectedSize) {
+        return new Builder(members, surveys, expectedSize);
+    }
+
+    public int size() {
+        return size + appendedSize();
+    }
+
+    /**
+     * @return The number of rows appended since the rows were last indexed.
+     */
+    public int appendedSize() {
+        return appended == null ? 0 : appended.size;
+    }
+
+    public int memberCount() {
+        return members.size();
+    }
+
+    public int surveyCount() {
+        return surveys.length;
+    }
+
+    /**
+     * @param memberId The id of the member.
+     * @return The ordinal of the member, or {@link LongIntHashMap#MISSING} if it is unknown.
+     */
+    public int memberOrdinal(final long memberId) {
+        return memberOrdinals.get(memberId);
+    }
+
+    /**
+     * @param surveyId The id of the survey.
+     * @return The ordinal of the survey, or {@link LongIntHashMap#MISSING} if it is unknown.
+     */
+    public int surveyOrdinal(final long surveyId) {
+        return surveyOrdinals.get(surveyId);
+    }
+
+    /**
+     * @param memberOrdinal The ordinal of the member.
+     * @return A new {@link Member} with the data of the member.
+     */
+    public Member member(final int memberOrdinal) {
+        return members.member(memberOrdinal);
+    }
+
+    public long memberId(final int memberOrdinal) {
+        return members.id(memberOrdinal);
+    }
+
+    public String memberFullName(final int memberOrdinal) {
+        return members.fullName(memberOrdinal);
+    }
+
+    public String memberEmail(final int memberOrdinal) {
+        return members.email(memberOrdinal);
+    }
+
+    /**
+     * Passes the UTF-8 bytes of the full name of a member to a writer, without creating a {@link String}.
+     *
+     * @param memberOrdinal The ordinal of the member.
+     * @param writer        Receives the bytes.
+     * @return {@code false} if the member has no full name, then nothing is written.
+     * @throws IOException if the writer fails.
+     */
+    public boolean writeMemberFullName(final int memberOrdinal, final StringArena.Utf8Writer writer)
+            throws IOException {
+        return members.writeFullName(memberOrdinal, writer);
+    }
+
+    /**
+     * @param memberOrdinal The ordinal of the member.
+     * @param writer        Receives the bytes.
+     * @return {@code false} if the member has no e-mail address, then nothing is written.
+     * @throws IOException if the writer fails.
+     * @see #writeMemberFullName(int, StringArena.Utf8Writer)
+     */
+    public boolean writeMemberEmail(final int memberOrdinal, final StringArena.Utf8Writer writer)
+            throws IOException {
+        return members.writeEmail(memberOrdinal, writer);
+    }
+
+    public Boolean memberActive(final int memberOrdinal) {
+        return members.active(memberOrdinal);
+    }
+
+    public Survey survey(final int surveyOrdinal) {
+        return surveys[surveyOrdinal];
+    }
+
+    public int memberOrdinalAt(final int row) {
+        return row < size ? memberColumn[row] : appended.memberColumn[row - size];
+    }
+
+    public int surveyOrdinalAt(final int row) {
+        return row < size ? surveyColumn[row] : appended.surveyColumn[row - size];
+    }
+
+    public int statusCodeAt(final int row) {
+        return row < size ? statusColumn[row] : appended.statusColumn[row - size];
+    }
+
+    public StatusEnum statusAt(final int row) {
+        return STATUSES[statusCodeAt(row)];
+    }
+
+    public boolean hasLengthAt(final int row) {
+        return row < size ? (lengthPresence[row >>> 6] & (1L << row)) != 0 : appended.hasLengthAt(row - size);
+    }
+
+    public long lengthAt(final int row) {
+        return row < size ? lengthColumn[row] : appended.lengthColumn[row - size];
+    }
+
+    public int countBySurvey(final int surveyOrdinal, final StatusEnum status) {
+        final int key = surveyOrdinal * STATUS_COUNT + status.ordinal();
+        final int count = surveyOffsets[key + 1] - surveyOffsets[key];
+        return appended == null ? count : count + appended.countBySurvey(key);
+    }
+
+    public int countByMember(final int memberOrdinal, final StatusEnum status) {
+        final int key = memberOrdinal * STATUS_COUNT + status.ordinal();
+        final int count = memberOffsets[key + 1] - memberOffsets[key];
+        return appended == null ? count : count + appended.countByMember(key);
+    }
+
+    /**
+     * Rows are only ever appended, and keep their numbers when the store is compacted, so the end of the rows
+     * of a survey and status only changes when a row of them is added.
+     *
+     * @param surveyOrdinal The ordinal of the survey.
+     * @param status        The status of the rows.
+     * @return The number of the last row of the given survey with the given status plus one, {@code 0} if there
+     * is none.
+     */
+    public int rowsOfSurveyEnd(final int surveyOrdinal, final StatusEnum status) {
+        final int key = surveyOrdinal * STATUS_COUNT + status.ordinal();
+        final int last = appended == null ? 0 : appended.lastOfSurvey(key);
+        if (last != 0) {
+            return size + last;
+        }
+        return surveyOffsets[key + 1] == surveyOffsets[key] ? 0 : surveyRows[surveyOffsets[key + 1] - 1] + 1;
+    }
+
+    /**
+     * @param memberOrdinal The ordinal of the member.
+     * @param status        The status of the rows.
+     * @return The number of the last row of the given member with the given status plus one, {@code 0} if there
+     * is none, see {@link #rowsOfSurveyEnd(int, StatusEnum)}.
+     */
+    public int rowsOfMemberEnd(final int memberOrdinal, final StatusEnum status) {
+        final int key = memberOrdinal * STATUS_COUNT + status.ordinal();
+        final int last = appended == null ? 0 : appended.lastOfMember(key);
+        if (last != 0) {
+            return size + last;
+        }
+        return memberOffsets[key + 1] == memberOffsets[key] ? 0 : memberRows[memberOffsets[key + 1] - 1] + 1;
+    }
+
+    /**
+     * @return The number of the last {@link StatusEnum#NOT_ASKED} row plus one, {@code 0} if there is none,
+     * see {@link #rowsOfSurveyEnd(int, StatusEnum)}.
+     */
+    public int notAskedRowsEnd() {
+        final int last = appended == null ? 0 : appended.lastNotAsked();
+        return last != 0 ? size + last : notAskedEnd;
+    }
+
+    /**
+     * Passes the rows of the given survey with the given status to the action, in row order.
+     *
+     * @param surveyOrdinal The ordinal of the survey.
+     * @param status        The status of the rows.
+     * @param action        The action that receives the row numbers.
+     */
+    public void forEachRowOfSurvey(final int surveyOrdinal, final StatusEnum status, final IntConsumer action) {
+        forEachRowOfSurvey(surveyOrdinal, status, 0, Integer.MAX_VALUE, action);
+    }
+
+    /**
+     * Passes a range of the rows of the given survey with the given status to the action, in row order.
+     *
+     * @param surveyOrdinal The ordinal of the survey.
+     * @param status        The status of the rows.
+     * @param fromIndex     The position of the first row among the rows of the survey with the given status.
+     * @param limit         The maximum number of rows to pass.
+     * @param action        The action that receives the row numbers.
+     * @return The number of rows passed to the action.
+     */
+    public int forEachRowOfSurvey(final int surveyOrdinal, final StatusEnum status, final int fromIndex,
+                                  final int limit, final IntConsumer action) {
+        final int key = surveyOrdinal * STATUS_COUNT + status.ordinal();
+        final int from = surveyOffsets[key] + Math.min(fromIndex, surveyOffsets[key + 1] - surveyOffsets[key]);
+        final int to = (int) Math.min(surveyOffsets[key + 1], (long) from + limit);
+        for (int i = from; i < to; i++) {
+            action.accept(surveyRows[i]);
+        }
+        final int passed = to - from;
+        if (appended == null || passed == limit) {
+            return passed;
+        }
+        final int skip = fromIndex - (from - surveyOffsets[key]);
+        return passed + appended.forEachRowOfSurvey(key, size, skip, limit - passed, action);
+    }
+
+    /**
+     * @param surveyOrdinal The ordinal of the survey.
+     * @param status        The status of the rows.
+     * @return A lazy, sequential {@link IntStream} of the rows of the given survey with the given status,
+     * in row order.
+     */
+    public IntStream rowsOfSurvey(final int surveyOrdinal, final StatusEnum status) {
+        final int key = surveyOrdinal * STATUS_COUNT + status.ordinal();
+        final IntStream indexed = IntStream.range(surveyOffsets[key], surveyOffsets[key + 1]).map(i -> surveyRows[i]);
+        if (appended == null) {
+            return indexed;
+        }
+        final ParticipationDelta.View rows = appended;
+        return IntStream.concat(indexed, IntStream.iterate(rows.firstOfSurvey(key), link -> link != 0,
+                rows::nextOfSurvey).map(link -> size + link - 1));
+    }
+
+    /**
+     * Passes the rows of the given member with the given status to the action, in row order.
+     *
+     * @param memberOrdinal The ordinal of the member.
+     * @param status        The status of the rows.
+     * @param action        The action that receives the row numbers.
+     */
+    public void forEachRowOfMember(final int memberOrdinal, final StatusEnum status, final IntConsumer action) {
+        final int key = memberOrdinal * STATUS_COUNT + status.ordinal();
+        for (int i = memberOffsets[key]; i < memberOffsets[key + 1]; i++) {
+            action.accept(memberRows[i]);
+        }
+        if (appended != null) {
+            appended.forEachRowOfMember(key, size, action);
+        }
+    }
+
+    /**
+     * Computes the members who can be invited to the given survey: the active members who have
+     * neither participated in the survey nor have a {@link StatusEnum#NOT_ASKED} participation anywhere.
+     *
+     * @param surveyOrdinal The ordinal of the survey.
+     * @return A new {@link BitSet} of member ordinals, owned by the caller.
+     */
+    public BitSet invitableMembers(final int surveyOrdinal) {
+        final BitSet result = (BitSet) invitableMembers.clone();
+        final int from = surveyOffsets[surveyOrdinal * STATUS_COUNT];
+        final int to = surveyOffsets[(surveyOrdinal + 1) * STATUS_COUNT];
+        for (int i = from; i < to; i++) {
+            result.clear(memberColumn[surveyRows[i]]);
+        }
+        if (appended != null) {
+            for (int status = 0; status < STATUS_COUNT; status++) {
+                appended.forEachRowOfSurvey(surveyOrdinal * STATUS_COUNT + status, 0, 0, Integer.MAX_VALUE,
+                        row -> result.clear(appended.memberColumn[row]));
+            }
+            appended.clearNotAskedMembers(result);
+        }
+        return result;
+    }
+
+    /**
+     * Starts appending rows behind the rows of this store. Only the latest store derived from a built store
+     * can be appended to, and only from one thread at a time; appending to an older one starts over from a copy
+     * of its appended rows.
+     *
+     * @return An {@link Appender} that creates the new store.
+     */
+    public Appender appender() {
+        if (appended != null && appended.delta.size() == appended.size) {
+            return new Appender(this, appended.delta);
+        }
+        final ParticipationDelta delta = new ParticipationDelta(members.size(), surveys.length);
+        for (int row = size; row < size(); row++) {
+            delta.add(memberOrdinalAt(row), surveyOrdinalAt(row), statusCodeAt(row), lengthAt(row), hasLengthAt(row));
+        }
+        return new Appender(this, delta);
+    }
+
+    /**
+     * @return A store with the same rows in the same order, where every row is indexed,
+     * or this store if no row has been appended.
+     */
+    public ParticipationStore compact() {
+        if (appended == null) {
+            return this;
+        }
+        final Builder builder = new Builder(this, size());
+        for (int row = 0; row < size(); row++) {
+            builder.add(memberOrdinalAt(row), surveyOrdinalAt(row), statusCodeAt(row), lengthAt(row),
+                    hasLengthAt(row));
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return A rough estimate of the heap used by the members, the columns and the indexes, in bytes.
+     */
+    public long estimatedHeapBytes() {
+        return members.estimatedHeapBytes() + 4L * memberColumn.length + 4L * surveyColumn.length + statusColumn.length
+                + 8L * lengthColumn.length + 8L * lengthPresence.length
+                + 4L * (surveyOffsets.length + surveyRows.length + memberOffsets.length + memberRows.length)
+                + invitableMembers.size() / 8 + (appended == null ? 0 : appended.estimatedHeapBytes());
+    }
+
+    /**
+     * Writes the columns and the indexes to a snapshot. The members and surveys are not written,
+     * they have to be passed back in ordinal order to {@link #readFrom(SnapshotInput, Member[], Survey[])}.
+     *
+     * @param output The snapshot being written.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    void writeTo(final SnapshotOutput output) throws IOException {
+        if (appended != null) {
+            compact().writeTo(output);
+            return;
+        }
+        output.writeInt(size);
+        output.writeInts(memberColumn, size);
+        output.writeInts(surveyColumn, size);
+        output.writeBytes(statusColumn, size);
+        output.writeLongs(lengthColumn, size);
+        output.writeLongs(lengthPresence, lengthPresence.length);
+        output.writeInts(surveyOffsets, surveyOffsets.length);
+        output.writeInts(surveyRows, size);
+        output.writeInts(memberOffsets, memberOffsets.length);
+        output.writeInts(memberRows, size);
+    }
+
+    /**
+     * Restores a store written by {@link #writeTo(SnapshotOutput)}, without rebuilding the indexes.
+     *
+     * @param input   The snapshot being read.
+     * @param members The members, in ordinal order.
+     * @param surveys The surveys, in ordinal order.
+     * @return The restored {@link ParticipationStore}.
+     * @throws IOException if the snapshot cannot be read or does not match the given members and surveys.
+     */
+    static ParticipationStore readFrom(final SnapshotInput input, final Member[] members, final Survey[] surveys)
+            throws IOException {
+        final int size = input.readInt();
+        final int[] memberColumn = input.readInts(size);
+        final int[] surveyColumn = input.readInts(size);
+        final byte[] statusColumn = input.readBytes(size);
+        final long[] lengthColumn = input.readLongs(size);
+        final long[] lengthPresence = input.readLongs((size + 63) >>> 6);
+        final int[] surveyOffsets = input.readInts(surveys.length * STATUS_COUNT + 1);
+        final int[] surveyRows = input.readInts(size);
+        final int[] memberOffsets = input.readInts(members.length * STATUS_COUNT + 1);
+        final int[] memberRows = input.readInts(size);
+        if (surveyOffsets[surveyOffsets.length - 1] != size || memberOffsets[memberOffsets.length - 1] != size) {
+            throw new IOException("The indexes of the snapshot do not match its columns");
+        }
+        return new ParticipationStore(MemberTable.of(members), surveys, size, memberColumn, surveyColumn,
+                statusColumn, lengthColumn, lengthPresence, surveyOffsets, surveyRows, memberOffsets, memberRows);
+    }
+
+    private static LongIntHashMap memberOrdinals(final MemberTable members) {
+        final LongIntHashMap ordinals = new LongIntHashMap(members.size());
+        for (int i = 0; i < members.size(); i++) {
+            ordinals.put(members.id(i), i);
+        }
+        return ordinals;
+    }
+
+    private static LongIntHashMap surveyOrdinals(final Survey[] surveys) {
+        final LongIntHashMap ordinals = new LongIntHashMap(surveys.length);
+        for (int i = 0; i < surveys.length; i++) {
+            ordinals.put(surveys[i].getId(), i);
+        }
+        return ordinals;
+    }
+
+    private BitSet buildInvitableMembers() {
+        final BitSet active = new BitSet(members.size());
+        for (int memberOrdinal = 0; memberOrdinal < members.size(); memberOrdinal++) {
+            if (Boolean.TRUE.equals(members.active(memberOrdinal))) {
+                active.set(memberOrdinal);
+            }
+        }
+        final BitSet notAsked = new BitSet(members.size());
+        for (int memberOrdinal = 0; memberOrdinal < members.size(); memberOrdinal++) {
+            if (countByMember(memberOrdinal, StatusEnum.NOT_ASKED) > 0) {
+                notAsked.set(memberOrdinal);
+            }
+        }
+        active.andNot(notAsked);
+        return active;
+    }
+
+    private int findNotAskedEnd() {
+        for (int row = size - 1; row >= 0; row--) {
+            if (statusColumn[row] == StatusEnum.NOT_ASKED.ordinal()) {
+                return row + 1;
+            }
+        }
+        return 0;
+    }
+
+    private void buildIndex(final int[] keyColumn, final int[] offsets, final int[] rows) {
+        for (int row = 0; row < size; row++) {
+            offsets[keyColumn[row] * STATUS_COUNT + statusColumn[row] + 1]++;
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+        final int[] positions = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int row = 0; row < size; row++) {
+            rows[positions[keyColumn[row] * STATUS_COUNT + statusColumn[row]]++] = row;
+        }
+    }
+
+    /**
+     * Appends rows to a {@link ParticipationStore}, see {@link #appender()}.
+     */
+    public static final class Appender {
+
+        private final ParticipationStore base;
+        private final ParticipationDelta delta;
+
+        private Appender(final ParticipationStore base, final ParticipationDelta delta) {
+            this.base = base;
+            this.delta = delta;
+        }
+
+        /**
+         * Appends a participation row given by its primitive fields.
+         *
+         * @param memberId  The id of the member.
+         * @param surveyId  The id of the survey.
+         * @param status    The status of the participation.
+         * @param length    The length of the participation, ignored when {@code hasLength} is {@code false}.
+         * @param hasLength Whether the participation has a length.
+         * @return {@code true} if the row was appended, {@code false} if its member or survey is unknown.
+         */
+        public boolean add(final long memberId, final long surveyId, final StatusEnum status,
+                           final long length, final boolean hasLength) {
+            final int memberOrdinal = base.memberOrdinals.get(memberId);
+            final int surveyOrdinal = base.surveyOrdinals.get(surveyId);
+            if (memberOrdinal == LongIntHashMap.MISSING || surveyOrdinal == LongIntHashMap.MISSING) {
+                return false;
+            }
+            delta.add(memberOrdinal, surveyOrdinal, status.ordinal(), length, hasLength);
+            return true;
+        }
+
+        /**
+         * @return A new store with the rows of the original store followed by every appended row.
+         */
+        public ParticipationStore build() {
+            return new ParticipationStore(base, delta.view());
+        }
+    }
+
+    /**
+     * Collects participation rows into growable columns. Not thread-safe, but independent parts
+     * of the data can be collected in parallel by {@link #fork(int) forked} builders and then
+     * {@link #append(Builder) appended} in order.
+     */
+    public static final class Builder {
+
+        private final MemberTable members;
+        private final Survey[] surveys;
+        private final LongIntHashMap memberOrdinals;
+        private final LongIntHashMap surveyOrdinals;
+
+        private int size;
+        private long skipped;
+        private int[] memberColumn;
+        private int[] surveyColumn;
+        private byte[] statusColumn;
+        private long[] lengthColumn;
+        private long[] lengthPresence;
+
+        private Builder(final Collection<Member> members, final Collection<Survey> surveys, final int expectedSize) {
+            this.members = MemberTable.of(
+                    members.stream().sorted(Comparator.comparing(Member::getId)).toArray(Member[]::new));
+            this.surveys = surveys.stream().sorted(Comparator.comparing(Survey::getId)).toArray(Survey[]::new);
+            this.memberOrdinals = memberOrdinals(this.members);
+            this.surveyOrdinals = surveyOrdinals(this.surveys);
+            allocate(expectedSize);
+        }
+
+        private Builder(final ParticipationStore store, final int expectedSize) {
+            this.members = store.members;
+            this.surveys = store.surveys;
+            this.memberOrdinals = store.memberOrdinals;
+            this.surveyOrdinals = store.surveyOrdinals;
+            allocate(expectedSize);
+        }
+
+        private Builder(final Builder parent, final int expectedSize) {
+            this.members = parent.members;
+            this.surveys = parent.surveys;
+            this.memberOrdinals = parent.memberOrdinals;
+            this.surveyOrdinals = parent.surveyOrdinals;
+            allocate(expectedSize);
+        }
+
+        private void allocate(final int expectedSize) {
+            final int capacity = Math.max(16, expectedSize);
+            this.memberColumn = new int[capacity];
+            this.surveyColumn = new int[capacity];
+            this.statusColumn = new byte[capacity];
+            this.lengthColumn = new long[capacity];
+            this.lengthPresence = new long[(capacity + 63) >>> 6];
+        }
+
+        /**
+         * Adds a participation entity.
+         *
+         * @param participation The participation.
+         * @return {@code true} if the row was added, {@code false} if its member, survey or status cannot be resolved.
+         */
+        public boolean add(final Participation participation) {
+            if (participation.getMember() == null || participation.getSurvey() == null
+                    || participation.getStatus() == null) {
+                skipped++;
+                return false;
+            }
+            final StatusEnum status = StatusEnum.fromId(participation.getStatus().getId());
+            if (status == null) {
+                skipped++;
+                return false;
+            }
+            final Long length = participation.getLength();
+            return add(participation.getMember().getId(), participation.getSurvey().getId(), status,
+                    length == null ? 0L : length, length != null);
+        }
+
+        /**
+         * Adds a participation row given by its primitive fields.
+         *
+         * @param memberId  The id of the member.
+         * @param surveyId  The id of the survey.
+         * @param status    The status of the participation, {@code null} if it cannot be resolved.
+         * @param length    The length of the participation, ignored when {@code hasLength} is {@code false}.
+         * @param hasLength Whether the participation has a length.
+         * @return {@code true} if the row was added, {@code false} if its member, survey or status is unknown.
+         */
+        public boolean add(final long memberId, final long surveyId, final StatusEnum status,
+                           final long length, final boolean hasLength) {
+            final int memberOrdinal = memberOrdinals.get(memberId);
+            final int surveyOrdinal = surveyOrdinals.get(surveyId);
+            if (memberOrdinal == LongIntHashMap.MISSING || surveyOrdinal == LongIntHashMap.MISSING || status == null) {
+                skipped++;
+                return false;
+            }
+            add(memberOrdinal, surveyOrdinal, status.ordinal(), length, hasLength);
+            return true;
+        }
+
+        private void add(final int memberOrdinal, final int surveyOrdinal, final int statusCode, final long length,
+                         final boolean hasLength) {
+            if (size == memberColumn.length) {
+                grow(size + 1);
+            }
+            memberColumn[size] = memberOrdinal;
+            surveyColumn[size] = surveyOrdinal;
+            statusColumn[size] = (byte) statusCode;
+            if (hasLength) {
+                lengthColumn[size] = length;
+                lengthPresence[size >>> 6] |= 1L << size;
+            }
+            size++;
+        }
+
+        /**
+         * Creates an empty builder that shares the member and survey ordinals of this one,
+         * so that its rows can later be {@link #append(Builder) appended} to this builder.
+         *
+         * @param expectedSize The expected number of rows.
+         * @return The new {@link Builder}.
+         */
+        public Builder fork(final int expectedSize) {
+            return new Builder(this, expectedSize);
+        }
+
+        /**
+         * Appends every row of the given builder after the rows of this builder.
+         *
+         * @param other A builder {@link #fork(int) forked} from this one.
+         */
+        public void append(final Builder other) {
+            if (other.memberOrdinals != memberOrdinals) {
+                throw new IllegalArgumentException("Only forked builders can be appended");
+            }
+            if (size + other.size > memberColumn.length) {
+                grow(size + other.size);
+            }
+            System.arraycopy(other.memberColumn, 0, memberColumn, size, other.size);
+            System.arraycopy(other.surveyColumn, 0, surveyColumn, size, other.size);
+            System.arraycopy(other.statusColumn, 0, statusColumn, size, other.size);
+            System.arraycopy(other.lengthColumn, 0, lengthColumn, size, other.size);
+            for (int word = 0; word < (other.size + 63) >>> 6; word++) {
+                final long bits = other.lengthPresence[word];
+                if (bits != 0) {
+                    final int target = size + (word << 6);
+                    lengthPresence[target >>> 6] |= bits << target;
+                    if ((target & 63) != 0 && (target >>> 6) + 1 < lengthPresence.length) {
+                        lengthPresence[(target >>> 6) + 1] |= bits >>> (64 - (target & 63));
+                    }
+                }
+            }
+            size += other.size;
+            skipped += other.skipped;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return The number of rows that were not added because of unresolved references.
+         */
+        public long skipped() {
+            return skipped;
+        }
+
+        public ParticipationStore build() {
+            return new ParticipationStore(this);
+        }
+
+        private void grow(final int minCapacity) {
+            final int capacity = Math.max(minCapacity, memberColumn.length + (memberColumn.length >> 1));
+            memberColumn = Arrays.copyOf(memberColumn, capacity);
+            surveyColumn = Arrays.copyOf(surveyColumn, capacity);
+            statusColumn = Arrays.copyOf(statusColumn, capacity);
+            lengthColumn = Arrays.copyOf(lengthColumn, capacity);
+            lengthPresence = Arrays.copyOf(lengthPresence, (capacity + 63) >>> 6);
+        }
+    }
+}
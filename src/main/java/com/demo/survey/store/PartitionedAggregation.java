@@ -0,0 +1,121 @@
+package com.demo.survey.store;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes an aggregate over every row of a {@link ParticipationStore} on the common {@link ForkJoinPool}.
+ * <p>
+ * The rows are split in halves until a partition has at most {@code minPartitionRows} rows. By default that is
+ * about four partitions per thread of the pool, and at least {@link #MIN_PARTITION_ROWS} rows, so partial
+ * aggregates with a state per survey or member are only allocated a few times. Every partition is
+ * accumulated into its own partial aggregate, and the partials are merged in row order, so the result does not
+ * depend on how the work was scheduled. The calling thread takes part in the work, so a call from outside the
+ * pool uses every available processor.
+ */
+public final class PartitionedAggregation {
+
+    /**
+     * The smallest default number of rows below which a partition is not split any further.
+     */
+    public static final int MIN_PARTITION_ROWS = 1 << 16;
+
+    private static final int PARTITIONS_PER_THREAD = 4;
+
+    /**
+     * Describes an aggregate that can be computed per partition and merged.
+     *
+     * @param <A> The type of the partial aggregates, which are mutable and only used by one thread at a time.
+     */
+    public interface Aggregator<A> {
+
+        /**
+         * @return An empty partial aggregate.
+         */
+        A create();
+
+        /**
+         * Adds a range of rows to a partial aggregate.
+         *
+         * @param partial The partial aggregate.
+         * @param store   The participation store.
+         * @param fromRow The first row, inclusive.
+         * @param toRow   The last row, exclusive.
+         */
+        void accumulate(A partial, ParticipationStore store, int fromRow, int toRow);
+
+        /**
+         * Adds a partial aggregate to another one.
+         *
+         * @param into  The partial aggregate of the earlier rows, which receives the result.
+         * @param other The partial aggregate of the rows that follow them.
+         */
+        void merge(A into, A other);
+    }
+
+    private PartitionedAggregation() {
+    }
+
+    /**
+     * Aggregates every row of the given store, in partitions of the default size.
+     *
+     * @param store      The participation store.
+     * @param aggregator The aggregate to compute.
+     * @param <A>        The type of the aggregate.
+     * @return The aggregate of every row.
+     */
+    public static <A> A aggregate(final ParticipationStore store, final Aggregator<A> aggregator) {
+        final int partitions = PARTITIONS_PER_THREAD * (ForkJoinPool.getCommonPoolParallelism() + 1);
+        return aggregate(store, aggregator, Math.max(MIN_PARTITION_ROWS, store.size() / partitions + 1));
+    }
+
+    /**
+     * Aggregates every row of the given store.
+     *
+     * @param store            The participation store.
+     * @param aggregator       The aggregate to compute.
+     * @param minPartitionRows The number of rows below which a partition is not split any further.
+     * @param <A>              The type of the aggregate.
+     * @return The aggregate of every row.
+     */
+    public static <A> A aggregate(final ParticipationStore store, final Aggregator<A> aggregator,
+                                  final int minPartitionRows) {
+        return new Partition<>(store, aggregator, Math.max(1, minPartitionRows), 0, store.size()).invoke();
+    }
+
+    // Fork-join tasks are never serialized.
+    @SuppressWarnings("serial")
+    private static final class Partition<A> extends RecursiveTask<A> {
+
+        private final ParticipationStore store;
+        private final Aggregator<A> aggregator;
+        private final int minPartitionRows;
+        private final int fromRow;
+        private final int toRow;
+
+        private Partition(final ParticipationStore store, final Aggregator<A> aggregator, final int minPartitionRows,
+                          final int fromRow, final int toRow) {
+            this.store = store;
+            this.aggregator = aggregator;
+            this.minPartitionRows = minPartitionRows;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected A compute() {
+            if (toRow - fromRow <= minPartitionRows) {
+                final A partial = aggregator.create();
+                aggregator.accumulate(partial, store, fromRow, toRow);
+                return partial;
+            }
+            final int middle = (fromRow + toRow) >>> 1;
+            final Partition<A> first = new Partition<>(store, aggregator, minPartitionRows, fromRow, middle);
+            first.fork();
+            final A second = new Partition<>(store, aggregator, minPartitionRows, middle, toRow).compute();
+            final A result = first.join();
+            aggregator.merge(result, second);
+            return result;
+        }
+    }
+}
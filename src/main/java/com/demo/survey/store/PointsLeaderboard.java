@@ -0,0 +1,336 @@
+package com.demo.survey.store;
+
+import com.demo.survey.model.StatusEnum;
+import com.demo.survey.model.Survey;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * The total points collected by every member, ranked from the most points to the least.
+ * <p>
+ * A participation is worth the completion points of its survey when it is {@link StatusEnum#COMPLETED}, the
+ * filtered points when it is {@link StatusEnum#FILTERED}, and nothing otherwise, the same rule as
+ * {@link com.demo.survey.mapper.DtoMapper#toCollectedPointsDTO}. Unknown points count as 0.
+ * <p>
+ * The totals are kept in a primitive array by member ordinal, split into chunks, and every member is a node of
+ * a treap ordered by descending total, then ascending member id. The treap keeps the size of every subtree,
+ * so the rank of a member and the start of the top members are found in O(log(number of members)).
+ * <p>
+ * Instances are immutable. Changes are recorded into an {@link #updater()}, which copies only the chunks and the
+ * tree paths that change, so a recorded participation costs O(log(number of members)), and the previous
+ * leaderboard stays valid for its readers.
+ */
+public final class PointsLeaderboard {
+
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final class Node {
+
+        private final long total;
+        private final int memberOrdinal;
+        private final int priority;
+        private final int size;
+        private final Node left;
+        private final Node right;
+
+        private Node(final long total, final int memberOrdinal, final Node left, final Node right) {
+            this.total = total;
+            this.memberOrdinal = memberOrdinal;
+            this.priority = priority(memberOrdinal);
+            this.size = 1 + size(left) + size(right);
+            this.left = left;
+            this.right = right;
+        }
+
+        private Node with(final Node left, final Node right) {
+            return new Node(total, memberOrdinal, left, right);
+        }
+
+        /**
+         * @return Whether this node is ranked before the given member.
+         */
+        private boolean before(final long otherTotal, final int otherMemberOrdinal) {
+            return total > otherTotal || total == otherTotal && memberOrdinal < otherMemberOrdinal;
+        }
+    }
+
+    private final int memberCount;
+    private final int[] completionPoints;
+    private final int[] filteredPoints;
+    private final long[][] totals;
+    private final Node root;
+
+    private PointsLeaderboard(final int memberCount, final int[] completionPoints, final int[] filteredPoints,
+                              final long[][] totals, final Node root) {
+        this.memberCount = memberCount;
+        this.completionPoints = completionPoints;
+        this.filteredPoints = filteredPoints;
+        this.totals = totals;
+        this.root = root;
+    }
+
+    /**
+     * Totals the points of every row of the given store, and ranks the members.
+     *
+     * @param store The participation store.
+     * @return The built {@link PointsLeaderboard}.
+     */
+    public static PointsLeaderboard of(final ParticipationStore store) {
+        final int memberCount = store.memberCount();
+        final int[] completionPoints = new int[store.surveyCount()];
+        final int[] filteredPoints = new int[store.surveyCount()];
+        for (int surveyOrdinal = 0; surveyOrdinal < store.surveyCount(); surveyOrdinal++) {
+            final Survey survey = store.survey(surveyOrdinal);
+            completionPoints[surveyOrdinal] = survey.getCompletionPoints() == null ? 0 : survey.getCompletionPoints();
+            filteredPoints[surveyOrdinal] = survey.getFilteredPoints() == null ? 0 : survey.getFilteredPoints();
+        }
+        final long[][] totals = new long[(memberCount + CHUNK_SIZE - 1) >>> CHUNK_SHIFT][];
+        for (int chunk = 0; chunk < totals.length; chunk++) {
+            totals[chunk] = new long[Math.min(CHUNK_SIZE, memberCount - (chunk << CHUNK_SHIFT))];
+        }
+        for (int row = 0; row < store.size(); row++) {
+            final int memberOrdinal = store.memberOrdinalAt(row);
+            totals[memberOrdinal >>> CHUNK_SHIFT][memberOrdinal & CHUNK_MASK] +=
+                    points(completionPoints, filteredPoints, store.surveyOrdinalAt(row), store.statusCodeAt(row));
+        }
+        return new PointsLeaderboard(memberCount, completionPoints, filteredPoints, totals, build(totals, memberCount));
+    }
+
+    public int memberCount() {
+        return memberCount;
+    }
+
+    /**
+     * @param memberOrdinal The ordinal of the member.
+     * @return The total points of the member.
+     */
+    public long total(final int memberOrdinal) {
+        return total(totals, memberOrdinal);
+    }
+
+    /**
+     * @param memberOrdinal The ordinal of the member.
+     * @return The rank of the member, 1 plus the number of members with more points, so members with the same
+     * total share a rank.
+     */
+    public int rank(final int memberOrdinal) {
+        final long total = total(memberOrdinal);
+        int more = 0;
+        for (Node node = root; node != null; ) {
+            if (node.total > total) {
+                more += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return more + 1;
+    }
+
+    /**
+     * Passes the ordinals of the members with the most points to the given action, from the most points to the
+     * least, ties in ascending member id order.
+     *
+     * @param limit  The maximum number of members.
+     * @param action Receives the member ordinals.
+     */
+    public void forEachTop(final int limit, final IntConsumer action) {
+        final Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        for (int passed = 0; passed < limit && (node != null || !path.isEmpty()); passed++) {
+            while (node != null) {
+                path.push(node);
+                node = node.left;
+            }
+            node = path.pop();
+            action.accept(node.memberOrdinal);
+            node = node.right;
+        }
+    }
+
+    /**
+     * Starts recording participations into a new leaderboard, this one is not changed.
+     *
+     * @return An {@link Updater} that creates the new leaderboard.
+     */
+    public Updater updater() {
+        return new Updater(this);
+    }
+
+    /**
+     * Records participations into a copy of a leaderboard. Not thread-safe.
+     */
+    public static final class Updater {
+
+        private final PointsLeaderboard base;
+        private final long[][] totals;
+        private final boolean[] copied;
+        private Node root;
+
+        private Updater(final PointsLeaderboard base) {
+            this.base = base;
+            this.totals = base.totals.clone();
+            this.copied = new boolean[totals.length];
+            this.root = base.root;
+        }
+
+        /**
+         * Adds the points of a single participation to the total of its member.
+         *
+         * @param memberOrdinal The ordinal of the member.
+         * @param surveyOrdinal The ordinal of the survey.
+         * @param statusCode    The status code of the participation, the ordinal of its {@link StatusEnum}.
+         */
+        public void record(final int memberOrdinal, final int surveyOrdinal, final int statusCode) {
+            final int points = points(base.completionPoints, base.filteredPoints, surveyOrdinal, statusCode);
+            if (points == 0) {
+                return;
+            }
+            final int chunk = memberOrdinal >>> CHUNK_SHIFT;
+            if (!copied[chunk]) {
+                totals[chunk] = totals[chunk].clone();
+                copied[chunk] = true;
+            }
+            final long total = totals[chunk][memberOrdinal & CHUNK_MASK];
+            root = insert(remove(root, total, memberOrdinal), new Node(total + points, memberOrdinal, null, null));
+            totals[chunk][memberOrdinal & CHUNK_MASK] = total + points;
+        }
+
+        /**
+         * @return The leaderboard with the recorded participations, the updater must not be used afterwards.
+         */
+        public PointsLeaderboard build() {
+            return new PointsLeaderboard(base.memberCount, base.completionPoints, base.filteredPoints, totals, root);
+        }
+    }
+
+    private static int points(final int[] completionPoints, final int[] filteredPoints, final int surveyOrdinal,
+                              final int statusCode) {
+        if (statusCode == StatusEnum.COMPLETED.ordinal()) {
+            return completionPoints[surveyOrdinal];
+        }
+        if (statusCode == StatusEnum.FILTERED.ordinal()) {
+            return filteredPoints[surveyOrdinal];
+        }
+        return 0;
+    }
+
+    /**
+     * Builds the treap of the sorted members with a stack in O(number of members), after the sort.
+     */
+    private static Node build(final long[][] totals, final int memberCount) {
+        final Comparator<Integer> ranking = Comparator
+                .comparingLong((Integer memberOrdinal) -> -total(totals, memberOrdinal))
+                .thenComparingInt(memberOrdinal -> memberOrdinal);
+        final int[] sorted = IntStream.range(0, memberCount).boxed().sorted(ranking).mapToInt(Integer::intValue)
+                .toArray();
+        final int[] left = new int[memberCount];
+        final int[] right = new int[memberCount];
+        Arrays.fill(left, -1);
+        Arrays.fill(right, -1);
+        final int[] stack = new int[memberCount];
+        int depth = 0;
+        for (int position = 0; position < memberCount; position++) {
+            final int priority = priority(sorted[position]);
+            int last = -1;
+            while (depth > 0 && priority(sorted[stack[depth - 1]]) < priority) {
+                last = stack[--depth];
+            }
+            left[position] = last;
+            if (depth > 0) {
+                right[stack[depth - 1]] = position;
+            }
+            stack[depth++] = position;
+        }
+        return depth == 0 ? null : node(totals, sorted, left, right, stack[0]);
+    }
+
+    private static Node node(final long[][] totals, final int[] sorted, final int[] left, final int[] right,
+                             final int position) {
+        if (position < 0) {
+            return null;
+        }
+        final int memberOrdinal = sorted[position];
+        return new Node(total(totals, memberOrdinal), memberOrdinal,
+                node(totals, sorted, left, right, left[position]), node(totals, sorted, left, right, right[position]));
+    }
+
+    private static Node insert(final Node node, final Node inserted) {
+        if (node == null) {
+            return inserted;
+        }
+        if (inserted.priority > node.priority) {
+            final Node[] parts = split(node, inserted.total, inserted.memberOrdinal);
+            return inserted.with(parts[0], parts[1]);
+        }
+        if (node.before(inserted.total, inserted.memberOrdinal)) {
+            return node.with(node.left, insert(node.right, inserted));
+        }
+        return node.with(insert(node.left, inserted), node.right);
+    }
+
+    private static Node remove(final Node node, final long total, final int memberOrdinal) {
+        if (node.memberOrdinal == memberOrdinal) {
+            return merge(node.left, node.right);
+        }
+        if (node.before(total, memberOrdinal)) {
+            return node.with(node.left, remove(node.right, total, memberOrdinal));
+        }
+        return node.with(remove(node.left, total, memberOrdinal), node.right);
+    }
+
+    /**
+     * @return The nodes ranked before the given member, and the nodes ranked after it.
+     */
+    private static Node[] split(final Node node, final long total, final int memberOrdinal) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (node.before(total, memberOrdinal)) {
+            final Node[] parts = split(node.right, total, memberOrdinal);
+            parts[0] = node.with(node.left, parts[0]);
+            return parts;
+        }
+        final Node[] parts = split(node.left, total, memberOrdinal);
+        parts[1] = node.with(parts[1], node.right);
+        return parts;
+    }
+
+    private static Node merge(final Node before, final Node after) {
+        if (before == null) {
+            return after;
+        }
+        if (after == null) {
+            return before;
+        }
+        if (before.priority > after.priority) {
+            return before.with(before.left, merge(before.right, after));
+        }
+        return after.with(merge(before, after.left), after.right);
+    }
+
+    private static long total(final long[][] totals, final int memberOrdinal) {
+        return totals[memberOrdinal >>> CHUNK_SHIFT][memberOrdinal & CHUNK_MASK];
+    }
+
+    private static int size(final Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * A fixed pseudo-random priority per member, which keeps the expected depth of the treap logarithmic.
+     */
+    private static int priority(final int memberOrdinal) {
+        int hash = memberOrdinal * 0x9E3779B9;
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        return hash ^ (hash >>> 13);
+    }
+}
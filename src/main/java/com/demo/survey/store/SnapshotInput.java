@@ -0,0 +1,144 @@
+package com.demo.survey.store;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads the little-endian primitives of a snapshot file through memory mapped windows, so files
+ * larger than a single {@link MappedByteBuffer} can be read, and arrays are copied in bulk.
+ */
+final class SnapshotInput implements Closeable {
+
+    private static final int WINDOW_SIZE = 1 << 26;
+
+    private final FileChannel channel;
+    private final long size;
+    private long windowStart;
+    private MappedByteBuffer window;
+
+    SnapshotInput(final Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+    }
+
+    /**
+     * Computes the CRC32C of a part of a file.
+     *
+     * @param channel The channel of the file.
+     * @param from    The first byte, inclusive.
+     * @param to      The last byte, exclusive.
+     * @return The checksum.
+     * @throws IOException if the file cannot be read.
+     */
+    static int checksum(final FileChannel channel, final long from, final long to) throws IOException {
+        final CRC32C checksum = new CRC32C();
+        for (long position = from; position < to; position += WINDOW_SIZE) {
+            checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, to - position)));
+        }
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * @return {@code true} if the trailer of the file matches the checksum of its content.
+     */
+    boolean verify() throws IOException {
+        if (size < Integer.BYTES) {
+            return false;
+        }
+        final int expected = channel.map(FileChannel.MapMode.READ_ONLY, size - Integer.BYTES, Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN).getInt();
+        return checksum(channel, 0, size - Integer.BYTES) == expected;
+    }
+
+    byte readByte() throws IOException {
+        ensure(Byte.BYTES);
+        return window.get();
+    }
+
+    int readInt() throws IOException {
+        ensure(Integer.BYTES);
+        return window.getInt();
+    }
+
+    long readLong() throws IOException {
+        ensure(Long.BYTES);
+        return window.getLong();
+    }
+
+    String readString() throws IOException {
+        final int length = readInt();
+        return length < 0 ? null : new String(readBytes(length), StandardCharsets.UTF_8);
+    }
+
+    byte[] readBytes(final int length) throws IOException {
+        final byte[] values = new byte[checkedLength(length, Byte.BYTES)];
+        for (int offset = 0; offset < length; ) {
+            ensure(Byte.BYTES);
+            final int count = Math.min(length - offset, window.remaining());
+            window.get(values, offset, count);
+            offset += count;
+        }
+        return values;
+    }
+
+    int[] readInts(final int length) throws IOException {
+        final int[] values = new int[checkedLength(length, Integer.BYTES)];
+        for (int offset = 0; offset < length; ) {
+            ensure(Integer.BYTES);
+            final int count = Math.min(length - offset, window.remaining() / Integer.BYTES);
+            window.asIntBuffer().get(values, offset, count);
+            window.position(window.position() + count * Integer.BYTES);
+            offset += count;
+        }
+        return values;
+    }
+
+    long[] readLongs(final int length) throws IOException {
+        final long[] values = new long[checkedLength(length, Long.BYTES)];
+        for (int offset = 0; offset < length; ) {
+            ensure(Long.BYTES);
+            final int count = Math.min(length - offset, window.remaining() / Long.BYTES);
+            window.asLongBuffer().get(values, offset, count);
+            window.position(window.position() + count * Long.BYTES);
+            offset += count;
+        }
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int checkedLength(final int length, final int elementSize) throws IOException {
+        if (length < 0 || (long) length * elementSize > size - position()) {
+            throw new IOException(String.format("Invalid array length %d at offset %d", length, position()));
+        }
+        return length;
+    }
+
+    private long position() {
+        return window == null ? 0 : windowStart + window.position();
+    }
+
+    private void ensure(final int bytes) throws IOException {
+        if (window != null && window.remaining() >= bytes) {
+            return;
+        }
+        final long start = position();
+        if (start + bytes > size) {
+            throw new EOFException(String.format("Unexpected end of snapshot at offset %d", start));
+        }
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, size - start));
+        window.order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
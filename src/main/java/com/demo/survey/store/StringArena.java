@@ -0,0 +1,160 @@
+package com.demo.survey.store;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Distinct strings stored as UTF-8 bytes in one array, addressed by dense ids.
+ * <p>
+ * A string costs its encoded bytes and one {@code int} offset, instead of a {@link String} object and its own
+ * array, and equal strings are stored once. The strings are only decoded by {@link #get(int)}, when a caller
+ * needs them. Instances are immutable once built and can be shared between threads.
+ */
+public final class StringArena {
+
+    /**
+     * The id of {@code null}.
+     */
+    public static final int NULL = -1;
+
+    /**
+     * Receives the UTF-8 bytes of a string, which it must not modify or keep.
+     */
+    @FunctionalInterface
+    public interface Utf8Writer {
+        void write(byte[] bytes, int offset, int length) throws IOException;
+    }
+
+    private final byte[] bytes;
+    // The start of every string, and the end of the last one.
+    private final int[] offsets;
+
+    private StringArena(final byte[] bytes, final int[] offsets) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return The number of distinct strings.
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @param id The id of the string, or {@link #NULL}.
+     * @return A new {@link String} with the content of the string, or {@code null}.
+     */
+    public String get(final int id) {
+        return id == NULL ? null
+                : new String(bytes, offsets[id], offsets[id + 1] - offsets[id], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Passes the UTF-8 bytes of a string to a writer, without decoding them.
+     *
+     * @param id     The id of the string, or {@link #NULL}.
+     * @param writer Receives the bytes.
+     * @return {@code false} if the id is {@link #NULL}, then nothing is written.
+     * @throws IOException if the writer fails.
+     */
+    public boolean write(final int id, final Utf8Writer writer) throws IOException {
+        if (id == NULL) {
+            return false;
+        }
+        writer.write(bytes, offsets[id], offsets[id + 1] - offsets[id]);
+        return true;
+    }
+
+    /**
+     * @return A rough estimate of the heap used by the strings, in bytes.
+     */
+    public long estimatedHeapBytes() {
+        return bytes.length + 4L * offsets.length;
+    }
+
+    /**
+     * Collects strings into an arena, and returns the id of every added string. Not thread-safe.
+     */
+    public static final class Builder {
+
+        private static final float LOAD_FACTOR = 0.5f;
+
+        private byte[] bytes = new byte[1024];
+        private int length;
+        private int[] offsets = new int[65];
+        private int size;
+        // Holds id + 1 of the string in every used slot, so that 0 can mark an empty slot.
+        private int[] slots = new int[128];
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a string, unless an equal one was added already.
+         *
+         * @param value The string, may be {@code null}.
+         * @return The id of the string, or {@link #NULL} for {@code null}.
+         */
+        public int add(final String value) {
+            if (value == null) {
+                return NULL;
+            }
+            final byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            final int hash = hash(encoded, 0, encoded.length);
+            int slot = hash & (slots.length - 1);
+            while (slots[slot] != 0) {
+                final int id = slots[slot] - 1;
+                if (Arrays.equals(bytes, offsets[id], offsets[id + 1], encoded, 0, encoded.length)) {
+                    return id;
+                }
+                slot = (slot + 1) & (slots.length - 1);
+            }
+            if (length + encoded.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length + encoded.length, bytes.length + (bytes.length >> 1)));
+            }
+            System.arraycopy(encoded, 0, bytes, length, encoded.length);
+            length += encoded.length;
+            if (size + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length + (offsets.length >> 1));
+            }
+            offsets[size + 1] = length;
+            slots[slot] = ++size;
+            if (size > slots.length * LOAD_FACTOR) {
+                rehash();
+            }
+            return size - 1;
+        }
+
+        /**
+         * @return The arena of the added strings, trimmed to size.
+         */
+        public StringArena build() {
+            return new StringArena(Arrays.copyOf(bytes, length), Arrays.copyOf(offsets, size + 1));
+        }
+
+        private void rehash() {
+            slots = new int[slots.length << 1];
+            for (int id = 0; id < size; id++) {
+                int slot = hash(bytes, offsets[id], offsets[id + 1]) & (slots.length - 1);
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & (slots.length - 1);
+                }
+                slots[slot] = id + 1;
+            }
+        }
+
+        private static int hash(final byte[] bytes, final int from, final int to) {
+            int hash = 1;
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + bytes[i];
+            }
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
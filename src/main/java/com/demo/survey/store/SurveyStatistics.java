@@ -0,0 +1,202 @@
+package com.demo.survey.store;
+
+import com.demo.survey.model.StatusEnum;
+
+/**
+ * Running per-survey aggregates of the participation data: the number of participations per
+ * {@link StatusEnum}, the sum and count of the known lengths, and a {@link LengthHistogram} of the known lengths,
+ * from which their quantiles are estimated. A histogram has a fixed size, it is allocated with the first length
+ * of its survey.
+ * <p>
+ * The aggregates are built in parallel partitions when the data is loaded and are kept up to date
+ * through {@link #record(int, int, long, boolean)}, so reading them costs O(number of surveys).
+ * Updates must come from a single writer thread, and must not be made to aggregates that are already
+ * visible to readers: the writer records into a {@link #copy()} and publishes that. The copy shares the histograms,
+ * and copies the histogram of a survey when it records a length of the survey for the first time.
+ */
+public final class SurveyStatistics {
+
+    private final int surveyCount;
+    private final long[] statusCounts;
+    private final long[] participationCounts;
+    private final long[] lengthSums;
+    private final long[] lengthCounts;
+    private final long[][] lengthHistograms;
+    // Whether the histogram of a survey belongs to this instance, and can be changed.
+    private final boolean[] ownHistograms;
+
+    public SurveyStatistics(final int surveyCount) {
+        this.surveyCount = surveyCount;
+        this.statusCounts = new long[surveyCount * ParticipationStore.STATUS_COUNT];
+        this.participationCounts = new long[surveyCount];
+        this.lengthSums = new long[surveyCount];
+        this.lengthCounts = new long[surveyCount];
+        this.lengthHistograms = new long[surveyCount][];
+        this.ownHistograms = new boolean[surveyCount];
+    }
+
+    private SurveyStatistics(final SurveyStatistics other) {
+        this.surveyCount = other.surveyCount;
+        this.statusCounts = other.statusCounts.clone();
+        this.participationCounts = other.participationCounts.clone();
+        this.lengthSums = other.lengthSums.clone();
+        this.lengthCounts = other.lengthCounts.clone();
+        this.lengthHistograms = other.lengthHistograms.clone();
+        this.ownHistograms = new boolean[surveyCount];
+    }
+
+    /**
+     * Aggregates every row of the given store with a {@link PartitionedAggregation}.
+     *
+     * @param store The participation store.
+     * @return The built {@link SurveyStatistics}.
+     */
+    public static SurveyStatistics of(final ParticipationStore store) {
+        return PartitionedAggregation.aggregate(store, new Aggregator(store.surveyCount()));
+    }
+
+    /**
+     * Aggregates every row of the given store with a {@link PartitionedAggregation}.
+     *
+     * @param store            The participation store.
+     * @param minPartitionRows The number of rows below which a partition is not split any further.
+     * @return The built {@link SurveyStatistics}.
+     */
+    public static SurveyStatistics of(final ParticipationStore store, final int minPartitionRows) {
+        return PartitionedAggregation.aggregate(store, new Aggregator(store.surveyCount()), minPartitionRows);
+    }
+
+    private static final class Aggregator implements PartitionedAggregation.Aggregator<SurveyStatistics> {
+
+        private final int surveyCount;
+
+        private Aggregator(final int surveyCount) {
+            this.surveyCount = surveyCount;
+        }
+
+        @Override
+        public SurveyStatistics create() {
+            return new SurveyStatistics(surveyCount);
+        }
+
+        @Override
+        public void accumulate(final SurveyStatistics partial, final ParticipationStore store, final int fromRow,
+                               final int toRow) {
+            for (int row = fromRow; row < toRow; row++) {
+                partial.record(store.surveyOrdinalAt(row), store.statusCodeAt(row),
+                        store.lengthAt(row), store.hasLengthAt(row));
+            }
+        }
+
+        @Override
+        public void merge(final SurveyStatistics into, final SurveyStatistics other) {
+            add(into.statusCounts, other.statusCounts);
+            add(into.participationCounts, other.participationCounts);
+            add(into.lengthSums, other.lengthSums);
+            add(into.lengthCounts, other.lengthCounts);
+            for (int surveyOrdinal = 0; surveyOrdinal < surveyCount; surveyOrdinal++) {
+                final long[] histogram = other.lengthHistograms[surveyOrdinal];
+                if (histogram == null) {
+                    continue;
+                }
+                if (into.lengthHistograms[surveyOrdinal] == null) {
+                    // The other partial is dropped after the merge.
+                    into.lengthHistograms[surveyOrdinal] = histogram;
+                    into.ownHistograms[surveyOrdinal] = true;
+                } else {
+                    add(into.lengthHistograms[surveyOrdinal], histogram);
+                }
+            }
+        }
+
+        private static void add(final long[] into, final long[] other) {
+            for (int i = 0; i < into.length; i++) {
+                into[i] += other[i];
+            }
+        }
+    }
+
+    /**
+     * Adds a single participation to the aggregates.
+     *
+     * @param surveyOrdinal The ordinal of the survey.
+     * @param statusCode    The status code of the participation, the ordinal of its {@link StatusEnum}.
+     * @param length        The length of the participation, ignored when {@code hasLength} is {@code false}.
+     * @param hasLength     Whether the participation has a length.
+     */
+    public void record(final int surveyOrdinal, final int statusCode, final long length, final boolean hasLength) {
+        statusCounts[surveyOrdinal * ParticipationStore.STATUS_COUNT + statusCode]++;
+        participationCounts[surveyOrdinal]++;
+        if (hasLength) {
+            lengthSums[surveyOrdinal] += length;
+            lengthCounts[surveyOrdinal]++;
+            ownHistogram(surveyOrdinal)[LengthHistogram.bucket(length)]++;
+        }
+    }
+
+    private long[] ownHistogram(final int surveyOrdinal) {
+        if (!ownHistograms[surveyOrdinal]) {
+            final long[] shared = lengthHistograms[surveyOrdinal];
+            lengthHistograms[surveyOrdinal] = shared == null ? new long[LengthHistogram.BUCKET_COUNT] : shared.clone();
+            ownHistograms[surveyOrdinal] = true;
+        }
+        return lengthHistograms[surveyOrdinal];
+    }
+
+    /**
+     * @return An independent copy of the aggregates, in O(number of surveys).
+     */
+    public SurveyStatistics copy() {
+        return new SurveyStatistics(this);
+    }
+
+    public int surveyCount() {
+        return surveyCount;
+    }
+
+    public long participations(final int surveyOrdinal) {
+        return participationCounts[surveyOrdinal];
+    }
+
+    public long count(final int surveyOrdinal, final StatusEnum status) {
+        return statusCounts[surveyOrdinal * ParticipationStore.STATUS_COUNT + status.ordinal()];
+    }
+
+    /**
+     * @param surveyOrdinal The ordinal of the survey.
+     * @return The average of the known lengths, or {@link Double#NaN} if there is none.
+     */
+    public double averageLength(final int surveyOrdinal) {
+        final long count = lengthCounts[surveyOrdinal];
+        return count == 0 ? Double.NaN : (double) lengthSums[surveyOrdinal] / count;
+    }
+
+    /**
+     * @param surveyOrdinal The ordinal of the survey.
+     * @return The number of known lengths.
+     */
+    public long lengthCount(final int surveyOrdinal) {
+        return lengthCounts[surveyOrdinal];
+    }
+
+    /**
+     * @param surveyOrdinal The ordinal of the survey.
+     * @param bucket        The index of a {@link LengthHistogram} bucket.
+     * @return The number of known lengths in the bucket.
+     */
+    public long lengthBucketCount(final int surveyOrdinal, final int bucket) {
+        final long[] histogram = lengthHistograms[surveyOrdinal];
+        return histogram == null ? 0 : histogram[bucket];
+    }
+
+    /**
+     * @param surveyOrdinal The ordinal of the survey.
+     * @param quantile      The quantile, between 0 and 1.
+     * @return The estimated quantile of the known lengths, see {@link LengthHistogram#quantile}, or
+     * {@link Double#NaN} if there is none.
+     */
+    public double lengthQuantile(final int surveyOrdinal, final double quantile) {
+        final long count = lengthCounts[surveyOrdinal];
+        return count == 0 ? Double.NaN : LengthHistogram.quantile(lengthHistograms[surveyOrdinal], count, quantile);
+    }
+}
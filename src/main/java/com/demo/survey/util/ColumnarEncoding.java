@@ -0,0 +1,228 @@
+package com.demo.survey.util;
+
+import com.demo.survey.dto.CollectedPointsDTO;
+import com.demo.survey.dto.MemberDTO;
+import com.demo.survey.dto.SurveyDTO;
+import com.demo.survey.dto.SurveyStatisticsDTO;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Writes lists of the survey DTOs in a fixed-layout columnar binary encoding, served as
+ * {@value #MEDIA_TYPE_VALUE}.
+ * <p>
+ * The body is the number of rows, followed by one column per field of the DTO, in the order the fields are
+ * declared. A column starts with a bitmap of {@code ceil(rows / 8)} bytes, in which bit {@code i % 8} of byte
+ * {@code i / 8} is set when row {@code i} has a value. The values follow it: 8 bytes per row for {@link Long}
+ * and {@link Double}, 4 bytes for {@link Integer}, 1 byte of 0 or 1 for {@link Boolean}, with 0 for the missing
+ * values. A {@link String} column holds {@code rows + 1} offsets of 4 bytes instead, followed by the UTF-8 bytes
+ * the offsets point into. Every number is big-endian, and an empty list is written as the row count 0 alone.
+ * <p>
+ * Unlike JSON, no field name is repeated per row and no number is printed as text, and a reader can find every
+ * fixed-width value of a column from the row count alone.
+ */
+public final class ColumnarEncoding {
+
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.survey.columnar";
+
+    public static final MediaType MEDIA_TYPE = MediaType.valueOf(MEDIA_TYPE_VALUE);
+
+    /**
+     * Encodes one column of a list of rows.
+     */
+    @FunctionalInterface
+    private interface Column {
+        Encoded encode(List<?> rows);
+    }
+
+    /**
+     * A column ready to be written.
+     *
+     * @param size   The number of bytes of the column.
+     * @param writer Writes the column at the position of a buffer, whose bytes are still 0.
+     */
+    private record Encoded(int size, Consumer<ByteBuffer> writer) {
+    }
+
+    private static final Map<Class<?>, List<Column>> SCHEMAS = Map.of(
+            MemberDTO.class, List.of(
+                    int64(MemberDTO::getId),
+                    string(MemberDTO::getFullName),
+                    string(MemberDTO::getEmail),
+                    bool(MemberDTO::getActive)),
+            SurveyDTO.class, List.of(
+                    int64(SurveyDTO::getId),
+                    string(SurveyDTO::getName),
+                    int64(SurveyDTO::getExpectedCompletes),
+                    int32(SurveyDTO::getCompletionPoints),
+                    int32(SurveyDTO::getFilteredPoints)),
+            CollectedPointsDTO.class, List.of(
+                    int64(CollectedPointsDTO::getSurveyId),
+                    int32(CollectedPointsDTO::getCollectedPoints)),
+            SurveyStatisticsDTO.class, List.of(
+                    int64(SurveyStatisticsDTO::getSurveyId),
+                    string(SurveyStatisticsDTO::getSurveyName),
+                    int64(SurveyStatisticsDTO::getNumberOfCompletes),
+                    int64(SurveyStatisticsDTO::getNumberOfFiltered),
+                    int64(SurveyStatisticsDTO::getNumberOfRejected),
+                    float64(SurveyStatisticsDTO::getAverageLengthSpent)));
+
+    private ColumnarEncoding() {
+    }
+
+    /**
+     * @param elementType The type of the elements of a list.
+     * @return Whether lists of the given type can be written.
+     */
+    public static boolean supports(final Class<?> elementType) {
+        return SCHEMAS.containsKey(elementType);
+    }
+
+    /**
+     * Writes a list of DTOs, without closing the stream.
+     *
+     * @param rows The DTOs, all of the same supported type.
+     * @param out  The stream to write to.
+     * @throws IllegalArgumentException if the type of the DTOs is not supported.
+     * @throws IOException              if the stream cannot be written.
+     */
+    public static void write(final List<?> rows, final OutputStream out) throws IOException {
+        out.write(encode(rows));
+    }
+
+    /**
+     * @param rows The DTOs, all of the same supported type.
+     * @return The encoded DTOs.
+     * @throws IllegalArgumentException if the type of the DTOs is not supported.
+     */
+    public static byte[] encode(final List<?> rows) {
+        if (rows.isEmpty()) {
+            return new byte[Integer.BYTES];
+        }
+        final List<Column> schema = SCHEMAS.get(rows.get(0).getClass());
+        if (schema == null) {
+            throw new IllegalArgumentException("Cannot write " + rows.get(0).getClass() + " in columns");
+        }
+        final Encoded[] columns = new Encoded[schema.size()];
+        int size = Integer.BYTES;
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = schema.get(i).encode(rows);
+            size += columns[i].size();
+        }
+        // The bitmaps rely on the buffer starting out as zeros.
+        final ByteBuffer buffer = ByteBuffer.allocate(size).putInt(rows.size());
+        for (final Encoded column : columns) {
+            column.writer().accept(buffer);
+        }
+        return buffer.array();
+    }
+
+    private static <T> Column int64(final Function<T, Long> getter) {
+        final Function<Object, Long> values = cast(getter);
+        return rows -> new Encoded(bitmapSize(rows) + Long.BYTES * rows.size(), buffer -> {
+            final int bitmap = skipBitmap(rows, buffer);
+            for (int i = 0; i < rows.size(); i++) {
+                final Long value = values.apply(rows.get(i));
+                buffer.putLong(value == null ? 0 : present(buffer, bitmap, i, value));
+            }
+        });
+    }
+
+    private static <T> Column int32(final Function<T, Integer> getter) {
+        final Function<Object, Integer> values = cast(getter);
+        return rows -> new Encoded(bitmapSize(rows) + Integer.BYTES * rows.size(), buffer -> {
+            final int bitmap = skipBitmap(rows, buffer);
+            for (int i = 0; i < rows.size(); i++) {
+                final Integer value = values.apply(rows.get(i));
+                buffer.putInt(value == null ? 0 : present(buffer, bitmap, i, value));
+            }
+        });
+    }
+
+    private static <T> Column float64(final Function<T, Double> getter) {
+        final Function<Object, Double> values = cast(getter);
+        return rows -> new Encoded(bitmapSize(rows) + Double.BYTES * rows.size(), buffer -> {
+            final int bitmap = skipBitmap(rows, buffer);
+            for (int i = 0; i < rows.size(); i++) {
+                final Double value = values.apply(rows.get(i));
+                buffer.putDouble(value == null ? 0 : present(buffer, bitmap, i, value));
+            }
+        });
+    }
+
+    private static <T> Column bool(final Function<T, Boolean> getter) {
+        final Function<Object, Boolean> values = cast(getter);
+        return rows -> new Encoded(bitmapSize(rows) + rows.size(), buffer -> {
+            final int bitmap = skipBitmap(rows, buffer);
+            for (int i = 0; i < rows.size(); i++) {
+                final Boolean value = values.apply(rows.get(i));
+                buffer.put(value == null || !present(buffer, bitmap, i, value) ? (byte) 0 : (byte) 1);
+            }
+        });
+    }
+
+    private static <T> Column string(final Function<T, String> getter) {
+        final Function<Object, String> values = cast(getter);
+        return rows -> {
+            // The strings are encoded up front, the offsets that precede them depend on their lengths.
+            final byte[][] encoded = new byte[rows.size()][];
+            int length = 0;
+            for (int i = 0; i < encoded.length; i++) {
+                final String value = values.apply(rows.get(i));
+                encoded[i] = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+                length += value == null ? 0 : encoded[i].length;
+            }
+            return new Encoded(bitmapSize(rows) + Integer.BYTES * (rows.size() + 1) + length, buffer -> {
+                final int bitmap = skipBitmap(rows, buffer);
+                int offset = 0;
+                buffer.putInt(offset);
+                for (int i = 0; i < encoded.length; i++) {
+                    if (encoded[i] != null) {
+                        present(buffer, bitmap, i, encoded[i]);
+                        offset += encoded[i].length;
+                    }
+                    buffer.putInt(offset);
+                }
+                for (final byte[] bytes : encoded) {
+                    if (bytes != null) {
+                        buffer.put(bytes);
+                    }
+                }
+            });
+        };
+    }
+
+    private static int bitmapSize(final List<?> rows) {
+        return (rows.size() + 7) >>> 3;
+    }
+
+    private static int skipBitmap(final List<?> rows, final ByteBuffer buffer) {
+        final int bitmap = buffer.position();
+        buffer.position(bitmap + bitmapSize(rows));
+        return bitmap;
+    }
+
+    /**
+     * Sets the bit of a row in the bitmap of its column.
+     *
+     * @return The given value.
+     */
+    private static <V> V present(final ByteBuffer buffer, final int bitmap, final int row, final V value) {
+        final int index = bitmap + (row >>> 3);
+        buffer.put(index, (byte) (buffer.get(index) | 1 << (row & 7)));
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T, V> Function<Object, V> cast(final Function<T, V> getter) {
+        return (Function<Object, V>) getter;
+    }
+}
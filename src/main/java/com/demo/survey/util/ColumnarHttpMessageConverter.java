@@ -0,0 +1,69 @@
+package com.demo.survey.util;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Writes the lists of the survey DTOs as {@value ColumnarEncoding#MEDIA_TYPE_VALUE} for the clients that ask
+ * for it in their {@code Accept} header. Request bodies are not read in this encoding.
+ */
+public class ColumnarHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<?>> {
+
+    public ColumnarHttpMessageConverter() {
+        super(ColumnarEncoding.MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(final Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(final Type type, final Class<?> contextClass, final MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(final MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(final Type type, final Class<?> clazz, final MediaType mediaType) {
+        if (!canWrite(clazz, mediaType)) {
+            return false;
+        }
+        // The element type is unknown when the list is returned in a ResponseEntity<?>, the first row decides.
+        final Class<?> elementType = ResolvableType.forType(type).asCollection().resolveGeneric(0);
+        return elementType == null || ColumnarEncoding.supports(elementType);
+    }
+
+    @Override
+    protected void writeInternal(final List<?> rows, final Type type, final HttpOutputMessage outputMessage)
+            throws IOException {
+        try {
+            ColumnarEncoding.write(rows, outputMessage.getBody());
+        } catch (IllegalArgumentException exception) {
+            throw new HttpMessageNotWritableException(exception.getMessage(), exception);
+        }
+    }
+
+    @Override
+    public List<?> read(final Type type, final Class<?> contextClass, final HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Cannot read " + ColumnarEncoding.MEDIA_TYPE_VALUE, inputMessage);
+    }
+
+    @Override
+    protected List<?> readInternal(final Class<? extends List<?>> clazz, final HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Cannot read " + ColumnarEncoding.MEDIA_TYPE_VALUE, inputMessage);
+    }
+}
@@ -0,0 +1,10 @@
+package com.demo.survey.util;
+
+/**
+ * A serialized result.
+ *
+ * @param json The JSON of the result.
+ * @param gzip The gzip compressed JSON, or {@code null} if compressing does not make it smaller.
+ */
+public record SerializedResponse(byte[] json, byte[] gzip) {
+}
@@ -1,20 +1,27 @@
 package com.demo.survey.util;
 
 import com.demo.survey.model.Status;
-import com.demo.survey.service.SurveyService;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import lombok.extern.log4j.Log4j2;
 
 import java.io.IOException;
+import java.util.Map;
 
 @Log4j2
 public class StatusFieldDeserializer extends JsonDeserializer<Status> {
 
+    /**
+     * The name of the reader attribute that holds the {@link Map} of the known statuses by id.
+     */
+    public static final String ATTRIBUTE = "statuses";
+
     @Override
     public Status deserialize(JsonParser jsonParser, DeserializationContext context) throws IOException {
-        final Status status = SurveyService.statusMap.get(Long.valueOf(jsonParser.getText()));
+        @SuppressWarnings("unchecked")
+        final Map<Long, Status> statuses = (Map<Long, Status>) context.getAttribute(ATTRIBUTE);
+        final Status status = statuses.get(Long.valueOf(jsonParser.getText()));
         if (status == null) {
             log.error("Cannot find status with id: " + jsonParser.getText());
         }
@@ -1,20 +1,27 @@
 package com.demo.survey.util;
 
 import com.demo.survey.model.Survey;
-import com.demo.survey.service.SurveyService;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import lombok.extern.log4j.Log4j2;
 
 import java.io.IOException;
+import java.util.Map;
 
 @Log4j2
 public class SurveyFieldDeserializer extends JsonDeserializer<Survey> {
 
+    /**
+     * The name of the reader attribute that holds the {@link Map} of the known surveys by id.
+     */
+    public static final String ATTRIBUTE = "surveys";
+
     @Override
     public Survey deserialize(JsonParser jsonParser, DeserializationContext context) throws IOException {
-        final Survey survey = SurveyService.surveyMap.get(Long.valueOf(jsonParser.getText()));
+        @SuppressWarnings("unchecked")
+        final Map<Long, Survey> surveys = (Map<Long, Survey>) context.getAttribute(ATTRIBUTE);
+        final Survey survey = surveys.get(Long.valueOf(jsonParser.getText()));
         if (survey == null) {
             log.error("Cannot find survey with id: " + jsonParser.getText());
         }
@@ -0,0 +1,37 @@
+-- Tables of the JDBC storage backend, filled from the published datasets.
+
+CREATE TABLE IF NOT EXISTS status (
+    id   BIGINT PRIMARY KEY,
+    name VARCHAR
+);
+
+CREATE TABLE IF NOT EXISTS member (
+    id        BIGINT PRIMARY KEY,
+    full_name VARCHAR,
+    email     VARCHAR,
+    active    BOOLEAN
+);
+
+CREATE TABLE IF NOT EXISTS survey (
+    id                 BIGINT PRIMARY KEY,
+    name               VARCHAR,
+    expected_completes BIGINT,
+    completion_points  INT,
+    filtered_points    INT
+);
+
+-- row_id is the position of the participation in the dataset, the lists are returned in this order.
+CREATE TABLE IF NOT EXISTS participation (
+    row_id    INT PRIMARY KEY,
+    member_id BIGINT NOT NULL,
+    survey_id BIGINT NOT NULL,
+    status_id BIGINT NOT NULL,
+    length    BIGINT
+);
+
+CREATE INDEX IF NOT EXISTS participation_survey ON participation (survey_id, status_id, row_id);
+CREATE INDEX IF NOT EXISTS participation_member ON participation (member_id, status_id, row_id);
+-- Probed by the invitable members query, once per active member.
+CREATE INDEX IF NOT EXISTS participation_member_survey ON participation (member_id, survey_id);
+DROP INDEX IF EXISTS participation_status;
+CREATE INDEX IF NOT EXISTS member_active ON member (active, id);
@@ -0,0 +1,42 @@
+package com.demo.survey.controller;
+
+import com.demo.survey.service.DatasetHolder;
+import com.demo.survey.service.DatasetReloader;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(AdminController.class)
+class AdminControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private DatasetReloader reloader;
+
+    @MockBean
+    private DatasetHolder datasets;
+
+    @Test
+    void testReloadShouldReturnAcceptedAndStartReload() throws Exception {
+        // Given
+        when(reloader.reload()).thenReturn(new CompletableFuture<>());
+
+        // When
+        this.mockMvc.perform(post("/admin/reload")).andDo(print()).andExpect(status().isAccepted());
+
+        // Then
+        verify(reloader).reload();
+    }
+}
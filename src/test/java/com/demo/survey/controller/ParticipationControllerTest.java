@@ -0,0 +1,84 @@
+package com.demo.survey.controller;
+
+import com.demo.survey.dto.IngestResultDTO;
+import com.demo.survey.dto.ParticipationEventDTO;
+import com.demo.survey.dto.RejectedEventDTO;
+import com.demo.survey.service.DatasetHolder;
+import com.demo.survey.service.ParticipationWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ParticipationController.class)
+class ParticipationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private ParticipationWriter writer;
+
+    @MockBean
+    private DatasetHolder datasets;
+
+    private final String PATH = "/demo";
+
+    final ParticipationEventDTO eventDTO = ParticipationEventDTO.builder().memberId(1L).surveyId(1L).statusId(4L)
+            .length(10L).build();
+
+    @Test
+    void testRecordParticipationsShouldReturnTheResultOfTheWriter() throws Exception {
+        // Given
+        final IngestResultDTO result = IngestResultDTO.builder().version(7L).accepted(1)
+                .rejected(List.of(new RejectedEventDTO(1, "Unknown member: 2"))).build();
+        when(writer.record(anyList())).thenReturn(CompletableFuture.completedFuture(result));
+
+        // When
+        final MvcResult asyncResult = this.mockMvc.perform(post(PATH + "/participations/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(eventDTO, eventDTO))))
+                .andExpect(request().asyncStarted()).andReturn();
+        final MvcResult mvcResult = this.mockMvc.perform(asyncDispatch(asyncResult))
+                .andDo(print()).andExpect(status().isOk()).andReturn();
+
+        // Then
+        assertThat(mvcResult.getResponse().getContentAsString())
+                .isEqualToIgnoringWhitespace(objectMapper.writeValueAsString(result));
+    }
+
+    @Test
+    void testRecordParticipationShouldReturnBadRequestWhenTheEventIsRejected() throws Exception {
+        // Given
+        final IngestResultDTO result = IngestResultDTO.builder().version(7L).accepted(0)
+                .rejected(List.of(new RejectedEventDTO(0, "Unknown survey: 1"))).build();
+        when(writer.record(anyList())).thenReturn(CompletableFuture.completedFuture(result));
+
+        // When
+        final MvcResult asyncResult = this.mockMvc.perform(post(PATH + "/participations")
+                        .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(eventDTO)))
+                .andExpect(request().asyncStarted()).andReturn();
+
+        // Then
+        this.mockMvc.perform(asyncDispatch(asyncResult)).andDo(print()).andExpect(status().isBadRequest());
+    }
+}
@@ -1,30 +1,55 @@
 package com.demo.survey.controller;
 
+import com.demo.survey.config.BeanConfig;
+import com.demo.survey.dto.BatchDTO;
 import com.demo.survey.dto.CollectedPointsDTO;
+import com.demo.survey.dto.LeaderboardEntryDTO;
 import com.demo.survey.dto.MemberDTO;
+import com.demo.survey.dto.MemberPageDTO;
 import com.demo.survey.dto.SurveyDTO;
 import com.demo.survey.dto.SurveyStatisticsDTO;
+import com.demo.survey.service.AsyncSurveyService;
+import com.demo.survey.service.DatasetHolder;
+import com.demo.survey.service.SerializedResponseCache;
 import com.demo.survey.service.SurveyService;
+import com.demo.survey.store.Dataset;
+import com.demo.survey.util.ColumnarEncoding;
+import com.demo.survey.util.SerializedResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.ByteArrayOutputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(SurveyController.class)
+@Import({BeanConfig.class, AsyncSurveyService.class})
 class SurveyControllerTest {
 
     @Autowired
@@ -36,6 +61,12 @@ class SurveyControllerTest {
     @MockBean
     private SurveyService service;
 
+    @MockBean
+    private DatasetHolder datasets;
+
+    @MockBean
+    private SerializedResponseCache serializedResponses;
+
     private final String PATH  = "/demo";
 
     private final Long ID = 1L;
@@ -45,7 +76,10 @@ class SurveyControllerTest {
     final CollectedPointsDTO pointsDTO = CollectedPointsDTO.builder().surveyId(ID).collectedPoints(15).build();
     final SurveyStatisticsDTO statisticsDTO = SurveyStatisticsDTO.builder().build();
 
-
+    @BeforeEach
+    void testSetup() {
+        when(datasets.current()).thenReturn(Dataset.empty());
+    }
 
     @Test
     void testGetSurveyMembersShouldReturnNotFoundWhenExceptionIsThrownByService() throws Exception {
@@ -75,6 +109,79 @@ class SurveyControllerTest {
         verify(service).getSurveyMembers(ID);
     }
 
+    @Test
+    void testGetSurveyMembersShouldReturnTheAcceptedBinaryEncoding() throws Exception {
+        // Given
+        when(service.getSurveyMembers(ID)).thenReturn(List.of(memberDTO));
+        final ByteArrayOutputStream columns = new ByteArrayOutputStream();
+        ColumnarEncoding.write(List.of(memberDTO), columns);
+
+        // When
+        final MvcResult cborResult = this.mockMvc.perform(get(PATH + "/members/" + ID)
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andDo(print()).andExpect(status().isOk()).andReturn();
+        final MvcResult columnarResult = this.mockMvc.perform(get(PATH + "/members/" + ID)
+                        .accept(ColumnarEncoding.MEDIA_TYPE))
+                .andExpect(status().isOk()).andReturn();
+
+        // Then
+        assertThat(cborResult.getResponse().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR_VALUE);
+        assertThat(cborResult.getResponse().getContentAsByteArray())
+                .isEqualTo(new CBORMapper().writeValueAsBytes(List.of(memberDTO)));
+        assertThat(columnarResult.getResponse().getContentType()).isEqualTo(ColumnarEncoding.MEDIA_TYPE_VALUE);
+        assertThat(columnarResult.getResponse().getContentAsByteArray()).isEqualTo(columns.toByteArray());
+        assertThat(cborResult.getResponse().getHeader(HttpHeaders.ETAG))
+                .isNotEqualTo(columnarResult.getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void testGetSurveyMembersPageShouldNotBeAcceptableInColumns() throws Exception {
+        // Given
+        final MemberPageDTO page = MemberPageDTO.builder().members(List.of(memberDTO)).build();
+        when(service.getSurveyMembers(ID, null, 1)).thenReturn(page);
+
+        // When
+        this.mockMvc.perform(get(PATH + "/members/" + ID).param("limit", "1").accept(ColumnarEncoding.MEDIA_TYPE))
+                .andDo(print()).andExpect(status().isNotAcceptable());
+
+        // Then
+        verify(service).getSurveyMembers(ID, null, 1);
+    }
+
+    @Test
+    void testGetSurveyMembersShouldReturnAPageWhenALimitIsGiven() throws Exception {
+        // Given
+        final MemberPageDTO page = MemberPageDTO.builder().members(List.of(memberDTO)).nextCursor("next").build();
+        when(service.getSurveyMembers(ID, "current", 1)).thenReturn(page);
+
+        // When
+        final MvcResult mvcResult = this.mockMvc.perform(get(PATH + "/members/" + ID)
+                        .param("limit", "1").param("cursor", "current"))
+                .andDo(print()).andExpect(status().isOk()).andReturn();
+        final String actualResponseBody = mvcResult.getResponse().getContentAsString();
+
+        // Then
+        assertThat(actualResponseBody).isEqualToIgnoringWhitespace(objectMapper.writeValueAsString(page));
+        verify(service).getSurveyMembers(ID, "current", 1);
+    }
+
+    @Test
+    void testStreamSurveyMembersShouldWriteOneMemberPerLine() throws Exception {
+        // Given
+        when(service.streamSurveyMembers(ID)).thenReturn(Stream.of(memberDTO, memberDTO));
+
+        // When
+        final MvcResult asyncResult = this.mockMvc.perform(get(PATH + "/members/" + ID + "/stream"))
+                .andExpect(request().asyncStarted()).andReturn();
+        final MvcResult mvcResult = this.mockMvc.perform(asyncDispatch(asyncResult))
+                .andDo(print()).andExpect(status().isOk()).andReturn();
+
+        // Then
+        final String line = objectMapper.writeValueAsString(memberDTO);
+        assertThat(mvcResult.getResponse().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON_VALUE);
+        assertThat(mvcResult.getResponse().getContentAsString()).isEqualTo(line + "\n" + line + "\n");
+    }
+
     @Test
     void testGetCompletedSurveysForMemberShouldReturnNotFoundWhenExceptionIsThrownByService() throws Exception {
         // Given
@@ -103,6 +210,38 @@ class SurveyControllerTest {
         verify(service).getCompletedSurveysForMember(ID);
     }
 
+    @Test
+    void testGetCompletedSurveysForMemberShouldReturnSerializedGzipWhenAccepted() throws Exception {
+        // Given
+        final SerializedResponse response = new SerializedResponse("[]".getBytes(), new byte[]{31, -117, 8});
+        when(serializedResponses.isEnabled()).thenReturn(true);
+        when(serializedResponses.completedSurveys(ID)).thenReturn(response);
+        when(service.getCompletedSurveysForMember(ID)).thenReturn(List.of(surveyDTO));
+
+        // When
+        final MvcResult gzipResult = this.mockMvc.perform(get(PATH + "/completed-surveys/" + ID)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.5"))
+                .andDo(print()).andExpect(status().isOk()).andReturn();
+        final MvcResult jsonResult = this.mockMvc.perform(get(PATH + "/completed-surveys/" + ID)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(status().isOk()).andReturn();
+        final MvcResult cborResult = this.mockMvc.perform(get(PATH + "/completed-surveys/" + ID)
+                        .header(HttpHeaders.ACCEPT, "application/cbor, */*;q=0.5"))
+                .andExpect(status().isOk()).andReturn();
+
+        // Then
+        assertThat(gzipResult.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gzipResult.getResponse().getContentAsByteArray()).isEqualTo(response.gzip());
+        assertThat(gzipResult.getResponse().getHeader(HttpHeaders.ETAG))
+                .isEqualTo(DatasetETagInterceptor.gzipETag(jsonResult.getResponse().getHeader(HttpHeaders.ETAG)));
+        assertThat(jsonResult.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(jsonResult.getResponse().getContentAsByteArray()).isEqualTo(response.json());
+        assertThat(jsonResult.getResponse().getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(cborResult.getResponse().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR_VALUE);
+        verify(serializedResponses, times(2)).completedSurveys(ID);
+        verify(service, times(1)).getCompletedSurveysForMember(ID);
+    }
+
     @Test
     void testGetPointsForMemberShouldReturnNotFoundWhenExceptionIsThrownByService() throws Exception {
         // Given
@@ -115,6 +254,19 @@ class SurveyControllerTest {
         verify(service).getPointsForMember(ID);
     }
 
+    @Test
+    void testGetPointsForMemberShouldNotSendAnETagWithNotFound() throws Exception {
+        // Given
+        when(service.getPointsForMember(ID)).thenThrow(new ResponseStatusException(NOT_FOUND));
+
+        // When
+        this.mockMvc.perform(get(PATH + "/points/" + ID)).andDo(print()).andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+
+        // Then
+        verify(service).getPointsForMember(ID);
+    }
+
     @Test
     void testGetPointsForMemberShouldReturnMessageFromService() throws Exception {
         // Given
@@ -131,6 +283,24 @@ class SurveyControllerTest {
         verify(service).getPointsForMember(ID);
     }
 
+    @Test
+    void testGetPointsForMembersShouldReturnMessageFromService() throws Exception {
+        // Given
+        final BatchDTO<CollectedPointsDTO> batch = BatchDTO.<CollectedPointsDTO>builder()
+                .results(Map.of(ID, List.of(pointsDTO))).unknownIds(List.of(ID + 1)).build();
+        when(service.getPointsForMembers(List.of(ID, ID + 1))).thenReturn(batch);
+
+        // When
+        final MvcResult mvcResult = this.mockMvc.perform(post(PATH + "/points/batch")
+                        .contentType(MediaType.APPLICATION_JSON).content("[" + ID + "," + (ID + 1) + "]"))
+                .andDo(print()).andExpect(status().isOk()).andReturn();
+        final String actualResponseBody = mvcResult.getResponse().getContentAsString();
+
+        // Then
+        assertThat(actualResponseBody).isEqualToIgnoringWhitespace(objectMapper.writeValueAsString(batch));
+        verify(service).getPointsForMembers(List.of(ID, ID + 1));
+    }
+
     @Test
     void testGetInvitableMemberForSurveyShouldReturnNotFoundWhenExceptionIsThrownByService() throws Exception {
         // Given
@@ -143,6 +313,23 @@ class SurveyControllerTest {
         verify(service).getInvitableMemberForSurvey(ID);
     }
 
+    @Test
+    void testGetInvitableMemberForSurveyShouldReturnBadRequestWhenTheLimitIsNotPositive() throws Exception {
+        // Given
+        when(service.getInvitableMemberForSurvey(ID, null, -1)).thenThrow(new ResponseStatusException(BAD_REQUEST));
+        when(service.getInvitableMemberForSurvey(ID, null, 0)).thenThrow(new ResponseStatusException(BAD_REQUEST));
+
+        // When
+        this.mockMvc.perform(get(PATH + "/invitable-members/" + ID).param("limit", "-1"))
+                .andDo(print()).andExpect(status().isBadRequest());
+        this.mockMvc.perform(get(PATH + "/invitable-members/" + ID).param("limit", "0"))
+                .andDo(print()).andExpect(status().isBadRequest());
+
+        // Then
+        verify(service).getInvitableMemberForSurvey(ID, null, -1);
+        verify(service).getInvitableMemberForSurvey(ID, null, 0);
+    }
+
     @Test
     void testGetInvitableMemberForSurveyShouldReturnMessageFromService() throws Exception {
         // Given
@@ -165,7 +352,9 @@ class SurveyControllerTest {
         when(service.getSurveyStatistics()).thenThrow(new ResponseStatusException(NOT_FOUND));
 
         // When
-        this.mockMvc.perform(get(PATH + "/statistics")).andDo(print()).andExpect(status().isNotFound());
+        final MvcResult asyncResult = this.mockMvc.perform(get(PATH + "/statistics"))
+                .andExpect(request().asyncStarted()).andReturn();
+        this.mockMvc.perform(asyncDispatch(asyncResult)).andDo(print()).andExpect(status().isNotFound());
 
         // Then
         verify(service).getSurveyStatistics();
@@ -177,7 +366,9 @@ class SurveyControllerTest {
         when(service.getSurveyStatistics()).thenReturn(List.of(statisticsDTO));
 
         // When
-        final MvcResult mvcResult = this.mockMvc.perform(get(PATH + "/statistics"))
+        final MvcResult asyncResult = this.mockMvc.perform(get(PATH + "/statistics"))
+                .andExpect(request().asyncStarted()).andReturn();
+        final MvcResult mvcResult = this.mockMvc.perform(asyncDispatch(asyncResult))
                 .andDo(print()).andExpect(status().isOk()).andReturn();
         final String actualResponseBody = mvcResult.getResponse().getContentAsString();
 
@@ -187,5 +378,92 @@ class SurveyControllerTest {
         verify(service).getSurveyStatistics();
     }
 
+    @Test
+    void testGetSurveyStatisticsShouldReturnNotModifiedWithoutCallingTheServiceWhenETagMatches() throws Exception {
+        // Given
+        when(service.getSurveyStatistics()).thenReturn(List.of(statisticsDTO));
+        final MvcResult asyncResult = this.mockMvc.perform(get(PATH + "/statistics"))
+                .andExpect(request().asyncStarted()).andReturn();
+        final String eTag = this.mockMvc.perform(asyncDispatch(asyncResult)).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // When
+        this.mockMvc.perform(get(PATH + "/statistics").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andDo(print()).andExpect(status().isNotModified());
+
+        // Then
+        assertThat(eTag).startsWith("\"").endsWith("\"");
+        verify(service, times(1)).getSurveyStatistics();
+    }
+
+    @Test
+    void testGetCompletedSurveysForMemberShouldReturnNotModifiedWhenTheGzipETagMatches() throws Exception {
+        // Given
+        final SerializedResponse response = new SerializedResponse("[]".getBytes(), new byte[]{31, -117, 8});
+        when(serializedResponses.isEnabled()).thenReturn(true);
+        when(serializedResponses.completedSurveys(ID)).thenReturn(response);
+        final String eTag = this.mockMvc.perform(get(PATH + "/completed-surveys/" + ID)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk()).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // When
+        this.mockMvc.perform(get(PATH + "/completed-surveys/" + ID).header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andDo(print()).andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+
+        // Then
+        assertThat(eTag).endsWith("-gzip\"");
+        verify(serializedResponses, times(1)).completedSurveys(ID);
+    }
+
+    @Test
+    void testGetCompletedSurveysForMemberShouldReturnNewBodyWhenDatasetVersionChanged() throws Exception {
+        // Given
+        when(service.getCompletedSurveysForMember(ID)).thenReturn(List.of(surveyDTO));
+        final String eTag = this.mockMvc.perform(get(PATH + "/completed-surveys/" + ID))
+                .andExpect(status().isOk()).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        when(datasets.current()).thenReturn(Dataset.empty());
+
+        // When
+        final MvcResult mvcResult = this.mockMvc.perform(get(PATH + "/completed-surveys/" + ID)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andDo(print()).andExpect(status().isOk()).andReturn();
+
+        // Then
+        assertThat(mvcResult.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(eTag);
+        verify(service, times(2)).getCompletedSurveysForMember(ID);
+    }
 
+    @Test
+    void testGetPointsForMemberShouldNotMatchTheETagOfAnotherPath() throws Exception {
+        // Given
+        when(service.getPointsForMember(ID)).thenReturn(List.of(pointsDTO));
+        final String eTag = this.mockMvc.perform(get(PATH + "/points/" + (ID + 1)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // When
+        this.mockMvc.perform(get(PATH + "/points/" + ID).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andDo(print()).andExpect(status().isOk());
+
+        // Then
+        verify(service).getPointsForMember(ID);
+    }
+
+    @Test
+    void testGetLeaderboardShouldPassTheDefaultLimitToTheService() throws Exception {
+        // Given
+        final LeaderboardEntryDTO entryDTO = LeaderboardEntryDTO.builder().rank(1).memberId(ID)
+                .fullName("Test Member").totalPoints(17L).build();
+        when(service.getLeaderboard(10)).thenReturn(List.of(entryDTO));
+
+        // When
+        final MvcResult mvcResult = this.mockMvc.perform(get(PATH + "/leaderboard"))
+                .andDo(print()).andExpect(status().isOk()).andReturn();
+
+        // Then
+        assertThat(mvcResult.getResponse().getContentAsString()).isEqualToIgnoringWhitespace(
+                objectMapper.writeValueAsString(List.of(entryDTO)));
+        verify(service).getLeaderboard(10);
+    }
 }
@@ -0,0 +1,77 @@
+package com.demo.survey.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvScannerTest {
+
+    private static CsvScanner scanner(final String csv) {
+        return new CsvScanner(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testScannerShouldSplitRowsAndFields() {
+        // Given
+        final CsvScanner underTest = scanner("a,b\r\n\r\n1,\"x,\"\"y\"\"\"\n-7,\n");
+
+        // When - Then
+        assertArrayEquals(new String[]{"a", "b"}, underTest.readHeader());
+        assertTrue(underTest.nextRow());
+        assertTrue(underTest.nextField());
+        assertEquals(1L, underTest.longValue());
+        assertTrue(underTest.nextField());
+        assertEquals("x,\"y\"", underTest.stringValue());
+        assertFalse(underTest.nextField());
+        assertTrue(underTest.nextRow());
+        assertTrue(underTest.nextField());
+        assertEquals(-7L, underTest.longValue());
+        assertTrue(underTest.nextField());
+        assertTrue(underTest.isEmpty());
+        assertFalse(underTest.nextRow());
+    }
+
+    @Test
+    public void testNextRowShouldSkipTheRestOfTheCurrentRow() {
+        // Given
+        final CsvScanner underTest = scanner("1,2,3\n4,5,6");
+
+        // When
+        underTest.nextRow();
+        underTest.nextField();
+        underTest.nextRow();
+        underTest.nextField();
+
+        // Then
+        assertEquals(4L, underTest.longValue());
+    }
+
+    @Test
+    public void testLongValueShouldRejectInvalidNumbers() {
+        // Given
+        final CsvScanner underTest = scanner("12a,99999999999999999999,-9223372036854775808,ü");
+        underTest.nextRow();
+
+        // When - Then
+        underTest.nextField();
+        assertThrows(NumberFormatException.class, underTest::longValue);
+        underTest.nextField();
+        assertThrows(NumberFormatException.class, underTest::longValue);
+        underTest.nextField();
+        assertEquals(Long.MIN_VALUE, underTest.longValue());
+        underTest.nextField();
+        assertEquals("ü", underTest.stringValue());
+    }
+
+    @Test
+    public void testMatchShouldMapReorderedColumnsAndRejectUnknownOnes() {
+        // Given - When - Then
+        assertArrayEquals(new int[]{3, 2, 1, 0},
+                CsvLayout.PARTICIPATION.match(new String[]{"Length", "Status", "Survey Id", "Member Id"}));
+        assertNull(CsvLayout.PARTICIPATION.match(new String[]{"Length", "Status", "Survey Id", "Member"}));
+        assertNull(CsvLayout.STATUSES.match(new String[]{"Status Id", "Status Id"}));
+    }
+}
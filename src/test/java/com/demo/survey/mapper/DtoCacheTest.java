@@ -0,0 +1,52 @@
+package com.demo.survey.mapper;
+
+import com.demo.survey.dto.MemberDTO;
+import com.demo.survey.model.Member;
+import com.demo.survey.store.ParticipationStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DtoCacheTest {
+
+    @Test
+    public void testMemberShouldBeSerializedLikeABuiltDTO() throws IOException {
+        // Given
+        final ObjectMapper objectMapper = new ObjectMapper();
+        final CBORMapper cborMapper = new CBORMapper();
+        final List<Member> members = List.of(
+                Member.builder().id(1L).fullName("Ági \"Tóth\"").email("agi@test.com").active(true).build(),
+                Member.builder().id(2L).fullName("Bob\n").build());
+        final DtoCache underTest = DtoCache.of(ParticipationStore.of(members, List.of(), List.of()));
+
+        // When
+        final List<MemberDTO> stored = List.of(underTest.member(0), underTest.member(1));
+        final List<MemberDTO> built = members.stream().map(member -> MemberDTO.builder().id(member.getId())
+                .fullName(member.getFullName()).email(member.getEmail()).active(member.getActive()).build()).toList();
+
+        // Then
+        assertEquals(built, stored);
+        assertEquals(new String(objectMapper.writeValueAsBytes(built), StandardCharsets.UTF_8),
+                new String(objectMapper.writeValueAsBytes(stored), StandardCharsets.UTF_8));
+        assertEquals(objectMapper.writeValueAsString(built), objectMapper.writeValueAsString(stored));
+        assertArrayEquals(cborMapper.writeValueAsBytes(built), cborMapper.writeValueAsBytes(stored));
+    }
+
+    @Test
+    public void testMemberShouldRejectChanges() {
+        // Given
+        final List<Member> members = List.of(Member.builder().id(1L).fullName("Test Member").active(true).build());
+        final MemberDTO underTest = DtoCache.of(ParticipationStore.of(members, List.of(), List.of())).member(0);
+
+        // When - Then
+        assertThrows(UnsupportedOperationException.class, () -> underTest.setFullName("Other"));
+        assertThrows(UnsupportedOperationException.class, () -> underTest.setActive(false));
+        assertEquals("Test Member", underTest.getFullName());
+    }
+}
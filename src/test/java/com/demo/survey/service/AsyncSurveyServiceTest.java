@@ -0,0 +1,71 @@
+package com.demo.survey.service;
+
+import com.demo.survey.config.SurveyProperties;
+import com.demo.survey.dto.SurveyStatisticsDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AsyncSurveyServiceTest {
+
+    private final SurveyService surveyService = mock(SurveyService.class);
+
+    private AsyncSurveyService underTest;
+
+    @AfterEach
+    public void testTearDown() {
+        underTest.shutdown();
+    }
+
+    @Test
+    public void testGetSurveyStatisticsShouldCompleteWithTheResultOfTheService() throws Exception {
+        // Given
+        final List<SurveyStatisticsDTO> expected = List.of(SurveyStatisticsDTO.builder().surveyId(1L).build());
+        when(surveyService.getSurveyStatistics()).thenReturn(expected);
+        underTest = new AsyncSurveyService(surveyService, new SurveyProperties());
+
+        // When
+        final List<SurveyStatisticsDTO> actual = underTest.getSurveyStatistics().get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertSame(expected, actual);
+    }
+
+    @Test
+    public void testGetSurveyStatisticsShouldRejectQueriesWhenThePoolIsFull() throws Exception {
+        // Given
+        final CountDownLatch release = new CountDownLatch(1);
+        when(surveyService.getSurveyStatistics()).thenAnswer(invocation -> {
+            release.await();
+            return List.of();
+        });
+        final SurveyProperties properties = new SurveyProperties();
+        properties.getCompute().setThreads(1);
+        properties.getCompute().setQueueCapacity(1);
+        underTest = new AsyncSurveyService(surveyService, properties);
+        final CompletableFuture<List<SurveyStatisticsDTO>> running = underTest.getSurveyStatistics();
+        final CompletableFuture<List<SurveyStatisticsDTO>> queued = underTest.getSurveyStatistics();
+
+        // When
+        final CompletableFuture<List<SurveyStatisticsDTO>> actual = underTest.getSurveyStatistics();
+
+        // Then
+        final ExecutionException exception = assertThrows(ExecutionException.class, actual::get);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE,
+                ((ResponseStatusException) exception.getCause()).getStatusCode());
+        release.countDown();
+        assertTrue(running.get(10, TimeUnit.SECONDS).isEmpty());
+        assertTrue(queued.get(10, TimeUnit.SECONDS).isEmpty());
+    }
+}
@@ -0,0 +1,234 @@
+package com.demo.survey.service;
+
+import com.demo.survey.config.SurveyProperties;
+import com.demo.survey.metrics.SurveyMetrics;
+import com.demo.survey.store.Dataset;
+import com.demo.survey.store.ParticipationStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DatasetLoaderTest {
+
+    private static final int MEMBERS = 50;
+    private static final int SURVEYS = 7;
+    private static final int PARTICIPATIONS = 2000;
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final SurveyMetrics metrics = new SurveyMetrics(registry);
+
+    @BeforeEach
+    public void testSetup() throws IOException {
+        final Random random = new Random(42);
+        Files.writeString(directory.resolve(DatasetLoader.STATUSES_FILE),
+                "Status Id,Name\n1,Not asked\n2,Rejected\n3,Filtered\n4,Completed\n");
+        final StringBuilder members = new StringBuilder("Member Id,Full name,E-mail address,Is Active\n");
+        for (int i = 1; i <= MEMBERS; i++) {
+            members.append(i).append(",Member ").append(i).append(",m").append(i).append("@test.com,")
+                    .append(i % 3 == 0 ? 0 : 1).append('\n');
+        }
+        Files.writeString(directory.resolve(DatasetLoader.MEMBERS_FILE), members);
+        final StringBuilder surveys = new StringBuilder(
+                "Survey Id,Name,Expected completes,Completion points,Filtered points\n");
+        for (int i = 1; i <= SURVEYS; i++) {
+            surveys.append(i).append(",Survey ").append(i).append(",10,").append(i * 2).append(",1\n");
+        }
+        Files.writeString(directory.resolve(DatasetLoader.SURVEYS_FILE), surveys);
+        final StringBuilder participations = new StringBuilder("Member Id,Survey Id,Status,Length\n");
+        for (int i = 0; i < PARTICIPATIONS; i++) {
+            participations.append(1 + random.nextInt(MEMBERS)).append(',')
+                    .append(1 + random.nextInt(SURVEYS)).append(',')
+                    .append(1 + random.nextInt(4)).append(',')
+                    .append(random.nextInt(5) == 0 ? "" : String.valueOf(random.nextInt(100_000))).append('\n');
+        }
+        participations.append(MEMBERS + 1).append(",1,4,10\n");
+        Files.writeString(directory.resolve(DatasetLoader.PARTICIPATION_FILE), participations);
+    }
+
+    @Test
+    public void testLoadShouldBuildTheSameStoreInParallelAndSequentialMode() throws IOException {
+        // Given
+        final SurveyProperties sequential = properties();
+        sequential.getIngest().setParallel(false);
+        final SurveyProperties parallel = properties();
+        parallel.getIngest().setChunkSize(DataSize.ofBytes(100));
+        parallel.getIngest().setParallelism(4);
+
+        // When
+        final Dataset expected = new DatasetLoader(sequential, metrics).load();
+        final Dataset actual = new DatasetLoader(parallel, metrics).load();
+
+        // Then
+        assertEquals(MEMBERS, actual.getMemberMap().size());
+        assertEquals(SURVEYS, actual.getSurveyMap().size());
+        assertStoresEqual(expected.getParticipations(), actual.getParticipations());
+    }
+
+    @Test
+    public void testLoadShouldBuildTheSameDatasetWithTheFastAndTheJacksonParser() throws IOException {
+        // Given
+        final SurveyProperties jackson = properties();
+        jackson.getIngest().setParser(SurveyProperties.Parser.JACKSON);
+
+        // When
+        final Dataset expected = new DatasetLoader(jackson, metrics).load();
+        final Dataset actual = new DatasetLoader(properties(), metrics).load();
+
+        // Then
+        assertEquals(expected.getStatusMap(), actual.getStatusMap());
+        assertEquals(expected.getMemberMap(), actual.getMemberMap());
+        assertEquals(expected.getSurveyMap(), actual.getSurveyMap());
+        assertStoresEqual(expected.getParticipations(), actual.getParticipations());
+    }
+
+    @Test
+    public void testLoadShouldAcceptReorderedColumnsAndQuotedValues() throws IOException {
+        // Given
+        Files.writeString(directory.resolve(DatasetLoader.MEMBERS_FILE), "Is Active,E-mail address,Member Id,Full name\r\n"
+                + "1,m1@test.com,1,\"Doe, \"\"Jane\"\"\"\r\n0,m2@test.com,2,Bob\r\n");
+        Files.writeString(directory.resolve(DatasetLoader.PARTICIPATION_FILE), "Length,Status,Survey Id,Member Id\n"
+                + ",1,1,1\n42,4,2,2\n");
+
+        // When
+        final Dataset actual = new DatasetLoader(properties(), metrics).load();
+
+        // Then
+        assertEquals("Doe, \"Jane\"", actual.getMemberMap().get(1L).getFullName());
+        assertFalse(actual.getMemberMap().get(2L).getActive());
+        assertEquals(2, actual.getParticipations().size());
+        assertEquals(42L, actual.getParticipations().lengthAt(1));
+        assertFalse(actual.getParticipations().hasLengthAt(0));
+    }
+
+    @Test
+    public void testLoadShouldFallBackToJacksonForUnknownHeaders() throws IOException {
+        // Given
+        Files.writeString(directory.resolve(DatasetLoader.PARTICIPATION_FILE), "Member Id,Survey Id,Status\n"
+                + "1,1,4\n2,1,3\n");
+
+        // When
+        final ParticipationStore actual = new DatasetLoader(properties(), metrics).load().getParticipations();
+
+        // Then
+        assertEquals(2, actual.size());
+        assertFalse(actual.hasLengthAt(0));
+    }
+
+    @Test
+    public void testLoadShouldSkipParticipationsOfUnknownMembers() throws IOException {
+        // Given - When
+        final ParticipationStore actual = new DatasetLoader(properties(), metrics).load().getParticipations();
+
+        // Then
+        assertEquals(PARTICIPATIONS, actual.size());
+    }
+
+    @Test
+    public void testLoadShouldRecordParsedRowsAndUnresolvedReferences() throws IOException {
+        // Given - When
+        new DatasetLoader(properties(), metrics).load();
+
+        // Then
+        assertEquals(PARTICIPATIONS + 1.0, registry.get("survey.ingest.rows")
+                .tag("file", DatasetLoader.PARTICIPATION_FILE).counter().count());
+        assertEquals(MEMBERS, registry.get("survey.ingest.rows").tag("file", DatasetLoader.MEMBERS_FILE)
+                .counter().count());
+        assertEquals(1.0, registry.get("survey.ingest.unresolved").counter().count());
+        assertEquals(1, registry.get("survey.ingest.phase").tag("phase", "total").timer().count());
+        assertEquals(1, registry.get("survey.ingest.phase").tag("phase", "participations").timer().count());
+    }
+
+    @Test
+    public void testLoadShouldRestoreTheSnapshotWhileTheFilesAreUnchanged() throws IOException {
+        // Given
+        final DatasetLoader underTest = new DatasetLoader(snapshotProperties(), metrics);
+        final Dataset expected = underTest.load();
+
+        // When
+        final Dataset actual = underTest.load();
+
+        // Then
+        assertTrue(Files.isRegularFile(underTest.snapshotPath()));
+        assertEquals(expected.getStatusMap(), actual.getStatusMap());
+        assertEquals(expected.getMemberMap(), actual.getMemberMap());
+        assertEquals(expected.getSurveyMap(), actual.getSurveyMap());
+        assertStoresEqual(expected.getParticipations(), actual.getParticipations());
+        for (int survey = 0; survey < SURVEYS; survey++) {
+            assertEquals(expected.getParticipations().invitableMembers(survey),
+                    actual.getParticipations().invitableMembers(survey));
+            assertEquals(expected.getStatistics().averageLength(survey), actual.getStatistics().averageLength(survey));
+        }
+    }
+
+    @Test
+    public void testLoadShouldRebuildTheSnapshotWhenAFileChanges() throws IOException {
+        // Given
+        final DatasetLoader underTest = new DatasetLoader(snapshotProperties(), metrics);
+        underTest.load();
+        Files.writeString(directory.resolve(DatasetLoader.PARTICIPATION_FILE), "Member Id,Survey Id,Status,Length\n"
+                + "1,1,4,10\n");
+
+        // When
+        final Dataset actual = underTest.load();
+        final Dataset restored = underTest.load();
+
+        // Then
+        assertEquals(1, actual.getParticipations().size());
+        assertEquals(1, restored.getParticipations().size());
+    }
+
+    @Test
+    public void testLoadShouldReadTheFilesWhenTheSnapshotIsCorrupt() throws IOException {
+        // Given
+        final DatasetLoader underTest = new DatasetLoader(snapshotProperties(), metrics);
+        final Dataset expected = underTest.load();
+        final byte[] snapshot = Files.readAllBytes(underTest.snapshotPath());
+        snapshot[snapshot.length / 2] ^= 1;
+        Files.write(underTest.snapshotPath(), snapshot);
+
+        // When
+        final Dataset actual = underTest.load();
+
+        // Then
+        assertStoresEqual(expected.getParticipations(), actual.getParticipations());
+        assertFalse(Arrays.equals(snapshot, Files.readAllBytes(underTest.snapshotPath())));
+    }
+
+    private SurveyProperties properties() {
+        final SurveyProperties properties = new SurveyProperties();
+        properties.getData().setDirectory(directory.toString());
+        properties.getSnapshot().setEnabled(false);
+        return properties;
+    }
+
+    private SurveyProperties snapshotProperties() {
+        final SurveyProperties properties = properties();
+        properties.getSnapshot().setEnabled(true);
+        return properties;
+    }
+
+    private static void assertStoresEqual(final ParticipationStore expected, final ParticipationStore actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int row = 0; row < expected.size(); row++) {
+            assertEquals(expected.memberOrdinalAt(row), actual.memberOrdinalAt(row));
+            assertEquals(expected.surveyOrdinalAt(row), actual.surveyOrdinalAt(row));
+            assertEquals(expected.statusAt(row), actual.statusAt(row));
+            assertEquals(expected.hasLengthAt(row), actual.hasLengthAt(row), "length presence of row " + row);
+            assertEquals(expected.lengthAt(row), actual.lengthAt(row));
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.demo.survey.service;
+
+import com.demo.survey.config.SurveyProperties;
+import com.demo.survey.dto.ParticipationEventDTO;
+import com.demo.survey.metrics.SurveyMetrics;
+import com.demo.survey.model.StatusEnum;
+import com.demo.survey.store.Dataset;
+import com.demo.survey.store.EventLog;
+import com.demo.survey.store.ParticipationStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DatasetReloaderTest {
+
+    @TempDir
+    Path directory;
+
+    private final DatasetHolder datasets = new DatasetHolder();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private SurveyProperties properties;
+
+    private ParticipationWriter writer;
+
+    private DatasetReloader underTest;
+
+    @BeforeEach
+    public void testSetup() throws IOException {
+        Files.writeString(directory.resolve(DatasetLoader.STATUSES_FILE),
+                "Status Id,Name\n1,Not asked\n2,Rejected\n3,Filtered\n4,Completed\n");
+        Files.writeString(directory.resolve(DatasetLoader.MEMBERS_FILE),
+                "Member Id,Full name,E-mail address,Is Active\n1,Test Member1,test1@test.com,1\n"
+                        + "2,Test Member2,test2@test.com,0\n");
+        Files.writeString(directory.resolve(DatasetLoader.SURVEYS_FILE),
+                "Survey Id,Name,Expected completes,Completion points,Filtered points\n1,Test Survey1,10,12,5\n");
+        Files.writeString(directory.resolve(DatasetLoader.PARTICIPATION_FILE),
+                "Member Id,Survey Id,Status,Length\n1,1,4,10\n2,1,1,\n");
+
+        properties = new SurveyProperties();
+        properties.getData().setDirectory(directory.toString());
+        properties.getData().setWatch(false);
+        start();
+    }
+
+    @AfterEach
+    public void testTearDown() throws Exception {
+        stop();
+    }
+
+    @Test
+    public void testConstructMapsShouldPublishTheLoadedDataset() {
+        // Given - When
+        final Dataset actual = datasets.current();
+
+        // Then
+        assertEquals(4, actual.getStatusMap().size());
+        assertEquals(2, actual.getMemberMap().size());
+        assertTrue(actual.getMemberMap().get(1L).getActive());
+        assertEquals(12, actual.getSurveyMap().get(1L).getCompletionPoints());
+        final ParticipationStore store = actual.getParticipations();
+        assertEquals(2, store.size());
+        assertEquals(StatusEnum.COMPLETED, store.statusAt(0));
+        assertEquals(10L, store.lengthAt(0));
+        assertFalse(store.hasLengthAt(1));
+    }
+
+    @Test
+    public void testReloadShouldSwapInTheNewDataset() throws Exception {
+        // Given
+        final Dataset previous = datasets.current();
+        Files.writeString(directory.resolve(DatasetLoader.PARTICIPATION_FILE),
+                "Member Id,Survey Id,Status,Length\n1,1,4,10\n2,1,1,\n1,1,3,7\n");
+
+        // When
+        final Dataset actual = underTest.reload().get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertSame(actual, datasets.current());
+        assertTrue(actual.getVersion() > previous.getVersion());
+        assertEquals(3, actual.getParticipations().size());
+        assertEquals(2, previous.getParticipations().size());
+    }
+
+    @Test
+    public void testReloadShouldKeepTheCurrentDatasetWhenLoadingFails() throws Exception {
+        // Given
+        final Dataset previous = datasets.current();
+        Files.delete(directory.resolve(DatasetLoader.SURVEYS_FILE));
+
+        // When - Then
+        assertThrows(ExecutionException.class, () -> underTest.reload().get(10, TimeUnit.SECONDS));
+        assertSame(previous, datasets.current());
+    }
+
+    @Test
+    public void testReloadShouldReplayTheRecordedEventsOnTheSameFiles() throws Exception {
+        // Given
+        writer.record(List.of(event(1L, 3L), event(9L, 4L))).get(10, TimeUnit.SECONDS);
+        Files.writeString(directory.resolve(DatasetLoader.PARTICIPATION_FILE),
+                "Member Id,Survey Id,Status,Length\n1,1,4,10\n2,1,1,\n");
+
+        // When
+        final Dataset actual = underTest.reload().get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(3, actual.getParticipations().size());
+        assertEquals(1, actual.getLoggedEvents());
+        assertEquals(StatusEnum.FILTERED, actual.getParticipations().statusAt(2));
+        assertEquals(0, writer.logPosition().base());
+    }
+
+    @Test
+    public void testReloadShouldReplayTheRecordedEventsOnNewFiles() throws Exception {
+        // Given
+        writer.record(List.of(event(1L, 3L), event(9L, 4L))).get(10, TimeUnit.SECONDS);
+        Files.writeString(directory.resolve(DatasetLoader.PARTICIPATION_FILE),
+                "Member Id,Survey Id,Status,Length\n1,1,4,10\n2,1,1,\n1,1,2,1\n");
+
+        // When
+        final Dataset actual = underTest.reload().get(10, TimeUnit.SECONDS);
+        writer.record(List.of(event(2L, 2L))).get(10, TimeUnit.SECONDS);
+        stop();
+        start();
+        final Dataset restarted = datasets.current();
+
+        // Then
+        assertEquals(4, actual.getParticipations().size());
+        assertEquals(1, actual.getLoggedEvents());
+        assertEquals(StatusEnum.FILTERED, actual.getParticipations().statusAt(3));
+        assertEquals(new EventLog.Position(writer.logPosition().logId(), 0, 2), writer.logPosition());
+        assertEquals(5, restarted.getParticipations().size());
+        assertEquals(1L, restarted.getStatistics().count(0, StatusEnum.FILTERED));
+        assertEquals(StatusEnum.FILTERED, restarted.getParticipations().statusAt(3));
+        assertEquals(StatusEnum.REJECTED, restarted.getParticipations().statusAt(4));
+    }
+
+    @Test
+    public void testReloadShouldDropTheRecordedEventsOnNewFilesWhenConfigured() throws Exception {
+        // Given
+        properties.getEvents().setDropLogOnCsvChange(true);
+        stop();
+        start();
+        writer.record(List.of(event(1L, 3L), event(9L, 4L))).get(10, TimeUnit.SECONDS);
+        Files.writeString(directory.resolve(DatasetLoader.PARTICIPATION_FILE),
+                "Member Id,Survey Id,Status,Length\n1,1,4,10\n2,1,1,\n1,1,3,1\n");
+
+        // When
+        final Dataset actual = underTest.reload().get(10, TimeUnit.SECONDS);
+        writer.record(List.of(event(2L, 2L))).get(10, TimeUnit.SECONDS);
+        stop();
+        start();
+        final Dataset restarted = datasets.current();
+
+        // Then
+        assertEquals(3, actual.getParticipations().size());
+        assertEquals(1, actual.getLoggedEvents());
+        assertEquals(1L, actual.getStatistics().count(0, StatusEnum.FILTERED));
+        assertEquals(new EventLog.Position(writer.logPosition().logId(), 1, 2), writer.logPosition());
+        assertEquals(4, restarted.getParticipations().size());
+        assertEquals(1L, restarted.getStatistics().count(0, StatusEnum.FILTERED));
+        assertEquals(StatusEnum.REJECTED, restarted.getParticipations().statusAt(3));
+    }
+
+    @Test
+    public void testConstructMapsShouldRecoverTheRecordedEventsAfterARestart() throws Exception {
+        // Given
+        properties.getEvents().setCompactionThreshold(2);
+        stop();
+        start();
+        writer.record(List.of(event(1L, 3L))).get(10, TimeUnit.SECONDS);
+        writer.record(List.of(event(2L, 4L))).get(10, TimeUnit.SECONDS);
+        writer.record(List.of(event(2L, 2L))).get(10, TimeUnit.SECONDS);
+        final Dataset expected = datasets.current();
+        stop();
+
+        // When
+        start();
+        final Dataset actual = datasets.current();
+
+        // Then
+        assertEquals(3, actual.getLoggedEvents());
+        assertEquals(5, actual.getParticipations().size());
+        // The first two events are restored from the snapshot written when they were compacted.
+        assertEquals(1, actual.getParticipations().appendedSize());
+        for (int row = 0; row < expected.getParticipations().size(); row++) {
+            assertEquals(expected.getParticipations().statusAt(row), actual.getParticipations().statusAt(row));
+            assertEquals(expected.getParticipations().memberOrdinalAt(row),
+                    actual.getParticipations().memberOrdinalAt(row));
+        }
+        assertEquals(1, registry.get("survey.ingest.phase").tag("phase", "event-replay").timer().count());
+    }
+
+    @Test
+    public void testConstructMapsShouldDropAnIncompleteRecordAtTheEndOfTheLog() throws Exception {
+        // Given
+        writer.record(List.of(event(1L, 3L))).get(10, TimeUnit.SECONDS);
+        writer.record(List.of(event(2L, 4L))).get(10, TimeUnit.SECONDS);
+        stop();
+        final Path log = directory.resolve("events.log");
+        final byte[] bytes = Files.readAllBytes(log);
+        Files.write(log, Arrays.copyOf(bytes, bytes.length - 3));
+
+        // When
+        start();
+
+        // Then
+        assertEquals(3, datasets.current().getParticipations().size());
+        assertEquals(1, writer.logPosition().sequence());
+        writer.record(List.of(event(2L, 2L))).get(10, TimeUnit.SECONDS);
+        assertEquals(2, writer.logPosition().sequence());
+    }
+
+    private void start() {
+        final SurveyMetrics metrics = new SurveyMetrics(registry);
+        final DatasetLoader loader = new DatasetLoader(properties, metrics);
+        writer = new ParticipationWriter(datasets, loader, new MemorySurveyBackend(), metrics, properties);
+        underTest = new DatasetReloader(loader, datasets, writer, properties);
+        underTest.constructMaps();
+    }
+
+    private void stop() throws Exception {
+        underTest.shutdown();
+        writer.shutdown();
+    }
+
+    private static ParticipationEventDTO event(final Long memberId, final Long statusId) {
+        return ParticipationEventDTO.builder().memberId(memberId).surveyId(1L).statusId(statusId).length(1L).build();
+    }
+}
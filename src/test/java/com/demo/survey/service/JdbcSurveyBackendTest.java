@@ -0,0 +1,130 @@
+package com.demo.survey.service;
+
+import com.demo.survey.model.Member;
+import com.demo.survey.model.Participation;
+import com.demo.survey.model.Status;
+import com.demo.survey.model.StatusEnum;
+import com.demo.survey.model.Survey;
+import com.demo.survey.store.Dataset;
+import com.demo.survey.store.ParticipationStore;
+import com.demo.survey.store.PointsLeaderboard;
+import com.demo.survey.store.SurveyStatistics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JdbcSurveyBackendTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final MemorySurveyBackend expected = new MemorySurveyBackend();
+
+    private final JdbcSurveyBackend underTest = new JdbcSurveyBackend(new DriverManagerDataSource(
+            String.format("jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1", UUID.randomUUID())), 2);
+
+    @Test
+    public void testQueriesShouldReturnTheResultsOfTheMemoryBackend() throws Exception {
+        // Given
+        final Dataset dataset = dataset(5L);
+
+        // When
+        underTest.update(dataset);
+
+        // Then
+        awaitLoaded(dataset);
+        assertSameResults(dataset);
+        assertNull(underTest.surveyMembers(dataset, 0L));
+        assertNull(underTest.points(dataset, 0L));
+    }
+
+    @Test
+    public void testUpdateShouldInsertTheRecordedRowsAndReplaceALoadedDataset() throws Exception {
+        // Given
+        final Dataset loaded = dataset(5L);
+        underTest.update(loaded);
+        awaitLoaded(loaded);
+        final ParticipationStore.Appender appender = loaded.getParticipations().appender();
+        appender.add(4L, 3L, StatusEnum.COMPLETED, 8L, true);
+        appender.add(1L, 3L, StatusEnum.FILTERED, 0L, false);
+        final ParticipationStore appended = appender.build();
+        final Dataset recorded = loaded.withParticipations(appended, SurveyStatistics.of(appended),
+                PointsLeaderboard.of(appended), 0);
+        final Dataset reloaded = dataset(7L);
+
+        // When - Then
+        underTest.update(recorded);
+        assertTrue(underTest.isLoaded(recorded));
+        assertSameResults(recorded);
+        underTest.update(reloaded);
+        assertSameResults(reloaded);
+        awaitLoaded(reloaded);
+        assertSameResults(reloaded);
+        assertFalse(underTest.isLoaded(recorded));
+    }
+
+    private void awaitLoaded(final Dataset dataset) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!underTest.isLoaded(dataset)) {
+            assertTrue(System.nanoTime() < deadline, "The dataset was not loaded into the database");
+            Thread.sleep(10);
+        }
+    }
+
+    private void assertSameResults(final Dataset dataset) throws Exception {
+        for (long id = 0; id <= 5; id++) {
+            assertEquals(json(expected.surveyMembers(dataset, id)), json(underTest.surveyMembers(dataset, id)));
+            assertEquals(json(expected.completedSurveys(dataset, id)), json(underTest.completedSurveys(dataset, id)));
+            assertEquals(json(expected.points(dataset, id)), json(underTest.points(dataset, id)));
+            assertEquals(json(expected.invitableMembers(dataset, id)),
+                    json(underTest.invitableMembers(dataset, id)));
+        }
+        assertEquals(json(expected.statistics(dataset)), json(underTest.statistics(dataset)));
+    }
+
+    private String json(final Object value) throws Exception {
+        return objectMapper.writeValueAsString(value);
+    }
+
+    private static Dataset dataset(final long length) {
+        final List<Member> members = new ArrayList<>();
+        for (long id = 1; id <= 4; id++) {
+            members.add(Member.builder().id(id).fullName("Test Member" + id).email("test" + id + "@test.com")
+                    .active(id != 3).build());
+        }
+        final List<Survey> surveys = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            surveys.add(Survey.builder().id(id).name("Test Survey" + id).expectedCompletes(10 * id)
+                    .completionPoints((int) (5 * id)).filteredPoints((int) id).build());
+        }
+        final Map<Long, Status> statusMap = Map.of(
+                1L, Status.builder().id(1L).name("Not asked").build(),
+                2L, Status.builder().id(2L).name("Rejected").build(),
+                3L, Status.builder().id(3L).name("Filtered").build(),
+                4L, Status.builder().id(4L).name("Completed").build());
+        final List<Participation> participations = List.of(
+                participation(members.get(1), surveys.get(0), statusMap.get(4L), length),
+                participation(members.get(0), surveys.get(0), statusMap.get(4L), 10L),
+                participation(members.get(2), surveys.get(0), statusMap.get(1L), null),
+                participation(members.get(0), surveys.get(1), statusMap.get(3L), 15L),
+                participation(members.get(1), surveys.get(1), statusMap.get(4L), null),
+                participation(members.get(0), surveys.get(1), statusMap.get(4L), 30L),
+                participation(members.get(2), surveys.get(1), statusMap.get(2L), null));
+        final Map<Long, Survey> surveyMap = new HashMap<>();
+        surveys.forEach(survey -> surveyMap.put(survey.getId(), survey));
+        return Dataset.of(statusMap, surveyMap, ParticipationStore.of(members, surveys, participations));
+    }
+
+    private static Participation participation(final Member member, final Survey survey, final Status status,
+                                               final Long length) {
+        return Participation.builder().member(member).survey(survey).status(status).length(length).build();
+    }
+}
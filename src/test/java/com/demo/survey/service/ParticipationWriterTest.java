@@ -0,0 +1,174 @@
+package com.demo.survey.service;
+
+import com.demo.survey.config.SurveyProperties;
+import com.demo.survey.dto.IngestResultDTO;
+import com.demo.survey.dto.MemberDTO;
+import com.demo.survey.dto.ParticipationEventDTO;
+import com.demo.survey.dto.SurveyStatisticsDTO;
+import com.demo.survey.metrics.SurveyMetrics;
+import com.demo.survey.model.Member;
+import com.demo.survey.model.Participation;
+import com.demo.survey.model.Status;
+import com.demo.survey.model.StatusEnum;
+import com.demo.survey.model.Survey;
+import com.demo.survey.store.Dataset;
+import com.demo.survey.store.ParticipationStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParticipationWriterTest {
+
+    @TempDir
+    Path directory;
+
+    private final DatasetHolder datasets = new DatasetHolder();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SurveyMetrics metrics = new SurveyMetrics(registry);
+    private final SurveyService surveyService = new SurveyService(datasets, metrics,
+            new QueryCache(new SurveyProperties(), registry), new MemorySurveyBackend());
+
+    private ParticipationWriter underTest;
+
+    @BeforeEach
+    public void testSetup() {
+        final Member member1 = Member.builder().id(1L).fullName("Test Member1").active(true).build();
+        final Member member2 = Member.builder().id(2L).fullName("Test Member2").active(true).build();
+        final Survey survey1 = Survey.builder().id(1L).name("Test Survey1").completionPoints(5).build();
+        final Status completed = Status.builder().id(StatusEnum.COMPLETED.getId()).name("Completed").build();
+        final Map<Long, Member> memberMap = Map.of(1L, member1, 2L, member2);
+        final Map<Long, Survey> surveyMap = Map.of(1L, survey1);
+        datasets.publish(Dataset.of(Map.of(completed.getId(), completed), surveyMap,
+                ParticipationStore.of(memberMap.values(), surveyMap.values(), List.of(
+                        Participation.builder().member(member1).survey(survey1).status(completed).length(10L)
+                                .build()))));
+    }
+
+    @AfterEach
+    public void testTearDown() throws Exception {
+        underTest.shutdown();
+    }
+
+    @Test
+    public void testRecordShouldPublishTheEventsInANewDataset() throws Exception {
+        // Given
+        underTest = writer(new SurveyProperties());
+        final long version = datasets.current().getVersion();
+        assertEquals(1, surveyService.getSurveyMembers(1L).size());
+
+        // When
+        final IngestResultDTO actual = underTest.record(List.of(ParticipationEventDTO.builder()
+                .memberId(2L).surveyId(1L).statusId(StatusEnum.COMPLETED.getId()).length(20L).build()))
+                .get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(1, actual.getAccepted());
+        assertTrue(actual.getRejected().isEmpty());
+        assertTrue(actual.getVersion() > version);
+        assertEquals(actual.getVersion(), datasets.current().getVersion());
+        assertEquals(List.of(1L, 2L), surveyService.getSurveyMembers(1L).stream().map(MemberDTO::getId).toList());
+        final SurveyStatisticsDTO statistics = surveyService.getSurveyStatistics().get(0);
+        assertEquals(2L, statistics.getNumberOfCompletes());
+        assertEquals(15.0, statistics.getAverageLengthSpent());
+        assertEquals(1.0, registry.get("survey.events").tag("result", "accepted").counter().count());
+    }
+
+    @Test
+    public void testRecordShouldRejectInvalidEventsAndKeepTheValidOnes() throws Exception {
+        // Given
+        underTest = writer(new SurveyProperties());
+        final ParticipationEventDTO valid = ParticipationEventDTO.builder()
+                .memberId(2L).surveyId(1L).statusId(StatusEnum.REJECTED.getId()).build();
+        final ParticipationEventDTO unknownMember = ParticipationEventDTO.builder()
+                .memberId(9L).surveyId(1L).statusId(StatusEnum.COMPLETED.getId()).build();
+        final ParticipationEventDTO unknownStatus = ParticipationEventDTO.builder()
+                .memberId(1L).surveyId(1L).statusId(9L).build();
+
+        // When
+        final IngestResultDTO actual = underTest.record(List.of(unknownMember, valid, unknownStatus))
+                .get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(1, actual.getAccepted());
+        assertEquals(List.of(0, 2), actual.getRejected().stream().map(rejected -> rejected.getIndex()).toList());
+        assertEquals("Unknown member: 9", actual.getRejected().get(0).getReason());
+        assertEquals(1L, surveyService.getSurveyStatistics().get(0).getNumberOfRejected());
+    }
+
+    @Test
+    public void testRecordShouldCompactWhenTheThresholdIsReached() throws Exception {
+        // Given
+        final SurveyProperties properties = new SurveyProperties();
+        properties.getEvents().setCompactionThreshold(2);
+        underTest = writer(properties);
+        final ParticipationEventDTO event = ParticipationEventDTO.builder()
+                .memberId(2L).surveyId(1L).statusId(StatusEnum.COMPLETED.getId()).build();
+
+        // When
+        underTest.record(List.of(event)).get(10, TimeUnit.SECONDS);
+        final int appendedBefore = datasets.current().getParticipations().appendedSize();
+        underTest.record(List.of(event)).get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(1, appendedBefore);
+        assertEquals(0, datasets.current().getParticipations().appendedSize());
+        assertEquals(3, datasets.current().getParticipations().size());
+    }
+
+    @Test
+    public void testRecordShouldNotLogTheEventsWhenTheBackendFails() throws Exception {
+        // Given
+        final SurveyProperties properties = new SurveyProperties();
+        properties.getData().setDirectory(directory.toString());
+        final AtomicBoolean failing = new AtomicBoolean(true);
+        underTest = new ParticipationWriter(datasets, new DatasetLoader(properties, metrics),
+                new MemorySurveyBackend() {
+                    @Override
+                    public void update(final Dataset dataset) {
+                        if (failing.get()) {
+                            throw new IllegalStateException("The database is down");
+                        }
+                    }
+                }, metrics, properties);
+        final ParticipationEventDTO event = ParticipationEventDTO.builder()
+                .memberId(2L).surveyId(1L).statusId(StatusEnum.COMPLETED.getId()).build();
+
+        // When
+        final ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> underTest.record(List.of(event)).get(10, TimeUnit.SECONDS));
+        failing.set(false);
+        underTest.record(List.of(event)).get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals("The database is down", exception.getCause().getMessage());
+        assertEquals(1, underTest.logPosition().sequence());
+        assertEquals(1, datasets.current().getLoggedEvents());
+        assertEquals(2, datasets.current().getParticipations().size());
+    }
+
+    @Test
+    public void testRecordShouldThrowResponseStatusExceptionWhenNoEventsAreGiven() {
+        // Given
+        underTest = writer(new SurveyProperties());
+
+        // When - Then
+        assertThrows(ResponseStatusException.class, () -> underTest.record(List.of()));
+    }
+
+    private ParticipationWriter writer(final SurveyProperties properties) {
+        return new ParticipationWriter(datasets, new DatasetLoader(properties, metrics), new MemorySurveyBackend(),
+                metrics, properties);
+    }
+}
@@ -0,0 +1,128 @@
+package com.demo.survey.service;
+
+import com.demo.survey.config.SurveyProperties;
+import com.demo.survey.metrics.SurveyMetrics.Query;
+import com.demo.survey.model.Member;
+import com.demo.survey.model.StatusEnum;
+import com.demo.survey.model.Survey;
+import com.demo.survey.store.Dataset;
+import com.demo.survey.store.ParticipationStore;
+import com.demo.survey.store.PointsLeaderboard;
+import com.demo.survey.store.SurveyStatistics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final QueryCache.Loader<Long> loader = (dataset, id) -> {
+        loads.incrementAndGet();
+        return id == 0 ? null : List.of(id);
+    };
+
+    @Test
+    public void testGetShouldLoadEachKeyOnceAndCountHitsAndMisses() {
+        // Given
+        final QueryCache underTest = new QueryCache(new SurveyProperties(), registry);
+        final Dataset dataset = Dataset.empty();
+
+        // When
+        final List<Long> first = underTest.get(dataset, Query.SURVEY_MEMBERS, 1, loader);
+        final List<Long> second = underTest.get(dataset, Query.SURVEY_MEMBERS, 1, loader);
+        final List<Long> other = underTest.get(dataset, Query.INVITABLE_MEMBERS, 1, loader);
+
+        // Then
+        assertSame(first, second);
+        assertEquals(List.of(1L), other);
+        assertEquals(2, loads.get());
+        assertEquals(1, underTest.stats().hitCount());
+        assertEquals(2, underTest.stats().missCount());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "survey.query").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    public void testGetShouldCacheUnknownIds() {
+        // Given
+        final QueryCache underTest = new QueryCache(new SurveyProperties(), registry);
+        final Dataset dataset = Dataset.empty();
+
+        // When
+        final List<Long> first = underTest.get(dataset, Query.POINTS, 0, loader);
+        final List<Long> second = underTest.get(dataset, Query.POINTS, 0, loader);
+
+        // Then
+        assertNull(first);
+        assertNull(second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testGetShouldCountAnEntryOfAnOlderStampAsAMiss() {
+        // Given
+        final QueryCache underTest = new QueryCache(new SurveyProperties(), registry);
+        final Survey survey = Survey.builder().id(1L).name("Test Survey").build();
+        final Dataset loaded = Dataset.of(Map.of(), Map.of(1L, survey), ParticipationStore.of(
+                List.of(Member.builder().id(1L).fullName("Test Member").active(true).build()), List.of(survey),
+                List.of()));
+        final ParticipationStore.Appender appender = loaded.getParticipations().appender();
+        appender.add(1L, 1L, StatusEnum.COMPLETED, 5L, true);
+        final ParticipationStore appended = appender.build();
+        final Dataset recorded = loaded.withParticipations(appended, SurveyStatistics.of(appended),
+                PointsLeaderboard.of(appended), 0);
+        underTest.get(loaded, Query.COMPLETED_SURVEYS, 1, loader);
+
+        // When
+        underTest.get(recorded, Query.COMPLETED_SURVEYS, 1, loader);
+        underTest.get(recorded, Query.COMPLETED_SURVEYS, 1, loader);
+
+        // Then
+        assertEquals(2, loads.get());
+        assertEquals(1, underTest.stats().hitCount());
+        assertEquals(2, underTest.stats().missCount());
+        assertEquals(2.0, registry.get("cache.gets").tag("cache", "survey.query").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    public void testGetShouldReloadAfterANewDatasetWasPublished() {
+        // Given
+        final QueryCache underTest = new QueryCache(new SurveyProperties(), registry);
+        final Dataset old = Dataset.empty();
+        underTest.get(old, Query.POINTS, 1, loader);
+
+        // When
+        underTest.get(Dataset.empty(), Query.POINTS, 1, loader);
+        underTest.get(old, Query.POINTS, 1, loader);
+
+        // Then
+        assertEquals(3, loads.get());
+        assertEquals(0, underTest.stats().hitCount());
+    }
+
+    @Test
+    public void testGetShouldAlwaysLoadWhenDisabled() {
+        // Given
+        final SurveyProperties properties = new SurveyProperties();
+        properties.getCache().setEnabled(false);
+        final QueryCache underTest = new QueryCache(properties, registry);
+        final Dataset dataset = Dataset.empty();
+
+        // When
+        underTest.get(dataset, Query.STATISTICS, 0, loader);
+        underTest.get(dataset, Query.STATISTICS, 0, loader);
+
+        // Then
+        assertEquals(2, loads.get());
+        assertEquals(0, underTest.stats().requestCount());
+    }
+}
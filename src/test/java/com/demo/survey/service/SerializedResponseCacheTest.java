@@ -0,0 +1,93 @@
+package com.demo.survey.service;
+
+import com.demo.survey.config.SurveyProperties;
+import com.demo.survey.dto.SurveyDTO;
+import com.demo.survey.store.Dataset;
+import com.demo.survey.util.SerializedResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SerializedResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final SurveyService surveyService = mock(SurveyService.class);
+
+    private final DatasetHolder datasets = mock(DatasetHolder.class);
+
+    private final List<SurveyDTO> surveys = Collections.nCopies(20, SurveyDTO.builder().id(1L).name("Test Survey")
+            .expectedCompletes(10L).completionPoints(12).filteredPoints(5).build());
+
+    private SerializedResponseCache underTest;
+
+    @BeforeEach
+    void testSetup() {
+        final SurveyProperties properties = new SurveyProperties();
+        properties.getCache().setSerializedResponses(true);
+        underTest = new SerializedResponseCache(properties, datasets, surveyService, objectMapper,
+                new SimpleMeterRegistry());
+        when(datasets.current()).thenReturn(Dataset.empty());
+        when(surveyService.getCompletedSurveysForMember(any(Dataset.class), eq(1L))).thenReturn(surveys);
+    }
+
+    @Test
+    public void testCompletedSurveysShouldSerializeOncePerGenerationAndCompress() throws IOException {
+        // When
+        final SerializedResponse first = underTest.completedSurveys(1L);
+        final SerializedResponse second = underTest.completedSurveys(1L);
+        when(datasets.current()).thenReturn(Dataset.empty());
+        final SerializedResponse third = underTest.completedSurveys(1L);
+
+        // Then
+        assertSame(first, second);
+        assertNotSame(first, third);
+        assertArrayEquals(objectMapper.writeValueAsBytes(surveys), first.json());
+        assertNotNull(first.gzip());
+        assertTrue(first.gzip().length < first.json().length);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(first.gzip()))) {
+            assertArrayEquals(first.json(), gzip.readAllBytes());
+        }
+        verify(surveyService, times(2)).getCompletedSurveysForMember(any(Dataset.class), eq(1L));
+    }
+
+    @Test
+    public void testStatisticsShouldBeSerializedWhenTheDatasetIsPublished() {
+        // Given
+        final SurveyProperties properties = new SurveyProperties();
+        properties.getCache().setSerializedResponses(true);
+        final DatasetHolder holder = new DatasetHolder();
+        final SerializedResponseCache cache = new SerializedResponseCache(properties, holder, surveyService,
+                objectMapper, new SimpleMeterRegistry());
+        cache.prepareOnPublish();
+        final Dataset dataset = Dataset.empty();
+        when(surveyService.getSurveyStatistics(dataset)).thenReturn(List.of());
+
+        // When
+        holder.publish(dataset);
+        final SerializedResponse first = cache.statistics();
+        final SerializedResponse second = cache.statistics();
+
+        // Then
+        assertSame(dataset.getSerializedStatistics(), first);
+        assertSame(first, second);
+        assertArrayEquals("[]".getBytes(), first.json());
+        assertNull(first.gzip());
+        verify(surveyService, times(1)).getSurveyStatistics(dataset);
+    }
+}
@@ -1,18 +1,32 @@
 package com.demo.survey.service;
 
+import com.demo.survey.config.SurveyProperties;
+import com.demo.survey.dto.BatchDTO;
 import com.demo.survey.dto.CollectedPointsDTO;
+import com.demo.survey.dto.LeaderboardEntryDTO;
+import com.demo.survey.dto.LengthBucketDTO;
+import com.demo.survey.dto.LengthDistributionDTO;
 import com.demo.survey.dto.MemberDTO;
+import com.demo.survey.dto.MemberPageDTO;
 import com.demo.survey.dto.SurveyDTO;
 import com.demo.survey.dto.SurveyStatisticsDTO;
+import com.demo.survey.metrics.SurveyMetrics;
 import com.demo.survey.model.Member;
 import com.demo.survey.model.Participation;
 import com.demo.survey.model.Status;
+import com.demo.survey.model.StatusEnum;
 import com.demo.survey.model.Survey;
+import com.demo.survey.store.Dataset;
+import com.demo.survey.store.ParticipationStore;
+import com.demo.survey.store.PointsLeaderboard;
+import com.demo.survey.store.SurveyStatistics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.modelmapper.ModelMapper;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -20,7 +34,10 @@ import static org.junit.jupiter.api.Assertions.*;
 
 
 public class SurveyServiceTest {
-    private final SurveyService underTest = new SurveyService(new ModelMapper());
+    private final DatasetHolder datasets = new DatasetHolder();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SurveyService underTest = new SurveyService(datasets, new SurveyMetrics(registry),
+            new QueryCache(new SurveyProperties(), registry), new MemorySurveyBackend());
 
     final Long INVALID_ID = 0L;
     final Long FIRST_ID = 1L;
@@ -52,11 +69,13 @@ public class SurveyServiceTest {
         final Participation participation7 = Participation.builder().member(member1).survey(survey3).status(status2).length(null).build();
         final Participation participation8 = Participation.builder().member(member3).survey(survey3).status(status2).length(null).build();
 
-        SurveyService.memberMap = Map.of(FIRST_ID, member1, SECOND_ID, member2, THIRD_ID, member3);
-        SurveyService.surveyMap = Map.of(FIRST_ID, survey1, SECOND_ID, survey2, THIRD_ID, survey3);
-        SurveyService.statusMap = Map.of(FIRST_ID, status1, SECOND_ID, status2, THIRD_ID, status3, FOURTH_ID, status4);
-        SurveyService.participationList = List.of(participation1, participation2, participation3,
-                participation4, participation5, participation6, participation7, participation8);
+        final Map<Long, Member> memberMap = Map.of(FIRST_ID, member1, SECOND_ID, member2, THIRD_ID, member3);
+        final Map<Long, Survey> surveyMap = Map.of(FIRST_ID, survey1, SECOND_ID, survey2, THIRD_ID, survey3);
+        final Map<Long, Status> statusMap =
+                Map.of(FIRST_ID, status1, SECOND_ID, status2, THIRD_ID, status3, FOURTH_ID, status4);
+        datasets.publish(Dataset.of(statusMap, surveyMap, ParticipationStore.of(memberMap.values(),
+                surveyMap.values(), List.of(participation1, participation2, participation3,
+                        participation4, participation5, participation6, participation7, participation8))));
     }
 
     @Test
@@ -89,6 +108,119 @@ public class SurveyServiceTest {
         assertTrue(actual2.stream().anyMatch(t -> SECOND_ID.equals(t.getId())));
     }
 
+    @Test
+    public void testGetSurveyMembersShouldReuseTheMappedDTOsOfTheDataset() {
+        // Given - When
+        MemberDTO actual1 = underTest.getSurveyMembers(FIRST_ID).get(0);
+        MemberDTO actual2 = underTest.getSurveyMembers(FIRST_ID).get(0);
+
+        // Then
+        assertSame(actual1, actual2);
+        assertEquals(FIRST_ID, actual1.getId());
+        assertEquals("Test Member1", actual1.getFullName());
+        assertEquals("test1@test.com", actual1.getEmail());
+        assertTrue(actual1.getActive());
+    }
+
+    @Test
+    public void testGetSurveyMembersShouldRecordLatencyResultSizeAndNotFound() {
+        // Given - When
+        underTest.getSurveyMembers(FIRST_ID);
+        assertThrows(ResponseStatusException.class, () -> underTest.getSurveyMembers(INVALID_ID));
+
+        // Then
+        assertEquals(2, registry.get("survey.query").tag("query", "getSurveyMembers").timer().count());
+        assertEquals(2.0, registry.get("survey.query.results").tag("query", "getSurveyMembers").summary()
+                .totalAmount());
+        assertEquals(1.0, registry.get("survey.query.not-found").tag("query", "getSurveyMembers").counter()
+                .count());
+    }
+
+    @Test
+    public void testGetSurveyMembersShouldReturnEveryMemberAcrossPages() {
+        // Given
+        final MemberPageDTO first = underTest.getSurveyMembers(FIRST_ID, null, 1);
+
+        // When
+        final MemberPageDTO second = underTest.getSurveyMembers(FIRST_ID, first.getNextCursor(), 1);
+
+        // Then
+        assertEquals(1, first.getMembers().size());
+        assertNotNull(first.getNextCursor());
+        assertEquals(1, second.getMembers().size());
+        assertNull(second.getNextCursor());
+        assertEquals(underTest.getSurveyMembers(FIRST_ID),
+                List.of(first.getMembers().get(0), second.getMembers().get(0)));
+        assertEquals(underTest.getSurveyMembers(FIRST_ID), underTest.streamSurveyMembers(FIRST_ID).toList());
+    }
+
+    @Test
+    public void testGetSurveyMembersShouldRejectInvalidLimitsAndCursors() {
+        // Given - When
+        final ResponseStatusException limit = assertThrows(ResponseStatusException.class,
+                () -> underTest.getSurveyMembers(FIRST_ID, null, SurveyService.MAX_PAGE_SIZE + 1));
+        final ResponseStatusException cursor = assertThrows(ResponseStatusException.class,
+                () -> underTest.getSurveyMembers(FIRST_ID, "not a cursor", 1));
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, limit.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, cursor.getStatusCode());
+    }
+
+    @Test
+    public void testGetSurveyMembersShouldContinueTheCursorAfterNewParticipations() {
+        // Given
+        final Dataset dataset = datasets.current();
+        final MemberPageDTO first = underTest.getSurveyMembers(FIRST_ID, null, 1);
+        final List<MemberDTO> otherSurvey = underTest.getSurveyMembers(SECOND_ID);
+        final ParticipationStore.Appender appender = dataset.getParticipations().appender();
+        appender.add(THIRD_ID, FIRST_ID, StatusEnum.COMPLETED, 20L, true);
+        final ParticipationStore store = appender.build();
+        datasets.publish(dataset.withParticipations(store, SurveyStatistics.of(store), PointsLeaderboard.of(store), 0));
+
+        // When
+        final MemberPageDTO second = underTest.getSurveyMembers(FIRST_ID, first.getNextCursor(), 1);
+        final MemberPageDTO third = underTest.getSurveyMembers(FIRST_ID, second.getNextCursor(), 1);
+
+        // Then
+        assertEquals(List.of(FIRST_ID, SECOND_ID, THIRD_ID),
+                underTest.getSurveyMembers(FIRST_ID).stream().map(MemberDTO::getId).toList());
+        assertEquals(List.of(SECOND_ID), second.getMembers().stream().map(MemberDTO::getId).toList());
+        assertEquals(List.of(THIRD_ID), third.getMembers().stream().map(MemberDTO::getId).toList());
+        assertNull(third.getNextCursor());
+        assertSame(otherSurvey, underTest.getSurveyMembers(SECOND_ID));
+    }
+
+    @Test
+    public void testGetInvitableMemberForSurveyShouldRejectNegativeAndZeroLimits() {
+        // Given - When
+        final ResponseStatusException negative = assertThrows(ResponseStatusException.class,
+                () -> underTest.getInvitableMemberForSurvey(THIRD_ID, null, -1));
+        final ResponseStatusException zero = assertThrows(ResponseStatusException.class,
+                () -> underTest.getInvitableMemberForSurvey(THIRD_ID, null, 0));
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, negative.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, zero.getStatusCode());
+    }
+
+    @Test
+    public void testGetInvitableMemberForSurveyShouldRejectCursorsOfAnOlderDataset() {
+        // Given
+        final Dataset dataset = datasets.current();
+        final MemberPageDTO first = underTest.getInvitableMemberForSurvey(THIRD_ID, null, 1);
+        datasets.publish(Dataset.of(dataset.getStatusMap(), dataset.getSurveyMap(), dataset.getParticipations()));
+
+        // When
+        final ResponseStatusException actual = assertThrows(ResponseStatusException.class,
+                () -> underTest.getInvitableMemberForSurvey(THIRD_ID, new PageCursor(dataset.getGeneration(), 0).encode(), 1));
+
+        // Then
+        assertEquals(List.of(SECOND_ID), first.getMembers().stream().map(MemberDTO::getId).toList());
+        assertNull(first.getNextCursor());
+        assertEquals(HttpStatus.GONE, actual.getStatusCode());
+    }
+
     @Test
     public void testGetCompletedSurveysForMemberShouldThrowResponseStatusExceptionWhenMemberNotFound() {
         // Given - When - Then
@@ -117,6 +249,12 @@ public class SurveyServiceTest {
         assertEquals(2, actual2.size());
         assertTrue(actual2.stream().anyMatch(t -> FIRST_ID.equals(t.getId())));
         assertTrue(actual2.stream().anyMatch(t -> SECOND_ID.equals(t.getId())));
+
+        SurveyDTO survey = actual1.get(0);
+        assertEquals("Test Survey1", survey.getName());
+        assertEquals(10L, survey.getExpectedCompletes());
+        assertEquals(12, survey.getCompletionPoints());
+        assertEquals(5, survey.getFilteredPoints());
     }
 
     @Test
@@ -154,6 +292,33 @@ public class SurveyServiceTest {
         assertTrue(actual2.stream().anyMatch(t -> t.getCollectedPoints().equals(12)));
     }
 
+    @Test
+    public void testGetPointsForMembersShouldReturnResultsByIdAndReportUnknownIds() {
+        // Given - When
+        BatchDTO<CollectedPointsDTO> actual = underTest.getPointsForMembers(
+                List.of(SECOND_ID, INVALID_ID, FIRST_ID, SECOND_ID, THIRD_ID));
+
+        // Then
+        assertEquals(List.of(SECOND_ID, FIRST_ID, THIRD_ID), List.copyOf(actual.getResults().keySet()));
+        assertEquals(underTest.getPointsForMember(FIRST_ID), actual.getResults().get(FIRST_ID));
+        assertEquals(underTest.getPointsForMember(SECOND_ID), actual.getResults().get(SECOND_ID));
+        assertTrue(actual.getResults().get(THIRD_ID).isEmpty());
+        assertEquals(List.of(INVALID_ID), actual.getUnknownIds());
+    }
+
+    @Test
+    public void testGetPointsForMembersShouldThrowBadRequestWhenTooManyIdsAreGiven() {
+        // Given
+        final List<Long> memberIds = Collections.nCopies(SurveyService.MAX_BATCH_SIZE + 1, FIRST_ID);
+
+        // When
+        ResponseStatusException actual =
+                assertThrows(ResponseStatusException.class, () -> underTest.getPointsForMembers(memberIds));
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, actual.getStatusCode());
+    }
+
     @Test
     public void testGetInvitableMemberForSurveyShouldThrowResponseStatusExceptionWhenSurveyNotFound() {
         // Given - When - Then
@@ -214,4 +379,68 @@ public class SurveyServiceTest {
         assertEquals(2, statistics3.getNumberOfRejected());
     }
 
+    @Test
+    public void testGetSurveyStatisticsShouldReflectRecordedParticipations() {
+        // Given
+        final Dataset dataset = datasets.current();
+        final int surveyOrdinal = dataset.getParticipations().surveyOrdinal(THIRD_ID);
+        dataset.getStatistics().record(surveyOrdinal, StatusEnum.COMPLETED.ordinal(), 40L, true);
+
+        // When
+        List<SurveyStatisticsDTO> actual = underTest.getSurveyStatistics();
+
+        // Then
+        SurveyStatisticsDTO statistics3 = actual.stream().filter(t -> THIRD_ID.equals(t.getSurveyId())).findFirst()
+                .orElseThrow();
+        assertEquals(40.0, statistics3.getAverageLengthSpent());
+        assertEquals(1, statistics3.getNumberOfCompletes());
+        assertEquals(2, statistics3.getNumberOfRejected());
+    }
+
+    @Test
+    public void testGetLengthDistributionShouldReturnTheQuantilesOfTheKnownLengths() {
+        // Given - When
+        LengthDistributionDTO actual = underTest.getLengthDistribution(FIRST_ID);
+
+        // Then
+        assertEquals(2L, actual.getNumberOfLengths());
+        assertEquals(5.0, actual.getMedianLength());
+        assertEquals(10.0, actual.getP90Length());
+        assertEquals(10.0, actual.getP99Length());
+        assertEquals(List.of(5L, 10L), actual.getHistogram().stream().map(LengthBucketDTO::getLowerBound).toList());
+    }
+
+    @Test
+    public void testGetLengthDistributionShouldThrowResponseStatusExceptionWhenSurveyNotFound() {
+        // Given - When - Then
+        assertThrows(ResponseStatusException.class, () -> underTest.getLengthDistribution(INVALID_ID));
+    }
+
+    @Test
+    public void testGetLeaderboardShouldRankTheMembersByTotalPoints() {
+        // Given - When
+        List<LeaderboardEntryDTO> actual = underTest.getLeaderboard(2);
+
+        // Then
+        assertEquals(List.of(SECOND_ID, FIRST_ID), actual.stream().map(LeaderboardEntryDTO::getMemberId).toList());
+        assertEquals(List.of(32L, 22L), actual.stream().map(LeaderboardEntryDTO::getTotalPoints).toList());
+        assertEquals(List.of(1, 2), actual.stream().map(LeaderboardEntryDTO::getRank).toList());
+    }
+
+    @Test
+    public void testGetLeaderboardEntryShouldReturnTheRankOfTheMember() {
+        // Given - When
+        LeaderboardEntryDTO actual = underTest.getLeaderboardEntry(THIRD_ID);
+
+        // Then
+        assertEquals(3, actual.getRank());
+        assertEquals(0L, actual.getTotalPoints());
+        assertEquals("Test Member3", actual.getFullName());
+    }
+
+    @Test
+    public void testGetLeaderboardEntryShouldThrowResponseStatusExceptionWhenMemberNotFound() {
+        // Given - When - Then
+        assertThrows(ResponseStatusException.class, () -> underTest.getLeaderboardEntry(INVALID_ID));
+    }
 }
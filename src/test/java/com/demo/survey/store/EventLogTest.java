@@ -0,0 +1,178 @@
+package com.demo.survey.store;
+
+import com.demo.survey.model.StatusEnum;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testReplayShouldReturnTheWrittenEventsFromTheGivenSequence() throws IOException {
+        // Given
+        final Path path = directory.resolve("events.log");
+        final long id;
+        try (EventLog log = EventLog.open(path)) {
+            id = log.id();
+            log.add(1L, 10L, StatusEnum.COMPLETED, 5L, true);
+            log.add(2L, 10L, StatusEnum.NOT_ASKED, 0L, false);
+            log.write();
+            log.add(3L, 20L, StatusEnum.REJECTED, 7L, true);
+            log.write();
+            log.add(4L, 20L, StatusEnum.FILTERED, 0L, false);
+            log.discard();
+            log.write();
+        }
+        final List<String> events = new ArrayList<>();
+
+        // When
+        try (EventLog log = EventLog.open(path)) {
+            final long replayed = log.replay(1, (memberId, surveyId, status, length, hasLength) ->
+                    events.add(memberId + "," + surveyId + "," + status + "," + (hasLength ? length : null)));
+
+            // Then
+            assertEquals(id, log.id());
+            assertEquals(3, log.sequence());
+            assertEquals(2, replayed);
+        }
+        assertEquals(List.of("2,10,NOT_ASKED,null", "3,20,REJECTED,7"), events);
+    }
+
+    @Test
+    public void testOpenShouldTruncateTheLogAtTheFirstCorruptRecord() throws IOException {
+        // Given
+        final Path path = directory.resolve("events.log");
+        final long validSize;
+        try (EventLog log = EventLog.open(path)) {
+            log.add(1L, 10L, StatusEnum.COMPLETED, 5L, true);
+            log.write();
+            validSize = Files.size(path);
+            log.add(2L, 10L, StatusEnum.COMPLETED, 6L, true);
+            log.write();
+        }
+        final byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(path, bytes);
+
+        // When
+        try (EventLog log = EventLog.open(path)) {
+
+            // Then
+            assertEquals(1, log.sequence());
+            assertEquals(bytes.length - validSize, log.truncatedBytes());
+        }
+        assertEquals(validSize, Files.size(path));
+    }
+
+    @Test
+    public void testRewindShouldRemoveTheLastRecord() throws IOException {
+        // Given
+        final Path path = directory.resolve("events.log");
+        final long validSize;
+        try (EventLog log = EventLog.open(path)) {
+            log.add(1L, 10L, StatusEnum.COMPLETED, 5L, true);
+            log.write();
+            validSize = Files.size(path);
+            log.add(2L, 10L, StatusEnum.COMPLETED, 6L, true);
+            log.add(3L, 10L, StatusEnum.COMPLETED, 7L, true);
+            log.write();
+
+            // When
+            log.rewind();
+
+            // Then
+            assertEquals(1, log.sequence());
+            assertEquals(validSize, Files.size(path));
+            assertThrows(IllegalStateException.class, log::rewind);
+            log.add(4L, 10L, StatusEnum.FILTERED, 0L, false);
+            log.write();
+        }
+        final List<Long> members = new ArrayList<>();
+        try (EventLog log = EventLog.open(path)) {
+            log.replay(0, (memberId, surveyId, status, length, hasLength) -> members.add(memberId));
+            assertEquals(0, log.truncatedBytes());
+        }
+        assertEquals(List.of(1L, 4L), members);
+    }
+
+    @Test
+    public void testRebaseShouldDropTheEventsBeforeTheSequence() throws IOException {
+        // Given
+        final Path path = directory.resolve("events.log");
+        final long id;
+        final long size;
+        try (EventLog log = EventLog.open(path)) {
+            id = log.id();
+            for (long memberId = 1; memberId <= 3; memberId++) {
+                log.add(memberId, 10L, StatusEnum.COMPLETED, memberId, true);
+                log.write();
+            }
+            size = Files.size(path);
+
+            // When
+            log.rebase(2, 42L);
+            log.add(4L, 10L, StatusEnum.REJECTED, 0L, false);
+            log.write();
+        }
+        final List<Long> members = new ArrayList<>();
+
+        // Then
+        try (EventLog log = EventLog.open(path)) {
+            log.replay(0, (memberId, surveyId, status, length, hasLength) -> members.add(memberId));
+            assertEquals(new EventLog.Position(id, 2, 4), log.position());
+            assertEquals(42L, log.baseline());
+            assertThrows(IllegalArgumentException.class, () -> log.rebase(1, 42L));
+        }
+        assertEquals(List.of(3L, 4L), members);
+        assertTrue(Files.size(path) < size);
+        assertFalse(Files.exists(directory.resolve("events.log.tmp")));
+    }
+
+    @Test
+    public void testReplayShouldSeekToTheIndexedRecords() throws IOException {
+        // Given
+        final Path path = directory.resolve("events.log");
+        final int events = (int) (3 * EventLog.INDEX_INTERVAL / 25);
+        try (EventLog log = EventLog.open(path)) {
+            for (long memberId = 0; memberId < events; memberId++) {
+                log.add(memberId, 10L, StatusEnum.COMPLETED, 0L, false);
+                if (memberId % 1000 == 999) {
+                    log.write();
+                }
+            }
+            log.write();
+        }
+        final List<Long> members = new ArrayList<>();
+
+        // When
+        try (EventLog log = EventLog.open(path)) {
+            final long replayed = log.replay(events - 1500,
+                    (memberId, surveyId, status, length, hasLength) -> members.add(memberId));
+
+            // Then
+            assertEquals(1500, replayed);
+        }
+        assertEquals(events - 1500, members.get(0));
+        assertEquals(events - 1, members.get(members.size() - 1));
+    }
+
+    @Test
+    public void testOpenShouldRejectAFileThatIsNotAnEventLog() throws IOException {
+        // Given
+        final Path path = directory.resolve("events.log");
+        Files.writeString(path, "Member Id,Survey Id,Status,Length\n1,1,4,10\n");
+
+        // When - Then
+        assertThrows(IOException.class, () -> EventLog.open(path));
+    }
+}
@@ -0,0 +1,49 @@
+package com.demo.survey.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LengthHistogramTest {
+
+    @Test
+    public void testBucketShouldBeBetweenTheBoundsOfTheBucket() {
+        // Given
+        final long[] lengths = {-5, 0, 1, 31, 32, 33, 63, 64, 1000, 123_456_789, Long.MAX_VALUE};
+
+        // When - Then
+        for (final long length : lengths) {
+            final int bucket = LengthHistogram.bucket(length);
+            assertTrue(bucket >= 0 && bucket < LengthHistogram.BUCKET_COUNT);
+            assertTrue(LengthHistogram.lowerBound(bucket) <= Math.max(0, length));
+            assertTrue(LengthHistogram.upperBound(bucket) >= length);
+        }
+        for (int bucket = 1; bucket < LengthHistogram.BUCKET_COUNT; bucket++) {
+            assertEquals(LengthHistogram.upperBound(bucket - 1) + 1, LengthHistogram.lowerBound(bucket));
+        }
+        assertEquals(Long.MAX_VALUE, LengthHistogram.upperBound(LengthHistogram.BUCKET_COUNT - 1));
+    }
+
+    @Test
+    public void testQuantileShouldBeCloseToTheExactQuantileOfSkewedLengths() {
+        // Given
+        final Random random = new Random(42);
+        final long[] lengths = new long[10_000];
+        final long[] counts = new long[LengthHistogram.BUCKET_COUNT];
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = i % 100 == 0 ? 1_000_000 + random.nextInt(1_000_000) : 60 + random.nextInt(600);
+            counts[LengthHistogram.bucket(lengths[i])]++;
+        }
+        Arrays.sort(lengths);
+
+        // When - Then
+        for (final double quantile : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            final long exact = lengths[(int) Math.ceil(quantile * lengths.length) - 1];
+            final double actual = LengthHistogram.quantile(counts, lengths.length, quantile);
+            assertEquals(exact, actual, exact / 32.0);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.demo.survey.store;
+
+import com.demo.survey.model.Member;
+import com.demo.survey.model.Participation;
+import com.demo.survey.model.Status;
+import com.demo.survey.model.StatusEnum;
+import com.demo.survey.model.Survey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParticipationStoreTest {
+
+    private ParticipationStore underTest;
+
+    @BeforeEach
+    public void testSetup() {
+        final Member member1 = Member.builder().id(20L).fullName("Test Member1").active(true).build();
+        final Member member2 = Member.builder().id(10L).fullName("Test Member2").active(true).build();
+        final Survey survey1 = Survey.builder().id(5L).name("Test Survey1").build();
+        final Status completed = Status.builder().id(StatusEnum.COMPLETED.getId()).name("Completed").build();
+        final Status rejected = Status.builder().id(StatusEnum.REJECTED.getId()).name("Rejected").build();
+        final Member unknownMember = Member.builder().id(99L).build();
+
+        underTest = ParticipationStore.of(List.of(member1, member2), List.of(survey1), List.of(
+                Participation.builder().member(member1).survey(survey1).status(completed).length(10L).build(),
+                Participation.builder().member(member2).survey(survey1).status(rejected).length(null).build(),
+                Participation.builder().member(unknownMember).survey(survey1).status(completed).length(1L).build(),
+                Participation.builder().member(member2).survey(survey1).status(completed).length(300L).build()));
+    }
+
+    @Test
+    public void testOfShouldSkipRowsWithUnresolvedReferences() {
+        // Given - When - Then
+        assertEquals(3, underTest.size());
+        assertEquals(LongIntHashMap.MISSING, underTest.memberOrdinal(99L));
+    }
+
+    @Test
+    public void testOrdinalsShouldFollowAscendingIds() {
+        // Given - When - Then
+        assertEquals(0, underTest.memberOrdinal(10L));
+        assertEquals(1, underTest.memberOrdinal(20L));
+        assertEquals(10L, underTest.member(0).getId());
+    }
+
+    @Test
+    public void testColumnsShouldKeepLengthPresence() {
+        // Given - When - Then
+        assertTrue(underTest.hasLengthAt(0));
+        assertEquals(10L, underTest.lengthAt(0));
+        assertFalse(underTest.hasLengthAt(1));
+        assertEquals(StatusEnum.REJECTED, underTest.statusAt(1));
+        assertEquals(300L, underTest.lengthAt(2));
+    }
+
+    @Test
+    public void testIndexesShouldReturnMatchingRowsInRowOrder() {
+        // Given
+        final int survey = underTest.surveyOrdinal(5L);
+        final List<Integer> completedRows = new ArrayList<>();
+        final List<Integer> memberRows = new ArrayList<>();
+
+        // When
+        underTest.forEachRowOfSurvey(survey, StatusEnum.COMPLETED, completedRows::add);
+        underTest.forEachRowOfMember(underTest.memberOrdinal(10L), StatusEnum.COMPLETED, memberRows::add);
+
+        // Then
+        assertEquals(List.of(0, 2), completedRows);
+        assertEquals(List.of(2), memberRows);
+        assertEquals(1, underTest.countBySurvey(survey, StatusEnum.REJECTED));
+        assertEquals(0, underTest.countBySurvey(survey, StatusEnum.FILTERED));
+    }
+
+    @Test
+    public void testInvitableMembersShouldExcludeParticipantsNotAskedAndInactiveMembers() {
+        // Given
+        final Member active = Member.builder().id(1L).active(true).build();
+        final Member inactive = Member.builder().id(2L).active(false).build();
+        final Member notAsked = Member.builder().id(3L).active(true).build();
+        final Member participant = Member.builder().id(4L).active(true).build();
+        final Survey survey1 = Survey.builder().id(1L).build();
+        final Survey survey2 = Survey.builder().id(2L).build();
+        final Status notAskedStatus = Status.builder().id(StatusEnum.NOT_ASKED.getId()).build();
+        final Status filteredStatus = Status.builder().id(StatusEnum.FILTERED.getId()).build();
+        final ParticipationStore store = ParticipationStore.of(List.of(active, inactive, notAsked, participant),
+                List.of(survey1, survey2), List.of(
+                        Participation.builder().member(notAsked).survey(survey2).status(notAskedStatus).build(),
+                        Participation.builder().member(participant).survey(survey1).status(filteredStatus).build()));
+
+        // When
+        final BitSet actual1 = store.invitableMembers(store.surveyOrdinal(1L));
+        final BitSet actual2 = store.invitableMembers(store.surveyOrdinal(2L));
+
+        // Then
+        assertEquals(1, actual1.cardinality());
+        assertTrue(actual1.get(store.memberOrdinal(1L)));
+        assertEquals(2, actual2.cardinality());
+        assertTrue(actual2.get(store.memberOrdinal(4L)));
+    }
+
+    @Test
+    public void testAppendedRowsShouldBeIndexedLikeCompactedRows() {
+        // Given
+        final int survey = underTest.surveyOrdinal(5L);
+        final ParticipationStore.Appender appender = underTest.appender();
+        assertTrue(appender.add(10L, 5L, StatusEnum.COMPLETED, 20L, true));
+        assertTrue(appender.add(20L, 5L, StatusEnum.NOT_ASKED, 0L, false));
+        assertFalse(appender.add(99L, 5L, StatusEnum.COMPLETED, 1L, true));
+
+        // When
+        final ParticipationStore appended = appender.build();
+        final ParticipationStore compacted = appended.compact();
+
+        // Then
+        assertEquals(3, underTest.size());
+        for (final ParticipationStore store : List.of(appended, compacted)) {
+            final List<Integer> completedRows = new ArrayList<>();
+            final List<Integer> page = new ArrayList<>();
+            store.forEachRowOfSurvey(survey, StatusEnum.COMPLETED, completedRows::add);
+            final int passed = store.forEachRowOfSurvey(survey, StatusEnum.COMPLETED, 1, 5, page::add);
+            assertEquals(5, store.size());
+            assertEquals(List.of(0, 2, 3), completedRows);
+            assertEquals(List.of(2, 3), page);
+            assertEquals(2, passed);
+            assertEquals(20L, store.lengthAt(3));
+            assertFalse(store.hasLengthAt(4));
+            assertEquals(2, store.countByMember(store.memberOrdinal(10L), StatusEnum.COMPLETED));
+            assertTrue(store.invitableMembers(survey).isEmpty());
+        }
+        assertEquals(2, appended.appendedSize());
+        assertEquals(0, compacted.appendedSize());
+    }
+
+    @Test
+    public void testRowsEndShouldOnlyMoveWithTheRowsOfTheKey() {
+        // Given
+        final int survey = underTest.surveyOrdinal(5L);
+        final int member = underTest.memberOrdinal(20L);
+        final ParticipationStore.Appender first = underTest.appender();
+        first.add(10L, 5L, StatusEnum.NOT_ASKED, 0L, false);
+        final ParticipationStore older = first.build();
+        final ParticipationStore.Appender second = older.appender();
+        second.add(20L, 5L, StatusEnum.COMPLETED, 1L, true);
+
+        // When
+        final ParticipationStore newer = second.build();
+
+        // Then
+        assertEquals(3, underTest.rowsOfSurveyEnd(survey, StatusEnum.COMPLETED));
+        assertEquals(0, underTest.rowsOfSurveyEnd(survey, StatusEnum.FILTERED));
+        assertEquals(0, underTest.notAskedRowsEnd());
+        assertEquals(3, older.rowsOfSurveyEnd(survey, StatusEnum.COMPLETED));
+        assertEquals(1, older.rowsOfMemberEnd(member, StatusEnum.COMPLETED));
+        assertEquals(4, older.notAskedRowsEnd());
+        for (final ParticipationStore store : List.of(newer, newer.compact())) {
+            assertEquals(5, store.rowsOfSurveyEnd(survey, StatusEnum.COMPLETED));
+            assertEquals(5, store.rowsOfMemberEnd(member, StatusEnum.COMPLETED));
+            assertEquals(4, store.notAskedRowsEnd());
+        }
+    }
+
+    @Test
+    public void testAppenderOfAnOlderStoreShouldNotChangeNewerStores() {
+        // Given
+        final int survey = underTest.surveyOrdinal(5L);
+        final ParticipationStore.Appender first = underTest.appender();
+        first.add(10L, 5L, StatusEnum.COMPLETED, 1L, true);
+        final ParticipationStore older = first.build();
+        final ParticipationStore.Appender second = older.appender();
+        second.add(10L, 5L, StatusEnum.COMPLETED, 2L, true);
+        final ParticipationStore newer = second.build();
+
+        // When
+        final ParticipationStore.Appender stale = older.appender();
+        stale.add(20L, 5L, StatusEnum.COMPLETED, 3L, true);
+        final ParticipationStore forked = stale.build();
+
+        // Then
+        assertEquals(4, older.size());
+        assertEquals(3, older.countBySurvey(survey, StatusEnum.COMPLETED));
+        assertEquals(5, newer.size());
+        assertEquals(2L, newer.lengthAt(4));
+        assertEquals(5, forked.size());
+        assertEquals(3L, forked.lengthAt(4));
+        assertEquals(List.of(0, 2, 3, 4), forked.rowsOfSurvey(survey, StatusEnum.COMPLETED).boxed().toList());
+    }
+
+    @Test
+    public void testLongIntHashMapShouldGrowAndKeepEntries() {
+        // Given
+        final LongIntHashMap map = new LongIntHashMap(2);
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            map.put(i * 31L - 500, i);
+        }
+
+        // Then
+        assertEquals(1000, map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, map.get(i * 31L - 500));
+        }
+        assertEquals(LongIntHashMap.MISSING, map.get(1L));
+    }
+}
@@ -0,0 +1,94 @@
+package com.demo.survey.store;
+
+import com.demo.survey.model.Member;
+import com.demo.survey.model.StatusEnum;
+import com.demo.survey.model.Survey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PartitionedAggregationTest {
+
+    private ParticipationStore store;
+
+    @BeforeEach
+    public void testSetup() {
+        final List<Member> members = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            members.add(Member.builder().id(id).fullName("Test Member" + id).active(true).build());
+        }
+        final List<Survey> surveys = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            surveys.add(Survey.builder().id(id).name("Test Survey" + id).build());
+        }
+        final ParticipationStore.Builder builder = ParticipationStore.builder(members, surveys, 0);
+        final Random random = new Random(42);
+        final StatusEnum[] statuses = StatusEnum.values();
+        for (int row = 0; row < 1000; row++) {
+            builder.add(1 + random.nextInt(20), 1 + random.nextInt(5), statuses[random.nextInt(statuses.length)],
+                    random.nextInt(100), random.nextBoolean());
+        }
+        store = builder.build();
+    }
+
+    @Test
+    public void testAggregateShouldMergeThePartitionsInRowOrder() {
+        // Given
+        final PartitionedAggregation.Aggregator<List<Integer>> rows = new PartitionedAggregation.Aggregator<>() {
+            @Override
+            public List<Integer> create() {
+                return new ArrayList<>();
+            }
+
+            @Override
+            public void accumulate(final List<Integer> partial, final ParticipationStore store, final int fromRow,
+                                   final int toRow) {
+                for (int row = fromRow; row < toRow; row++) {
+                    partial.add(row);
+                }
+            }
+
+            @Override
+            public void merge(final List<Integer> into, final List<Integer> other) {
+                into.addAll(other);
+            }
+        };
+
+        // When
+        final List<Integer> actual = PartitionedAggregation.aggregate(store, rows, 7);
+
+        // Then
+        assertEquals(store.size(), actual.size());
+        for (int row = 0; row < actual.size(); row++) {
+            assertEquals(row, actual.get(row));
+        }
+    }
+
+    @Test
+    public void testSurveyStatisticsShouldNotDependOnThePartitionSize() {
+        // Given
+        final SurveyStatistics expected = SurveyStatistics.of(store, Integer.MAX_VALUE);
+
+        // When
+        final SurveyStatistics actual = SurveyStatistics.of(store, 3);
+
+        // Then
+        for (int surveyOrdinal = 0; surveyOrdinal < store.surveyCount(); surveyOrdinal++) {
+            assertEquals(expected.participations(surveyOrdinal), actual.participations(surveyOrdinal));
+            assertEquals(expected.averageLength(surveyOrdinal), actual.averageLength(surveyOrdinal));
+            assertEquals(expected.lengthQuantile(surveyOrdinal, 0.9), actual.lengthQuantile(surveyOrdinal, 0.9));
+            for (int bucket = 0; bucket < LengthHistogram.BUCKET_COUNT; bucket++) {
+                assertEquals(expected.lengthBucketCount(surveyOrdinal, bucket),
+                        actual.lengthBucketCount(surveyOrdinal, bucket));
+            }
+            for (final StatusEnum status : StatusEnum.values()) {
+                assertEquals(expected.count(surveyOrdinal, status), actual.count(surveyOrdinal, status));
+            }
+        }
+    }
+}
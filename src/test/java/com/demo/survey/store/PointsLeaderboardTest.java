@@ -0,0 +1,96 @@
+package com.demo.survey.store;
+
+import com.demo.survey.model.Member;
+import com.demo.survey.model.Participation;
+import com.demo.survey.model.Status;
+import com.demo.survey.model.StatusEnum;
+import com.demo.survey.model.Survey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PointsLeaderboardTest {
+
+    private ParticipationStore store;
+
+    private PointsLeaderboard underTest;
+
+    @BeforeEach
+    public void testSetup() {
+        final List<Member> members = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            members.add(Member.builder().id(id).fullName("Test Member" + id).active(true).build());
+        }
+        final Survey survey1 = Survey.builder().id(1L).name("Test Survey1").completionPoints(10).filteredPoints(2)
+                .build();
+        final Survey survey2 = Survey.builder().id(2L).name("Test Survey2").completionPoints(null).filteredPoints(3)
+                .build();
+        final Status completed = Status.builder().id(StatusEnum.COMPLETED.getId()).name("Completed").build();
+        final Status filtered = Status.builder().id(StatusEnum.FILTERED.getId()).name("Filtered").build();
+        final Status rejected = Status.builder().id(StatusEnum.REJECTED.getId()).name("Rejected").build();
+
+        store = ParticipationStore.of(members, List.of(survey1, survey2), List.of(
+                Participation.builder().member(members.get(0)).survey(survey1).status(filtered).build(),
+                Participation.builder().member(members.get(1)).survey(survey1).status(completed).build(),
+                Participation.builder().member(members.get(2)).survey(survey1).status(completed).build(),
+                Participation.builder().member(members.get(2)).survey(survey2).status(completed).build(),
+                Participation.builder().member(members.get(3)).survey(survey2).status(filtered).build(),
+                Participation.builder().member(members.get(4)).survey(survey1).status(rejected).build()));
+        underTest = PointsLeaderboard.of(store);
+    }
+
+    @Test
+    public void testOfShouldRankTheMembersByTotalPoints() {
+        // Given - When
+        final List<Long> top = new ArrayList<>();
+        underTest.forEachTop(4, memberOrdinal -> top.add(store.member(memberOrdinal).getId()));
+
+        // Then
+        assertEquals(List.of(2L, 3L, 4L, 1L), top);
+        assertEquals(10L, underTest.total(store.memberOrdinal(3L)));
+        assertEquals(1, underTest.rank(store.memberOrdinal(2L)));
+        assertEquals(1, underTest.rank(store.memberOrdinal(3L)));
+        assertEquals(3, underTest.rank(store.memberOrdinal(4L)));
+        assertEquals(5, underTest.rank(store.memberOrdinal(5L)));
+    }
+
+    @Test
+    public void testUpdaterShouldMatchARebuiltLeaderboardAndKeepThePreviousOne() {
+        // Given
+        final Random random = new Random(42);
+        final ParticipationStore.Appender appender = store.appender();
+        final PointsLeaderboard.Updater updater = underTest.updater();
+        final StatusEnum[] statuses = StatusEnum.values();
+
+        // When
+        for (int event = 0; event < 200; event++) {
+            final long memberId = 1 + random.nextInt(5);
+            final long surveyId = 1 + random.nextInt(2);
+            final StatusEnum status = statuses[random.nextInt(statuses.length)];
+            appender.add(memberId, surveyId, status, 0L, false);
+            updater.record(store.memberOrdinal(memberId), store.surveyOrdinal(surveyId), status.ordinal());
+        }
+        final PointsLeaderboard actual = updater.build();
+        final PointsLeaderboard expected = PointsLeaderboard.of(appender.build());
+
+        // Then
+        assertEquals(top(expected), top(actual));
+        for (int memberOrdinal = 0; memberOrdinal < store.memberCount(); memberOrdinal++) {
+            assertEquals(expected.total(memberOrdinal), actual.total(memberOrdinal));
+            assertEquals(expected.rank(memberOrdinal), actual.rank(memberOrdinal));
+        }
+        assertEquals(List.of(1, 2, 3, 0, 4), top(underTest));
+        assertEquals(2L, underTest.total(store.memberOrdinal(1L)));
+    }
+
+    private static List<Integer> top(final PointsLeaderboard leaderboard) {
+        final List<Integer> result = new ArrayList<>();
+        leaderboard.forEachTop(leaderboard.memberCount(), result::add);
+        return result;
+    }
+}
@@ -0,0 +1,52 @@
+package com.demo.survey.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StringArenaTest {
+
+    @Test
+    public void testAddShouldStoreEqualStringsOnce() {
+        // Given
+        final StringArena.Builder builder = StringArena.builder();
+
+        // When
+        final int first = builder.add("Doe, \"Jane\"");
+        final int second = builder.add("Árvíztűrő Tükörfúrógép");
+        final int repeated = builder.add(new String("Doe, \"Jane\""));
+        final int empty = builder.add("");
+        final StringArena actual = builder.build();
+
+        // Then
+        assertEquals(first, repeated);
+        assertEquals(3, actual.size());
+        assertEquals("Doe, \"Jane\"", actual.get(first));
+        assertEquals("Árvíztűrő Tükörfúrógép", actual.get(second));
+        assertEquals("", actual.get(empty));
+        assertEquals(StringArena.NULL, builder.add(null));
+        assertNull(actual.get(StringArena.NULL));
+    }
+
+    @Test
+    public void testBuildShouldKeepEveryStringWhenTheBuilderGrows() {
+        // Given
+        final StringArena.Builder builder = StringArena.builder();
+        final List<Integer> ids = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(builder.add("member" + (i % 5_000) + "@example.com"));
+        }
+        final StringArena actual = builder.build();
+
+        // Then
+        assertEquals(5_000, actual.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals("member" + (i % 5_000) + "@example.com", actual.get(ids.get(i)));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.demo.survey.store;
+
+import com.demo.survey.model.StatusEnum;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SurveyStatisticsTest {
+
+    @Test
+    public void testCopyShouldNotChangeTheHistogramsOfTheOriginal() {
+        // Given
+        final SurveyStatistics original = new SurveyStatistics(2);
+        original.record(0, StatusEnum.COMPLETED.ordinal(), 10, true);
+
+        // When
+        final SurveyStatistics copy = original.copy();
+        copy.record(0, StatusEnum.COMPLETED.ordinal(), 10, true);
+        copy.record(1, StatusEnum.COMPLETED.ordinal(), 1000, true);
+        copy.record(1, StatusEnum.REJECTED.ordinal(), 0, false);
+
+        // Then
+        assertEquals(1, original.lengthBucketCount(0, LengthHistogram.bucket(10)));
+        assertEquals(0, original.lengthBucketCount(1, LengthHistogram.bucket(1000)));
+        assertTrue(Double.isNaN(original.lengthQuantile(1, 0.5)));
+        assertEquals(2, copy.lengthBucketCount(0, LengthHistogram.bucket(10)));
+        assertEquals(1, copy.lengthCount(1));
+        assertEquals(1000, copy.lengthQuantile(1, 0.5), 1000 / 32.0);
+    }
+}
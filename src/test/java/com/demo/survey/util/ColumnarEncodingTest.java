@@ -0,0 +1,66 @@
+package com.demo.survey.util;
+
+import com.demo.survey.dto.LeaderboardEntryDTO;
+import com.demo.survey.dto.MemberDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarEncodingTest {
+
+    @Test
+    public void testWriteShouldWriteEveryFieldAsAColumn() throws IOException {
+        // Given
+        final List<MemberDTO> members = List.of(
+                MemberDTO.builder().id(7L).fullName("Ági").email("a@test.com").active(true).build(),
+                MemberDTO.builder().id(9L).fullName("Bob").active(false).build());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        ColumnarEncoding.write(members, out);
+        final ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+
+        // Then
+        assertEquals(2, buffer.getInt());
+        assertEquals(0b11, buffer.get());
+        assertEquals(7L, buffer.getLong());
+        assertEquals(9L, buffer.getLong());
+        assertEquals(0b11, buffer.get());
+        assertEquals(0, buffer.getInt());
+        assertEquals(4, buffer.getInt());
+        assertEquals(7, buffer.getInt());
+        final byte[] names = new byte[7];
+        buffer.get(names);
+        assertEquals("ÁgiBob", new String(names, StandardCharsets.UTF_8));
+        assertEquals(0b01, buffer.get());
+        assertEquals(0, buffer.getInt());
+        assertEquals(10, buffer.getInt());
+        assertEquals(10, buffer.getInt());
+        buffer.position(buffer.position() + 10);
+        assertEquals(0b11, buffer.get());
+        assertEquals(1, buffer.get());
+        assertEquals(0, buffer.get());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testWriteShouldRejectUnsupportedTypes() {
+        // Given
+        final List<LeaderboardEntryDTO> entries = List.of(LeaderboardEntryDTO.builder().build());
+
+        // When
+        final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> ColumnarEncoding.write(entries, new ByteArrayOutputStream()));
+
+        // Then
+        assertTrue(exception.getMessage().contains(LeaderboardEntryDTO.class.getName()));
+        assertTrue(ColumnarEncoding.supports(MemberDTO.class));
+        assertFalse(ColumnarEncoding.supports(LeaderboardEntryDTO.class));
+    }
+}